@@ -0,0 +1,282 @@
+package de.soderer.restclient;
+
+import java.io.File;
+import java.time.Duration;
+
+import de.soderer.restclient.helper.CsvDataSource.RowSelection;
+import de.soderer.restclient.helper.RandomSource.RandomMode;
+import de.soderer.restclient.helper.RequestPreset;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ConnectionReuse;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.LoadTestScenario;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ResponseBodyHandling;
+import de.soderer.restclient.worker.WorkerPool;
+import de.soderer.utilities.ParameterException;
+import de.soderer.utilities.Utilities;
+
+/**
+ * Parameters of a headless (CLI) multiple request load test
+ */
+public class LoadTestDefinition {
+	private String presetName = null;
+	private File yamlExportFile = null;
+	private int workerCount = 1;
+	private int repetitionsPerWorker = 1;
+	private Duration sleepTime = null;
+	private Duration rampUpTime = null;
+	private double targetRequestsPerSecond = 0;
+	private boolean useVirtualThreads = false;
+	private File outputFile = null;
+	private Duration samplingInterval = Duration.ofSeconds(1);
+	private File timeSeriesOutputFile = null;
+	private ConnectionReuse connectionReuse = ConnectionReuse.None;
+	private ResponseBodyHandling responseBodyHandling = ResponseBodyHandling.Full;
+	private LoadTestScenario loadTestScenario = LoadTestScenario.Request;
+	private File csvDataFile = null;
+	private RowSelection csvRowSelection = RowSelection.RoundRobin;
+	private RandomMode randomMode = RandomMode.Secure;
+	private Long randomSeed = null;
+	private int regenerateWorkerId = -1;
+	private long regenerateIteration = -1;
+	private boolean asynchronous = false;
+	private int ioThreadCount = WorkerPool.getDefaultIoThreadCount();
+
+	public String getPresetName() {
+		return presetName;
+	}
+
+	public void setPresetName(final String presetName) {
+		this.presetName = presetName;
+	}
+
+	public File getYamlExportFile() {
+		return yamlExportFile;
+	}
+
+	public void setYamlExportFile(final File yamlExportFile) {
+		this.yamlExportFile = yamlExportFile;
+	}
+
+	public int getWorkerCount() {
+		return workerCount;
+	}
+
+	public void setWorkerCount(final int workerCount) {
+		this.workerCount = workerCount;
+	}
+
+	public int getRepetitionsPerWorker() {
+		return repetitionsPerWorker;
+	}
+
+	public void setRepetitionsPerWorker(final int repetitionsPerWorker) {
+		this.repetitionsPerWorker = repetitionsPerWorker;
+	}
+
+	public Duration getSleepTime() {
+		return sleepTime;
+	}
+
+	public void setSleepTime(final Duration sleepTime) {
+		this.sleepTime = sleepTime;
+	}
+
+	public Duration getRampUpTime() {
+		return rampUpTime;
+	}
+
+	public void setRampUpTime(final Duration rampUpTime) {
+		this.rampUpTime = rampUpTime;
+	}
+
+	public double getTargetRequestsPerSecond() {
+		return targetRequestsPerSecond;
+	}
+
+	public void setTargetRequestsPerSecond(final double targetRequestsPerSecond) {
+		this.targetRequestsPerSecond = targetRequestsPerSecond;
+	}
+
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	public void setUseVirtualThreads(final boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	public File getOutputFile() {
+		return outputFile;
+	}
+
+	public void setOutputFile(final File outputFile) {
+		this.outputFile = outputFile;
+	}
+
+	public Duration getSamplingInterval() {
+		return samplingInterval;
+	}
+
+	public void setSamplingInterval(final Duration samplingInterval) {
+		this.samplingInterval = samplingInterval;
+	}
+
+	public File getTimeSeriesOutputFile() {
+		return timeSeriesOutputFile;
+	}
+
+	public void setTimeSeriesOutputFile(final File timeSeriesOutputFile) {
+		this.timeSeriesOutputFile = timeSeriesOutputFile;
+	}
+
+	public ConnectionReuse getConnectionReuse() {
+		return connectionReuse;
+	}
+
+	public void setConnectionReuse(final ConnectionReuse connectionReuse) {
+		this.connectionReuse = connectionReuse;
+	}
+
+	public ResponseBodyHandling getResponseBodyHandling() {
+		return responseBodyHandling;
+	}
+
+	public void setResponseBodyHandling(final ResponseBodyHandling responseBodyHandling) {
+		this.responseBodyHandling = responseBodyHandling;
+	}
+
+	public LoadTestScenario getLoadTestScenario() {
+		return loadTestScenario;
+	}
+
+	public void setLoadTestScenario(final LoadTestScenario loadTestScenario) {
+		this.loadTestScenario = loadTestScenario;
+	}
+
+	public File getCsvDataFile() {
+		return csvDataFile;
+	}
+
+	public void setCsvDataFile(final File csvDataFile) {
+		this.csvDataFile = csvDataFile;
+	}
+
+	public RowSelection getCsvRowSelection() {
+		return csvRowSelection;
+	}
+
+	public void setCsvRowSelection(final RowSelection csvRowSelection) {
+		this.csvRowSelection = csvRowSelection;
+	}
+
+	public RandomMode getRandomMode() {
+		return randomMode;
+	}
+
+	public void setRandomMode(final RandomMode randomMode) {
+		this.randomMode = randomMode;
+	}
+
+	public Long getRandomSeed() {
+		return randomSeed;
+	}
+
+	public void setRandomSeed(final Long randomSeed) {
+		this.randomSeed = randomSeed;
+	}
+
+	/**
+	 * Only prints the request of one task of a seeded run instead of running the load test
+	 *
+	 * @param workerId 0 for the pool-wide task numbers of the open model and the asynchronous mode
+	 */
+	public void setRegenerateTask(final int workerId, final long iteration) {
+		regenerateWorkerId = workerId;
+		regenerateIteration = iteration;
+	}
+
+	public boolean isRegenerateTask() {
+		return regenerateIteration >= 0;
+	}
+
+	public int getRegenerateWorkerId() {
+		return regenerateWorkerId;
+	}
+
+	public long getRegenerateIteration() {
+		return regenerateIteration;
+	}
+
+	public boolean isAsynchronous() {
+		return asynchronous;
+	}
+
+	public void setAsynchronous(final boolean asynchronous) {
+		this.asynchronous = asynchronous;
+	}
+
+	public int getIoThreadCount() {
+		return ioThreadCount;
+	}
+
+	public void setIoThreadCount(final int ioThreadCount) {
+		this.ioThreadCount = ioThreadCount;
+	}
+
+	public boolean isDefined() {
+		return Utilities.isNotBlank(presetName) || yamlExportFile != null;
+	}
+
+	public void checkParameters() throws ParameterException {
+		if (Utilities.isNotBlank(presetName) && yamlExportFile != null) {
+			throw new ParameterException("preset", "Parameters 'preset' and 'yaml' cannot be combined");
+		} else if (Utilities.isBlank(presetName) && yamlExportFile == null) {
+			throw new ParameterException("preset", "Missing parameter 'preset' or 'yaml'");
+		} else if (yamlExportFile != null && !yamlExportFile.exists()) {
+			throw new ParameterException(yamlExportFile.getAbsolutePath(), "YAML export file does not exist");
+		} else if (workerCount < 1) {
+			throw new ParameterException(Integer.toString(workerCount), "Number of workers must be 1 or more");
+		} else if (useVirtualThreads && !WorkerPool.isVirtualThreadsAvailable()) {
+			throw new ParameterException("virtualthreads", "Virtual threads are not available in Java version " + System.getProperty("java.version") + " (Java 21 or higher needed)");
+		} else if (useVirtualThreads && connectionReuse == ConnectionReuse.PerWorker) {
+			throw new ParameterException("connections", "Connections per worker cannot be combined with virtual threads, use shared connections instead");
+		} else if (asynchronous && useVirtualThreads) {
+			throw new ParameterException("async", "Parameters 'async' and 'virtualthreads' cannot be combined");
+		} else if (asynchronous && connectionReuse == ConnectionReuse.PerWorker) {
+			throw new ParameterException("connections", "Asynchronous mode always uses shared connections");
+		} else if (asynchronous && loadTestScenario != LoadTestScenario.Request) {
+			throw new ParameterException("scenario", "Parameter 'async' can only be used with 'scenario Request'");
+		} else if (asynchronous && workerCount > WorkerPool.MAXIMUM_ASYNCHRONOUS_WORKERS) {
+			throw new ParameterException(Integer.toString(workerCount), "Number of workers in asynchronous mode must be " + WorkerPool.MAXIMUM_ASYNCHRONOUS_WORKERS + " or less");
+		} else if (csvDataFile != null && !csvDataFile.isFile()) {
+			throw new ParameterException(csvDataFile.getAbsolutePath(), "CSV data file does not exist");
+		} else if (randomSeed != null && randomMode != RandomMode.Fast) {
+			throw new ParameterException("seed", "A random seed can only be used with 'random Fast'");
+		} else if (isRegenerateTask() && randomSeed == null) {
+			throw new ParameterException("regenerate", "Parameter 'regenerate' needs the 'seed' of the run");
+		} else if (isRegenerateTask() && (regenerateWorkerId < 0 || regenerateIteration < 1)) {
+			throw new ParameterException("regenerate", "Worker must be 0 or more and iteration must be 1 or more");
+		} else if (ioThreadCount < 1) {
+			throw new ParameterException(Integer.toString(ioThreadCount), "Number of I/O threads must be 1 or more");
+		} else if (repetitionsPerWorker < 1) {
+			throw new ParameterException(Integer.toString(repetitionsPerWorker), "Number of repetitions per worker must be 1 or more");
+		} else if (sleepTime != null && sleepTime.isNegative()) {
+			throw new ParameterException(sleepTime.toString(), "Sleep time must not be negative");
+		} else if (rampUpTime != null && rampUpTime.isNegative()) {
+			throw new ParameterException(rampUpTime.toString(), "Ramp up time must not be negative");
+		} else if (samplingInterval == null || samplingInterval.isZero() || samplingInterval.isNegative()) {
+			throw new ParameterException(String.valueOf(samplingInterval), "Sampling interval must be 1 second or more");
+		} else if (targetRequestsPerSecond < 0 || Double.isNaN(targetRequestsPerSecond) || Double.isInfinite(targetRequestsPerSecond)) {
+			throw new ParameterException(Double.toString(targetRequestsPerSecond), "Target requests per second must be 0 or more");
+		} else if (targetRequestsPerSecond > 0 && sleepTime != null && !sleepTime.isZero()) {
+			throw new ParameterException("sleep", "Parameters 'sleep' and 'rate' cannot be combined");
+		}
+	}
+
+	public RequestPreset readRequestPreset() throws Exception {
+		if (yamlExportFile != null) {
+			return RequestPreset.readFromYamlExportFile(yamlExportFile);
+		} else {
+			return RequestPreset.readFromPresetsFile(RestClient.REQUEST_PRESETS_FILE, presetName);
+		}
+	}
+}
@@ -4,16 +4,34 @@ import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.NumberFormat;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.eclipse.swt.widgets.Display;
 
+import de.soderer.network.HttpConstants;
+import de.soderer.network.HttpRequest;
 import de.soderer.restclient.dlg.RestClientDialog;
+import de.soderer.restclient.helper.CsvDataSource;
+import de.soderer.restclient.helper.CsvDataSource.RowSelection;
+import de.soderer.restclient.helper.RandomParameterResolver;
+import de.soderer.restclient.helper.RandomSource;
+import de.soderer.restclient.helper.RandomSource.RandomMode;
+import de.soderer.restclient.helper.RequestPreset;
+import de.soderer.restclient.worker.CompiledHttpRequest;
+import de.soderer.restclient.worker.HttpRequestWorkerPool;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ConnectionReuse;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.LoadTestScenario;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ResponseBodyHandling;
+import de.soderer.restclient.worker.ResponseAssertions;
 import de.soderer.utilities.ConfigurationProperties;
 import de.soderer.utilities.DateUtilities;
 import de.soderer.utilities.IoUtilities;
@@ -61,6 +79,11 @@ public class RestClient extends UpdateableConsoleApplication implements WorkerPa
 
 	public static final File REQUEST_PRESETS_FILE = new File(System.getProperty("user.home") + File.separator + "." + RestClient.APPLICATION_NAME + File.separator + "RequestPresets.json");
 
+	/** Exit code of a load test, which finished with errors or was cancelled */
+	public static final int EXIT_CODE_LOAD_TEST_FAILED = 2;
+
+	public static final File OPENID_DISCOVERY_CACHE_DIRECTORY = new File(System.getProperty("user.home") + File.separator + "." + RestClient.APPLICATION_NAME + File.separator + "OpenIdDiscovery");
+
 	public static void setupDefaultConfig(final ConfigurationProperties applicationConfiguration) {
 		applicationConfiguration.setupDefaultConfig();
 
@@ -176,8 +199,108 @@ public class RestClient extends UpdateableConsoleApplication implements WorkerPa
 			}
 
 			// Read the parameters
+			final LoadTestDefinition loadTestDefinition = new LoadTestDefinition();
 			for (int i = 0; i < arguments.length; i++) {
-				final boolean wasAllowedParam = false;
+				boolean wasAllowedParam = false;
+
+				if ("preset".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setPresetName(getParameterValue(arguments, i++));
+					wasAllowedParam = true;
+				} else if ("yaml".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setYamlExportFile(new File(getParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				} else if ("workers".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setWorkerCount(getIntegerParameterValue(arguments, i++));
+					wasAllowedParam = true;
+				} else if ("repetitions".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setRepetitionsPerWorker(getIntegerParameterValue(arguments, i++));
+					wasAllowedParam = true;
+				} else if ("sleep".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setSleepTime(Duration.ofSeconds(getIntegerParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				} else if ("rampup".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setRampUpTime(Duration.ofSeconds(getIntegerParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				} else if ("virtualthreads".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setUseVirtualThreads(true);
+					wasAllowedParam = true;
+				} else if ("async".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setAsynchronous(true);
+					wasAllowedParam = true;
+				} else if ("iothreads".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setIoThreadCount(getIntegerParameterValue(arguments, i++));
+					wasAllowedParam = true;
+				} else if ("rate".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setTargetRequestsPerSecond(getDoubleParameterValue(arguments, i++));
+					wasAllowedParam = true;
+				} else if ("interval".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setSamplingInterval(Duration.ofSeconds(getIntegerParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				} else if ("timeseries".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setTimeSeriesOutputFile(new File(getParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				} else if ("connections".equalsIgnoreCase(arguments[i])) {
+					final String connectionReuseName = getParameterValue(arguments, i++);
+					try {
+						loadTestDefinition.setConnectionReuse(ConnectionReuse.getConnectionReuseByName(connectionReuseName));
+					} catch (@SuppressWarnings("unused") final Exception e) {
+						throw new ParameterException(connectionReuseName, "Invalid value for parameter 'connections'. Expected: None, PerWorker or Shared");
+					}
+					wasAllowedParam = true;
+				} else if ("csv".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setCsvDataFile(new File(getParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				} else if ("csvrows".equalsIgnoreCase(arguments[i])) {
+					final String rowSelectionName = getParameterValue(arguments, i++);
+					try {
+						loadTestDefinition.setCsvRowSelection(RowSelection.getRowSelectionByName(rowSelectionName));
+					} catch (@SuppressWarnings("unused") final Exception e) {
+						throw new ParameterException(rowSelectionName, "Invalid value for parameter 'csvrows'. Expected: RoundRobin, Random or Exclusive");
+					}
+					wasAllowedParam = true;
+				} else if ("random".equalsIgnoreCase(arguments[i])) {
+					final String randomModeName = getParameterValue(arguments, i++);
+					try {
+						loadTestDefinition.setRandomMode(RandomMode.getRandomModeByName(randomModeName));
+					} catch (@SuppressWarnings("unused") final Exception e) {
+						throw new ParameterException(randomModeName, "Invalid value for parameter 'random'. Expected: Secure or Fast");
+					}
+					wasAllowedParam = true;
+				} else if ("seed".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setRandomSeed(getLongParameterValue(arguments, i++));
+					wasAllowedParam = true;
+				} else if ("regenerate".equalsIgnoreCase(arguments[i])) {
+					final String task = getParameterValue(arguments, i++);
+					final String[] taskParts = task.split(":");
+					try {
+						if (taskParts.length != 2) {
+							throw new NumberFormatException();
+						}
+						loadTestDefinition.setRegenerateTask(Integer.parseInt(taskParts[0].trim()), Long.parseLong(taskParts[1].trim()));
+					} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+						throw new ParameterException(task, "Invalid value for parameter 'regenerate'. Expected: <worker>:<iteration>");
+					}
+					wasAllowedParam = true;
+				} else if ("bodies".equalsIgnoreCase(arguments[i])) {
+					final String responseBodyHandlingName = getParameterValue(arguments, i++);
+					try {
+						loadTestDefinition.setResponseBodyHandling(ResponseBodyHandling.getResponseBodyHandlingByName(responseBodyHandlingName));
+					} catch (@SuppressWarnings("unused") final Exception e) {
+						throw new ParameterException(responseBodyHandlingName, "Invalid value for parameter 'bodies'. Expected: Full, Discard or HashOnly");
+					}
+					wasAllowedParam = true;
+				} else if ("scenario".equalsIgnoreCase(arguments[i])) {
+					final String loadTestScenarioName = getParameterValue(arguments, i++);
+					try {
+						loadTestDefinition.setLoadTestScenario(LoadTestScenario.getLoadTestScenarioByName(loadTestScenarioName));
+					} catch (@SuppressWarnings("unused") final Exception e) {
+						throw new ParameterException(loadTestScenarioName, "Invalid value for parameter 'scenario'. Expected: Request, IdpToken or IdpTokenAndRequest");
+					}
+					wasAllowedParam = true;
+				} else if ("output".equalsIgnoreCase(arguments[i])) {
+					loadTestDefinition.setOutputFile(new File(getParameterValue(arguments, i++)));
+					wasAllowedParam = true;
+				}
 
 				if (!wasAllowedParam) {
 					throw new ParameterException(arguments[i], "Invalid parameter");
@@ -207,9 +330,20 @@ public class RestClient extends UpdateableConsoleApplication implements WorkerPa
 			} else {
 				LangResources.enforceDefaultLocale();
 
-				System.err.println("No CLI interface supported, yet");
+				if (!loadTestDefinition.isDefined()) {
+					System.err.println("No CLI action defined");
+					System.err.println();
+					System.err.println(getUsageMessage());
+					return 1;
+				}
+
+				loadTestDefinition.checkParameters();
 
-				return 1;
+				if (loadTestDefinition.isRegenerateTask()) {
+					return regenerateTask(loadTestDefinition);
+				} else {
+					return executeLoadTest(loadTestDefinition);
+				}
 			}
 		} catch (final ParameterException e) {
 			System.err.println(e.getMessage());
@@ -222,6 +356,155 @@ public class RestClient extends UpdateableConsoleApplication implements WorkerPa
 		}
 	}
 
+	private static String getParameterValue(final String[] arguments, final int parameterNameIndex) throws ParameterException {
+		if (parameterNameIndex + 1 >= arguments.length) {
+			throw new ParameterException(arguments[parameterNameIndex], "Missing value for parameter '" + arguments[parameterNameIndex] + "'");
+		} else {
+			return arguments[parameterNameIndex + 1];
+		}
+	}
+
+	private static int getIntegerParameterValue(final String[] arguments, final int parameterNameIndex) throws ParameterException {
+		final String value = getParameterValue(arguments, parameterNameIndex);
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+			throw new ParameterException(value, "Invalid integer value for parameter '" + arguments[parameterNameIndex] + "'");
+		}
+	}
+
+	private static long getLongParameterValue(final String[] arguments, final int parameterNameIndex) throws ParameterException {
+		final String value = getParameterValue(arguments, parameterNameIndex);
+		try {
+			return Long.parseLong(value.trim());
+		} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+			throw new ParameterException(value, "Invalid integer value for parameter '" + arguments[parameterNameIndex] + "'");
+		}
+	}
+
+	private static double getDoubleParameterValue(final String[] arguments, final int parameterNameIndex) throws ParameterException {
+		final String value = getParameterValue(arguments, parameterNameIndex);
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+			throw new ParameterException(value, "Invalid decimal value for parameter '" + arguments[parameterNameIndex] + "'");
+		}
+	}
+
+	/**
+	 * Prints the request of one task of a seeded load test with the same random parameter values as
+	 * in the load test, without executing it
+	 */
+	private static int regenerateTask(final LoadTestDefinition loadTestDefinition) throws Exception {
+		final RequestPreset requestPreset = loadTestDefinition.readRequestPreset();
+		final CompiledHttpRequest compiledHttpRequest = new CompiledHttpRequest(requestPreset.createHttpRequest(), requestPreset.createTemplateContext());
+		if (!compiledHttpRequest.getCsvColumns().isEmpty()) {
+			throw new Exception("Requests with ${csv:...} placeholders cannot be regenerated, because their CSV rows depend on the order of all tasks");
+		}
+		final Set<String> unreproduciblePlaceholders = compiledHttpRequest.getUnreproduciblePlaceholders();
+		if (!unreproduciblePlaceholders.isEmpty()) {
+			throw new Exception("Requests with " + String.join(", ", unreproduciblePlaceholders) + " placeholders cannot be regenerated, because ${seq:global} values depend on the order of all tasks and ${idp:token} values are fetched from the identity provider");
+		}
+
+		final RandomSource randomSource = new RandomSource(RandomMode.Fast, loadTestDefinition.getRandomSeed());
+		final RandomParameterResolver randomParameterResolver = new RandomParameterResolver(randomSource.getRandomGenerator(loadTestDefinition.getRegenerateWorkerId(), loadTestDefinition.getRegenerateIteration()), null, loadTestDefinition.getRegenerateIteration());
+		final HttpRequest httpRequest = compiledHttpRequest.createHttpRequest(randomParameterResolver);
+
+		System.out.println((loadTestDefinition.getRegenerateWorkerId() > 0 ? "Worker " + loadTestDefinition.getRegenerateWorkerId() + ", iteration " : "Task ") + loadTestDefinition.getRegenerateIteration() + ", seed " + loadTestDefinition.getRandomSeed());
+		System.out.println(httpRequest.getRequestMethod() + " " + httpRequest.getUrl());
+		for (final Entry<String, String> header : httpRequest.getHeaders().entrySet()) {
+			System.out.println(header.getKey() + ": " + header.getValue());
+		}
+		if (loadTestDefinition.getLoadTestScenario() == LoadTestScenario.IdpTokenAndRequest && !HttpRequestWorkerPool.hasHeader(httpRequest, HttpConstants.HTTPHEADERNAME_AUTHORIZATION)) {
+			// Added by the scenario with the token of each iteration
+			System.out.println(HttpConstants.HTTPHEADERNAME_AUTHORIZATION + ": " + HttpConstants.AUTHORIZATIONHEADER_START_BEARER + " ${idp:token}");
+		}
+		if (httpRequest.getRequestBody() != null) {
+			System.out.println();
+			System.out.println(httpRequest.getRequestBody());
+		}
+		if (!randomParameterResolver.getResolvedValues().isEmpty()) {
+			System.out.println();
+			System.out.println("Random parameter values:");
+			for (final Entry<String, List<String>> resolvedValue : new TreeMap<>(randomParameterResolver.getResolvedValues()).entrySet()) {
+				System.out.println(resolvedValue.getKey() + " = " + String.join(", ", resolvedValue.getValue()));
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Headless multiple request load test on the same engine as the GUI worker pool dialog.
+	 * Progress is reported through the WorkerParentDual callbacks of this application.
+	 */
+	private static int executeLoadTest(final LoadTestDefinition loadTestDefinition) throws Exception {
+		final RequestPreset requestPreset = loadTestDefinition.readRequestPreset();
+		final HttpRequest httpRequest = requestPreset.createHttpRequest();
+
+		final HttpRequestWorkerPool workerPool = new HttpRequestWorkerPool(httpRequest, requestPreset.createProxy(httpRequest), requestPreset.getTlsCheckConfiguration());
+		workerPool.setParallelWorkerAmount(loadTestDefinition.getWorkerCount());
+		workerPool.setRepetitionsPerWorker(loadTestDefinition.getRepetitionsPerWorker());
+		workerPool.setSleepTime(loadTestDefinition.getSleepTime());
+		workerPool.setRampUpTime(loadTestDefinition.getRampUpTime());
+		workerPool.setTargetRequestsPerSecond(loadTestDefinition.getTargetRequestsPerSecond());
+		workerPool.setUseVirtualThreads(loadTestDefinition.isUseVirtualThreads());
+		workerPool.setSamplingInterval(loadTestDefinition.getSamplingInterval());
+		workerPool.setConnectionReuse(loadTestDefinition.getConnectionReuse());
+		workerPool.setResponseBodyHandling(loadTestDefinition.getResponseBodyHandling());
+		workerPool.setLoadTestScenario(loadTestDefinition.getLoadTestScenario());
+		workerPool.setUseHttp2(requestPreset.isHttp2());
+		workerPool.setResponseAssertions(ResponseAssertions.parse(requestPreset.getResponseAssertions()));
+		workerPool.setTemplateContext(requestPreset.createTemplateContext());
+		workerPool.setRandomMode(loadTestDefinition.getRandomMode(), loadTestDefinition.getRandomSeed());
+		if (loadTestDefinition.getCsvDataFile() != null) {
+			workerPool.setCsvDataSource(new CsvDataSource(loadTestDefinition.getCsvDataFile(), loadTestDefinition.getCsvRowSelection()));
+		}
+		if (loadTestDefinition.isAsynchronous()) {
+			workerPool.setAsynchronousIoThreadCount(loadTestDefinition.getIoThreadCount());
+		}
+
+		final RestClient restClient = new RestClient();
+		restClient.receiveItemStartSignal(httpRequest.getUrl(), "Multiple request test: " + httpRequest.getRequestMethod() + " " + httpRequest.getUrl()
+			+ " (Workers: " + loadTestDefinition.getWorkerCount() + ", Repetitions per worker: " + loadTestDefinition.getRepetitionsPerWorker()
+			+ (workerPool.isOpenModel() ? ", Target requests per second: " + loadTestDefinition.getTargetRequestsPerSecond() : "")
+			+ (workerPool.isUseHttp2() ? ", HTTP/2" : "")
+			+ (workerPool.isAsynchronous() ? ", Asynchronous I/O threads: " + workerPool.getAsynchronousIoThreadCount() : "") + ")");
+
+		workerPool.start(null);
+
+		// Progress output is polled at a fixed rate, so console output never throttles the workers
+		long maximumUsedHeapBytesPerWorker = -1;
+		while (!workerPool.awaitTermination(Duration.ofSeconds(1))) {
+			restClient.receiveProgressSignal(workerPool.getPoolStart(), workerPool.getTasksToDo(), workerPool.getProgress(), null);
+			maximumUsedHeapBytesPerWorker = Math.max(maximumUsedHeapBytesPerWorker, workerPool.getUsedHeapBytesPerWorker());
+		}
+		if (maximumUsedHeapBytesPerWorker >= 0) {
+			System.out.println("Maximum used heap per worker (approx.): " + ((maximumUsedHeapBytesPerWorker + 1023) / 1024) + " KB");
+		}
+		if (workerPool.getAverageProcessCpuLoad() >= 0) {
+			System.out.println("Average CPU load of this process: " + String.format("%.1f", workerPool.getAverageProcessCpuLoad() * 100) + " %");
+		}
+
+		if (loadTestDefinition.getTimeSeriesOutputFile() != null) {
+			Files.writeString(loadTestDefinition.getTimeSeriesOutputFile().toPath(), workerPool.getTimeSeriesCSV(), StandardCharsets.UTF_8);
+			System.out.println("Time series written to: " + loadTestDefinition.getTimeSeriesOutputFile().getAbsolutePath());
+		}
+
+		final String resultsCSV = workerPool.getResultsCSV();
+		if (loadTestDefinition.getOutputFile() != null) {
+			Files.writeString(loadTestDefinition.getOutputFile().toPath(), resultsCSV, StandardCharsets.UTF_8);
+			restClient.receiveItemDoneSignal(workerPool.getPoolStart(), workerPool.getPoolEnd(), workerPool.getProgress(), null, "Results written to: " + loadTestDefinition.getOutputFile().getAbsolutePath());
+		} else {
+			restClient.receiveItemDoneSignal(workerPool.getPoolStart(), workerPool.getPoolEnd(), workerPool.getProgress(), null, resultsCSV);
+		}
+
+		if (workerPool.isCancelled() || workerPool.getErrorCount() > 0) {
+			return EXIT_CODE_LOAD_TEST_FAILED;
+		} else {
+			return 0;
+		}
+	}
+
 	public RestClient() throws Exception {
 		super(APPLICATION_NAME, VERSION);
 	}
@@ -1,44 +1,121 @@
 package de.soderer.restclient.dlg;
 
 import java.net.Proxy;
+import java.time.Duration;
+import java.util.List;
 
 import org.eclipse.swt.widgets.Shell;
 
 import de.soderer.network.HttpRequest;
-import de.soderer.network.HttpResponse;
 import de.soderer.network.TlsCheckConfiguration;
-import de.soderer.restclient.worker.ExecuteHttpRequestWorker;
-import de.soderer.utilities.worker.WorkerSimple;
+import de.soderer.restclient.helper.CsvDataSource;
+import de.soderer.restclient.helper.RandomSource.RandomMode;
+import de.soderer.restclient.helper.TemplateContext;
+import de.soderer.restclient.worker.HttpRequestWorkerPool;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ConnectionReuse;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.LoadTestScenario;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ResponseBodyHandling;
+import de.soderer.restclient.worker.LatencyHistogram;
+import de.soderer.restclient.worker.ResponseAssertions;
+import de.soderer.restclient.worker.WorkerPool;
+import de.soderer.restclient.worker.WorkerStats;
+import de.soderer.utilities.LangResources;
 
 public class HttpRequestWorkerPoolDialog extends WorkerPoolDialog {
-	private final HttpRequest httpRequest;
-	private final Proxy proxy;
-	private final TlsCheckConfiguration tlsCheckConfiguration;
+	private final HttpRequestWorkerPool httpRequestWorkerPool;
 
 	public HttpRequestWorkerPoolDialog(final Shell parent, final String title, final String text, final HttpRequest httpRequest, final Proxy proxy, final TlsCheckConfiguration tlsCheckConfiguration) {
-		super(parent, title, text);
+		this(parent, title, text, new HttpRequestWorkerPool(httpRequest, proxy, tlsCheckConfiguration));
+	}
+
+	private HttpRequestWorkerPoolDialog(final Shell parent, final String title, final String text, final HttpRequestWorkerPool httpRequestWorkerPool) {
+		super(parent, title, text, httpRequestWorkerPool);
+
+		this.httpRequestWorkerPool = httpRequestWorkerPool;
+	}
+
+	public void setConnectionReuse(final ConnectionReuse connectionReuse) {
+		httpRequestWorkerPool.setConnectionReuse(connectionReuse);
+	}
+
+	public void setUseHttp2(final boolean useHttp2) {
+		httpRequestWorkerPool.setUseHttp2(useHttp2);
+	}
+
+	public void setResponseBodyHandling(final ResponseBodyHandling responseBodyHandling) {
+		httpRequestWorkerPool.setResponseBodyHandling(responseBodyHandling);
+	}
+
+	public void setCsvDataSource(final CsvDataSource csvDataSource) {
+		httpRequestWorkerPool.setCsvDataSource(csvDataSource);
+	}
+
+	public void setTemplateContext(final TemplateContext templateContext) {
+		httpRequestWorkerPool.setTemplateContext(templateContext);
+	}
 
-		this.httpRequest = httpRequest;
-		this.proxy = proxy;
-		this.tlsCheckConfiguration = tlsCheckConfiguration;
+	public void setRandomMode(final RandomMode randomMode, final Long randomSeed) {
+		httpRequestWorkerPool.setRandomMode(randomMode, randomSeed);
+	}
+
+	public void setLoadTestScenario(final LoadTestScenario loadTestScenario) {
+		httpRequestWorkerPool.setLoadTestScenario(loadTestScenario);
+	}
+
+	public void setResponseAssertions(final ResponseAssertions responseAssertions) {
+		httpRequestWorkerPool.setResponseAssertions(responseAssertions);
 	}
 
 	@Override
-	protected WorkerSimple<?> createWorker() {
-		try {
-			final ExecuteHttpRequestWorker worker = new ExecuteHttpRequestWorker(null, httpRequest, proxy, tlsCheckConfiguration.getTrustManager(), !tlsCheckConfiguration.getCheckCn());
-			return worker;
-		} catch (final Exception e) {
-			throw new RuntimeException(e);
+	protected String getAdditionalStatisticsText() {
+		final String connectionStatisticsText;
+		if (httpRequestWorkerPool.getEffectiveConnectionReuse() == ConnectionReuse.None) {
+			connectionStatisticsText = null;
+		} else if (httpRequestWorkerPool.getNewConnectionCount() < 0) {
+			connectionStatisticsText = LangResources.get("persistentConnectionStatistics", httpRequestWorkerPool.getPersistentConnectionRequestCount());
+		} else {
+			connectionStatisticsText = LangResources.get("connectionStatistics", httpRequestWorkerPool.getPersistentConnectionRequestCount(), httpRequestWorkerPool.getNewConnectionCount(), httpRequestWorkerPool.getReusedConnectionCount());
 		}
+
+		final String responseBodyStatisticsText;
+		if (httpRequestWorkerPool.getResponseBodyHandling() == ResponseBodyHandling.Full) {
+			responseBodyStatisticsText = null;
+		} else if (httpRequestWorkerPool.getDistinctChecksumCount() < 0) {
+			responseBodyStatisticsText = LangResources.get("responseBodyStatistics", httpRequestWorkerPool.getResponseBodyCount(), String.format("%.1f", httpRequestWorkerPool.getResponseBodyBytes() / 1024.0 / 1024.0));
+		} else {
+			responseBodyStatisticsText = LangResources.get("responseBodyChecksumStatistics", httpRequestWorkerPool.getResponseBodyCount(), String.format("%.1f", httpRequestWorkerPool.getResponseBodyBytes() / 1024.0 / 1024.0), httpRequestWorkerPool.getDistinctChecksumCount());
+		}
+
+		final StringBuilder additionalStatisticsText = new StringBuilder();
+		if (httpRequestWorkerPool.getLoadTestScenario() != LoadTestScenario.Request) {
+			additionalStatisticsText.append(getPartialDurationsText("idpTokenRequestStatistics", httpRequestWorkerPool.getIdpTokenWorkerStatsList()));
+			if (httpRequestWorkerPool.getLoadTestScenario() == LoadTestScenario.IdpTokenAndRequest) {
+				additionalStatisticsText.append("\n").append(getPartialDurationsText("protectedRequestStatistics", httpRequestWorkerPool.getProtectedRequestWorkerStatsList()));
+			}
+		}
+		for (final String statisticsText : new String[] { connectionStatisticsText, responseBodyStatisticsText }) {
+			if (statisticsText != null) {
+				if (additionalStatisticsText.length() > 0) {
+					additionalStatisticsText.append("\n");
+				}
+				additionalStatisticsText.append(statisticsText);
+			}
+		}
+		return additionalStatisticsText.length() == 0 ? null : additionalStatisticsText.toString();
 	}
 
-	@Override
-	protected boolean checkForSuccess(final Object httpResponse) {
-		if (httpResponse != null && httpResponse instanceof HttpResponse) {
-			return 200 <= ((HttpResponse) httpResponse).getHttpCode() && ((HttpResponse) httpResponse).getHttpCode() < 300;
+	private static String getPartialDurationsText(final String languageKey, final List<WorkerStats> workerStatsList) {
+		long successCount = 0;
+		long errorCount = 0;
+		for (final WorkerStats workerStats : workerStatsList) {
+			successCount += workerStats.getSuccessCount();
+			errorCount += workerStats.getErrorCount();
+		}
+		final LatencyHistogram latencyHistogram = WorkerPool.getMergedLatencyHistogram(workerStatsList);
+		if (latencyHistogram.getTotalCount() == 0) {
+			return LangResources.get(languageKey, successCount, errorCount, "-", "-");
 		} else {
-			return false;
+			return LangResources.get(languageKey, successCount, errorCount, formatDuration(Duration.ofNanos(latencyHistogram.getAverageNanos())), formatDuration(latencyHistogram.getDurationAtPercentile(99)));
 		}
 	}
 }
@@ -1,16 +1,28 @@
 package de.soderer.restclient.dlg;
 
+import java.io.File;
+
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
 
+import de.soderer.restclient.helper.CsvDataSource.RowSelection;
+import de.soderer.restclient.helper.RandomSource.RandomMode;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ConnectionReuse;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.LoadTestScenario;
+import de.soderer.restclient.worker.HttpRequestWorkerPool.ResponseBodyHandling;
+import de.soderer.restclient.worker.WorkerPool;
 import de.soderer.utilities.LangResources;
+import de.soderer.utilities.Utilities;
 import de.soderer.utilities.swt.ModalDialog;
 import de.soderer.utilities.swt.SwtUtilities;
 
@@ -19,6 +31,17 @@ public class MultipleWorkerConfigurationDialog extends ModalDialog<Boolean> {
 	private String repetitions;
 	private int pauseSeconds;
 	private int rampUpSeconds;
+	private double targetRequestsPerSecond;
+	private boolean useVirtualThreads;
+	private int samplingIntervalSeconds;
+	private ConnectionReuse connectionReuse;
+	private ResponseBodyHandling responseBodyHandling;
+	private LoadTestScenario loadTestScenario;
+	private File csvDataFile;
+	private RowSelection csvRowSelection;
+	private RandomMode randomMode;
+	private Long randomSeed;
+	private int asynchronousIoThreadCount;
 
 	public MultipleWorkerConfigurationDialog(final Shell applicationDialog, final String title) {
 		super(applicationDialog, title);
@@ -29,13 +52,56 @@ public class MultipleWorkerConfigurationDialog extends ModalDialog<Boolean> {
 		parentShell.setLayout(new GridLayout(2, false));
 
 		final Label lblWorkers = new Label(parentShell, SWT.NONE);
-		lblWorkers.setText(LangResources.get("numberOfParallelWorkers") + " (1 ≤ x ≤ 100):");
+		lblWorkers.setText(LangResources.get("numberOfParallelWorkers") + " (1 ≤ x ≤ " + WorkerPool.MAXIMUM_PLATFORM_THREAD_WORKERS + "):");
 		final Spinner spnWorkers = new Spinner(parentShell, SWT.BORDER);
 		spnWorkers.setMinimum(1);
-		spnWorkers.setMaximum(100);
+		spnWorkers.setMaximum(WorkerPool.MAXIMUM_PLATFORM_THREAD_WORKERS);
 		spnWorkers.setSelection(1);
 		spnWorkers.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 
+		final Label lblVirtualThreads = new Label(parentShell, SWT.NONE);
+		lblVirtualThreads.setText(LangResources.get("useVirtualThreads") + ":");
+		final Button chkVirtualThreads = new Button(parentShell, SWT.CHECK);
+		chkVirtualThreads.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		if (WorkerPool.isVirtualThreadsAvailable()) {
+			chkVirtualThreads.setToolTipText(LangResources.get("useVirtualThreadsHint", WorkerPool.MAXIMUM_VIRTUAL_THREAD_WORKERS));
+		} else {
+			chkVirtualThreads.setEnabled(false);
+			chkVirtualThreads.setToolTipText(LangResources.get("virtualThreadsNotAvailable", System.getProperty("java.version")));
+		}
+
+		final Label lblAsynchronous = new Label(parentShell, SWT.NONE);
+		lblAsynchronous.setText(LangResources.get("asynchronous") + ":");
+		final Button chkAsynchronous = new Button(parentShell, SWT.CHECK);
+		chkAsynchronous.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		chkAsynchronous.setToolTipText(LangResources.get("asynchronousHint", WorkerPool.MAXIMUM_ASYNCHRONOUS_WORKERS));
+
+		final Label lblIoThreads = new Label(parentShell, SWT.NONE);
+		lblIoThreads.setText(LangResources.get("ioThreads") + " (1 ≤ x):");
+		final Spinner spnIoThreads = new Spinner(parentShell, SWT.BORDER);
+		spnIoThreads.setMinimum(1);
+		spnIoThreads.setMaximum(WorkerPool.MAXIMUM_PLATFORM_THREAD_WORKERS);
+		spnIoThreads.setSelection(WorkerPool.getDefaultIoThreadCount());
+		spnIoThreads.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		spnIoThreads.setEnabled(false);
+
+		final Listener threadModeListener = e -> {
+			final int maximumWorkers;
+			if (chkAsynchronous.getSelection()) {
+				maximumWorkers = WorkerPool.MAXIMUM_ASYNCHRONOUS_WORKERS;
+			} else if (chkVirtualThreads.getSelection()) {
+				maximumWorkers = WorkerPool.MAXIMUM_VIRTUAL_THREAD_WORKERS;
+			} else {
+				maximumWorkers = WorkerPool.MAXIMUM_PLATFORM_THREAD_WORKERS;
+			}
+			chkVirtualThreads.setEnabled(WorkerPool.isVirtualThreadsAvailable() && !chkAsynchronous.getSelection());
+			spnIoThreads.setEnabled(chkAsynchronous.getSelection());
+			spnWorkers.setMaximum(maximumWorkers);
+			lblWorkers.setText(LangResources.get("numberOfParallelWorkers") + " (1 ≤ x ≤ " + maximumWorkers + "):");
+		};
+		chkVirtualThreads.addListener(SWT.Selection, threadModeListener);
+		chkAsynchronous.addListener(SWT.Selection, threadModeListener);
+
 		final Label lblReps = new Label(parentShell, SWT.NONE);
 		lblReps.setText(LangResources.get("numberOfRepetitionsPerWorker") + ":");
 		final Combo cmbReps = new Combo(parentShell, SWT.DROP_DOWN);
@@ -62,6 +128,110 @@ public class MultipleWorkerConfigurationDialog extends ModalDialog<Boolean> {
 		spnRampUp.setSelection(0);
 		spnRampUp.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 
+		final Label lblTargetRate = new Label(parentShell, SWT.NONE);
+		lblTargetRate.setText(LangResources.get("targetRequestsPerSecond") + " (0 = " + LangResources.get("closedModel") + "):");
+		final Spinner spnTargetRate = new Spinner(parentShell, SWT.BORDER);
+		spnTargetRate.setDigits(1);
+		spnTargetRate.setMinimum(0);
+		spnTargetRate.setMaximum(Integer.MAX_VALUE);
+		spnTargetRate.setIncrement(10);
+		spnTargetRate.setSelection(0);
+		spnTargetRate.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		spnTargetRate.setToolTipText(LangResources.get("targetRequestsPerSecondHint"));
+		spnTargetRate.addListener(SWT.Modify, e -> spnPause.setEnabled(spnTargetRate.getSelection() == 0));
+
+		final Label lblSamplingInterval = new Label(parentShell, SWT.NONE);
+		lblSamplingInterval.setText(LangResources.get("samplingInterval") + " (" + LangResources.get("seconds") + ", 1 ≤ x):");
+		final Spinner spnSamplingInterval = new Spinner(parentShell, SWT.BORDER);
+		spnSamplingInterval.setMinimum(1);
+		spnSamplingInterval.setMaximum(Integer.MAX_VALUE);
+		spnSamplingInterval.setSelection(1);
+		spnSamplingInterval.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+		final Label lblConnectionReuse = new Label(parentShell, SWT.NONE);
+		lblConnectionReuse.setText(LangResources.get("connectionReuse") + ":");
+		final Combo cmbConnectionReuse = new Combo(parentShell, SWT.DROP_DOWN | SWT.READ_ONLY);
+		for (final ConnectionReuse connectionReuseItem : ConnectionReuse.values()) {
+			cmbConnectionReuse.add(LangResources.get("connectionReuse" + connectionReuseItem.name()));
+		}
+		cmbConnectionReuse.select(ConnectionReuse.None.ordinal());
+		cmbConnectionReuse.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		cmbConnectionReuse.setToolTipText(LangResources.get("connectionReuseHint"));
+
+		final Label lblResponseBodyHandling = new Label(parentShell, SWT.NONE);
+		lblResponseBodyHandling.setText(LangResources.get("responseBodyHandling") + ":");
+		final Combo cmbResponseBodyHandling = new Combo(parentShell, SWT.DROP_DOWN | SWT.READ_ONLY);
+		for (final ResponseBodyHandling responseBodyHandlingItem : ResponseBodyHandling.values()) {
+			cmbResponseBodyHandling.add(LangResources.get("responseBodyHandling" + responseBodyHandlingItem.name()));
+		}
+		cmbResponseBodyHandling.select(ResponseBodyHandling.Full.ordinal());
+		cmbResponseBodyHandling.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		cmbResponseBodyHandling.setToolTipText(LangResources.get("responseBodyHandlingHint"));
+
+		final Label lblLoadTestScenario = new Label(parentShell, SWT.NONE);
+		lblLoadTestScenario.setText(LangResources.get("loadTestScenario") + ":");
+		final Combo cmbLoadTestScenario = new Combo(parentShell, SWT.DROP_DOWN | SWT.READ_ONLY);
+		for (final LoadTestScenario loadTestScenarioItem : LoadTestScenario.values()) {
+			cmbLoadTestScenario.add(LangResources.get("loadTestScenario" + loadTestScenarioItem.name()));
+		}
+		cmbLoadTestScenario.select(LoadTestScenario.Request.ordinal());
+		cmbLoadTestScenario.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		cmbLoadTestScenario.setToolTipText(LangResources.get("loadTestScenarioHint"));
+
+		final Label lblCsvDataFile = new Label(parentShell, SWT.NONE);
+		lblCsvDataFile.setText(LangResources.get("csvDataFile") + ":");
+		final Composite csvDataFileRow = new Composite(parentShell, SWT.NONE);
+		csvDataFileRow.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		csvDataFileRow.setLayout(SwtUtilities.createSmallMarginGridLayout(2, false));
+		final Text txtCsvDataFile = new Text(csvDataFileRow, SWT.BORDER);
+		final GridData gdCsvDataFile = new GridData(SWT.FILL, SWT.CENTER, true, false);
+		gdCsvDataFile.widthHint = 200;
+		txtCsvDataFile.setLayoutData(gdCsvDataFile);
+		txtCsvDataFile.setToolTipText(LangResources.get("csvDataFileHint"));
+		final Button btnCsvDataFile = new Button(csvDataFileRow, SWT.PUSH);
+		btnCsvDataFile.setText("...");
+		btnCsvDataFile.addListener(SWT.Selection, e -> {
+			final FileDialog fileDialog = new FileDialog(parentShell, SWT.OPEN);
+			fileDialog.setText(LangResources.get("csvDataFile"));
+			fileDialog.setFilterExtensions(new String[] { "*.csv;*.txt", "*.*" });
+			final String selectedPath = fileDialog.open();
+			if (selectedPath != null) {
+				txtCsvDataFile.setText(selectedPath);
+			}
+		});
+
+		final Label lblCsvRowSelection = new Label(parentShell, SWT.NONE);
+		lblCsvRowSelection.setText(LangResources.get("csvRowSelection") + ":");
+		final Combo cmbCsvRowSelection = new Combo(parentShell, SWT.DROP_DOWN | SWT.READ_ONLY);
+		for (final RowSelection rowSelectionItem : RowSelection.values()) {
+			cmbCsvRowSelection.add(LangResources.get("csvRowSelection" + rowSelectionItem.name()));
+		}
+		cmbCsvRowSelection.select(RowSelection.RoundRobin.ordinal());
+		cmbCsvRowSelection.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		cmbCsvRowSelection.setEnabled(false);
+		txtCsvDataFile.addListener(SWT.Modify, e -> cmbCsvRowSelection.setEnabled(Utilities.isNotBlank(txtCsvDataFile.getText())));
+
+		final Label lblRandomMode = new Label(parentShell, SWT.NONE);
+		lblRandomMode.setText(LangResources.get("randomMode") + ":");
+		final Combo cmbRandomMode = new Combo(parentShell, SWT.DROP_DOWN | SWT.READ_ONLY);
+		for (final RandomMode randomModeItem : RandomMode.values()) {
+			cmbRandomMode.add(LangResources.get("randomMode" + randomModeItem.name()));
+		}
+		cmbRandomMode.select(RandomMode.Secure.ordinal());
+		cmbRandomMode.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		cmbRandomMode.setToolTipText(LangResources.get("randomModeHint"));
+
+		final Label lblRandomSeed = new Label(parentShell, SWT.NONE);
+		lblRandomSeed.setText(LangResources.get("randomSeed") + ":");
+		final Text txtRandomSeed = new Text(parentShell, SWT.BORDER);
+		txtRandomSeed.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		txtRandomSeed.setToolTipText(LangResources.get("randomSeedHint"));
+		// Only digits, short enough to always fit into a long value
+		txtRandomSeed.setTextLimit(18);
+		txtRandomSeed.addListener(SWT.Verify, e -> e.doit = e.text.chars().allMatch(Character::isDigit));
+		txtRandomSeed.setEnabled(false);
+		cmbRandomMode.addListener(SWT.Selection, e -> txtRandomSeed.setEnabled(cmbRandomMode.getSelectionIndex() == RandomMode.Fast.ordinal()));
+
 		final Composite buttonBar = new Composite(parentShell, SWT.NONE);
 		buttonBar.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
 		buttonBar.setLayout(SwtUtilities.createSmallMarginGridLayout(2, true));
@@ -74,6 +244,17 @@ public class MultipleWorkerConfigurationDialog extends ModalDialog<Boolean> {
 			repetitions = cmbReps.getText().trim();
 			pauseSeconds = spnPause.getSelection();
 			rampUpSeconds = spnRampUp.getSelection();
+			targetRequestsPerSecond = spnTargetRate.getSelection() / 10.0;
+			useVirtualThreads = chkVirtualThreads.getSelection() && !chkAsynchronous.getSelection();
+			asynchronousIoThreadCount = chkAsynchronous.getSelection() ? spnIoThreads.getSelection() : 0;
+			samplingIntervalSeconds = spnSamplingInterval.getSelection();
+			connectionReuse = ConnectionReuse.values()[cmbConnectionReuse.getSelectionIndex()];
+			responseBodyHandling = ResponseBodyHandling.values()[cmbResponseBodyHandling.getSelectionIndex()];
+			loadTestScenario = LoadTestScenario.values()[cmbLoadTestScenario.getSelectionIndex()];
+			csvDataFile = Utilities.isNotBlank(txtCsvDataFile.getText()) ? new File(txtCsvDataFile.getText().trim()) : null;
+			csvRowSelection = RowSelection.values()[cmbCsvRowSelection.getSelectionIndex()];
+			randomMode = RandomMode.values()[cmbRandomMode.getSelectionIndex()];
+			randomSeed = randomMode == RandomMode.Fast && Utilities.isNotBlank(txtRandomSeed.getText()) ? Long.parseLong(txtRandomSeed.getText()) : null;
 
 			setReturnValue(true);
 
@@ -103,4 +284,60 @@ public class MultipleWorkerConfigurationDialog extends ModalDialog<Boolean> {
 	public int getRampUpSeconds() {
 		return rampUpSeconds;
 	}
+
+	/**
+	 * @return 0 for the closed model
+	 */
+	public double getTargetRequestsPerSecond() {
+		return targetRequestsPerSecond;
+	}
+
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	public int getSamplingIntervalSeconds() {
+		return samplingIntervalSeconds;
+	}
+
+	public ConnectionReuse getConnectionReuse() {
+		return connectionReuse;
+	}
+
+	public ResponseBodyHandling getResponseBodyHandling() {
+		return responseBodyHandling;
+	}
+
+	public LoadTestScenario getLoadTestScenario() {
+		return loadTestScenario;
+	}
+
+	/**
+	 * @return null if no CSV data file is used
+	 */
+	public File getCsvDataFile() {
+		return csvDataFile;
+	}
+
+	public RowSelection getCsvRowSelection() {
+		return csvRowSelection;
+	}
+
+	public RandomMode getRandomMode() {
+		return randomMode;
+	}
+
+	/**
+	 * @return null if no fixed seed is used
+	 */
+	public Long getRandomSeed() {
+		return randomSeed;
+	}
+
+	/**
+	 * @return 0 for the blocking mode with one thread per worker
+	 */
+	public int getAsynchronousIoThreadCount() {
+		return asynchronousIoThreadCount;
+	}
 }
@@ -44,7 +44,8 @@ import de.soderer.network.TlsCheckConfiguration.TlsCheckConfigurationType;
 import de.soderer.pac.utilities.ProxyConfiguration;
 import de.soderer.pac.utilities.ProxyConfiguration.ProxyConfigurationType;
 import de.soderer.restclient.RestClient;
-import de.soderer.restclient.helper.IdpHelper;
+import de.soderer.restclient.helper.IdpTokenProvider;
+import de.soderer.restclient.helper.TemplateContext;
 import de.soderer.restclient.worker.ExecuteHttpRequestWorker;
 import de.soderer.utilities.Credentials;
 import de.soderer.utilities.LangResources;
@@ -79,7 +80,10 @@ public class RequestComponent extends Composite {
 	private final List<String> proxyUrlPresets = new ArrayList<>();
 	private Button followRedirectsButton;
 	private Spinner maxRedirectHopsSpinner;
+	private Button http2Button;
 	private Text requestBodyText;
+	private Text responseAssertionsText;
+	private Text variablesText;
 
 	private String idpUrl = null;
 	private String idpRealm = null;
@@ -145,7 +149,12 @@ public class RequestComponent extends Composite {
 	public int getMaxRedirectHops() { return maxRedirectHopsSpinner.getSelection(); }
 	/** Combines {@link #isFollowRedirects()} and {@link #getMaxRedirectHops()} into the single int value expected by {@link HttpRequest#setMaxRedirects(int)} (0 = do not follow, positive = hop limit) */
 	public int getMaxRedirects() { return isFollowRedirects() ? getMaxRedirectHops() : 0; }
+	public boolean isHttp2() { return http2Button.getSelection(); }
 	public String getRequestBody() { return requestBodyText.getText(); }
+	/** Assertions checked for each response of a multiple request test, one per line, see {@link de.soderer.restclient.worker.ResponseAssertions} */
+	public String getResponseAssertions() { return responseAssertionsText.getText(); }
+	/** Values of ${var:NAME} placeholders, one "NAME=value" per line, see {@link de.soderer.restclient.helper.TemplateContext} */
+	public String getVariables() { return variablesText.getText(); }
 
 	public String getIdpUrl() { return idpUrl; }
 	public String getIdpRealm() { return idpRealm; }
@@ -153,6 +162,38 @@ public class RequestComponent extends Composite {
 	public char[] getIdpPassword() { return idpPassword; }
 	public boolean isStoreIdpCredentials() { return storeIdpCredentials; }
 
+	/**
+	 * Preset variables and the token provider of the IdP credentials for the placeholders of this request
+	 */
+	public TemplateContext createTemplateContext() throws Exception {
+		return new TemplateContext(TemplateContext.parseVariables(getVariables()), createIdpTokenProvider());
+	}
+
+	/**
+	 * @return null if no IdP credentials are set
+	 */
+	public IdpTokenProvider createIdpTokenProvider() {
+		if (Utilities.isBlank(idpUrl) || Utilities.isBlank(idpUsername) || idpPassword == null || idpPassword.length == 0) {
+			return null;
+		} else {
+			return IdpTokenProvider.getIdpTokenProvider(idpUrl, idpRealm, idpUsername, new String(idpPassword), null, createIdpProxyConfiguration());
+		}
+	}
+
+	private ProxyConfiguration createIdpProxyConfiguration() {
+		if (Utilities.isNotBlank(getProxyUrl())) {
+			if ("DIRECT".equalsIgnoreCase(getProxyUrl()) || Utilities.isBlank(getProxyUrl())) {
+				return new ProxyConfiguration(ProxyConfigurationType.None);
+			} else if ("WPAD".equalsIgnoreCase(getProxyUrl())) {
+				return new ProxyConfiguration(ProxyConfigurationType.WPAD);
+			} else {
+				return new ProxyConfiguration(ProxyConfigurationType.ProxyURL, getProxyUrl());
+			}
+		} else {
+			return null;
+		}
+	}
+
 	public Map<String, String> getHttpHeaders() { return extractKeyValuePairs(headerContainer); }
 	public Map<String, String> getUrlParameters() { return extractKeyValuePairs(urlParamContainer); }
 	public Map<String, String> getHtmlFormParameters() { return extractKeyValuePairs(htmlFormParamContainer); }
@@ -234,7 +275,10 @@ public class RequestComponent extends Composite {
 		setFollowRedirects(maxRedirects != 0);
 		setMaxRedirectHops(maxRedirects > 0 ? maxRedirects : HttpRequest.DEFAULT_MAX_REDIRECTS);
 	}
+	public void setHttp2(final boolean http2) { http2Button.setSelection(http2); }
 	public void setRequestBody(final String value) { requestBodyText.setText(value != null ? value : ""); }
+	public void setResponseAssertions(final String value) { responseAssertionsText.setText(value != null ? value : ""); }
+	public void setVariables(final String value) { variablesText.setText(value != null ? value : ""); }
 
 	public void setIdpUrl(final String idpUrl) { this.idpUrl = idpUrl; }
 	public void setIdpRealm(final String idpRealm) { this.idpRealm = idpRealm; }
@@ -425,7 +469,7 @@ public class RequestComponent extends Composite {
 
 		final Composite redirectsRow = new Composite(content, SWT.NONE);
 		redirectsRow.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
-		final GridLayout redirectsRowLayout = new GridLayout(3, false);
+		final GridLayout redirectsRowLayout = new GridLayout(4, false);
 		redirectsRowLayout.marginWidth = 0;
 		redirectsRowLayout.marginHeight = 0;
 		redirectsRowLayout.horizontalSpacing = 7;
@@ -455,6 +499,13 @@ public class RequestComponent extends Composite {
 		// Disabled until "Follow redirects" is checked, since the hop count is meaningless otherwise
 		maxRedirectHopsSpinner.setEnabled(false);
 
+		http2Button = new Button(redirectsRow, SWT.CHECK);
+		http2Button.setText(LangResources.get("useHttp2"));
+		http2Button.setToolTipText(LangResources.get("useHttp2Hint"));
+		final GridData http2GridData = new GridData(SWT.LEFT, SWT.CENTER, false, false);
+		http2GridData.horizontalIndent = 15;
+		http2Button.setLayoutData(http2GridData);
+
 		final Composite methodUrlRow = new Composite(content, SWT.NONE);
 		methodUrlRow.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 
@@ -589,30 +640,14 @@ public class RequestComponent extends Composite {
 
 						storeIdpCredentials = inputDialog.isRememberCredentials();
 
-						ProxyConfiguration idpProxyConfiguration = null;
-						if (Utilities.isNotBlank(getProxyUrl())) {
-							if ("DIRECT".equalsIgnoreCase(getProxyUrl()) || Utilities.isBlank(getProxyUrl())) {
-								idpProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.None);
-							} else if ("WPAD".equalsIgnoreCase(getProxyUrl())) {
-								idpProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.WPAD);
-							} else {
-								idpProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.ProxyURL, getProxyUrl());
-							}
-						}
-
-						String idpToken = null;
-						if (tempIdpUrl.endsWith("/token")) {
-							idpToken = IdpHelper.aquireAccessToken(tempIdpUrl, tempIdpUsername, tempIdpPassword, null, idpProxyConfiguration);
-						} else {
-							final String idpTokenEndpointURL = IdpHelper.getIdpTokenEdpointUrl(tempIdpUrl, tempIdpRealm, idpProxyConfiguration);
-							idpToken = IdpHelper.aquireAccessToken(idpTokenEndpointURL, tempIdpUsername, tempIdpPassword, null, idpProxyConfiguration);
-						}
+						// Checks the credentials, the token is cached and refreshed by the shared provider
+						final IdpTokenProvider idpTokenProvider = IdpTokenProvider.getIdpTokenProvider(tempIdpUrl, tempIdpRealm, tempIdpUsername, tempIdpPassword, null, createIdpProxyConfiguration());
+						idpTokenProvider.refreshAccessToken();
 
-						if (idpToken != null) {
-							final Map<String, String> httpHeadersMap = getHttpHeaders();
-							httpHeadersMap.put(HttpConstants.HTTPHEADERNAME_AUTHORIZATION, HttpConstants.AUTHORIZATIONHEADER_START_BEARER + " " + idpToken);
-							setHttpHeaders(httpHeadersMap);
-						}
+						// The current token is inserted when the request is executed
+						final Map<String, String> httpHeadersMap = getHttpHeaders();
+						httpHeadersMap.put(HttpConstants.HTTPHEADERNAME_AUTHORIZATION, HttpConstants.AUTHORIZATIONHEADER_START_BEARER + " ${idp:token}");
+						setHttpHeaders(httpHeadersMap);
 
 						idpUrl = tempIdpUrl;
 						idpRealm = tempIdpRealm;
@@ -682,6 +717,10 @@ public class RequestComponent extends Composite {
 		createKeyValueSectionForHtmlFormParams(LangResources.get("htmlFormParameter"));
 
 		createRequestBodySection();
+
+		createResponseAssertionsSection();
+
+		createVariablesSection();
 	}
 
 	private void createPresetNameSection() {
@@ -925,6 +964,28 @@ public class RequestComponent extends Composite {
 		scrolled.setMinSize(scrolled.getClientArea().width, 200);
 	}
 
+	private void createResponseAssertionsSection() {
+		final Label label = new Label(content, SWT.NONE);
+		label.setText(LangResources.get("responseAssertions"));
+
+		responseAssertionsText = new Text(content, SWT.MULTI | SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL);
+		final GridData gd = new GridData(SWT.FILL, SWT.FILL, true, false);
+		gd.heightHint = 45;
+		responseAssertionsText.setLayoutData(gd);
+		responseAssertionsText.setToolTipText(LangResources.get("responseAssertionsHint"));
+	}
+
+	private void createVariablesSection() {
+		final Label label = new Label(content, SWT.NONE);
+		label.setText(LangResources.get("variables"));
+
+		variablesText = new Text(content, SWT.MULTI | SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL);
+		final GridData gd = new GridData(SWT.FILL, SWT.FILL, true, false);
+		gd.heightHint = 45;
+		variablesText.setLayoutData(gd);
+		variablesText.setToolTipText(LangResources.get("variablesHint"));
+	}
+
 	private static Map<String, String> extractKeyValuePairs(final Composite container) {
 		final Map<String, String> map = new LinkedHashMap<>();
 		for (final Control c : container.getChildren()) {
@@ -1,12 +1,18 @@
 package de.soderer.restclient.dlg;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.ScrolledComposite;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.events.KeyAdapter;
 import org.eclipse.swt.events.KeyEvent;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -23,23 +29,39 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
 
-import de.soderer.json.JsonReader;
-import de.soderer.json.JsonWriter;
 import de.soderer.network.HttpConstants;
 import de.soderer.network.HttpContentType;
+import de.soderer.restclient.helper.JsonStreamFormatter;
+import de.soderer.restclient.helper.JsonStreamFormatter.JsonSyntaxException;
+import de.soderer.restclient.helper.ResponseBodyFile;
 import de.soderer.utilities.LangResources;
 import de.soderer.utilities.Utilities;
 import de.soderer.utilities.collection.CaseInsensitiveMap;
 
 public class ResponseComponent extends Composite {
+	/** Response bodies of this size and more are shown page by page from a temporary file */
+	public static final int LARGE_RESPONSE_BODY_CHARACTERS = 1024 * 1024;
+
 	private Text ipAddressText;
 	private Text httpCodeText;
 	private Text timeText;
 	private Label redirectHintLabel;
 	private Color redirectWarningColor;
+	private Color syntaxErrorHighlightColor;
 	private Composite headerContainer;
 	private ScrolledComposite headerScrolled;
-	private Text responseBodyText;
+	private StyledText responseBodyText;
+	private Composite pagingRow;
+	private Button firstPageButton;
+	private Button previousPageButton;
+	private Button nextPageButton;
+	private Button lastPageButton;
+	private Label pageLabel;
+	private ResponseBodyFile responseBodyFile;
+	private int currentPageIndex;
+	/** Revision of the pages of the responseBodyFile the current page was read from */
+	private int shownRevision;
+	private boolean jsonSyntaxErrorShown;
 	private Text downloadTargetText;
 	private Button downloadTargetBrowseFileButton;
 	private Button downloadTargetBrowseDirectoryButton;
@@ -88,21 +110,153 @@ public class ResponseComponent extends Composite {
 		layout(true, true);
 	}
 
+	/**
+	 * The response headers must be set before, because JSON data is detected by their Content-Type
+	 */
 	public void setResponseBody(final String body) {
+		closeResponseBodyFile();
+		if (body != null && body.length() >= LARGE_RESPONSE_BODY_CHARACTERS) {
+			// The text widget and the JSON tree would need a multiple of the body's size
+			try {
+				final File bodyFile = ResponseBodyFile.createTempFile();
+				Files.writeString(bodyFile.toPath(), body, StandardCharsets.UTF_8);
+				setResponseBodyFile(bodyFile, StandardCharsets.UTF_8);
+				return;
+			} catch (final IOException e) {
+				responseBodyText.setText("RestClient TemporaryFileError: \n" + e.getMessage() + "\n\n" + body.substring(0, LARGE_RESPONSE_BODY_CHARACTERS));
+				return;
+			}
+		}
+
+		if (body != null && isJsonContentType()) {
+			try {
+				responseBodyText.setText(JsonStreamFormatter.format(body));
+			} catch (final JsonSyntaxException e) {
+				final String errorText = "RestClient JsonParserError: \n" + e.getMessage() + "\n\n";
+				responseBodyText.setText(errorText + body);
+				highlightSyntaxError(errorText.length() + (int) e.getOffset());
+			}
+		} else {
+			responseBodyText.setText(body != null ? body : "");
+		}
+	}
+
+	/**
+	 * Shows a response body streamed to a file page by page, without reading it into memory as a whole.
+	 * The response headers must be set before, because JSON data is detected by their Content-Type.
+	 *
+	 * @param bodyFile temporary file, which is deleted after it was read
+	 */
+	public void setResponseBodyFile(final File bodyFile, final Charset charset) throws IOException {
+		closeResponseBodyFile();
+		responseBodyText.setText("");
+		currentPageIndex = 0;
+		shownRevision = 0;
+		jsonSyntaxErrorShown = false;
+		responseBodyFile = ResponseBodyFile.create(bodyFile, charset, isJsonContentType(), true, availableResponseBodyFile -> {
+			if (!isDisposed()) {
+				getDisplay().asyncExec(() -> {
+					if (!isDisposed() && availableResponseBodyFile == responseBodyFile) {
+						if (responseBodyFile.isComplete() && responseBodyFile.getJsonSyntaxException() != null && !jsonSyntaxErrorShown) {
+							// Invalid JSON was written again unformatted, show the error position once
+							jsonSyntaxErrorShown = true;
+							showPage(responseBodyFile.getJsonSyntaxErrorPageIndex());
+						} else if (responseBodyText.getCharCount() == 0 || responseBodyFile.getRevision() != shownRevision) {
+							showPage(0);
+						} else {
+							refreshPaging();
+						}
+					}
+				});
+			}
+		});
+		refreshPaging();
+	}
+
+	private boolean isJsonContentType() {
 		final String contentType = new CaseInsensitiveMap<>(getResponseHeaders()).get(HttpConstants.HTTPHEADERNAME_CONTENTTYPE);
-		if (body != null && contentType != null && (
+		return contentType != null && (
 				contentType.equals(HttpContentType.Json.getStringRepresentation())
 				|| contentType.startsWith(HttpContentType.Json.getStringRepresentation() + ";")
 				|| contentType.equals(HttpContentType.TextJson.getStringRepresentation())
-				|| contentType.startsWith(HttpContentType.TextJson.getStringRepresentation() + ";"))) {
+				|| contentType.startsWith(HttpContentType.TextJson.getStringRepresentation() + ";"));
+	}
+
+	private void showPage(final int pageIndex) {
+		if (responseBodyFile != null && pageIndex >= 0 && pageIndex < responseBodyFile.getPageCount()) {
 			try {
-				final String jsonBody = JsonWriter.getJsonItemString(JsonReader.readJsonItemString(body));
-				responseBodyText.setText(jsonBody != null ? jsonBody : "");
-			} catch (final Exception e) {
-				responseBodyText.setText("RestClient JsonParserError: \n" + e.getMessage() + "\n\n" + body);
+				shownRevision = responseBodyFile.getRevision();
+				responseBodyText.setText(responseBodyFile.readPage(pageIndex));
+				currentPageIndex = pageIndex;
+				if (responseBodyFile.isComplete() && pageIndex == responseBodyFile.getJsonSyntaxErrorPageIndex()) {
+					final int errorOffset = responseBodyFile.getJsonSyntaxErrorOffsetInPage();
+					highlightSyntaxError(errorOffset < 0 ? responseBodyText.getCharCount() : errorOffset);
+				}
+			} catch (final IOException e) {
+				responseBodyText.setText("RestClient TemporaryFileError: \n" + e.getMessage());
 			}
-		} else {
-			responseBodyText.setText(body != null ? body : "");
+		}
+		refreshPaging();
+	}
+
+	private void refreshPaging() {
+		final boolean hasPages = responseBodyFile != null;
+		if (hasPages) {
+			final int pageCount = responseBodyFile.getPageCount();
+			if (responseBodyFile.getError() != null) {
+				pageLabel.setText(LangResources.get("responseBodyPageError", responseBodyFile.getError().getMessage()));
+			} else if (pageCount == 0) {
+				pageLabel.setText(LangResources.get("responseBodyPagePreparing"));
+			} else {
+				String pageText = LangResources.get(responseBodyFile.isComplete() ? "responseBodyPage" : "responseBodyPagePreparingMore",
+						currentPageIndex + 1,
+						pageCount,
+						responseBodyFile.getFirstLineOfPage(currentPageIndex),
+						responseBodyFile.getLastLineOfPage(currentPageIndex),
+						responseBodyFile.getLineCount());
+				if (responseBodyFile.getJsonSyntaxException() != null) {
+					pageText += "\n" + LangResources.get("jsonSyntaxErrorShownUnformatted", responseBodyFile.getJsonSyntaxException().getMessage(), responseBodyFile.getJsonSyntaxErrorPageIndex() + 1);
+				}
+				pageLabel.setText(pageText);
+			}
+			firstPageButton.setEnabled(currentPageIndex > 0);
+			previousPageButton.setEnabled(currentPageIndex > 0);
+			nextPageButton.setEnabled(currentPageIndex < pageCount - 1);
+			lastPageButton.setEnabled(currentPageIndex < pageCount - 1);
+		}
+		pagingRow.setVisible(hasPages);
+		((GridData) pagingRow.getLayoutData()).exclude = !hasPages;
+		pagingRow.layout(true, true);
+		layout(true, true);
+	}
+
+	/**
+	 * Marks the position of a JSON syntax error from there to the end of its line and scrolls to it
+	 *
+	 * @param offset character offset in the text shown, the text's length for an error at the end of the data
+	 */
+	private void highlightSyntaxError(final int offset) {
+		final int charCount = responseBodyText.getCharCount();
+		if (charCount == 0) {
+			return;
+		}
+		final int start = Math.max(0, Math.min(offset, charCount - 1));
+		int end = start + 1;
+		while (end < charCount && end - start < 200 && responseBodyText.getTextRange(end, 1).charAt(0) != '\n') {
+			end++;
+		}
+		final StyleRange styleRange = new StyleRange(start, end - start, null, syntaxErrorHighlightColor);
+		styleRange.underline = true;
+		responseBodyText.setStyleRange(styleRange);
+		responseBodyText.setSelection(start);
+		responseBodyText.showSelection();
+	}
+
+	private void closeResponseBodyFile() {
+		if (responseBodyFile != null) {
+			responseBodyFile.close();
+			responseBodyFile = null;
+			refreshPaging();
 		}
 	}
 
@@ -146,8 +300,23 @@ public class ResponseComponent extends Composite {
 		return timeText.getText();
 	}
 
+	/**
+	 * Reads a response body shown page by page completely, so use {@link #hasResponseBody()} to only check for its existence
+	 */
 	public String getResponseBody() {
-		return responseBodyText.getText();
+		if (responseBodyFile != null && responseBodyFile.isComplete() && responseBodyFile.getError() == null) {
+			try {
+				return responseBodyFile.readText();
+			} catch (@SuppressWarnings("unused") final IOException e) {
+				return responseBodyText.getText();
+			}
+		} else {
+			return responseBodyText.getText();
+		}
+	}
+
+	public boolean hasResponseBody() {
+		return responseBodyFile != null || Utilities.isNotBlank(responseBodyText.getText());
 	}
 
 	/**
@@ -207,6 +376,8 @@ public class ResponseComponent extends Composite {
 
 		redirectWarningColor = new Color(getDisplay(), 170, 0, 0);
 		addDisposeListener(e -> redirectWarningColor.dispose());
+		syntaxErrorHighlightColor = new Color(getDisplay(), 255, 190, 190);
+		addDisposeListener(e -> syntaxErrorHighlightColor.dispose());
 
 		redirectHintLabel = new Label(this, SWT.WRAP);
 		redirectHintLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
@@ -218,7 +389,7 @@ public class ResponseComponent extends Composite {
 		final Label bodyLabel = new Label(this, SWT.NONE);
 		bodyLabel.setText(LangResources.get("responseBody"));
 
-		responseBodyText = new Text(this,
+		responseBodyText = new StyledText(this,
 				SWT.MULTI
 				| SWT.BORDER
 				| SWT.READ_ONLY
@@ -240,6 +411,44 @@ public class ResponseComponent extends Composite {
 			}
 		});
 
+		pagingRow = new Composite(this, SWT.NONE);
+		pagingRow.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		final GridLayout pagingLayout = new GridLayout(5, false);
+		pagingLayout.marginWidth = 0;
+		pagingLayout.marginHeight = 0;
+		pagingRow.setLayout(pagingLayout);
+
+		firstPageButton = new Button(pagingRow, SWT.PUSH);
+		firstPageButton.setText("|<");
+		firstPageButton.setToolTipText(LangResources.get("firstPage"));
+		firstPageButton.addListener(SWT.Selection, e -> showPage(0));
+
+		previousPageButton = new Button(pagingRow, SWT.PUSH);
+		previousPageButton.setText("<");
+		previousPageButton.setToolTipText(LangResources.get("previousPage"));
+		previousPageButton.addListener(SWT.Selection, e -> showPage(currentPageIndex - 1));
+
+		nextPageButton = new Button(pagingRow, SWT.PUSH);
+		nextPageButton.setText(">");
+		nextPageButton.setToolTipText(LangResources.get("nextPage"));
+		nextPageButton.addListener(SWT.Selection, e -> showPage(currentPageIndex + 1));
+
+		lastPageButton = new Button(pagingRow, SWT.PUSH);
+		lastPageButton.setText(">|");
+		lastPageButton.setToolTipText(LangResources.get("lastPage"));
+		lastPageButton.addListener(SWT.Selection, e -> showPage(responseBodyFile == null ? 0 : responseBodyFile.getPageCount() - 1));
+
+		pageLabel = new Label(pagingRow, SWT.NONE);
+		pageLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+		pagingRow.setVisible(false);
+		((GridData) pagingRow.getLayoutData()).exclude = true;
+		addDisposeListener(e -> {
+			if (responseBodyFile != null) {
+				responseBodyFile.close();
+			}
+		});
+
 		final Composite downloadTargetRow = new Composite(this, SWT.NONE);
 		downloadTargetRow.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 		final GridLayout downloadTargetLayout = new GridLayout(4, false);
@@ -327,6 +536,7 @@ public class ResponseComponent extends Composite {
 		httpCodeText.setText("");
 		ipAddressText.setText("");
 		timeText.setText("");
+		closeResponseBodyFile();
 		responseBodyText.setText("");
 
 		httpCodeText.setVisible(false);
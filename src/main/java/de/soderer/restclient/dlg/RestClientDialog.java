@@ -7,6 +7,7 @@ import java.io.InputStream;
 import java.net.Proxy;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
@@ -43,8 +44,6 @@ import org.eclipse.swt.widgets.Monitor;
 import de.soderer.json.JsonArray;
 import de.soderer.json.JsonNode;
 import de.soderer.json.JsonObject;
-import de.soderer.json.JsonReader;
-import de.soderer.json.JsonWriter;
 import de.soderer.json.exception.DuplicateKeyException;
 import de.soderer.network.HttpMethod;
 import de.soderer.network.HttpRequest;
@@ -56,8 +55,19 @@ import de.soderer.network.TlsCheckConfiguration.TlsCheckConfigurationType;
 import de.soderer.pac.utilities.ProxyConfiguration;
 import de.soderer.pac.utilities.ProxyConfiguration.ProxyConfigurationType;
 import de.soderer.restclient.RestClient;
+import de.soderer.restclient.helper.CsvDataSource;
+import de.soderer.restclient.helper.RandomParameterResolver;
+import de.soderer.restclient.helper.RequestPresetRepository;
+import de.soderer.restclient.helper.ResponseBodyFile;
+import de.soderer.restclient.helper.TemplateContext;
 import de.soderer.restclient.image.ImageManager;
+import de.soderer.restclient.worker.CompiledHttpRequest;
+import de.soderer.restclient.worker.ConnectionCountingSslContext;
+import de.soderer.restclient.worker.ExecuteHttpClientRequestWorker;
 import de.soderer.restclient.worker.ExecuteHttpRequestWorker;
+import de.soderer.restclient.worker.HttpClientConnector;
+import de.soderer.restclient.worker.HttpClientResponse;
+import de.soderer.restclient.worker.ResponseAssertions;
 import de.soderer.utilities.ConfigurationProperties;
 import de.soderer.utilities.DateUtilities;
 import de.soderer.utilities.IoUtilities;
@@ -96,6 +106,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 	private Button closeButton;
 
 	private final ConfigurationProperties applicationConfiguration;
+	private RequestPresetRepository requestPresetRepository;
 
 	public RestClientDialog(final Display display, final ConfigurationProperties applicationConfiguration) throws Exception {
 		super(display, RestClient.APPLICATION_NAME, RestClient.VERSION, RestClient.KEYSTORE_FILE);
@@ -181,31 +192,12 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			@Override
 			public void run() {
 				try {
-					final JsonObject requestPresetsJsonObject;
-					if (RestClient.REQUEST_PRESETS_FILE.exists()) {
-						try (JsonReader reader = new JsonReader(new FileInputStream(RestClient.REQUEST_PRESETS_FILE))) {
-							requestPresetsJsonObject = (JsonObject) reader.read();
-						}
-					} else {
-						requestPresetsJsonObject = new JsonObject();
-					}
-
 					final String presetName = requestPart.getPresetName();
-					if (!requestPresetsJsonObject.containsKey(presetName)
+					if (!requestPresetRepository.containsPreset(presetName)
 							|| new QuestionDialog(getShell(), RestClient.APPLICATION_NAME, LangResources.get("replaceExistingRequestPreset", presetName), LangResources.get("yes"), LangResources.get("cancel")).open() == 0) {
-						final JsonObject requestPresetJsonObject = createRequestPresetJsonObject();
-
-						if (requestPresetsJsonObject.containsKey(presetName)) {
-							requestPresetsJsonObject.replace(presetName, requestPresetJsonObject);
-						} else {
-							requestPresetsJsonObject.add(presetName, requestPresetJsonObject);
-						}
-
-						try (JsonWriter writer = new JsonWriter(new FileOutputStream(RestClient.REQUEST_PRESETS_FILE))) {
-							writer.add(requestPresetsJsonObject);
-						}
+						requestPresetRepository.savePreset(presetName, createRequestPresetJsonObject());
 						showMessage(RestClient.APPLICATION_NAME, LangResources.get("savedRequestPreset", presetName));
-						requestPart.setPresetNames(new ArrayList<>(requestPresetsJsonObject.keySet()));
+						requestPart.setPresetNames(requestPresetRepository.getPresetNames());
 						requestPart.setPresetName(presetName);
 					}
 				} catch (final Exception e) {
@@ -219,22 +211,9 @@ public class RestClientDialog extends UpdateableGuiApplication {
 				try {
 					final String presetName = requestPart.getPresetName();
 					if (new QuestionDialog(getShell(), RestClient.APPLICATION_NAME, LangResources.get("reallyDeleteRequestPreset", presetName), LangResources.get("yes"), LangResources.get("cancel")).open() == 0) {
-						final JsonObject requestPresetsJsonObject;
-						if (RestClient.REQUEST_PRESETS_FILE.exists()) {
-							try (JsonReader reader = new JsonReader(new FileInputStream(RestClient.REQUEST_PRESETS_FILE))) {
-								requestPresetsJsonObject = (JsonObject) reader.read();
-							}
-						} else {
-							requestPresetsJsonObject = new JsonObject();
-						}
-
-						requestPresetsJsonObject.remove(presetName);
-
-						try (JsonWriter writer = new JsonWriter(new FileOutputStream(RestClient.REQUEST_PRESETS_FILE))) {
-							writer.add(requestPresetsJsonObject);
-						}
+						requestPresetRepository.deletePreset(presetName);
 						showMessage(RestClient.APPLICATION_NAME, LangResources.get("deletedRequestPreset", presetName));
-						requestPart.setPresetNames(new ArrayList<>(requestPresetsJsonObject.keySet()));
+						requestPart.setPresetNames(requestPresetRepository.getPresetNames());
 
 						checkButtonStatus();
 					}
@@ -247,14 +226,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			@Override
 			public void run() {
 				try {
-					final JsonObject requestPresetsJsonObject;
-
-					if (RestClient.REQUEST_PRESETS_FILE.exists()) {
-						try (JsonReader reader = new JsonReader(new FileInputStream(RestClient.REQUEST_PRESETS_FILE))) {
-							requestPresetsJsonObject = (JsonObject) reader.read();
-							setRequestPreset((JsonObject) requestPresetsJsonObject.get(requestPart.getPresetName()));
-						}
-					}
+					setRequestPreset(requestPresetRepository.getPreset(requestPart.getPresetName()));
 				} catch (final Exception e) {
 					showErrorMessage(RestClient.APPLICATION_NAME, e.getMessage());
 				}
@@ -264,23 +236,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			@Override
 			public void accept(final List<String> newPresetOrder) {
 				try {
-					if (RestClient.REQUEST_PRESETS_FILE.exists()) {
-						final JsonObject requestPresetsJsonObject;
-						try (JsonReader reader = new JsonReader(new FileInputStream(RestClient.REQUEST_PRESETS_FILE))) {
-							requestPresetsJsonObject = (JsonObject) reader.read();
-						}
-
-						final JsonObject reorderedRequestPresetsJsonObject = new JsonObject();
-						for (final String presetName : newPresetOrder) {
-							if (requestPresetsJsonObject.containsKey(presetName)) {
-								reorderedRequestPresetsJsonObject.add(presetName, requestPresetsJsonObject.get(presetName));
-							}
-						}
-
-						try (JsonWriter writer = new JsonWriter(new FileOutputStream(RestClient.REQUEST_PRESETS_FILE))) {
-							writer.add(reorderedRequestPresetsJsonObject);
-						}
-					}
+					requestPresetRepository.reorderPresets(newPresetOrder);
 				} catch (final Exception e) {
 					showErrorMessage(RestClient.APPLICATION_NAME, e.getMessage());
 				}
@@ -451,6 +407,13 @@ public class RestClientDialog extends UpdateableGuiApplication {
 	@Override
 	public void close() {
 		applicationConfiguration.save();
+		if (requestPresetRepository != null) {
+			try {
+				requestPresetRepository.close();
+			} catch (final Exception e) {
+				showErrorMessage(RestClient.APPLICATION_NAME, e.getMessage());
+			}
+		}
 		dispose();
 	}
 
@@ -485,18 +448,23 @@ public class RestClientDialog extends UpdateableGuiApplication {
 	}
 
 	private void loadPresets() throws Exception {
-		if (RestClient.REQUEST_PRESETS_FILE.exists()) {
-			try (JsonReader reader = new JsonReader(new FileInputStream(RestClient.REQUEST_PRESETS_FILE))) {
-				final JsonObject requestPresetsJsonObject = (JsonObject) reader.read();
-				requestPart.setPresetNames(new ArrayList<>(requestPresetsJsonObject.keySet()));
-
-				if (requestPresetsJsonObject.size() == 1) {
-					final String presetName = requestPresetsJsonObject.keySet().iterator().next();
-					setRequestPreset((JsonObject) requestPresetsJsonObject.get(presetName));
-					requestPart.setPresetName(presetName);
-				}
-			}
+		requestPresetRepository = new RequestPresetRepository(RestClient.REQUEST_PRESETS_FILE);
+		final List<String> presetNames = requestPresetRepository.getPresetNames();
+		requestPart.setPresetNames(presetNames);
+
+		if (presetNames.size() == 1) {
+			setRequestPreset(requestPresetRepository.getPreset(presetNames.get(0)));
+			requestPart.setPresetName(presetNames.get(0));
 		}
+
+		// Presets changed by an editor or another instance show up without restart
+		requestPresetRepository.startWatching(() -> getDisplay().asyncExec(() -> {
+			if (!isDisposed()) {
+				final String currentPresetName = requestPart.getPresetName();
+				requestPart.setPresetNames(requestPresetRepository.getPresetNames());
+				requestPart.setPresetName(currentPresetName);
+			}
+		}));
 	}
 
 	private void setRequestPreset(final JsonObject jsonObject) {
@@ -506,6 +474,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 
 			requestPart.setProxyUrl("");
 			requestPart.setMaxRedirects(0);
+			requestPart.setHttp2(false);
 			requestPart.setHttpMethod("GET");
 			requestPart.setServiceUrl("");
 			requestPart.setTlsCheckConfiguration(new TlsCheckConfiguration(TlsCheckConfigurationType.SystemTrustStore, true));
@@ -513,6 +482,8 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			requestPart.setHttpHeaders(new LinkedHashMap<>());
 			requestPart.setUrlParameters(new LinkedHashMap<>());
 			requestPart.setRequestBody("");
+			requestPart.setResponseAssertions("");
+			requestPart.setVariables("");
 
 			requestPart.setIdpUrl("");
 			requestPart.setIdpRealm("");
@@ -523,6 +494,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			// Older presets saved before this field existed simply won't have it -> default to 0 (off)
 			final Object maxRedirectsObject = jsonObject.getSimpleValue("maxRedirects");
 			requestPart.setMaxRedirects(maxRedirectsObject == null ? 0 : ((Number) maxRedirectsObject).intValue());
+			requestPart.setHttp2(Boolean.TRUE.equals(jsonObject.getSimpleValue("http2")));
 			requestPart.setHttpMethod((String) jsonObject.getSimpleValue("httpMethod"));
 			requestPart.setServiceUrl((String) jsonObject.getSimpleValue("serviceUrl"));
 
@@ -593,6 +565,8 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			requestPart.setHtmlFormParameters(htmlFormParameters);
 
 			requestPart.setRequestBody((String) jsonObject.getSimpleValue("requestBody"));
+			requestPart.setResponseAssertions((String) jsonObject.getSimpleValue("responseAssertions"));
+			requestPart.setVariables((String) jsonObject.getSimpleValue("variables"));
 
 			requestPart.setIdpUrl((String) jsonObject.getSimpleValue("idpUrl"));
 			requestPart.setIdpRealm((String) jsonObject.getSimpleValue("idpRealm"));
@@ -613,6 +587,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 
 		requestPresetJsonObject.add("proxyUrl", requestPart.getProxyUrl());
 		requestPresetJsonObject.add("maxRedirects", requestPart.getMaxRedirects());
+		requestPresetJsonObject.add("http2", requestPart.isHttp2());
 		requestPresetJsonObject.add("httpMethod", requestPart.getHttpMethod());
 		requestPresetJsonObject.add("serviceUrl", requestPart.getServiceUrl());
 
@@ -664,6 +639,12 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		requestPresetJsonObject.add("htmlFormParameters", htmlFromParametersJsonArray);
 
 		requestPresetJsonObject.add("requestBody", requestPart.getRequestBody());
+		if (Utilities.isNotBlank(requestPart.getResponseAssertions())) {
+			requestPresetJsonObject.add("responseAssertions", requestPart.getResponseAssertions());
+		}
+		if (Utilities.isNotBlank(requestPart.getVariables())) {
+			requestPresetJsonObject.add("variables", requestPart.getVariables());
+		}
 
 		if (Utilities.isNotBlank(requestPart.getIdpUrl())) {
 			requestPresetJsonObject.add("idpUrl", requestPart.getIdpUrl());
@@ -851,6 +832,10 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			curlCommand.append(" \\\n  -L --max-redirs ").append(requestPart.getMaxRedirects());
 		}
 
+		if (requestPart.isHttp2()) {
+			curlCommand.append(" \\\n  --http2");
+		}
+
 		if (Utilities.isNotBlank(requestPart.getProxyUrl()) && !"DIRECT".equalsIgnoreCase(requestPart.getProxyUrl()) && !"WPAD".equalsIgnoreCase(requestPart.getProxyUrl())) {
 			// WPAD proxy autodetection has no cURL equivalent and is left out here
 			curlCommand.append(" \\\n  -x ").append(shellQuote(requestPart.getProxyUrl()));
@@ -897,6 +882,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		String requestBody = null;
 		boolean insecure = false;
 		int maxRedirects = 0;
+		boolean http2 = false;
 		String proxyUrl = null;
 		String cacertFile = null;
 		final Map<String, String> httpHeaders = new LinkedHashMap<>();
@@ -929,6 +915,8 @@ public class RestClientDialog extends UpdateableGuiApplication {
 				if (maxRedirects == 0) {
 					maxRedirects = 10;
 				}
+			} else if ("--http2".equals(token) || "--http2-prior-knowledge".equals(token)) {
+				http2 = true;
 			} else if ("--max-redirs".equals(token) && i + 1 < tokens.size()) {
 				maxRedirects = Integer.parseInt(tokens.get(++i));
 			} else if ("--cacert".equals(token) && i + 1 < tokens.size()) {
@@ -966,6 +954,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		requestPart.setPresetName(null);
 		requestPart.setProxyUrl(proxyUrl == null ? "" : proxyUrl);
 		requestPart.setMaxRedirects(maxRedirects);
+		requestPart.setHttp2(http2);
 		requestPart.setHttpMethod(httpMethod == null ? "GET" : httpMethod);
 		requestPart.setServiceUrl(serviceUrl);
 		requestPart.setServiceMethod(null);
@@ -1114,7 +1103,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 	 */
 	private boolean hasResponseData() {
 		return responsePart.getHttpCode() != null
-				|| Utilities.isNotBlank(responsePart.getResponseBody())
+				|| responsePart.hasResponseBody()
 				|| !responsePart.getResponseHeaders().isEmpty();
 	}
 
@@ -1149,6 +1138,9 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		if (requestPart.getMaxRedirects() > 0) {
 			requestYamlMapping.add("maxRedirects", requestPart.getMaxRedirects());
 		}
+		if (requestPart.isHttp2()) {
+			requestYamlMapping.add("http2", true);
+		}
 		requestYamlMapping.add("httpMethod", requestPart.getHttpMethod());
 
 		final YamlScalar serviceUrlKeyYamlScalar = new YamlScalar("serviceUrl");
@@ -1229,6 +1221,12 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		if (Utilities.isNotBlank(requestPart.getRequestBody())) {
 			requestYamlMapping.add("requestBody", requestPart.getRequestBody());
 		}
+		if (Utilities.isNotBlank(requestPart.getResponseAssertions())) {
+			requestYamlMapping.add("responseAssertions", requestPart.getResponseAssertions());
+		}
+		if (Utilities.isNotBlank(requestPart.getVariables())) {
+			requestYamlMapping.add("variables", requestPart.getVariables());
+		}
 
 		if (Utilities.isNotBlank(requestPart.getIdpUrl())) {
 			requestYamlMapping.add("idpUrl", requestPart.getIdpUrl());
@@ -1271,7 +1269,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 			responseYamlMapping.add("responseHeaders", responseHeadersYamlSequence);
 		}
 
-		if (Utilities.isNotBlank(responsePart.getResponseBody())) {
+		if (responsePart.hasResponseBody()) {
 			// The 1-arg YamlScalar(Object) constructor always produces YamlScalarType.STRING, and
 			// getType() (not the multiline settings below) is what YamlWriter uses to decide between
 			// a quoted single-line string and a "|"/">" block scalar - so MULTILINE must be requested
@@ -1306,6 +1304,7 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		requestPart.setProxyUrl(requestYamlMapping.containsKey("proxyUrl") ? (String) requestYamlMapping.getSimpleValue("proxyUrl") : "");
 		final Object maxRedirectsObject = requestYamlMapping.getSimpleValue("maxRedirects");
 		requestPart.setMaxRedirects(maxRedirectsObject == null ? 0 : ((Number) maxRedirectsObject).intValue());
+		requestPart.setHttp2(Boolean.TRUE.equals(requestYamlMapping.getSimpleValue("http2")));
 		requestPart.setHttpMethod((String) requestYamlMapping.getSimpleValue("httpMethod"));
 		requestPart.setServiceUrl((String) requestYamlMapping.getSimpleValue("serviceUrl"));
 
@@ -1370,6 +1369,8 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		requestPart.setHtmlFormParameters(htmlFormParameters);
 
 		requestPart.setRequestBody((String) requestYamlMapping.getSimpleValue("requestBody"));
+		requestPart.setResponseAssertions((String) requestYamlMapping.getSimpleValue("responseAssertions"));
+		requestPart.setVariables((String) requestYamlMapping.getSimpleValue("variables"));
 
 		requestPart.setIdpUrl((String) requestYamlMapping.getSimpleValue("idpUrl"));
 		requestPart.setIdpRealm((String) requestYamlMapping.getSimpleValue("idpRealm"));
@@ -1456,9 +1457,14 @@ public class RestClientDialog extends UpdateableGuiApplication {
 					}
 				}
 
+				if (requestPart.isHttp2()) {
+					executeHttp2Request(httpRequest, proxy);
+					return;
+				}
+
 				final LocalDateTime start = LocalDateTime.now();
 
-				worker = new ExecuteHttpRequestWorker(null, httpRequest, proxy, requestPart.getTlsCheckConfiguration().getTrustManager(), !requestPart.getTlsCheckConfiguration().getCheckCn());
+				worker = new ExecuteHttpRequestWorker(null, new CompiledHttpRequest(httpRequest, requestPart.createTemplateContext()), new RandomParameterResolver(), proxy, requestPart.getTlsCheckConfiguration().getTrustManager(), !requestPart.getTlsCheckConfiguration().getCheckCn());
 				HttpResponse httpResponse;
 				final ProgressDialog<WorkerSimple<HttpResponse>> progressDialog = new ProgressDialog<>(getShell(), RestClient.APPLICATION_NAME, LangResources.get("sendRequest"), worker);
 				final Result dialogResult = progressDialog.open();
@@ -1510,11 +1516,88 @@ public class RestClientDialog extends UpdateableGuiApplication {
 		}
 	}
 
+	/**
+	 * Single request via HTTP/2, which needs the java.net.http.HttpClient instead of HttpUtilities.
+	 * The server's IP address is not available there. The response body is streamed into a temporary
+	 * file, so large responses are never held in memory as a whole.
+	 */
+	private void executeHttp2Request(final HttpRequest httpRequest, final Proxy proxy) {
+		ExecuteHttpClientRequestWorker worker = null;
+		// Deleted here if the response was not handed over to the response component
+		File responseBodyFile = null;
+		try {
+			final LocalDateTime start = LocalDateTime.now();
+
+			final HttpClientConnector httpClientConnector = new HttpClientConnector(proxy,
+					ConnectionCountingSslContext.create(requestPart.getTlsCheckConfiguration().getTrustManager(), !requestPart.getTlsCheckConfiguration().getCheckCn()),
+					httpRequest.getConnectTimeoutMillis(),
+					httpRequest.getMaxRedirects(),
+					HttpClient.Version.HTTP_2);
+			worker = new ExecuteHttpClientRequestWorker(null, new CompiledHttpRequest(httpRequest, requestPart.createTemplateContext()), new RandomParameterResolver(), httpClientConnector);
+			responseBodyFile = ResponseBodyFile.createTempFile();
+			worker.setResponseBodyFile(responseBodyFile);
+			HttpClientResponse httpClientResponse;
+			final ProgressDialog<WorkerSimple<HttpClientResponse>> progressDialog = new ProgressDialog<>(getShell(), RestClient.APPLICATION_NAME, LangResources.get("sendRequest"), worker);
+			final Result dialogResult = progressDialog.open();
+			if (dialogResult == Result.CANCELED) {
+				showErrorMessage(LangResources.get("sendRequest"), LangResources.get("canceledByUser"));
+				return;
+			} else {
+				httpClientResponse = worker.get();
+			}
+
+			final LocalDateTime end = LocalDateTime.now();
+			final Duration responseDuration = Duration.between(start, end);
+
+			if (httpRequest.getPostParameters() != null && httpRequest.getPostParameters().size() > 0) {
+				final String requestBody = HttpUtilities.convertToParameterString(httpRequest.getPostParameters(), null);
+				requestPart.setRequestBody(requestBody);
+			}
+
+			responsePart.setIpAddress("");
+			responsePart.setHttpCode(httpClientResponse.getHttpCode());
+			responsePart.setTime(DateUtilities.getShortHumanReadableTimespan(responseDuration, true, false));
+			responsePart.setResponseHeaders(httpClientResponse.getHeaders());
+			responsePart.setResponseBodyFile(httpClientResponse.getContentFile(), httpClientResponse.getContentCharset());
+			responseBodyFile = null;
+			responsePart.setRedirectInfo(httpClientResponse.getRedirectCount(), httpClientResponse.getFinalUrl(), false);
+			if (worker.getRandomParameterReplacements() != null && worker.getRandomParameterReplacements().size() > 0) {
+				responsePart.setRandomParameters(worker.getRandomParameterReplacements());
+			} else {
+				responsePart.setRandomParameters(null);
+			}
+		} catch (final Exception e) {
+			responsePart.setIpAddress("");
+			responsePart.setHttpCode(null);
+			responsePart.setTime("");
+			final Map<String, String> responseHeaders = new LinkedHashMap<>();
+			responsePart.setResponseHeaders(responseHeaders);
+			responsePart.setResponseBody(e.getClass().getSimpleName() + ":\n" + e.getMessage());
+			responsePart.setRedirectInfo(0, null, false);
+
+			if (worker != null && worker.getRandomParameterReplacements() != null && worker.getRandomParameterReplacements().size() > 0) {
+				responsePart.setRandomParameters(worker.getRandomParameterReplacements());
+			} else {
+				responsePart.setRandomParameters(null);
+			}
+		} finally {
+			if (responseBodyFile != null) {
+				responseBodyFile.delete();
+			}
+		}
+
+		responsePart.showResponse();
+	}
+
 	private void executeMultipleRequest() {
 		try {
 			responsePart.clearResponse();
 
 			try {
+				// Invalid assertions are reported before the configuration of the run
+				final ResponseAssertions responseAssertions = ResponseAssertions.parse(requestPart.getResponseAssertions());
+				final TemplateContext templateContext = requestPart.createTemplateContext();
+
 				final MultipleWorkerConfigurationDialog configurationDialog = new MultipleWorkerConfigurationDialog(getShell(), LangResources.get("multipleWorkerSettings"));
 				final Boolean result = configurationDialog.open();
 				if (result != null && result) {
@@ -1567,16 +1650,33 @@ public class RestClientDialog extends UpdateableGuiApplication {
 
 					final int tasksPerWorker = "∞".equals(configurationDialog.getRepetitions()) ? -1 : Integer.parseInt(configurationDialog.getRepetitions());
 
-					final String dialogText = LangResources.get("multipleRequestText",
+					String dialogText = LangResources.get("multipleRequestText",
 						tasksPerWorker >= 0 ? tasksPerWorker : LangResources.get("unlimited"),
 						DateUtilities.getShortHumanReadableTimespan(Duration.ofSeconds(configurationDialog.getPauseSeconds()), true, false),
 						DateUtilities.getShortHumanReadableTimespan(Duration.ofSeconds(configurationDialog.getRampUpSeconds()), true, false));
+					if (configurationDialog.getTargetRequestsPerSecond() > 0) {
+						dialogText += "\n" + LangResources.get("targetRequestsPerSecondText", configurationDialog.getTargetRequestsPerSecond());
+					}
 
 					final HttpRequestWorkerPoolDialog dialog = new HttpRequestWorkerPoolDialog(getShell(), LangResources.get("multipleRequest"), dialogText, httpRequest, proxy, requestPart.getTlsCheckConfiguration());
 					dialog.setParallelWorkerAmount(configurationDialog.getWorkerCount());
 					dialog.setRepetitionsPerWorker(tasksPerWorker);
 					dialog.setSleepTime(Duration.ofSeconds(configurationDialog.getPauseSeconds()));
 					dialog.setRampUpTime(Duration.ofSeconds(configurationDialog.getRampUpSeconds()));
+					dialog.setTargetRequestsPerSecond(configurationDialog.getTargetRequestsPerSecond());
+					dialog.setUseVirtualThreads(configurationDialog.isUseVirtualThreads());
+					dialog.setSamplingInterval(Duration.ofSeconds(configurationDialog.getSamplingIntervalSeconds()));
+					dialog.setConnectionReuse(configurationDialog.getConnectionReuse());
+					dialog.setResponseBodyHandling(configurationDialog.getResponseBodyHandling());
+					dialog.setLoadTestScenario(configurationDialog.getLoadTestScenario());
+					dialog.setResponseAssertions(responseAssertions);
+					dialog.setTemplateContext(templateContext);
+					dialog.setRandomMode(configurationDialog.getRandomMode(), configurationDialog.getRandomSeed());
+					if (configurationDialog.getCsvDataFile() != null) {
+						dialog.setCsvDataSource(new CsvDataSource(configurationDialog.getCsvDataFile(), configurationDialog.getCsvRowSelection()));
+					}
+					dialog.setAsynchronousIoThreadCount(configurationDialog.getAsynchronousIoThreadCount());
+					dialog.setUseHttp2(requestPart.isHttp2());
 					final Boolean dialogResult = dialog.open();
 
 					if (dialogResult != null && dialogResult) {
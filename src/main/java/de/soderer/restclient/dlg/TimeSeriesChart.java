@@ -0,0 +1,124 @@
+package de.soderer.restclient.dlg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.PaintEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Composite;
+
+import de.soderer.restclient.worker.TimeSeriesSample;
+import de.soderer.restclient.worker.WorkerPool;
+import de.soderer.utilities.LangResources;
+
+/**
+ * Live chart of the time series of a worker pool run: Throughput (requests/s, errors/s) in the
+ * upper half, duration percentiles in the lower half
+ */
+public class TimeSeriesChart extends Canvas {
+	private static final int MARGIN = 4;
+	private static final int[] SHOWN_PERCENTILE_COLORS = { SWT.COLOR_DARK_GREEN, SWT.COLOR_DARK_YELLOW, SWT.COLOR_DARK_MAGENTA, SWT.COLOR_DARK_CYAN };
+
+	private List<TimeSeriesSample> samples = new ArrayList<>();
+
+	public TimeSeriesChart(final Composite parent, final int style) {
+		super(parent, style | SWT.DOUBLE_BUFFERED);
+
+		setBackground(getDisplay().getSystemColor(SWT.COLOR_WHITE));
+		addPaintListener(this::paint);
+	}
+
+	public void setSamples(final List<TimeSeriesSample> samples) {
+		this.samples = samples;
+		redraw();
+	}
+
+	private void paint(final PaintEvent event) {
+		final GC gc = event.gc;
+		final Rectangle area = getClientArea();
+		final int paneHeight = (area.height - 3 * MARGIN) / 2;
+		final Rectangle throughputPane = new Rectangle(area.x + MARGIN, area.y + MARGIN, area.width - 2 * MARGIN, paneHeight);
+		final Rectangle durationPane = new Rectangle(area.x + MARGIN, area.y + 2 * MARGIN + paneHeight, area.width - 2 * MARGIN, paneHeight);
+
+		final int percentileCount = Math.min(WorkerPool.REPORTED_PERCENTILES.length, SHOWN_PERCENTILE_COLORS.length);
+
+		double maximumRequestsPerSecond = 0;
+		long maximumPercentileNanos = 0;
+		for (final TimeSeriesSample sample : samples) {
+			maximumRequestsPerSecond = Math.max(maximumRequestsPerSecond, sample.getRequestsPerSecond());
+			for (int i = 0; i < percentileCount; i++) {
+				maximumPercentileNanos = Math.max(maximumPercentileNanos, sample.getPercentileNanos(i));
+			}
+		}
+
+		final List<String> throughputLegend = List.of(LangResources.get("requestsPerSecond"), LangResources.get("errorsPerSecond"));
+		final List<Integer> throughputColors = List.of(SWT.COLOR_BLUE, SWT.COLOR_RED);
+		drawPane(gc, throughputPane, String.format(Locale.ENGLISH, "%.1f/s", maximumRequestsPerSecond), throughputLegend, throughputColors);
+
+		final List<String> durationLegend = new ArrayList<>();
+		final List<Integer> durationColors = new ArrayList<>();
+		for (int i = 0; i < percentileCount; i++) {
+			durationLegend.add(WorkerPool.getPercentileTitle(WorkerPool.REPORTED_PERCENTILES[i]));
+			durationColors.add(SHOWN_PERCENTILE_COLORS[i]);
+		}
+		drawPane(gc, durationPane, String.format(Locale.ENGLISH, "%.1f ms", maximumPercentileNanos / 1_000_000.0), durationLegend, durationColors);
+
+		if (samples.size() < 2) {
+			return;
+		}
+
+		final double[] requestsPerSecond = new double[samples.size()];
+		final double[] errorsPerSecond = new double[samples.size()];
+		for (int i = 0; i < samples.size(); i++) {
+			requestsPerSecond[i] = samples.get(i).getRequestsPerSecond();
+			errorsPerSecond[i] = samples.get(i).getErrorsPerSecond();
+		}
+		drawLine(gc, throughputPane, requestsPerSecond, maximumRequestsPerSecond, SWT.COLOR_BLUE);
+		drawLine(gc, throughputPane, errorsPerSecond, maximumRequestsPerSecond, SWT.COLOR_RED);
+
+		for (int percentileIndex = 0; percentileIndex < percentileCount; percentileIndex++) {
+			final double[] percentileValues = new double[samples.size()];
+			for (int i = 0; i < samples.size(); i++) {
+				percentileValues[i] = samples.get(i).getPercentileNanos(percentileIndex);
+			}
+			drawLine(gc, durationPane, percentileValues, maximumPercentileNanos, SHOWN_PERCENTILE_COLORS[percentileIndex]);
+		}
+	}
+
+	private void drawPane(final GC gc, final Rectangle pane, final String maximumText, final List<String> legend, final List<Integer> colors) {
+		gc.setForeground(getDisplay().getSystemColor(SWT.COLOR_GRAY));
+		gc.drawRectangle(pane);
+		gc.setForeground(getDisplay().getSystemColor(SWT.COLOR_DARK_GRAY));
+		gc.drawText(maximumText, pane.x + 2, pane.y + 1, true);
+
+		int legendX = pane.x + pane.width - 2;
+		for (int i = legend.size() - 1; i >= 0; i--) {
+			final Point textExtent = gc.textExtent(legend.get(i));
+			legendX -= textExtent.x;
+			final Color color = getDisplay().getSystemColor(colors.get(i));
+			gc.setForeground(color);
+			gc.drawText(legend.get(i), legendX, pane.y + 1, true);
+			legendX -= 10;
+		}
+	}
+
+	private void drawLine(final GC gc, final Rectangle pane, final double[] values, final double maximumValue, final int color) {
+		if (maximumValue <= 0) {
+			return;
+		}
+
+		final int[] points = new int[values.length * 2];
+		for (int i = 0; i < values.length; i++) {
+			points[i * 2] = pane.x + (int) ((long) i * (pane.width - 1) / (values.length - 1));
+			points[i * 2 + 1] = pane.y + pane.height - 1 - (int) (values[i] / maximumValue * (pane.height - 2));
+		}
+		gc.setForeground(getDisplay().getSystemColor(color));
+		gc.drawPolyline(points);
+	}
+}
@@ -4,10 +4,10 @@ import java.io.PrintWriter;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,57 +26,84 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 
+import de.soderer.restclient.worker.LatencyHistogram;
+import de.soderer.restclient.worker.ResultBreakdown;
+import de.soderer.restclient.worker.WorkerPool;
 import de.soderer.restclient.worker.WorkerStats;
+import de.soderer.restclient.worker.WorkerStatsSnapshot;
 import de.soderer.utilities.DateUtilities;
 import de.soderer.utilities.LangResources;
 import de.soderer.utilities.swt.ModalDialog;
-import de.soderer.utilities.worker.WorkerSimple;
 
-public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
+public class WorkerPoolDialog extends ModalDialog<Boolean> {
+	private static final int TABLE_REFRESH_INTERVAL_MILLIS = 250;
+
 	private final String text;
 
 	private Table table;
 	private ProgressBar progressBar;
 	private Label descriptionLabel;
+	private Label overallDurationsLabel;
+	private Table resultBreakdownTable;
 	private Button actionButton;
 	private Button downloadButton;
+	private Button downloadTimeSeriesButton;
+	private TimeSeriesChart timeSeriesChart;
+
+	private final WorkerPool workerPool;
 
+	/** Copy of the pools WorkerStats list, which is sorted for display */
 	private final List<WorkerStats> workerStatsList = new ArrayList<>();
-	private final AtomicInteger progress = new AtomicInteger(0);
-	private volatile boolean cancelled = false;
 	private volatile boolean finished = false;
 
-	private ExecutorService executor;
+	/** Flags per worker (index workerId - 1), set by the workers when their table row has changed */
+	private AtomicIntegerArray dirtyWorkers;
+	/** Current table row per worker (index workerId - 1), depends on sorting */
+	private int[] tableIndexByWorker;
 
-	private int workerCount = 1;
-	private int tasksPerWorker = 1;
-	private Duration sleepTime = null;
-	private LocalDateTime poolStart = null;
-	private Duration rampUpTime = null;
+	/** Reused for the percentiles of single workers, only used by the UI thread */
+	private final LatencyHistogram workerLatencyHistogram = new LatencyHistogram();
 
 	private int sortColumn = 0;
 	private boolean ascending = true;
 
-	public WorkerPoolDialog(final Shell applicationDialog, final String title, final String text) {
+	public WorkerPoolDialog(final Shell applicationDialog, final String title, final String text, final WorkerPool workerPool) {
 		super(applicationDialog, title);
 
 		this.text = text;
+		this.workerPool = workerPool;
 	}
 
 	public void setParallelWorkerAmount(final int workerCount) {
-		this.workerCount = workerCount;
+		workerPool.setParallelWorkerAmount(workerCount);
 	}
 
 	public void setRepetitionsPerWorker(final int tasksPerWorker) {
-		this.tasksPerWorker = tasksPerWorker;
+		workerPool.setRepetitionsPerWorker(tasksPerWorker);
 	}
 
 	public void setSleepTime(final Duration sleepTime) {
-		this.sleepTime = sleepTime;
+		workerPool.setSleepTime(sleepTime);
 	}
 
 	public void setRampUpTime(final Duration rampUpTime) {
-		this.rampUpTime = rampUpTime;
+		workerPool.setRampUpTime(rampUpTime);
+	}
+
+	public void setTargetRequestsPerSecond(final double targetRequestsPerSecond) {
+		workerPool.setTargetRequestsPerSecond(targetRequestsPerSecond);
+	}
+
+	public void setUseVirtualThreads(final boolean useVirtualThreads) {
+		workerPool.setUseVirtualThreads(useVirtualThreads);
+	}
+
+	public void setSamplingInterval(final Duration samplingInterval) {
+		workerPool.setSamplingInterval(samplingInterval);
+	}
+
+	public void setAsynchronousIoThreadCount(final int ioThreadCount) {
+		workerPool.setAsynchronousIoThreadCount(ioThreadCount);
 	}
 
 	@Override
@@ -90,8 +117,8 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 		progressBar = new ProgressBar(parentShell, SWT.NONE);
 		progressBar.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
 		progressBar.setMinimum(0);
-		if (tasksPerWorker >= 0) {
-			progressBar.setMaximum(workerCount * tasksPerWorker);
+		if (workerPool.getTasksToDo() >= 0) {
+			progressBar.setMaximum((int) Math.min(workerPool.getTasksToDo(), Integer.MAX_VALUE));
 		} else {
 			progressBar.setMaximum(Integer.MAX_VALUE);
 		}
@@ -102,22 +129,26 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 
 		final GridData gdTable = new GridData(SWT.LEFT, SWT.TOP, false, false);
 		final int rowHeight = table.getItemHeight();
-		final int visibleRows = Math.min(workerCount, 15);
+		final int visibleRows = Math.min(workerPool.getWorkerStatsCount(), 15);
 		gdTable.heightHint = visibleRows * rowHeight + table.getHeaderHeight();
 		table.setLayoutData(gdTable);
 
-		final String[] columnTitles = { "WorkerID",
+		final List<String> columnTitles = new ArrayList<>(List.of("WorkerID",
 				LangResources.get("successCount"),
 				LangResources.get("errorCount"),
+				LangResources.get("assertionFailureCount"),
 				LangResources.get("latestDuration"),
 				LangResources.get("latestStatus"),
 				LangResources.get("minDuration"),
 				"Ø " + LangResources.get("duration"),
-				LangResources.get("maxDuration") };
-		for (int i = 0; i < columnTitles.length; i++) {
+				LangResources.get("maxDuration")));
+		for (final double percentile : WorkerPool.REPORTED_PERCENTILES) {
+			columnTitles.add(WorkerPool.getPercentileTitle(percentile) + " " + LangResources.get("duration"));
+		}
+		for (int i = 0; i < columnTitles.size(); i++) {
 			final int colIndex = i;
 			final TableColumn col = new TableColumn(table, SWT.NONE);
-			col.setText(columnTitles[i]);
+			col.setText(columnTitles.get(i));
 			col.pack();
 			col.addListener(SWT.Selection, e -> {
 				if (sortColumn == colIndex) {
@@ -138,9 +169,31 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 			}
 		});
 
+		overallDurationsLabel = new Label(parentShell, SWT.WRAP);
+		overallDurationsLabel.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+		overallDurationsLabel.setText(LangResources.get("overallDurations") + ": -");
+
+		resultBreakdownTable = new Table(parentShell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL);
+		resultBreakdownTable.setHeaderVisible(true);
+		resultBreakdownTable.setLinesVisible(true);
+		final GridData gdResultBreakdownTable = new GridData(SWT.FILL, SWT.TOP, true, false);
+		gdResultBreakdownTable.heightHint = 5 * resultBreakdownTable.getItemHeight() + resultBreakdownTable.getHeaderHeight();
+		resultBreakdownTable.setLayoutData(gdResultBreakdownTable);
+		for (final String columnTitle : new String[] { LangResources.get("resultCategory"), LangResources.get("resultCount"), LangResources.get("resultExample") }) {
+			final TableColumn column = new TableColumn(resultBreakdownTable, SWT.NONE);
+			column.setText(columnTitle);
+			column.pack();
+		}
+
+		timeSeriesChart = new TimeSeriesChart(parentShell, SWT.BORDER);
+		final GridData gdTimeSeriesChart = new GridData(SWT.FILL, SWT.TOP, true, false);
+		gdTimeSeriesChart.heightHint = 200;
+		gdTimeSeriesChart.widthHint = 600;
+		timeSeriesChart.setLayoutData(gdTimeSeriesChart);
+
 		final Composite buttonBar = new Composite(parentShell, SWT.NONE);
 		buttonBar.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
-		final GridLayout gl = new GridLayout(3, false);
+		final GridLayout gl = new GridLayout(4, false);
 		gl.marginWidth = 0;
 		gl.marginHeight = 0;
 		gl.horizontalSpacing = 10;
@@ -157,6 +210,14 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 		downloadButton.setLayoutData(gdDownload);
 		downloadButton.addListener(SWT.Selection, e -> exportResults());
 
+		downloadTimeSeriesButton = new Button(buttonBar, SWT.PUSH);
+		downloadTimeSeriesButton.setText(LangResources.get("saveTimeSeries"));
+		downloadTimeSeriesButton.setEnabled(false);
+		final GridData gdDownloadTimeSeries = new GridData(SWT.RIGHT, SWT.CENTER, false, false);
+		gdDownloadTimeSeries.widthHint = 160;
+		downloadTimeSeriesButton.setLayoutData(gdDownloadTimeSeries);
+		downloadTimeSeriesButton.addListener(SWT.Selection, e -> exportCsv("worker_zeitreihe.csv", workerPool.getTimeSeriesCSV()));
+
 		actionButton = new Button(buttonBar, SWT.PUSH);
 		actionButton.setText(LangResources.get("cancel"));
 		final GridData gdAction = new GridData(SWT.RIGHT, SWT.CENTER, false, false);
@@ -175,85 +236,148 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 		initWorkers();
 	}
 
-	private void fillItem(final TableItem item, final WorkerStats ws) {
-		item.setText(new String[] {
+	private void fillItem(final TableItem item, final WorkerStats workerStats) {
+		final WorkerStatsSnapshot ws = workerStats.getSnapshot();
+		workerLatencyHistogram.reset();
+		workerStats.addDurationsTo(workerLatencyHistogram);
+		final List<String> values = new ArrayList<>(List.of(
 				String.valueOf(ws.getWorkerId()),
 				String.valueOf(ws.getSuccessCount()),
 				String.valueOf(ws.getErrorCount()),
-				(ws.getLatestDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getLatestDuration(), true, false)),
+				String.valueOf(ws.getAssertionFailureCount()),
+				formatDuration(ws.getLatestDuration()),
 				(ws.getLatestStatusWasSuccess() == null ? "" : (ws.getLatestStatusWasSuccess() ? LangResources.get("success") : LangResources.get("error"))),
-				(ws.getMinimumDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getMinimumDuration(), true, false)),
-				(ws.getAverageDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getAverageDuration(), true, false)),
-				(ws.getMaximumDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getMaximumDuration(), true, false))
-		});
+				formatDuration(ws.getMinimumDuration()),
+				formatDuration(ws.getAverageDuration()),
+				formatDuration(ws.getMaximumDuration())));
+		for (final double percentile : WorkerPool.REPORTED_PERCENTILES) {
+			values.add(formatDuration(workerLatencyHistogram.getDurationAtPercentile(percentile)));
+		}
+		item.setText(values.toArray(new String[0]));
 
 		if (ws.getLatestStatusWasSuccess() == null) {
-			item.setForeground(4, null);
+			item.setForeground(5, null);
 		} else if (ws.getLatestStatusWasSuccess()) {
-			item.setForeground(4, getParent().getDisplay().getSystemColor(SWT.COLOR_DARK_GREEN));
+			item.setForeground(5, getParent().getDisplay().getSystemColor(SWT.COLOR_DARK_GREEN));
 		} else {
-			item.setForeground(4, getParent().getDisplay().getSystemColor(SWT.COLOR_RED));
+			item.setForeground(5, getParent().getDisplay().getSystemColor(SWT.COLOR_RED));
 		}
 	}
 
-	private void initWorkers() {
-		executor = Executors.newFixedThreadPool(workerCount);
-		final Display display = getParent().getDisplay();
+	protected static String formatDuration(final Duration duration) {
+		return duration == null ? "" : DateUtilities.getShortHumanReadableTimespan(duration, true, false);
+	}
 
-		for (int i = 0; i < workerCount; i++) {
-			workerStatsList.add(new WorkerStats(i + 1));
+	private void refreshOverallDurations() {
+		final LatencyHistogram poolLatencyHistogram = workerPool.getPoolLatencyHistogram();
+		final StringBuilder overallDurationsText = new StringBuilder(LangResources.get("overallDurations")).append(":");
+		if (poolLatencyHistogram.getTotalCount() == 0) {
+			overallDurationsText.append(" -");
+		} else {
+			overallDurationsText.append(" Ø ").append(formatDuration(Duration.ofNanos(poolLatencyHistogram.getAverageNanos())));
+			for (final double percentile : WorkerPool.REPORTED_PERCENTILES) {
+				overallDurationsText.append(", ").append(WorkerPool.getPercentileTitle(percentile)).append(" ").append(formatDuration(poolLatencyHistogram.getDurationAtPercentile(percentile)));
+			}
+			overallDurationsText.append(", Max ").append(formatDuration(Duration.ofNanos(poolLatencyHistogram.getMaximumNanos())));
+		}
+		final long usedHeapBytesPerWorker = workerPool.getUsedHeapBytesPerWorker();
+		if (usedHeapBytesPerWorker >= 0) {
+			overallDurationsText.append("\n").append(LangResources.get("usedHeapPerWorker", (usedHeapBytesPerWorker + 1023) / 1024));
+		}
+		final double averageProcessCpuLoad = workerPool.getAverageProcessCpuLoad();
+		if (averageProcessCpuLoad >= 0) {
+			overallDurationsText.append("\n").append(LangResources.get("processCpuLoad", String.format("%.1f", averageProcessCpuLoad * 100)));
+		}
+		final String additionalStatisticsText = getAdditionalStatisticsText();
+		if (additionalStatisticsText != null) {
+			overallDurationsText.append("\n").append(additionalStatisticsText);
 		}
+		overallDurationsLabel.setText(overallDurationsText.toString());
+		refreshResultBreakdown();
+		if (workerPool.getTimeSeriesRecorder() != null) {
+			timeSeriesChart.setSamples(workerPool.getTimeSeriesRecorder().getSamples());
+		}
+		getParent().layout(true, true);
+	}
 
-		table.setItemCount(workerStatsList.size());
+	/**
+	 * Pool-wide statistics specific to the type of task, shown below the overall durations
+	 *
+	 * @return null if there are none
+	 */
+	protected String getAdditionalStatisticsText() {
+		return null;
+	}
 
-		poolStart = LocalDateTime.now();
+	private void refreshResultBreakdown() {
+		final List<ResultBreakdown.ResultCategoryCount> resultCategoryCounts = workerPool.getResultBreakdown().getResultCategoryCounts();
+		final boolean newCategories = resultBreakdownTable.getItemCount() != resultCategoryCounts.size();
+		resultBreakdownTable.setItemCount(resultCategoryCounts.size());
+		for (int i = 0; i < resultCategoryCounts.size(); i++) {
+			final ResultBreakdown.ResultCategoryCount resultCategoryCount = resultCategoryCounts.get(i);
+			final TableItem item = resultBreakdownTable.getItem(i);
+			item.setText(new String[] {
+					resultCategoryCount.getCategory(),
+					String.valueOf(resultCategoryCount.getCount()),
+					(resultCategoryCount.getExample() == null ? "" : resultCategoryCount.getExample()) });
+			if (resultCategoryCount.getCategory().startsWith("HTTP 2")) {
+				item.setForeground(0, getParent().getDisplay().getSystemColor(SWT.COLOR_DARK_GREEN));
+			} else {
+				item.setForeground(0, getParent().getDisplay().getSystemColor(SWT.COLOR_RED));
+			}
+		}
+		if (newCategories) {
+			for (final TableColumn column : resultBreakdownTable.getColumns()) {
+				column.pack();
+			}
+		}
+	}
 
-		startRampUpCountdown(display);
+	private void startOverallDurationsRefresh(final Display display) {
+		final Runnable[] tick = new Runnable[1];
+		tick[0] = () -> {
+			if (!overallDurationsLabel.isDisposed()) {
+				refreshOverallDurations();
+				if (!finished) {
+					display.timerExec(1000, tick[0]);
+				}
+			}
+		};
+		display.timerExec(1000, tick[0]);
+	}
 
-		for (int i = 0; i < workerStatsList.size(); i++) {
-			final int idx = i;
-			final WorkerStats ws = workerStatsList.get(i);
-
-			executor.submit(() -> {
-				for (int j = 0; (tasksPerWorker == -1  || j < tasksPerWorker) && !cancelled; j++) {
-					final WorkerSimple<?> worker = createWorker();
-
-					final LocalDateTime start = LocalDateTime.now();
-					final boolean countInStatistics = rampUpTime == null || !poolStart.plus(rampUpTime).isAfter(start);
-					try {
-						final Object workerResult = worker.work();
-						if (checkForSuccess(workerResult)) {
-							ws.addSuccess(Duration.between(start, LocalDateTime.now()), countInStatistics);
-						} else {
-							ws.addError(Duration.between(start, LocalDateTime.now()), countInStatistics);
-						}
-					} catch (@SuppressWarnings("unused") final Exception e) {
-						ws.addError(Duration.between(start, LocalDateTime.now()), countInStatistics);
-					}
+	private void initWorkers() throws Exception {
+		final Display display = getParent().getDisplay();
 
-					final int current = progress.incrementAndGet();
-					display.asyncExec(() -> {
-						if (!table.isDisposed()) {
-							refreshTableItem(idx);
-							progressBar.setSelection(current);
-							checkFinished();
-						}
-					});
-
-					if ((tasksPerWorker == -1  || j < tasksPerWorker - 1) && !cancelled && sleepTime != null) {
-						try {
-							Thread.sleep(sleepTime.toMillis());
-						} catch (@SuppressWarnings("unused") final InterruptedException ex) {
-							return;
-						}
-					}
-				}
-				display.asyncExec(this::checkFinished);
-			});
-		}
+		dirtyWorkers = new AtomicIntegerArray(workerPool.getWorkerStatsCount());
+
+		// Workers only flag their table row as changed, the UI reads them in a fixed interval, so UI
+		// load does not grow with the request rate and does not slow down the measurement
+		workerPool.start(new WorkerPool.WorkerPoolListener() {
+			@Override
+			public void taskFinished(final WorkerStats workerStats, final long progress) {
+				dirtyWorkers.lazySet(workerStats.getWorkerId() - 1, 1);
+			}
+
+			@Override
+			public void workerFinished(final WorkerStats workerStats) {
+				dirtyWorkers.lazySet(workerStats.getWorkerId() - 1, 1);
+			}
+		});
+
+		workerStatsList.addAll(workerPool.getWorkerStatsList());
+		tableIndexByWorker = new int[workerStatsList.size()];
+		updateTableIndexByWorker();
+		table.setItemCount(workerStatsList.size());
+
+		startTableRefresh(display);
+
+		startRampUpCountdown(display);
+		startOverallDurationsRefresh(display);
 	}
 
 	private void startRampUpCountdown(final Display display) {
+		final Duration rampUpTime = workerPool.getRampUpTime();
 		if (rampUpTime == null || rampUpTime.isZero() || rampUpTime.isNegative()) {
 			return;
 		}
@@ -267,7 +391,7 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 				return;
 			}
 
-			final Duration remaining = rampUpTime.minus(Duration.between(poolStart, LocalDateTime.now()));
+			final Duration remaining = rampUpTime.minus(Duration.between(workerPool.getPoolStart(), LocalDateTime.now()));
 			if (remaining.isNegative() || remaining.isZero()) {
 				descriptionLabel.setText(text);
 				getParent().layout(true, true);
@@ -283,51 +407,104 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 		display.timerExec(0, tick[0]);
 	}
 
-	private void refreshTableItem(final int idx) {
-		if (idx < table.getItemCount()) {
-			final TableItem item = table.getItem(idx);
-			fillItem(item, workerStatsList.get(idx));
+	private void startTableRefresh(final Display display) {
+		final Runnable[] tick = new Runnable[1];
+		tick[0] = () -> {
+			if (!table.isDisposed()) {
+				refreshDirtyTableItems();
+				progressBar.setSelection((int) Math.min(workerPool.getProgress(), Integer.MAX_VALUE));
+				checkFinished();
+				if (!finished) {
+					display.timerExec(TABLE_REFRESH_INTERVAL_MILLIS, tick[0]);
+				}
+			}
+		};
+		display.timerExec(TABLE_REFRESH_INTERVAL_MILLIS, tick[0]);
+	}
+
+	/**
+	 * Items of the virtual table are only cleared here, their content is read again when they become visible
+	 */
+	private void refreshDirtyTableItems() {
+		for (int workerIndex = 0; workerIndex < dirtyWorkers.length(); workerIndex++) {
+			if (dirtyWorkers.get(workerIndex) != 0) {
+				dirtyWorkers.set(workerIndex, 0);
+				final int tableIndex = tableIndexByWorker[workerIndex];
+				if (tableIndex < table.getItemCount()) {
+					table.clear(tableIndex);
+				}
+			}
+		}
+	}
+
+	private void updateTableIndexByWorker() {
+		for (int i = 0; i < workerStatsList.size(); i++) {
+			tableIndexByWorker[workerStatsList.get(i).getWorkerId() - 1] = i;
 		}
 	}
 
 	private void refreshTable() {
-		workerStatsList.sort((w1, w2) -> {
+		// Sort on snapshots, so all comparisons see the same values while workers go on recording
+		final Map<WorkerStats, WorkerStatsSnapshot> snapshots = new HashMap<>();
+		for (final WorkerStats workerStats : workerStatsList) {
+			snapshots.put(workerStats, workerStats.getSnapshot());
+		}
+		// Percentiles need the buckets of each worker, so they are only read for sorting by one of them
+		final Map<WorkerStats, Duration> percentileDurations = new HashMap<>();
+		if (sortColumn >= 9 && sortColumn - 9 < WorkerPool.REPORTED_PERCENTILES.length) {
+			final double percentile = WorkerPool.REPORTED_PERCENTILES[sortColumn - 9];
+			for (final WorkerStats workerStats : workerStatsList) {
+				workerLatencyHistogram.reset();
+				workerStats.addDurationsTo(workerLatencyHistogram);
+				percentileDurations.put(workerStats, workerLatencyHistogram.getDurationAtPercentile(percentile));
+			}
+		}
+		workerStatsList.sort((workerStats1, workerStats2) -> {
+			final WorkerStatsSnapshot w1 = snapshots.get(workerStats1);
+			final WorkerStatsSnapshot w2 = snapshots.get(workerStats2);
 			int result = 0;
 			switch (sortColumn) {
 				case 0:
 					result = Integer.compare(w1.getWorkerId(), w2.getWorkerId());
 					break;
 				case 1:
-					result = Integer.compare(w1.getSuccessCount(), w2.getSuccessCount());
+					result = Long.compare(w1.getSuccessCount(), w2.getSuccessCount());
 					break;
 				case 2:
-					result = Integer.compare(w1.getErrorCount(), w2.getErrorCount());
+					result = Long.compare(w1.getErrorCount(), w2.getErrorCount());
 					break;
 				case 3:
-					result = compareNullable(w1.getLatestDuration(), w2.getLatestDuration());
+					result = Long.compare(w1.getAssertionFailureCount(), w2.getAssertionFailureCount());
 					break;
 				case 4:
-					result = compareNullable(w1.getLatestStatusWasSuccess(), w2.getLatestStatusWasSuccess());
+					result = compareNullable(w1.getLatestDuration(), w2.getLatestDuration());
 					break;
 				case 5:
-					result = compareNullable(w1.getMinimumDuration(), w2.getMinimumDuration());
+					result = compareNullable(w1.getLatestStatusWasSuccess(), w2.getLatestStatusWasSuccess());
 					break;
 				case 6:
-					result = compareNullable(w1.getAverageDuration(), w2.getAverageDuration());
+					result = compareNullable(w1.getMinimumDuration(), w2.getMinimumDuration());
 					break;
 				case 7:
+					result = compareNullable(w1.getAverageDuration(), w2.getAverageDuration());
+					break;
+				case 8:
 					result = compareNullable(w1.getMaximumDuration(), w2.getMaximumDuration());
 					break;
 				default:
+					if (sortColumn - 9 < WorkerPool.REPORTED_PERCENTILES.length) {
+						result = compareNullable(percentileDurations.get(workerStats1), percentileDurations.get(workerStats2));
+					}
 					break;
 			}
 			return ascending ? result : -result;
 		});
+		updateTableIndexByWorker();
 		table.clearAll();
 	}
 
 	/**
-	 * Null-safe comparison for columns backed by WorkerStats fields that stay null until a worker
+	 * Null-safe comparison for columns backed by WorkerStatsSnapshot values that stay null until a worker
 	 * completes its first task (latestDuration/minimumDuration/averageDuration/maximumDuration,
 	 * latestStatusWasSuccess) - sorting by one of those columns before every worker has finished at
 	 * least one repetition would otherwise throw a NullPointerException (directly on the null
@@ -348,42 +525,37 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 	}
 
 	private void cancelExecution() {
-		cancelled = true;
-		executor.shutdownNow();
+		workerPool.cancel();
 		checkFinished();
 	}
 
 	private void checkFinished() {
 		if (!finished) {
-			final boolean allDone = cancelled || (tasksPerWorker >= 0 && progress.get() >= progressBar.getMaximum());
-			if (allDone) {
+			if (workerPool.isCancelled() || workerPool.isFinished()) {
 				finished = true;
+				table.clearAll();
+				progressBar.setSelection((int) Math.min(workerPool.getProgress(), Integer.MAX_VALUE));
+				refreshOverallDurations();
 				actionButton.setText(LangResources.get("close"));
 				downloadButton.setEnabled(true);
+				downloadTimeSeriesButton.setEnabled(true);
 				getParent().layout();
 			}
 		}
 	}
 
 	private void exportResults() {
+		exportCsv("worker_ergebnisse.csv", workerPool.getResultsCSV());
+	}
+
+	private void exportCsv(final String defaultFileName, final String csvContent) {
 		final FileDialog dialog = new FileDialog(getParent(), SWT.SAVE);
 		dialog.setFilterExtensions(new String[] { "*.csv" });
-		dialog.setFileName("worker_ergebnisse.csv");
+		dialog.setFileName(defaultFileName);
 		final String path = dialog.open();
 		if (path != null) {
 			try (PrintWriter writer = new PrintWriter(path, "UTF-8")) {
-				writer.println("WorkerID;Success count;Error count;Latest duration;Latest status;Minimum duration;Average duration;Maximum duration");
-				for (final WorkerStats ws : workerStatsList) {
-					writer.printf("%d;%d;%d;%s;%s;%s;%s;%s%n",
-							ws.getWorkerId(),
-							ws.getSuccessCount(),
-							ws.getErrorCount(),
-							(ws.getLatestDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getLatestDuration(), true, false)),
-							(ws.getLatestStatusWasSuccess() == null ? "" : (ws.getLatestStatusWasSuccess() ? "success" : "error")),
-							(ws.getMinimumDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getMinimumDuration(), true, false)),
-							(ws.getAverageDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getAverageDuration(), true, false)),
-							(ws.getMaximumDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getMaximumDuration(), true, false)));
-				}
+				writer.print(csvContent);
 			} catch (final Exception ex) {
 				final MessageBox box = new MessageBox(getParent(), SWT.ICON_ERROR);
 				box.setMessage("Fehler beim Export: " + ex.getMessage());
@@ -393,23 +565,10 @@ public abstract class WorkerPoolDialog extends ModalDialog<Boolean> {
 	}
 
 	public String getResultsCSV() {
-		final StringBuilder result = new StringBuilder();
-		result.append("WorkerID;Success count;Error count;Latest duration;Latest status;Minimum duration;Average duration;Maximum duration\n");
-		for (final WorkerStats ws : workerStatsList) {
-			result.append(String.format("%d;%d;%d;%s;%s;%s;%s;%s%n",
-					ws.getWorkerId(),
-					ws.getSuccessCount(),
-					ws.getErrorCount(),
-					(ws.getLatestDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getLatestDuration(), true, false)),
-					(ws.getLatestStatusWasSuccess() == null ? "" : (ws.getLatestStatusWasSuccess() ? "success" : "error")),
-					(ws.getMinimumDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getMinimumDuration(), true, false)),
-					(ws.getAverageDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getAverageDuration(), true, false)),
-					(ws.getMaximumDuration() == null ? "" : DateUtilities.getShortHumanReadableTimespan(ws.getMaximumDuration(), true, false))));
-		}
-		return result.toString();
+		return workerPool.getResultsCSV();
 	}
 
-	protected abstract WorkerSimple<?> createWorker();
-
-	protected abstract boolean checkForSuccess(Object workerResult);
+	public String getTimeSeriesCSV() {
+		return workerPool.getTimeSeriesCSV();
+	}
 }
@@ -0,0 +1,312 @@
+package de.soderer.restclient.helper;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CSV data file for {@code ${csv:COLUMN}} placeholders. The first row contains the column names,
+ * the separator (semicolon, comma or tab) is detected from it.
+ *
+ * <p>
+ * The file is memory-mapped and only the start offsets of its rows are kept on the heap, so files
+ * with millions of rows can be used. A row is parsed only when it is handed out. Rows are handed
+ * out by an atomic counter without locking, so any number of workers may call
+ * {@link #nextRow()} concurrently.
+ */
+public class CsvDataSource {
+	/**
+	 * Order in which the rows are handed out
+	 */
+	public enum RowSelection {
+		/** Rows in file order, starting again with the first row after the last one */
+		RoundRobin,
+		/** Randomly chosen rows */
+		Random,
+		/** Rows in file order, each row only once. Requests after the last row fail. */
+		Exclusive;
+
+		public static RowSelection getRowSelectionByName(final String name) throws Exception {
+			for (final RowSelection rowSelection : RowSelection.values()) {
+				if (rowSelection.name().equalsIgnoreCase(name)) {
+					return rowSelection;
+				}
+			}
+			throw new Exception("Invalid CSV row selection name: " + name);
+		}
+	}
+
+	/** Maximum size of one memory-mapped part of the file, each row lies within one part */
+	private static final long MAXIMUM_SEGMENT_BYTES = 1L << 30;
+
+	private final File file;
+	private final RowSelection rowSelection;
+	private final char separator;
+	private final Map<String, Integer> columnIndexes = new HashMap<>();
+	private final MappedByteBuffer[] segments;
+	private final long[] segmentStarts;
+	/** Start offsets of the data rows, with the end offset of the last row as additional last entry */
+	private final long[] rowOffsets;
+	private final int rowCount;
+	private final AtomicLong nextRowIndex = new AtomicLong(0);
+
+	public CsvDataSource(final File file, final RowSelection rowSelection) throws Exception {
+		this.file = file;
+		this.rowSelection = rowSelection == null ? RowSelection.RoundRobin : rowSelection;
+
+		if (!file.isFile()) {
+			throw new Exception("CSV data file '" + file.getAbsolutePath() + "' does not exist");
+		}
+
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final long fileSize = fileChannel.size();
+			final long[] allRowOffsets = indexRows(fileChannel, fileSize);
+			if (allRowOffsets.length < 2) {
+				throw new Exception("CSV data file '" + file.getAbsolutePath() + "' is empty");
+			}
+
+			// A mapping stays valid after its channel is closed
+			final List<MappedByteBuffer> segmentList = new ArrayList<>();
+			final List<Long> segmentStartList = new ArrayList<>();
+			int firstRowOfSegment = 0;
+			while (firstRowOfSegment < allRowOffsets.length - 1) {
+				final long segmentStart = allRowOffsets[firstRowOfSegment];
+				int endRow = firstRowOfSegment + 1;
+				if (allRowOffsets[endRow] - segmentStart > MAXIMUM_SEGMENT_BYTES) {
+					throw new Exception("CSV data file '" + file.getAbsolutePath() + "' contains a row larger than " + MAXIMUM_SEGMENT_BYTES + " bytes");
+				}
+				while (endRow + 1 < allRowOffsets.length && allRowOffsets[endRow + 1] - segmentStart <= MAXIMUM_SEGMENT_BYTES) {
+					endRow++;
+				}
+				segmentList.add(fileChannel.map(FileChannel.MapMode.READ_ONLY, segmentStart, allRowOffsets[endRow] - segmentStart));
+				segmentStartList.add(segmentStart);
+				firstRowOfSegment = endRow;
+			}
+			segments = segmentList.toArray(new MappedByteBuffer[0]);
+			segmentStarts = segmentStartList.stream().mapToLong(Long::longValue).toArray();
+
+			final String headerRow = readRowText(allRowOffsets[0], allRowOffsets[1]);
+			separator = detectSeparator(headerRow);
+			final String[] columnNames = parseRow(headerRow, separator);
+			for (int columnIndex = 0; columnIndex < columnNames.length; columnIndex++) {
+				String columnName = columnNames[columnIndex].trim();
+				if (columnIndex == 0 && columnName.startsWith("\uFEFF")) {
+					columnName = columnName.substring(1);
+				}
+				columnIndexes.putIfAbsent(columnName, columnIndex);
+			}
+
+			rowOffsets = Arrays.copyOfRange(allRowOffsets, 1, allRowOffsets.length);
+			rowCount = rowOffsets.length - 1;
+			if (rowCount == 0) {
+				throw new Exception("CSV data file '" + file.getAbsolutePath() + "' contains no data rows");
+			}
+		}
+	}
+
+	/**
+	 * Scans the file once for the row starts. Line breaks within quoted values do not end a row,
+	 * empty rows are skipped.
+	 */
+	private static long[] indexRows(final FileChannel fileChannel, final long fileSize) throws Exception {
+		long[] offsets = new long[1024];
+		int offsetCount = 0;
+		long rowStart = 0;
+		boolean rowHasContent = false;
+		boolean inQuotes = false;
+		for (long windowStart = 0; windowStart < fileSize; windowStart += MAXIMUM_SEGMENT_BYTES) {
+			final long windowSize = Math.min(MAXIMUM_SEGMENT_BYTES, fileSize - windowStart);
+			final MappedByteBuffer window = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+			for (int i = 0; i < windowSize; i++) {
+				final byte nextByte = window.get(i);
+				if (nextByte == '"') {
+					inQuotes = !inQuotes;
+					rowHasContent = true;
+				} else if (nextByte == '\n' && !inQuotes) {
+					if (rowHasContent) {
+						if (offsetCount == offsets.length) {
+							offsets = Arrays.copyOf(offsets, offsets.length * 2);
+						}
+						offsets[offsetCount++] = rowStart;
+					}
+					rowStart = windowStart + i + 1;
+					rowHasContent = false;
+				} else if (nextByte != '\r') {
+					rowHasContent = true;
+				}
+			}
+		}
+		// Room for the last row without line break and the end offset
+		if (offsetCount + 2 > offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsetCount + 2);
+		}
+		if (rowHasContent) {
+			offsets[offsetCount++] = rowStart;
+		}
+		if (offsetCount == 0) {
+			return new long[0];
+		}
+		// End offset of the last row, trailing line breaks are removed when a row is read
+		offsets[offsetCount++] = fileSize;
+		return Arrays.copyOf(offsets, offsetCount);
+	}
+
+	private static char detectSeparator(final String headerRow) {
+		int semicolonCount = 0;
+		int commaCount = 0;
+		int tabCount = 0;
+		boolean inQuotes = false;
+		for (int i = 0; i < headerRow.length(); i++) {
+			final char nextChar = headerRow.charAt(i);
+			if (nextChar == '"') {
+				inQuotes = !inQuotes;
+			} else if (!inQuotes) {
+				if (nextChar == ';') {
+					semicolonCount++;
+				} else if (nextChar == ',') {
+					commaCount++;
+				} else if (nextChar == '\t') {
+					tabCount++;
+				}
+			}
+		}
+		if (tabCount > semicolonCount && tabCount > commaCount) {
+			return '\t';
+		} else if (semicolonCount > commaCount) {
+			return ';';
+		} else {
+			return ',';
+		}
+	}
+
+	private String readRowText(final long start, final long end) {
+		int segmentIndex = Arrays.binarySearch(segmentStarts, start);
+		if (segmentIndex < 0) {
+			segmentIndex = -segmentIndex - 2;
+		}
+		final byte[] rowBytes = new byte[(int) (end - start)];
+		segments[segmentIndex].get((int) (start - segmentStarts[segmentIndex]), rowBytes);
+		int length = rowBytes.length;
+		// Trailing line break and empty lines up to the next row
+		while (length > 0 && (rowBytes[length - 1] == '\n' || rowBytes[length - 1] == '\r')) {
+			length--;
+		}
+		return new String(rowBytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private static String[] parseRow(final String rowText, final char separator) {
+		final List<String> values = new ArrayList<>();
+		final StringBuilder value = new StringBuilder();
+		boolean inQuotes = false;
+		for (int i = 0; i < rowText.length(); i++) {
+			final char nextChar = rowText.charAt(i);
+			if (inQuotes) {
+				if (nextChar == '"') {
+					if (i + 1 < rowText.length() && rowText.charAt(i + 1) == '"') {
+						value.append('"');
+						i++;
+					} else {
+						inQuotes = false;
+					}
+				} else {
+					value.append(nextChar);
+				}
+			} else if (nextChar == '"') {
+				inQuotes = true;
+			} else if (nextChar == separator) {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(nextChar);
+			}
+		}
+		values.add(value.toString());
+		return values.toArray(new String[0]);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public RowSelection getRowSelection() {
+		return rowSelection;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return number of rows handed out so far, rows handed out more than once are counted each time
+	 */
+	public long getHandedOutRowCount() {
+		if (rowSelection == RowSelection.Exclusive) {
+			return Math.min(nextRowIndex.get(), rowCount);
+		} else {
+			return nextRowIndex.get();
+		}
+	}
+
+	/**
+	 * Fails on columns, which are not defined in the first row of the file
+	 */
+	public void checkColumnNames(final Set<String> columnNames) throws Exception {
+		for (final String columnName : columnNames) {
+			if (!columnIndexes.containsKey(columnName)) {
+				throw new Exception("CSV data file '" + file.getAbsolutePath() + "' has no column '" + columnName + "'");
+			}
+		}
+	}
+
+	/**
+	 * @return values of the next data row according to the row selection
+	 */
+	public String[] nextRow() throws Exception {
+		final long rowIndex;
+		switch (rowSelection) {
+			case Random:
+				nextRowIndex.getAndIncrement();
+				rowIndex = ThreadLocalRandom.current().nextInt(rowCount);
+				break;
+			case Exclusive:
+				rowIndex = nextRowIndex.getAndIncrement();
+				if (rowIndex >= rowCount) {
+					throw new Exception("All " + rowCount + " rows of CSV data file '" + file.getName() + "' have been used");
+				}
+				break;
+			case RoundRobin:
+			default:
+				rowIndex = nextRowIndex.getAndIncrement() % rowCount;
+				break;
+		}
+		return getRow((int) rowIndex);
+	}
+
+	/**
+	 * @param rowIndex 0-based index of the data row (not counting the header row)
+	 */
+	public String[] getRow(final int rowIndex) {
+		return parseRow(readRowText(rowOffsets[rowIndex], rowOffsets[rowIndex + 1]), separator);
+	}
+
+	/**
+	 * @return value of the column in the row, empty for missing trailing values
+	 */
+	public String getValue(final String[] row, final String columnName) throws Exception {
+		final Integer columnIndex = columnIndexes.get(columnName);
+		if (columnIndex == null) {
+			throw new Exception("CSV data file '" + file.getName() + "' has no column '" + columnName + "'");
+		}
+		return columnIndex < row.length ? row[columnIndex] : "";
+	}
+}
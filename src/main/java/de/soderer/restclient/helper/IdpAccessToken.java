@@ -0,0 +1,28 @@
+package de.soderer.restclient.helper;
+
+/**
+ * Access token of an identity provider with its lifetime as stated in "expires_in"
+ */
+public class IdpAccessToken {
+	private final String accessToken;
+	private final long expiresInSeconds;
+
+	/**
+	 * @param expiresInSeconds -1 if the identity provider did not state the lifetime
+	 */
+	public IdpAccessToken(final String accessToken, final long expiresInSeconds) {
+		this.accessToken = accessToken;
+		this.expiresInSeconds = expiresInSeconds;
+	}
+
+	public String getAccessToken() {
+		return accessToken;
+	}
+
+	/**
+	 * @return -1 if the identity provider did not state the lifetime
+	 */
+	public long getExpiresInSeconds() {
+		return expiresInSeconds;
+	}
+}
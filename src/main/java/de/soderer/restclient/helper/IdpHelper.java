@@ -14,54 +14,74 @@ import de.soderer.network.HttpUtilities;
 import de.soderer.pac.utilities.ProxyConfiguration;
 
 public class IdpHelper {
+	/**
+	 * The discovery document of the realm is cached, see {@link OpenIdDiscoveryCache}
+	 */
 	public static String getIdpTokenEdpointUrl(final String idpUrlConfigurationUrl, final String realmID, final ProxyConfiguration proxyConfiguration) throws Exception {
-		try {
-			final HttpRequest request = new HttpRequest(HttpMethod.GET, idpUrlConfigurationUrl + "/realms/" + realmID + "/.well-known/openid-configuration");
-
-			final HttpResponse response = HttpUtilities.executeHttpRequest(request, proxyConfiguration == null ? null : proxyConfiguration.getProxy(request.getUrl()));
-			if (response.getHttpCode() == 200) {
-				JsonNode contentJson;
-				try {
-					contentJson = JsonReader.readJsonItemString(response.getContent());
-				} catch (final Exception e) {
-					throw new Exception("Invalid AccessToken JSON data", e);
-				}
-				return (String) ((JsonObject) contentJson).getSimpleValue("token_endpoint");
-			} else {
-				System.out.println(response);
-				throw new Exception("aquireAccessToken failed");
-			}
-		} catch (final UnknownHostException e) {
-			throw new Exception("UnknownHost: '" + e.getMessage() + "'", e);
+		final JsonObject discoveryDocument = OpenIdDiscoveryCache.getDiscoveryDocument(idpUrlConfigurationUrl + "/realms/" + realmID + "/.well-known/openid-configuration", proxyConfiguration);
+		final String tokenEndpointUrl = (String) discoveryDocument.getSimpleValue("token_endpoint");
+		if (tokenEndpointUrl == null) {
+			throw new Exception("OpenID discovery document contains no token endpoint");
 		}
+		return tokenEndpointUrl;
 	}
 
 	public static String aquireAccessToken(final String idpTokenEndpointUrl, final String clientID, final String clientSecret, final String scope, final ProxyConfiguration proxyConfiguration) throws Exception {
+		return aquireIdpAccessToken(idpTokenEndpointUrl, clientID, clientSecret, scope, proxyConfiguration).getAccessToken();
+	}
+
+	/**
+	 * Client credentials flow, including the lifetime of the token
+	 */
+	public static IdpAccessToken aquireIdpAccessToken(final String idpTokenEndpointUrl, final String clientID, final String clientSecret, final String scope, final ProxyConfiguration proxyConfiguration) throws Exception {
 		try {
-			final HttpRequest request = new HttpRequest(HttpMethod.POST, idpTokenEndpointUrl);
-			request.addHeader(HttpConstants.HTTPHEADERNAME_CONTENTTYPE, HttpContentType.HtmlForm.getStringRepresentation());
-			request.addPostParameter("grant_type", "client_credentials");
-			request.addPostParameter("client_id", clientID);
-			request.addPostParameter("client_secret", clientSecret);
-			if (scope != null) {
-				request.addPostParameter("scope", scope);
-			}
+			final HttpRequest request = createClientCredentialsRequest(idpTokenEndpointUrl, clientID, clientSecret, scope);
 
 			final HttpResponse response = HttpUtilities.executeHttpRequest(request, proxyConfiguration == null ? null : proxyConfiguration.getProxy(request.getUrl()));
 			if (response.getHttpCode() == 200) {
-				JsonNode contentJson;
-				try {
-					contentJson = JsonReader.readJsonItemString(response.getContent());
-				} catch (final Exception e) {
-					throw new Exception("Invalid AccessToken JSON data", e);
-				}
-				return (String) ((JsonObject) contentJson).getSimpleValue("access_token");
+				return readIdpAccessToken(response.getContent());
 			} else {
-				System.out.println(response);
-				throw new Exception("aquireAccessToken failed: " + response.getContent());
+				throw new Exception("aquireAccessToken failed with HTTP code " + response.getHttpCode() + ": " + response.getContent());
 			}
 		} catch (final UnknownHostException e) {
 			throw new Exception("UnknownHost: '" + e.getMessage() + "'", e);
 		}
 	}
+
+	/**
+	 * Token request of the client credentials flow
+	 */
+	public static HttpRequest createClientCredentialsRequest(final String idpTokenEndpointUrl, final String clientID, final String clientSecret, final String scope) throws Exception {
+		final HttpRequest request = new HttpRequest(HttpMethod.POST, idpTokenEndpointUrl);
+		request.addHeader(HttpConstants.HTTPHEADERNAME_CONTENTTYPE, HttpContentType.HtmlForm.getStringRepresentation());
+		request.addPostParameter("grant_type", "client_credentials");
+		request.addPostParameter("client_id", clientID);
+		request.addPostParameter("client_secret", clientSecret);
+		if (scope != null) {
+			request.addPostParameter("scope", scope);
+		}
+		return request;
+	}
+
+	/**
+	 * @param content JSON content of a successful token response
+	 */
+	public static IdpAccessToken readIdpAccessToken(final String content) throws Exception {
+		JsonNode contentJson;
+		try {
+			contentJson = JsonReader.readJsonItemString(content);
+		} catch (final Exception e) {
+			throw new Exception("Invalid AccessToken JSON data", e);
+		}
+		final Object expiresInObject = ((JsonObject) contentJson).getSimpleValue("expires_in");
+		final long expiresInSeconds;
+		if (expiresInObject instanceof Number) {
+			expiresInSeconds = ((Number) expiresInObject).longValue();
+		} else if (expiresInObject instanceof String && ((String) expiresInObject).trim().matches("\\d+")) {
+			expiresInSeconds = Long.parseLong(((String) expiresInObject).trim());
+		} else {
+			expiresInSeconds = -1;
+		}
+		return new IdpAccessToken((String) ((JsonObject) contentJson).getSimpleValue("access_token"), expiresInSeconds);
+	}
 }
@@ -0,0 +1,288 @@
+package de.soderer.restclient.helper;
+
+import java.net.Proxy;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import de.soderer.network.HttpRequest;
+import de.soderer.pac.utilities.ProxyConfiguration;
+
+/**
+ * Access tokens of the OAuth client credentials flow for {@code ${idp:token}} placeholders.
+ *
+ * <p>
+ * There is one provider per IdP url, realm, client and scope, shared by all requests and pool
+ * workers using them. The current token is read without locking. While it is in use, it is fetched
+ * again in the background ahead of its expiry ("expires_in"), so long load tests neither fail on
+ * expired tokens nor wait for the token endpoint. Only a token, that expired nevertheless (e.g.
+ * after an idle period or a failed refresh), is fetched by the next request, while the other
+ * workers wait for it.
+ *
+ * <p>
+ * There is at most one token request at a time (single flight). It runs without holding the
+ * monitor of the provider, which only guards the short updates of the fetch state.
+ */
+public class IdpTokenProvider {
+	/** Part of the token lifetime after which the token is fetched again in the background */
+	private static final double REFRESH_LIFETIME_RATIO = 0.75;
+	/** Tokens are not used any more within this time before their expiry */
+	private static final long EXPIRY_MARGIN_MILLIS = 5000;
+	/** Lifetime of tokens without "expires_in" */
+	private static final long DEFAULT_LIFETIME_SECONDS = 300;
+	/** Delay of another background refresh after a failed one */
+	private static final long RETRY_DELAY_MILLIS = 5000;
+
+	private static final Map<String, IdpTokenProvider> PROVIDERS = new ConcurrentHashMap<>();
+
+	private static final ScheduledExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "IdpTokenRefresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String idpUrl;
+	private final String realmID;
+	private final String clientID;
+	private final String clientSecret;
+	private final String scope;
+	private volatile ProxyConfiguration proxyConfiguration;
+
+	private final Object tokenEndpointUrlLock = new Object();
+	private volatile String tokenEndpointUrl = null;
+	private volatile CachedToken currentToken = null;
+	/** Set by every use of the token, a token not used since its last fetch is not refreshed in the background */
+	private volatile boolean usedSinceFetch = false;
+	/** Token request in progress, null if none. Guarded by this. */
+	private CompletableFuture<CachedToken> runningFetch = null;
+	/** Guarded by this */
+	private ScheduledFuture<?> scheduledRefresh = null;
+	/** Set when the provider was replaced by one with another client secret. Guarded by this. */
+	private boolean discarded = false;
+
+	private static class CachedToken {
+		private final String accessToken;
+		private final long validUntilMillis;
+		private final long refreshDelayMillis;
+
+		private CachedToken(final String accessToken, final long validUntilMillis, final long refreshDelayMillis) {
+			this.accessToken = accessToken;
+			this.validUntilMillis = validUntilMillis;
+			this.refreshDelayMillis = refreshDelayMillis;
+		}
+
+		private boolean isValid() {
+			return System.currentTimeMillis() < validUntilMillis;
+		}
+	}
+
+	/**
+	 * @param idpUrl base url of the IdP or the url of its token endpoint (ending with "/token")
+	 * @param realmID not needed for the url of a token endpoint
+	 * @param scope may be null
+	 * @return shared provider for this IdP, realm, client and scope. A provider with another client
+	 *         secret is replaced.
+	 */
+	public static IdpTokenProvider getIdpTokenProvider(final String idpUrl, final String realmID, final String clientID, final String clientSecret, final String scope, final ProxyConfiguration proxyConfiguration) {
+		final String key = idpUrl + "|" + (idpUrl.endsWith("/token") ? "" : Objects.toString(realmID, "")) + "|" + clientID + "|" + Objects.toString(scope, "");
+		final IdpTokenProvider[] replacedProvider = new IdpTokenProvider[1];
+		final IdpTokenProvider provider = PROVIDERS.compute(key, (k, existingProvider) -> {
+			if (existingProvider != null && existingProvider.clientSecret.equals(clientSecret)) {
+				existingProvider.proxyConfiguration = proxyConfiguration;
+				return existingProvider;
+			} else {
+				replacedProvider[0] = existingProvider;
+				return new IdpTokenProvider(idpUrl, realmID, clientID, clientSecret, scope, proxyConfiguration);
+			}
+		});
+		// Outside of the map's lock
+		if (replacedProvider[0] != null) {
+			replacedProvider[0].discard();
+		}
+		return provider;
+	}
+
+	private IdpTokenProvider(final String idpUrl, final String realmID, final String clientID, final String clientSecret, final String scope, final ProxyConfiguration proxyConfiguration) {
+		this.idpUrl = idpUrl;
+		this.realmID = realmID;
+		this.clientID = clientID;
+		this.clientSecret = clientSecret;
+		this.scope = scope;
+		this.proxyConfiguration = proxyConfiguration;
+	}
+
+	public String getIdpUrl() {
+		return idpUrl;
+	}
+
+	public String getClientID() {
+		return clientID;
+	}
+
+	/**
+	 * @return valid access token, fetched only if there is none
+	 */
+	public String getAccessToken() throws Exception {
+		if (!usedSinceFetch) {
+			usedSinceFetch = true;
+		}
+		final CachedToken token = currentToken;
+		if (token != null && token.isValid()) {
+			return token.accessToken;
+		} else {
+			return awaitToken(fetchToken(false)).accessToken;
+		}
+	}
+
+	/**
+	 * Fetches a new token, even if the current one is still valid
+	 */
+	public String refreshAccessToken() throws Exception {
+		final CachedToken token = awaitToken(fetchToken(true));
+		usedSinceFetch = true;
+		return token.accessToken;
+	}
+
+	/**
+	 * Starts a token request, unless one is running already, whose result is shared then. The
+	 * calling thread executes a new request itself, without holding the monitor.
+	 *
+	 * @param evenIfValid false to take a valid current token, e.g. fetched while waiting for the monitor
+	 */
+	private CompletableFuture<CachedToken> fetchToken(final boolean evenIfValid) {
+		final CompletableFuture<CachedToken> fetch;
+		synchronized (this) {
+			if (runningFetch != null) {
+				return runningFetch;
+			}
+			final CachedToken token = currentToken;
+			if (!evenIfValid && token != null && token.isValid()) {
+				return CompletableFuture.completedFuture(token);
+			}
+			fetch = new CompletableFuture<>();
+			runningFetch = fetch;
+			cancelScheduledRefresh();
+		}
+
+		try {
+			final CachedToken token = requestToken();
+			synchronized (this) {
+				currentToken = token;
+				usedSinceFetch = false;
+				runningFetch = null;
+				if (!discarded) {
+					scheduledRefresh = REFRESH_EXECUTOR.schedule(this::refreshInBackground, token.refreshDelayMillis, TimeUnit.MILLISECONDS);
+				}
+			}
+			fetch.complete(token);
+		} catch (final Throwable e) {
+			synchronized (this) {
+				runningFetch = null;
+			}
+			fetch.completeExceptionally(e);
+		}
+		return fetch;
+	}
+
+	private CachedToken requestToken() throws Exception {
+		// The lifetime counts from the start of the request, since the IdP may issue the token at any time during the request
+		final long requestStartMillis = System.currentTimeMillis();
+		final IdpAccessToken idpAccessToken = IdpHelper.aquireIdpAccessToken(getTokenEndpointUrl(), clientID, clientSecret, scope, proxyConfiguration);
+		if (idpAccessToken.getAccessToken() == null) {
+			throw new Exception("IdP response contains no access token");
+		}
+		final long lifetimeMillis = (idpAccessToken.getExpiresInSeconds() > 0 ? idpAccessToken.getExpiresInSeconds() : DEFAULT_LIFETIME_SECONDS) * 1000;
+		final long validUntilMillis = requestStartMillis + lifetimeMillis - Math.min(EXPIRY_MARGIN_MILLIS, lifetimeMillis / 10);
+		return new CachedToken(idpAccessToken.getAccessToken(), validUntilMillis, (long) (lifetimeMillis * REFRESH_LIFETIME_RATIO));
+	}
+
+	private static CachedToken awaitToken(final CompletableFuture<CachedToken> fetch) throws Exception {
+		try {
+			return fetch.get();
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Resolved only once, so it does not wait for a running background refresh afterwards
+	 */
+	public String getTokenEndpointUrl() throws Exception {
+		if (tokenEndpointUrl == null) {
+			synchronized (tokenEndpointUrlLock) {
+				if (tokenEndpointUrl == null) {
+					if (idpUrl.endsWith("/token")) {
+						tokenEndpointUrl = idpUrl;
+					} else {
+						tokenEndpointUrl = IdpHelper.getIdpTokenEdpointUrl(idpUrl, realmID, proxyConfiguration);
+					}
+				}
+			}
+		}
+		return tokenEndpointUrl;
+	}
+
+	/**
+	 * New token request of the client credentials flow, which is not cached (e.g. for load tests of
+	 * the IdP itself)
+	 */
+	public HttpRequest createTokenRequest() throws Exception {
+		return IdpHelper.createClientCredentialsRequest(getTokenEndpointUrl(), clientID, clientSecret, scope);
+	}
+
+	/**
+	 * @return proxy for requests to the IdP, null for the default proxy settings
+	 */
+	public Proxy getProxy(final String url) throws Exception {
+		final ProxyConfiguration currentProxyConfiguration = proxyConfiguration;
+		return currentProxyConfiguration == null ? null : currentProxyConfiguration.getProxy(url);
+	}
+
+	private void refreshInBackground() {
+		synchronized (this) {
+			scheduledRefresh = null;
+			if (!usedSinceFetch || discarded) {
+				return;
+			}
+		}
+		try {
+			awaitToken(fetchToken(true));
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			// Retry while the current token is still valid, afterwards the next request fetches the token and reports the error
+			synchronized (this) {
+				final CachedToken token = currentToken;
+				if (!discarded && scheduledRefresh == null && token != null && System.currentTimeMillis() + RETRY_DELAY_MILLIS < token.validUntilMillis) {
+					scheduledRefresh = REFRESH_EXECUTOR.schedule(this::refreshInBackground, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Must be called with the monitor held
+	 */
+	private void cancelScheduledRefresh() {
+		if (scheduledRefresh != null) {
+			scheduledRefresh.cancel(false);
+			scheduledRefresh = null;
+		}
+	}
+
+	/**
+	 * Stops the background refresh of a replaced provider
+	 */
+	private synchronized void discard() {
+		discarded = true;
+		cancelScheduledRefresh();
+	}
+}
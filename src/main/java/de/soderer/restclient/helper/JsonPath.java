@@ -0,0 +1,304 @@
+package de.soderer.restclient.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simple JSON path like "$.items[0].name" or "$['key with blanks'].id", compiled once and then
+ * looked up directly in the JSON text. Only the members on the path are read, all other values are
+ * skipped without building a JSON tree.
+ */
+public class JsonPath {
+	private final String path;
+	/** Member names as String, array indexes as Integer */
+	private final Object[] segments;
+
+	public static JsonPath compile(final String path) throws Exception {
+		if (path == null || path.isBlank()) {
+			throw new Exception("Missing JSON path");
+		}
+
+		final String pathToParse = path.trim();
+		final List<Object> segments = new ArrayList<>();
+		int position = 0;
+		if (pathToParse.charAt(0) == '$') {
+			position++;
+		} else if (pathToParse.charAt(0) != '.' && pathToParse.charAt(0) != '[') {
+			// Leading member name without "$."
+			position = readMemberName(pathToParse, 0, segments);
+		}
+		while (position < pathToParse.length()) {
+			final char nextChar = pathToParse.charAt(position);
+			if (nextChar == '.') {
+				position = readMemberName(pathToParse, position + 1, segments);
+			} else if (nextChar == '[') {
+				final int end = pathToParse.indexOf(']', position);
+				if (end < 0) {
+					throw new Exception("Missing closing bracket in JSON path: " + path);
+				}
+				final String bracketContent = pathToParse.substring(position + 1, end).trim();
+				if (bracketContent.length() >= 2 && (bracketContent.startsWith("'") && bracketContent.endsWith("'") || bracketContent.startsWith("\"") && bracketContent.endsWith("\""))) {
+					segments.add(bracketContent.substring(1, bracketContent.length() - 1));
+				} else {
+					try {
+						final int index = Integer.parseInt(bracketContent);
+						if (index < 0) {
+							throw new Exception("Negative array index in JSON path: " + path);
+						}
+						segments.add(index);
+					} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+						throw new Exception("Invalid array index in JSON path: " + path);
+					}
+				}
+				position = end + 1;
+			} else {
+				throw new Exception("Invalid character '" + nextChar + "' at position " + (position + 1) + " in JSON path: " + path);
+			}
+		}
+		return new JsonPath(pathToParse, segments.toArray());
+	}
+
+	private static int readMemberName(final String path, final int start, final List<Object> segments) throws Exception {
+		int end = start;
+		while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+			end++;
+		}
+		if (end == start) {
+			throw new Exception("Empty member name in JSON path: " + path);
+		}
+		segments.add(path.substring(start, end));
+		return end;
+	}
+
+	private JsonPath(final String path, final Object[] segments) {
+		this.path = path;
+		this.segments = segments;
+	}
+
+	/**
+	 * @return value at the path, strings without quotes and unescaped, objects and arrays as JSON
+	 *         text, "null" for a JSON null, or null if the path does not exist
+	 */
+	public String find(final String json) throws Exception {
+		if (json == null) {
+			return null;
+		}
+		final Scanner scanner = new Scanner(json);
+		scanner.skipWhitespace();
+		return scanner.find(segments, 0);
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+
+	private static class Scanner {
+		private final String json;
+		private int position = 0;
+
+		public Scanner(final String json) {
+			this.json = json;
+			if (json.length() > 0 && json.charAt(0) == '\uFEFF') {
+				position++;
+			}
+		}
+
+		public String find(final Object[] segments, final int segmentIndex) throws Exception {
+			if (segmentIndex == segments.length) {
+				if (peek() == '"') {
+					return readString();
+				} else {
+					final int start = position;
+					skipValue();
+					return json.substring(start, position);
+				}
+			}
+
+			final Object segment = segments[segmentIndex];
+			if (segment instanceof String) {
+				if (peek() != '{') {
+					return null;
+				}
+				position++;
+				skipWhitespace();
+				if (peek() == '}') {
+					return null;
+				}
+				while (true) {
+					skipWhitespace();
+					if (peek() != '"') {
+						throw createException("Expected member name");
+					}
+					final String name = readString();
+					skipWhitespace();
+					expect(':');
+					skipWhitespace();
+					if (name.equals(segment)) {
+						return find(segments, segmentIndex + 1);
+					}
+					skipValue();
+					skipWhitespace();
+					if (peek() == ',') {
+						position++;
+					} else if (peek() == '}') {
+						return null;
+					} else {
+						throw createException("Expected ',' or '}'");
+					}
+				}
+			} else {
+				if (peek() != '[') {
+					return null;
+				}
+				position++;
+				skipWhitespace();
+				if (peek() == ']') {
+					return null;
+				}
+				final int index = (Integer) segment;
+				for (int itemIndex = 0;; itemIndex++) {
+					skipWhitespace();
+					if (itemIndex == index) {
+						return find(segments, segmentIndex + 1);
+					}
+					skipValue();
+					skipWhitespace();
+					if (peek() == ',') {
+						position++;
+					} else if (peek() == ']') {
+						return null;
+					} else {
+						throw createException("Expected ',' or ']'");
+					}
+				}
+			}
+		}
+
+		private void skipValue() throws Exception {
+			final char nextChar = peek();
+			if (nextChar == '"') {
+				skipString();
+			} else if (nextChar == '{' || nextChar == '[') {
+				int depth = 0;
+				do {
+					final char currentChar = peek();
+					if (currentChar == '"') {
+						skipString();
+						continue;
+					} else if (currentChar == '{' || currentChar == '[') {
+						depth++;
+					} else if (currentChar == '}' || currentChar == ']') {
+						depth--;
+					}
+					position++;
+				} while (depth > 0);
+			} else {
+				final int start = position;
+				while (position < json.length()) {
+					final char currentChar = json.charAt(position);
+					if (currentChar == ',' || currentChar == '}' || currentChar == ']' || Character.isWhitespace(currentChar)) {
+						break;
+					}
+					position++;
+				}
+				if (position == start) {
+					throw createException("Expected value");
+				}
+			}
+		}
+
+		private void skipString() throws Exception {
+			position++;
+			while (true) {
+				final char currentChar = peek();
+				position++;
+				if (currentChar == '"') {
+					return;
+				} else if (currentChar == '\\') {
+					position++;
+				}
+			}
+		}
+
+		private String readString() throws Exception {
+			position++;
+			final int start = position;
+			// Fast path for strings without escapes
+			while (position < json.length() && json.charAt(position) != '"' && json.charAt(position) != '\\') {
+				position++;
+			}
+			if (peek() == '"') {
+				return json.substring(start, position++);
+			}
+
+			final StringBuilder value = new StringBuilder(json.substring(start, position));
+			while (true) {
+				final char currentChar = peek();
+				position++;
+				if (currentChar == '"') {
+					return value.toString();
+				} else if (currentChar == '\\') {
+					final char escapedChar = peek();
+					position++;
+					switch (escapedChar) {
+						case 'b':
+							value.append('\b');
+							break;
+						case 'f':
+							value.append('\f');
+							break;
+						case 'n':
+							value.append('\n');
+							break;
+						case 'r':
+							value.append('\r');
+							break;
+						case 't':
+							value.append('\t');
+							break;
+						case 'u':
+							if (position + 4 > json.length()) {
+								throw createException("Invalid unicode escape");
+							}
+							try {
+								value.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+							} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+								throw createException("Invalid unicode escape");
+							}
+							position += 4;
+							break;
+						default:
+							value.append(escapedChar);
+					}
+				} else {
+					value.append(currentChar);
+				}
+			}
+		}
+
+		public void skipWhitespace() {
+			while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+				position++;
+			}
+		}
+
+		private char peek() throws Exception {
+			if (position >= json.length()) {
+				throw createException("Unexpected end of JSON data");
+			}
+			return json.charAt(position);
+		}
+
+		private void expect(final char expectedChar) throws Exception {
+			if (peek() != expectedChar) {
+				throw createException("Expected '" + expectedChar + "'");
+			}
+			position++;
+		}
+
+		private Exception createException(final String message) {
+			return new Exception(message + " at offset " + position);
+		}
+	}
+}
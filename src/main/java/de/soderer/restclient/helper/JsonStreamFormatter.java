@@ -0,0 +1,458 @@
+package de.soderer.restclient.helper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Indents JSON text while streaming it from a Reader to a Writer, without building a JsonNode tree,
+ * so memory use does not depend on the size of the JSON data.
+ *
+ * <p>
+ * Only the whitespace between the tokens is changed, the tokens themselves are copied as they are.
+ * The JSON syntax is checked on the fly, a {@link JsonSyntaxException} tells the position of the first
+ * error. Data written before the error was detected is left in the Writer.
+ */
+public class JsonStreamFormatter {
+	private static final char INDENTATION = '\t';
+
+	private static final int NUMBER_START = 0;
+	private static final int NUMBER_MINUS = 1;
+	private static final int NUMBER_LEADING_ZERO = 2;
+	private static final int NUMBER_INTEGER_DIGITS = 3;
+	private static final int NUMBER_DECIMAL_POINT = 4;
+	private static final int NUMBER_FRACTION_DIGITS = 5;
+	private static final int NUMBER_EXPONENT = 6;
+	private static final int NUMBER_EXPONENT_SIGN = 7;
+	private static final int NUMBER_EXPONENT_DIGITS = 8;
+
+	/**
+	 * Syntax error in JSON data
+	 */
+	public static class JsonSyntaxException extends IOException {
+		private static final long serialVersionUID = 4617032184925416310L;
+
+		private final long offset;
+		private final long line;
+		private final long column;
+
+		public JsonSyntaxException(final String message, final long offset, final long line, final long column) {
+			super(message + " at line " + line + ", column " + column);
+			this.offset = offset;
+			this.line = line;
+			this.column = column;
+		}
+
+		/**
+		 * @return index of the erroneous character in the input, starting at 0
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return starting at 1
+		 */
+		public long getLine() {
+			return line;
+		}
+
+		/**
+		 * @return starting at 1
+		 */
+		public long getColumn() {
+			return column;
+		}
+	}
+
+	/** What the syntax allows next, apart from whitespace */
+	private enum Expected {
+		Value,
+		/** First value of an array, or its end */
+		ValueOrEnd,
+		/** Property name of an object */
+		Key,
+		/** First property name of an object, or its end */
+		KeyOrEnd,
+		Colon,
+		CommaOrEnd,
+		/** The top level value is complete */
+		Nothing
+	}
+
+	/** Multi character token currently read */
+	private enum Token {
+		None,
+		String,
+		Number,
+		Literal
+	}
+
+	private final Writer writer;
+	/** Output is collected here, because single character writes are slow for most writers */
+	private char[] outputBuffer = new char[16384];
+	private int outputLength = 0;
+
+	/** Open containers, true for objects and false for arrays */
+	private boolean[] containerIsObject = new boolean[32];
+	private int depth = 0;
+	private Expected expected = Expected.Value;
+	/** An object or array was opened, its line break is deferred to keep empty ones like "{}" on one line */
+	private boolean openedContainer = false;
+
+	private Token token = Token.None;
+	private boolean stringIsKey = false;
+	private boolean escaped = false;
+	/** Remaining hex digits of a \\u escape sequence */
+	private int unicodeDigits = 0;
+	/** Last part of the number read so far, one of the NUMBER_... constants */
+	private int numberPart = NUMBER_START;
+	private String literal;
+	private int literalIndex;
+
+	private long offset = -1;
+	private long line = 1;
+	private long column = 0;
+
+	public static void format(final Reader reader, final Writer writer) throws IOException {
+		final JsonStreamFormatter jsonStreamFormatter = new JsonStreamFormatter(writer);
+		final char[] buffer = new char[8192];
+		int charsRead;
+		while ((charsRead = reader.read(buffer)) != -1) {
+			try {
+				jsonStreamFormatter.write(buffer, charsRead);
+			} finally {
+				jsonStreamFormatter.flushOutput();
+			}
+		}
+		jsonStreamFormatter.finish();
+		jsonStreamFormatter.flushOutput();
+		writer.flush();
+	}
+
+	public static String format(final String json) throws JsonSyntaxException {
+		final StringWriter stringWriter = new StringWriter(json.length() + json.length() / 4);
+		try {
+			format(new StringReader(json), stringWriter);
+		} catch (final JsonSyntaxException e) {
+			throw e;
+		} catch (final IOException e) {
+			// Cannot happen for StringReader and StringWriter
+			throw new RuntimeException(e);
+		}
+		return stringWriter.toString();
+	}
+
+	private JsonStreamFormatter(final Writer writer) {
+		this.writer = writer;
+	}
+
+	private void write(final char[] buffer, final int length) throws JsonSyntaxException {
+		for (int i = 0; i < length; i++) {
+			final char nextChar = buffer[i];
+			offset++;
+			if (nextChar == '\n') {
+				line++;
+				column = 0;
+			} else {
+				column++;
+			}
+
+			switch (token) {
+				case String:
+					readStringChar(nextChar);
+					break;
+				case Number:
+					if (!readNumberChar(nextChar)) {
+						endValue();
+						readStructureChar(nextChar);
+					}
+					break;
+				case Literal:
+					if (nextChar != literal.charAt(literalIndex)) {
+						throw createException("Invalid literal, expected '" + literal + "'");
+					}
+					append(nextChar);
+					literalIndex++;
+					if (literalIndex == literal.length()) {
+						token = Token.None;
+						endValue();
+					}
+					break;
+				case None:
+				default:
+					readStructureChar(nextChar);
+					break;
+			}
+		}
+	}
+
+	private void finish() throws JsonSyntaxException {
+		offset++;
+		column++;
+		if (token == Token.Number) {
+			if (isNumberComplete()) {
+				token = Token.None;
+				endValue();
+			} else {
+				throw createException("Incomplete number at end of data");
+			}
+		}
+		if (token != Token.None) {
+			throw createException("Unexpected end of data");
+		} else if (expected != Expected.Nothing && !(expected == Expected.Value && depth == 0 && offset == 0)) {
+			// Empty data is passed as it is
+			throw createException("Unexpected end of data");
+		}
+	}
+
+	private void readStructureChar(final char nextChar) throws JsonSyntaxException {
+		if (nextChar == ' ' || nextChar == '\t' || nextChar == '\n' || nextChar == '\r' || (nextChar == '\uFEFF' && offset == 0)) {
+			// Whitespace and byte order mark
+			return;
+		}
+
+		if (openedContainer) {
+			openedContainer = false;
+			if ((nextChar == '}' && expected == Expected.KeyOrEnd) || (nextChar == ']' && expected == Expected.ValueOrEnd)) {
+				depth--;
+				append(nextChar);
+				endValue();
+				return;
+			} else {
+				writeLineBreak();
+			}
+		}
+
+		switch (nextChar) {
+			case '{':
+			case '[':
+				checkValueExpected();
+				if (depth == containerIsObject.length) {
+					containerIsObject = Arrays.copyOf(containerIsObject, depth * 2);
+				}
+				containerIsObject[depth++] = nextChar == '{';
+				append(nextChar);
+				expected = nextChar == '{' ? Expected.KeyOrEnd : Expected.ValueOrEnd;
+				openedContainer = true;
+				break;
+			case '}':
+			case ']':
+				if (expected != Expected.CommaOrEnd || containerIsObject[depth - 1] != (nextChar == '}')) {
+					throw createException("Unexpected '" + nextChar + "'");
+				}
+				depth--;
+				writeLineBreak();
+				append(nextChar);
+				endValue();
+				break;
+			case ',':
+				if (expected != Expected.CommaOrEnd) {
+					throw createException("Unexpected ','");
+				}
+				append(nextChar);
+				writeLineBreak();
+				expected = containerIsObject[depth - 1] ? Expected.Key : Expected.Value;
+				break;
+			case ':':
+				if (expected != Expected.Colon) {
+					throw createException("Unexpected ':'");
+				}
+				append(':');
+				append(' ');
+				expected = Expected.Value;
+				break;
+			case '"':
+				stringIsKey = expected == Expected.Key || expected == Expected.KeyOrEnd;
+				if (!stringIsKey) {
+					checkValueExpected();
+				}
+				append(nextChar);
+				token = Token.String;
+				break;
+			case 't':
+				startLiteral("true");
+				break;
+			case 'f':
+				startLiteral("false");
+				break;
+			case 'n':
+				startLiteral("null");
+				break;
+			default:
+				if (nextChar == '-' || ('0' <= nextChar && nextChar <= '9')) {
+					checkValueExpected();
+					token = Token.Number;
+					numberPart = NUMBER_START;
+					readNumberChar(nextChar);
+				} else {
+					throw createException("Unexpected character '" + nextChar + "'");
+				}
+				break;
+		}
+	}
+
+	private void readStringChar(final char nextChar) throws JsonSyntaxException {
+		if (unicodeDigits > 0) {
+			if (Character.digit(nextChar, 16) < 0) {
+				throw createException("Invalid unicode escape sequence");
+			}
+			unicodeDigits--;
+		} else if (escaped) {
+			if (nextChar == 'u') {
+				unicodeDigits = 4;
+			} else if ("\"\\/bfnrt".indexOf(nextChar) < 0) {
+				throw createException("Invalid escape sequence '\\" + nextChar + "'");
+			}
+			escaped = false;
+		} else if (nextChar == '\\') {
+			escaped = true;
+		} else if (nextChar == '"') {
+			token = Token.None;
+			append(nextChar);
+			if (stringIsKey) {
+				expected = Expected.Colon;
+			} else {
+				endValue();
+			}
+			return;
+		} else if (nextChar < 0x20) {
+			throw createException("Unescaped control character in string");
+		}
+		append(nextChar);
+	}
+
+	/**
+	 * @return false if the character is not part of the number anymore
+	 */
+	private boolean readNumberChar(final char nextChar) throws JsonSyntaxException {
+		final boolean isDigit = '0' <= nextChar && nextChar <= '9';
+		switch (numberPart) {
+			case NUMBER_START:
+				if (nextChar == '-') {
+					numberPart = NUMBER_MINUS;
+				} else if (nextChar == '0') {
+					numberPart = NUMBER_LEADING_ZERO;
+				} else if (isDigit) {
+					numberPart = NUMBER_INTEGER_DIGITS;
+				} else {
+					return false;
+				}
+				break;
+			case NUMBER_MINUS:
+				if (nextChar == '0') {
+					numberPart = NUMBER_LEADING_ZERO;
+				} else if (isDigit) {
+					numberPart = NUMBER_INTEGER_DIGITS;
+				} else {
+					throw createException("Invalid number, digit expected after '-'");
+				}
+				break;
+			case NUMBER_LEADING_ZERO:
+			case NUMBER_INTEGER_DIGITS:
+				if (isDigit && numberPart == NUMBER_LEADING_ZERO) {
+					throw createException("Invalid number with leading zero");
+				} else if (isDigit) {
+					// More integer digits
+				} else if (nextChar == '.') {
+					numberPart = NUMBER_DECIMAL_POINT;
+				} else if (nextChar == 'e' || nextChar == 'E') {
+					numberPart = NUMBER_EXPONENT;
+				} else {
+					return false;
+				}
+				break;
+			case NUMBER_DECIMAL_POINT:
+				if (isDigit) {
+					numberPart = NUMBER_FRACTION_DIGITS;
+				} else {
+					throw createException("Invalid number, digit expected after decimal point");
+				}
+				break;
+			case NUMBER_FRACTION_DIGITS:
+				if (isDigit) {
+					// More fraction digits
+				} else if (nextChar == 'e' || nextChar == 'E') {
+					numberPart = NUMBER_EXPONENT;
+				} else {
+					return false;
+				}
+				break;
+			case NUMBER_EXPONENT:
+			case NUMBER_EXPONENT_SIGN:
+				if (isDigit) {
+					numberPart = NUMBER_EXPONENT_DIGITS;
+				} else if ((nextChar == '+' || nextChar == '-') && numberPart == NUMBER_EXPONENT) {
+					numberPart = NUMBER_EXPONENT_SIGN;
+				} else {
+					throw createException("Invalid number, digit expected in exponent");
+				}
+				break;
+			case NUMBER_EXPONENT_DIGITS:
+				if (!isDigit) {
+					return false;
+				}
+				break;
+			default:
+				return false;
+		}
+		append(nextChar);
+		return true;
+	}
+
+	private boolean isNumberComplete() {
+		return numberPart == NUMBER_LEADING_ZERO || numberPart == NUMBER_INTEGER_DIGITS || numberPart == NUMBER_FRACTION_DIGITS || numberPart == NUMBER_EXPONENT_DIGITS;
+	}
+
+	private void startLiteral(final String expectedLiteral) throws JsonSyntaxException {
+		checkValueExpected();
+		literal = expectedLiteral;
+		literalIndex = 1;
+		token = Token.Literal;
+		append(expectedLiteral.charAt(0));
+	}
+
+	private void checkValueExpected() throws JsonSyntaxException {
+		if (expected == Expected.Nothing) {
+			throw createException("Unexpected data after the end of the JSON data");
+		} else if (expected != Expected.Value && expected != Expected.ValueOrEnd) {
+			throw createException(expected == Expected.Colon ? "':' expected" : (expected == Expected.CommaOrEnd ? "',' or end of " + (containerIsObject[depth - 1] ? "object" : "array") + " expected" : "Property name expected"));
+		}
+	}
+
+	/**
+	 * A value (scalar or container) is complete
+	 */
+	private void endValue() {
+		if (token == Token.Number) {
+			token = Token.None;
+		}
+		expected = depth == 0 ? Expected.Nothing : Expected.CommaOrEnd;
+	}
+
+	private JsonSyntaxException createException(final String message) {
+		return new JsonSyntaxException(message, offset, line, Math.max(1, column));
+	}
+
+	private void writeLineBreak() {
+		append('\n');
+		for (int i = 0; i < depth; i++) {
+			append(INDENTATION);
+		}
+	}
+
+	private void append(final char nextChar) {
+		if (outputLength == outputBuffer.length) {
+			outputBuffer = Arrays.copyOf(outputBuffer, outputBuffer.length * 2);
+		}
+		outputBuffer[outputLength++] = nextChar;
+	}
+
+	private void flushOutput() throws IOException {
+		writer.write(outputBuffer, 0, outputLength);
+		outputLength = 0;
+	}
+}
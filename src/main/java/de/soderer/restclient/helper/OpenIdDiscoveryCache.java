@@ -0,0 +1,247 @@
+package de.soderer.restclient.helper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.soderer.json.JsonNode;
+import de.soderer.json.JsonObject;
+import de.soderer.json.JsonReader;
+import de.soderer.json.JsonWriter;
+import de.soderer.network.HttpMethod;
+import de.soderer.network.HttpRequest;
+import de.soderer.network.HttpResponse;
+import de.soderer.network.HttpUtilities;
+import de.soderer.pac.utilities.ProxyConfiguration;
+import de.soderer.restclient.RestClient;
+
+/**
+ * OpenID discovery documents ("/.well-known/openid-configuration"), kept in memory and in
+ * {@link RestClient#OPENID_DISCOVERY_CACHE_DIRECTORY}, so fetching a token and starting the tool
+ * do not need a round trip to the IdP for each token.
+ *
+ * <p>
+ * A document is fresh for the "max-age" of its "Cache-Control" header (less its "Age"), or
+ * {@link #DEFAULT_MAX_AGE_SECONDS} if there is none. A stale document is revalidated with its
+ * "ETag" and "Last-Modified" values. If the IdP cannot be reached, a stale document is used
+ * nevertheless, since discovery documents change only when the IdP is reconfigured.
+ */
+public class OpenIdDiscoveryCache {
+	/** Freshness of documents without "max-age" */
+	private static final long DEFAULT_MAX_AGE_SECONDS = 3600;
+
+	private static final Map<String, DiscoveryDocument> DOCUMENTS = new ConcurrentHashMap<>();
+
+	private static class DiscoveryDocument {
+		private final String content;
+		private final JsonObject jsonObject;
+		private final String etag;
+		private final String lastModified;
+		private final long freshUntilMillis;
+
+		private DiscoveryDocument(final String content, final String etag, final String lastModified, final long freshUntilMillis) throws Exception {
+			this.content = content;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.freshUntilMillis = freshUntilMillis;
+
+			final JsonNode contentJson;
+			try {
+				contentJson = JsonReader.readJsonItemString(content);
+			} catch (final Exception e) {
+				throw new Exception("Invalid OpenID discovery JSON data", e);
+			}
+			if (!(contentJson instanceof JsonObject)) {
+				throw new Exception("Invalid OpenID discovery JSON data");
+			}
+			jsonObject = (JsonObject) contentJson;
+		}
+
+		private boolean isFresh() {
+			return System.currentTimeMillis() < freshUntilMillis;
+		}
+	}
+
+	/**
+	 * @return discovery document, fetched or revalidated only if the cached one is stale
+	 */
+	public static JsonObject getDiscoveryDocument(final String discoveryUrl, final ProxyConfiguration proxyConfiguration) throws Exception {
+		final DiscoveryDocument discoveryDocument = DOCUMENTS.get(discoveryUrl);
+		if (discoveryDocument != null && discoveryDocument.isFresh()) {
+			return discoveryDocument.jsonObject;
+		} else {
+			return fetchDiscoveryDocument(discoveryUrl, proxyConfiguration);
+		}
+	}
+
+	/**
+	 * Removes the document from memory and disk, e.g. after the IdP was reconfigured
+	 */
+	public static void invalidate(final String discoveryUrl) throws Exception {
+		DOCUMENTS.remove(discoveryUrl);
+		Files.deleteIfExists(getCacheFile(discoveryUrl).toPath());
+	}
+
+	private static synchronized JsonObject fetchDiscoveryDocument(final String discoveryUrl, final ProxyConfiguration proxyConfiguration) throws Exception {
+		DiscoveryDocument cachedDocument = DOCUMENTS.get(discoveryUrl);
+		if (cachedDocument == null) {
+			cachedDocument = readCacheFile(discoveryUrl);
+		}
+		if (cachedDocument != null && cachedDocument.isFresh()) {
+			DOCUMENTS.put(discoveryUrl, cachedDocument);
+			return cachedDocument.jsonObject;
+		}
+
+		final HttpRequest request = new HttpRequest(HttpMethod.GET, discoveryUrl);
+		if (cachedDocument != null) {
+			if (cachedDocument.etag != null) {
+				request.addHeader("If-None-Match", cachedDocument.etag);
+			}
+			if (cachedDocument.lastModified != null) {
+				request.addHeader("If-Modified-Since", cachedDocument.lastModified);
+			}
+		}
+
+		final HttpResponse response;
+		try {
+			response = HttpUtilities.executeHttpRequest(request, proxyConfiguration == null ? null : proxyConfiguration.getProxy(request.getUrl()));
+		} catch (final UnknownHostException e) {
+			if (cachedDocument != null) {
+				return cachedDocument.jsonObject;
+			} else {
+				throw new Exception("UnknownHost: '" + e.getMessage() + "'", e);
+			}
+		} catch (final IOException e) {
+			if (cachedDocument != null) {
+				return cachedDocument.jsonObject;
+			} else {
+				throw e;
+			}
+		}
+
+		final DiscoveryDocument discoveryDocument;
+		if (response.getHttpCode() == 304 && cachedDocument != null) {
+			// Unchanged, a 304 response may update the validators and the freshness
+			final String etag = getHeader(response, "ETag");
+			final String lastModified = getHeader(response, "Last-Modified");
+			discoveryDocument = new DiscoveryDocument(cachedDocument.content,
+					etag != null ? etag : cachedDocument.etag,
+					lastModified != null ? lastModified : cachedDocument.lastModified,
+					getFreshUntilMillis(response));
+		} else if (response.getHttpCode() == 200) {
+			discoveryDocument = new DiscoveryDocument(response.getContent(), getHeader(response, "ETag"), getHeader(response, "Last-Modified"), getFreshUntilMillis(response));
+		} else if (cachedDocument != null && response.getHttpCode() >= 500) {
+			return cachedDocument.jsonObject;
+		} else {
+			throw new Exception("OpenID discovery failed: HTTP " + response.getHttpCode() + " " + response.getContent());
+		}
+
+		DOCUMENTS.put(discoveryUrl, discoveryDocument);
+		try {
+			writeCacheFile(discoveryUrl, discoveryDocument);
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			// The document is still cached in memory
+		}
+		return discoveryDocument.jsonObject;
+	}
+
+	private static long getFreshUntilMillis(final HttpResponse response) {
+		long maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS;
+		final String cacheControl = getHeader(response, "Cache-Control");
+		if (cacheControl != null) {
+			for (final String directive : cacheControl.split(",")) {
+				final String trimmedDirective = directive.trim().toLowerCase();
+				if (trimmedDirective.startsWith("max-age=")) {
+					try {
+						maxAgeSeconds = Long.parseLong(trimmedDirective.substring(8).replace("\"", "").trim());
+					} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+						// Keep the default freshness
+					}
+				}
+			}
+		}
+		final String age = getHeader(response, "Age");
+		if (age != null) {
+			try {
+				maxAgeSeconds -= Long.parseLong(age.trim());
+			} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+				// Invalid header value
+			}
+		}
+		return System.currentTimeMillis() + Math.max(0, maxAgeSeconds) * 1000;
+	}
+
+	private static String getHeader(final HttpResponse response, final String headerName) {
+		if (response.getHeaders() != null) {
+			for (final Entry<String, String> header : response.getHeaders().entrySet()) {
+				if (headerName.equalsIgnoreCase(header.getKey())) {
+					return header.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	private static File getCacheFile(final String discoveryUrl) throws Exception {
+		final byte[] urlHash = MessageDigest.getInstance("SHA-256").digest(discoveryUrl.getBytes(StandardCharsets.UTF_8));
+		return new File(RestClient.OPENID_DISCOVERY_CACHE_DIRECTORY, HexFormat.of().formatHex(urlHash) + ".json");
+	}
+
+	/**
+	 * @return null if there is no usable cache file
+	 */
+	private static DiscoveryDocument readCacheFile(final String discoveryUrl) {
+		try {
+			final File cacheFile = getCacheFile(discoveryUrl);
+			if (!cacheFile.exists()) {
+				return null;
+			}
+			final JsonObject cacheJsonObject;
+			try (JsonReader reader = new JsonReader(new FileInputStream(cacheFile))) {
+				cacheJsonObject = (JsonObject) reader.read();
+			}
+			if (!discoveryUrl.equals(cacheJsonObject.getSimpleValue("url"))) {
+				return null;
+			}
+			return new DiscoveryDocument(
+					(String) cacheJsonObject.getSimpleValue("document"),
+					(String) cacheJsonObject.getSimpleValue("etag"),
+					(String) cacheJsonObject.getSimpleValue("lastModified"),
+					((Number) cacheJsonObject.getSimpleValue("freshUntil")).longValue());
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			// Corrupt cache files are replaced by the next fetched document
+			return null;
+		}
+	}
+
+	private static void writeCacheFile(final String discoveryUrl, final DiscoveryDocument discoveryDocument) throws Exception {
+		final File cacheFile = getCacheFile(discoveryUrl);
+		if (!cacheFile.getParentFile().exists()) {
+			cacheFile.getParentFile().mkdirs();
+		}
+
+		final JsonObject cacheJsonObject = new JsonObject();
+		cacheJsonObject.add("url", discoveryUrl);
+		cacheJsonObject.add("etag", discoveryDocument.etag);
+		cacheJsonObject.add("lastModified", discoveryDocument.lastModified);
+		cacheJsonObject.add("freshUntil", discoveryDocument.freshUntilMillis);
+		cacheJsonObject.add("document", discoveryDocument.content);
+
+		// Readers never see a partially written file
+		final File temporaryFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+		try (JsonWriter writer = new JsonWriter(new FileOutputStream(temporaryFile))) {
+			writer.add(cacheJsonObject);
+		}
+		Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -1,17 +1,16 @@
 package de.soderer.restclient.helper;
 
-import java.security.SecureRandom;
 import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
+import java.util.random.RandomGenerator;
 import java.util.regex.Pattern;
 
-import de.soderer.utilities.Utilities;
-
 /**
  * Resolves random parameter placeholders in REST client requests.
  *
@@ -28,27 +27,82 @@ import de.soderer.utilities.Utilities;
  * <li>{@code BOOL} – random boolean ({@code true} or {@code false})</li>
  * <li>{@code TS} – current Unix timestamp in milliseconds</li>
  * <li>{@code ISO} – current timestamp in ISO-8601 format</li>
+ * <li>{@code NORMAL} – normally distributed integer, parameter {@code MEAN,STDDEV} or {@code MEAN,STDDEV,MIN,MAX}</li>
+ * <li>{@code ZIPF} – Zipf distributed integer from 1 (most frequent) to MAX, parameter {@code MAX} or {@code MAX,EXPONENT}</li>
+ * </ul>
+ *
+ * <p>
+ * Further placeholders:
+ * <ul>
+ * <li>{@code ${csv:COLUMN}} – value of a CSV data file. All columns within one resolver instance are
+ * taken from the same row of the {@link CsvDataSource}.</li>
+ * <li>{@code ${seq:global}} or {@code ${seq:worker}} – counter over all requests or over the
+ * iterations of a worker, optional start value {@code ${seq:global:1000}} (default 1)</li>
+ * <li>{@code ${date:FORMAT}} or {@code ${date:OFFSET:FORMAT}} – current date, optionally shifted
+ * (e.g. {@code +1d}, {@code -2h}, units s, m, h, d, w, M, y), FORMAT is a DateTimeFormatter
+ * pattern, ISO (default), EPOCH or EPOCHMS</li>
+ * <li>{@code ${pick:a|b|c}} – one of the values, optional weights {@code ${pick:a*3|b}} and slot
+ * {@code ${pick#1:a|b}}</li>
+ * <li>{@code ${idp:token}} – current access token of the identity provider of the request, see
+ * {@link IdpTokenProvider}</li>
+ * <li>{@code ${env:NAME}} and {@code ${var:NAME}} – environment variable or preset variable,
+ * inserted once on compilation</li>
  * </ul>
  *
  * <p>
  * All occurrences of the same TYPE:SLOT combination within one resolver
  * instance produce the same value, enabling correlation across headers, URL,
  * and body.
+ *
+ * <p>
+ * The values are generated by a generator of a {@link RandomSource}, cryptographically strong by
+ * default. STR, HEX and UUID values are built from random 64 bit words, not from one generator call
+ * per character.
+ *
+ * <p>
+ * Strings that are resolved repeatedly (e.g. by every run of a worker pool) should be compiled
+ * once into a {@link RandomParameterTemplate} and resolved from there.
  */
 public class RandomParameterResolver {
-	/** Matches {@code ${rnd:TYPE:SLOT}} and {@code ${rnd:TYPE:SLOT:PARAM}}. */
-	private static final Pattern PATTERN = Pattern.compile("\\$\\{rnd:([A-Z]+)(?::(\\d+)(?::([^}]*))?)?\\}");
+	/** Matches {@code ${rnd:TYPE:SLOT}} and {@code ${rnd:TYPE:SLOT:PARAM}} (groups 1 to 3) and {@code ${KIND:BODY}} of the other placeholders (groups 4 and 5). */
+	static final Pattern PATTERN = Pattern.compile("\\$\\{(?:rnd:([A-Z]+)(?::(\\d+)(?::([^}]*))?)?|(csv|seq|date|pick|idp|env|var)(?:(?<=pick)#(\\d+))?(?::([^}]*))?)\\}");
 
-	private static final String ALPHANUM = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-	private static final String HEX_CHARS = "0123456789abcdef";
-	private static final int DEFAULT_STR_LENGTH = 12;
-	private static final int DEFAULT_HEX_LENGTH = 16;
-	private static final int DEFAULT_INT_MIN = 0;
-	private static final int DEFAULT_INT_MAX = Integer.MAX_VALUE;
+	private static final char[] ALPHANUM = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+	private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+	static final int DEFAULT_STR_LENGTH = 12;
+	static final int DEFAULT_HEX_LENGTH = 16;
+	static final int DEFAULT_INT_MIN = 0;
+	static final int DEFAULT_INT_MAX = Integer.MAX_VALUE;
 
 	private final Map<String, String> cache = new HashMap<>();
 	private final Map<String, List<String>> replacementsForDisplay = new HashMap<>();
-	private final SecureRandom random = new SecureRandom();
+	private final RandomGenerator random;
+	private final CsvDataSource csvDataSource;
+	private final long taskIteration;
+	private String[] csvRow = null;
+	private String idpAccessToken = null;
+
+	public RandomParameterResolver() {
+		this(RandomSource.SECURE.getRandomGenerator(), null);
+	}
+
+	/**
+	 * @param random generator of a {@link RandomSource} for the random values, only used by the thread it was taken on
+	 * @param csvDataSource data for {@code ${csv:COLUMN}} placeholders, may be null
+	 */
+	public RandomParameterResolver(final RandomGenerator random, final CsvDataSource csvDataSource) {
+		this(random, csvDataSource, 1);
+	}
+
+	/**
+	 * @param taskIteration 1-based iteration of the worker for {@code ${seq:worker}} placeholders,
+	 *            the task number of the whole pool if tasks are not bound to a worker
+	 */
+	public RandomParameterResolver(final RandomGenerator random, final CsvDataSource csvDataSource, final long taskIteration) {
+		this.random = random;
+		this.csvDataSource = csvDataSource;
+		this.taskIteration = taskIteration;
+	}
 
 	/**
 	 * Resolves all {@code ${rnd:...}} placeholders in the given input string.
@@ -59,40 +113,33 @@ public class RandomParameterResolver {
 	 * @throws RandomParameterException if a placeholder is malformed or an unknown type is used
 	 */
 	public String resolve(final String input) throws Exception {
-		if (input == null || input.isEmpty()) {
-			return input;
+		return RandomParameterTemplate.compile(input).resolve(this);
+	}
+
+	/**
+	 * Value for one placeholder occurrence of a {@link RandomParameterTemplate}
+	 */
+	String getValue(final RandomParameterTemplate.Placeholder placeholder) throws Exception {
+		String value = cache.get(placeholder.cacheKey);
+		if (value == null) {
+			value = generate(placeholder);
+			cache.put(placeholder.cacheKey, value);
 		}
-		final Matcher matcher = PATTERN.matcher(input);
-		final StringBuilder sb = new StringBuilder();
-		final Map<String, Integer> typeCounter = new HashMap<>();
-		final String inputNamespace = Integer.toHexString(input.hashCode());
-		while (matcher.find()) {
-			final String type = matcher.group(1);
-			final String slot = matcher.group(2); // optional: may be null
-			final String param = matcher.group(3); // optional: may be null
-
-			final String cacheKey;
-			if (Utilities.isNotBlank(slot)) {
-				cacheKey = type + ":" + slot;
-			} else {
-				final int index = typeCounter.getOrDefault(type, 0);
-				typeCounter.put(type, index + 1);
-				cacheKey = inputNamespace + "|" + type + "#" + index;
-			}
 
-			final String generatedValue = generate(type, param, input, matcher.start());
-			final String value = cache.computeIfAbsent(cacheKey, k -> generatedValue);
+		final List<String> replacementsList = replacementsForDisplay.computeIfAbsent(placeholder.foundText, k -> new ArrayList<>());
+		if (replacementsList.isEmpty() || !placeholder.hasSlot) {
+			replacementsList.add(value);
+		}
 
-			matcher.appendReplacement(sb, Matcher.quoteReplacement(value));
+		return value;
+	}
 
-			final String foundText = matcher.group();
-			final List<String> replacementsList = replacementsForDisplay.computeIfAbsent(foundText, k -> new ArrayList<>());
-			if (replacementsList.isEmpty() || Utilities.isBlank(slot)) {
-				replacementsList.add(value);
-			}
-		}
-		matcher.appendTail(sb);
-		return sb.toString();
+	/**
+	 * Token for the {@code ${idp:token}} placeholders instead of the one of their
+	 * {@link IdpTokenProvider}, e.g. a token just fetched by a load test of the IdP
+	 */
+	public void setIdpAccessToken(final String idpAccessToken) {
+		this.idpAccessToken = idpAccessToken;
 	}
 
 	/**
@@ -102,6 +149,7 @@ public class RandomParameterResolver {
 	public void reset() {
 		cache.clear();
 		replacementsForDisplay.clear();
+		csvRow = null;
 	}
 
 	/**
@@ -112,86 +160,119 @@ public class RandomParameterResolver {
 		return Map.copyOf(replacementsForDisplay);
 	}
 
-	private String generate(final String type, final String param, final String input, final int position) throws Exception {
-		return switch (type) {
-			case "UUID" -> generateUUID();
-			case "INT" -> generateInt(param);
-			case "STR" -> generateStr(param);
-			case "HEX" -> generateHex(param);
-			case "BOOL" -> generateBool();
+	private String generate(final RandomParameterTemplate.Placeholder placeholder) throws Exception {
+		return switch (placeholder.type) {
+			case RandomParameterTemplate.TYPE_CSV -> getCsvValue(placeholder.csvColumn);
+			case "UUID" -> generateUUID(random);
+			case "INT" -> generateInt(random, placeholder.intMinimum, placeholder.intMaximum);
+			case "STR" -> generateAlphanumeric(random, placeholder.length);
+			case "HEX" -> generateHex(random, placeholder.length);
+			case "BOOL" -> String.valueOf(random.nextBoolean());
 			case "TS" -> generateTimestamp();
 			case "ISO" -> generateIso();
-			default -> throw new Exception("Unknown random parameter type '" + type + "' at position " + position + " in: " + truncate(input));
+			case "NORMAL" -> String.valueOf(Math.max(placeholder.normalMinimum, Math.min(placeholder.normalMaximum, Math.round(placeholder.normalMean + placeholder.normalStandardDeviation * random.nextGaussian()))));
+			case "ZIPF" -> String.valueOf(placeholder.zipfSampler.sample(random));
+			case RandomParameterTemplate.TYPE_SEQUENCE -> generateSequenceValue(placeholder);
+			case RandomParameterTemplate.TYPE_DATE -> generateDate(placeholder);
+			case RandomParameterTemplate.TYPE_PICK -> generatePick(random, placeholder.pickValues, placeholder.pickCumulativeWeights);
+			case RandomParameterTemplate.TYPE_IDP_TOKEN -> idpAccessToken != null ? idpAccessToken : placeholder.idpTokenProvider.getAccessToken();
+			// Unknown types are already rejected by RandomParameterTemplate.compile
+			default -> throw new IllegalStateException("Unknown random parameter type '" + placeholder.type + "'");
 		};
 	}
 
-	private static String generateUUID() {
-		return UUID.randomUUID().toString();
+	private String getCsvValue(final String columnName) throws Exception {
+		if (csvDataSource == null) {
+			throw new Exception("No CSV data file set for placeholder ${csv:" + columnName + "}");
+		}
+		if (csvRow == null) {
+			csvRow = csvDataSource.nextRow();
+		}
+		return csvDataSource.getValue(csvRow, columnName);
 	}
 
-	private String generateInt(final String param) throws Exception {
-		int min = DEFAULT_INT_MIN;
-		int max = DEFAULT_INT_MAX;
-		if (param != null && !param.isBlank()) {
-			final String[] parts = param.split("-", 2);
-			if (parts.length == 2) {
-				try {
-					min = Integer.parseInt(parts[0].trim());
-					max = Integer.parseInt(parts[1].trim());
-				} catch (@SuppressWarnings("unused") final NumberFormatException e) {
-					throw new Exception("Invalid INT range parameter '" + param + "'. Expected format: MIN-MAX");
-				}
-				if (min > max) {
-					throw new Exception("Invalid INT range: MIN (" + min + ") must be <= MAX (" + max + ")");
-				}
-			} else {
-				throw new Exception("Invalid INT parameter '" + param + "'. Expected format: MIN-MAX");
-			}
+	private String generateSequenceValue(final RandomParameterTemplate.Placeholder placeholder) {
+		if (placeholder.globalSequence != null) {
+			return String.valueOf(placeholder.globalSequence.getAndIncrement());
+		} else {
+			return String.valueOf(placeholder.sequenceStart + taskIteration - 1);
 		}
-		return String.valueOf(min + (long) (random.nextDouble() * ((long) max - min + 1)));
 	}
 
-	private String generateStr(final String param) throws Exception {
-		int length = DEFAULT_STR_LENGTH;
-		if (param != null && !param.isBlank()) {
-			try {
-				length = Integer.parseInt(param.trim());
-			} catch (@SuppressWarnings("unused") final NumberFormatException e) {
-				throw new Exception(
-						"Invalid STR length parameter '" + param + "'. Expected a positive integer.");
-			}
-			if (length <= 0) {
-				throw new Exception("STR length must be > 0, got: " + length);
-			}
+	private static String generateDate(final RandomParameterTemplate.Placeholder placeholder) {
+		ZonedDateTime date = ZonedDateTime.now();
+		if (placeholder.dateOffsetUnit != null) {
+			date = date.plus(placeholder.dateOffsetAmount, placeholder.dateOffsetUnit);
 		}
-		final StringBuilder sb = new StringBuilder(length);
-		for (int i = 0; i < length; i++) {
-			sb.append(ALPHANUM.charAt(random.nextInt(ALPHANUM.length())));
+		if (placeholder.dateFormatter != null) {
+			return placeholder.dateFormatter.format(date);
+		} else if (placeholder.dateEpochMillis) {
+			return String.valueOf(date.toInstant().toEpochMilli());
+		} else {
+			return String.valueOf(date.toEpochSecond());
 		}
-		return sb.toString();
 	}
 
-	private String generateHex(final String param) throws Exception {
-		int length = DEFAULT_HEX_LENGTH;
-		if (param != null && !param.isBlank()) {
-			try {
-				length = Integer.parseInt(param.trim());
-			} catch (@SuppressWarnings("unused") final NumberFormatException e) {
-				throw new Exception("Invalid HEX length parameter '" + param + "'. Expected a positive integer.");
-			}
-			if (length <= 0) {
-				throw new Exception("HEX length must be > 0, got: " + length);
-			}
+	private static String generatePick(final RandomGenerator random, final String[] values, final long[] cumulativeWeights) {
+		if (values.length == 1) {
+			return values[0];
 		}
-		final StringBuilder sb = new StringBuilder(length);
-		for (int i = 0; i < length; i++) {
-			sb.append(HEX_CHARS.charAt(random.nextInt(HEX_CHARS.length())));
+		// First value whose cumulative weight exceeds the random number
+		final long randomWeight = random.nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+		int index = Arrays.binarySearch(cumulativeWeights, randomWeight + 1);
+		if (index < 0) {
+			index = -index - 1;
 		}
-		return sb.toString();
+		return values[index];
 	}
 
-	private String generateBool() {
-		return String.valueOf(random.nextBoolean());
+	/**
+	 * Version 4 UUID like {@link UUID#randomUUID()}, but from the given generator
+	 */
+	private static String generateUUID(final RandomGenerator random) {
+		final long mostSignificantBits = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+		final long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(mostSignificantBits, leastSignificantBits).toString();
+	}
+
+	private static String generateInt(final RandomGenerator random, final int min, final int max) {
+		return String.valueOf(random.nextLong(min, (long) max + 1));
+	}
+
+	/**
+	 * 16 hex characters per random word
+	 */
+	private static String generateHex(final RandomGenerator random, final int length) {
+		final char[] characters = new char[length];
+		int position = 0;
+		while (position < length) {
+			long bits = random.nextLong();
+			for (int i = 0; i < 16 && position < length; i++) {
+				characters[position++] = HEX_CHARS[(int) (bits & 0xF)];
+				bits >>>= 4;
+			}
+		}
+		return new String(characters);
+	}
+
+	/**
+	 * Up to 10 characters per random word, 6 bits each. The values 62 and 63 are skipped to keep the
+	 * characters uniformly distributed.
+	 */
+	private static String generateAlphanumeric(final RandomGenerator random, final int length) {
+		final char[] characters = new char[length];
+		int position = 0;
+		while (position < length) {
+			long bits = random.nextLong();
+			for (int i = 0; i < 10 && position < length; i++) {
+				final int index = (int) (bits & 0x3F);
+				bits >>>= 6;
+				if (index < ALPHANUM.length) {
+					characters[position++] = ALPHANUM[index];
+				}
+			}
+		}
+		return new String(characters);
 	}
 
 	private static String generateTimestamp() {
@@ -201,8 +282,4 @@ public class RandomParameterResolver {
 	private static String generateIso() {
 		return Instant.now().toString();
 	}
-
-	private static String truncate(final String s) {
-		return s.length() > 80 ? s.substring(0, 80) + "…" : s;
-	}
-}
\ No newline at end of file
+}
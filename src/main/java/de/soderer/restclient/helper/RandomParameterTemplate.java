@@ -0,0 +1,466 @@
+package de.soderer.restclient.helper;
+
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.soderer.utilities.Utilities;
+
+/**
+ * A string with {@code ${rnd:...}}, {@code ${csv:...}}, {@code ${seq:...}}, {@code ${date:...}},
+ * {@code ${pick:...}}, {@code ${idp:token}}, {@code ${env:...}} and {@code ${var:...}} placeholders, parsed once into a
+ * list of literal text chunks and placeholder slots. Resolving it with a
+ * {@link RandomParameterResolver} then only generates the values and concatenates, without any
+ * regex matching or parameter parsing. Environment and preset variables are constant, so they are
+ * already inserted into the literal text on compilation.
+ *
+ * <p>
+ * Strings without placeholders are resolved to the very same string instance.
+ */
+public class RandomParameterTemplate {
+	/** Type of {@code ${csv:COLUMN}} placeholders */
+	static final String TYPE_CSV = "CSV";
+	/** Type of {@code ${seq:SCOPE:START}} placeholders */
+	static final String TYPE_SEQUENCE = "SEQ";
+	/** Type of {@code ${date:OFFSET:FORMAT}} placeholders */
+	static final String TYPE_DATE = "DATE";
+	/** Type of {@code ${pick#SLOT:VALUES}} placeholders */
+	static final String TYPE_PICK = "PICK";
+	/** Type of {@code ${idp:token}} placeholders */
+	static final String TYPE_IDP_TOKEN = "IDP";
+
+	private static final Pattern DATE_OFFSET_PATTERN = Pattern.compile("([+-]\\d+)([smhdwMy])");
+	private static final Pattern PICK_WEIGHT_PATTERN = Pattern.compile("(.*)\\*(\\d+)", Pattern.DOTALL);
+
+	private final String input;
+	/** Literal Strings and Placeholders in order of occurrence, null if input contains no placeholders */
+	private final Object[] segments;
+	private final int literalLength;
+
+	/**
+	 * One compiled placeholder occurrence, e.g. {@code ${rnd:TYPE:SLOT:PARAM}}
+	 */
+	static class Placeholder {
+		final String foundText;
+		final String type;
+		final boolean hasSlot;
+		/** Key for the value cache of a resolver, see {@link RandomParameterResolver} */
+		final String cacheKey;
+		final int position;
+		int intMinimum = RandomParameterResolver.DEFAULT_INT_MIN;
+		int intMaximum = RandomParameterResolver.DEFAULT_INT_MAX;
+		int length;
+		String csvColumn;
+		double normalMean;
+		double normalStandardDeviation;
+		long normalMinimum = Long.MIN_VALUE;
+		long normalMaximum = Long.MAX_VALUE;
+		ZipfSampler zipfSampler;
+		/** Counter of ${seq:global}, null for ${seq:worker} */
+		AtomicLong globalSequence;
+		long sequenceStart;
+		ChronoUnit dateOffsetUnit;
+		long dateOffsetAmount;
+		/** Formatter of ${date:...}, null for epoch seconds or milliseconds */
+		DateTimeFormatter dateFormatter;
+		boolean dateEpochMillis;
+		String[] pickValues;
+		/** Cumulative weights of the pick values, the last one is the total weight */
+		long[] pickCumulativeWeights;
+		IdpTokenProvider idpTokenProvider;
+
+		Placeholder(final String foundText, final String type, final boolean hasSlot, final String cacheKey, final int position) {
+			this.foundText = foundText;
+			this.type = type;
+			this.hasSlot = hasSlot;
+			this.cacheKey = cacheKey;
+			this.position = position;
+		}
+	}
+
+	public static RandomParameterTemplate compile(final String input) throws Exception {
+		return compile(input, new TemplateContext(null));
+	}
+
+	/**
+	 * @param templateContext variables and counters shared by all templates of one request
+	 */
+	public static RandomParameterTemplate compile(final String input, final TemplateContext templateContext) throws Exception {
+		if (input == null || input.isEmpty()) {
+			return new RandomParameterTemplate(input, null, 0);
+		}
+
+		final Matcher matcher = RandomParameterResolver.PATTERN.matcher(input);
+		final List<Object> segments = new ArrayList<>();
+		final Map<String, Integer> typeCounter = new HashMap<>();
+		final String inputNamespace = Integer.toHexString(input.hashCode());
+		final StringBuilder literal = new StringBuilder();
+		int literalLength = 0;
+		int literalStart = 0;
+		while (matcher.find()) {
+			literal.append(input, literalStart, matcher.start());
+			literalStart = matcher.end();
+
+			final String kind = matcher.group(4); // null for ${rnd:...}
+			final Placeholder placeholder;
+			if (kind == null) {
+				final String type = matcher.group(1);
+				final String slot = matcher.group(2); // optional: may be null
+				final boolean hasSlot = Utilities.isNotBlank(slot);
+				final String cacheKey = hasSlot ? type + ":" + slot : createCacheKey(inputNamespace, type, typeCounter);
+				placeholder = createPlaceholder(matcher.group(), type, hasSlot, cacheKey, matcher.group(3), input, matcher.start());
+			} else {
+				final String body = matcher.group(6) == null ? "" : matcher.group(6);
+				switch (kind) {
+					case "env":
+						final String environmentValue = System.getenv(body.trim());
+						if (environmentValue == null) {
+							throw new Exception("Environment variable '" + body.trim() + "' is not set for placeholder at position " + matcher.start() + " in: " + truncate(input));
+						}
+						literal.append(environmentValue);
+						continue;
+					case "var":
+						final String variableValue = templateContext.getVariable(body.trim());
+						if (variableValue == null) {
+							throw new Exception("Variable '" + body.trim() + "' is not defined for placeholder at position " + matcher.start() + " in: " + truncate(input));
+						}
+						literal.append(variableValue);
+						continue;
+					case "csv":
+						if (body.isBlank()) {
+							throw new Exception("Missing CSV column name at position " + matcher.start() + " in: " + truncate(input));
+						}
+						// All occurrences of a column show the value of the same row
+						placeholder = new Placeholder(matcher.group(), TYPE_CSV, true, TYPE_CSV + ":" + body.trim(), matcher.start());
+						placeholder.csvColumn = body.trim();
+						break;
+					case "seq":
+						placeholder = createSequencePlaceholder(matcher.group(), body, templateContext, input, matcher.start());
+						break;
+					case "date":
+						placeholder = createDatePlaceholder(matcher.group(), body, input, matcher.start());
+						break;
+					case "pick":
+						placeholder = createPickPlaceholder(matcher.group(), matcher.group(5), body, inputNamespace, typeCounter, input, matcher.start());
+						break;
+					case "idp":
+						if (!"token".equals(body.trim())) {
+							throw new Exception("Invalid IdP placeholder at position " + matcher.start() + " in: " + truncate(input) + ". Expected: ${idp:token}");
+						} else if (templateContext.getIdpTokenProvider() == null) {
+							throw new Exception("No identity provider configured for placeholder at position " + matcher.start() + " in: " + truncate(input) + ". Fetch an IdP token for the request first");
+						}
+						// All occurrences within one request show the same token
+						placeholder = new Placeholder(matcher.group(), TYPE_IDP_TOKEN, true, TYPE_IDP_TOKEN, matcher.start());
+						placeholder.idpTokenProvider = templateContext.getIdpTokenProvider();
+						break;
+					default:
+						throw new IllegalStateException("Unknown placeholder kind '" + kind + "'");
+				}
+			}
+
+			if (literal.length() > 0) {
+				segments.add(literal.toString());
+				literalLength += literal.length();
+				literal.setLength(0);
+			}
+			segments.add(placeholder);
+		}
+
+		if (literalStart == 0) {
+			return new RandomParameterTemplate(input, null, input.length());
+		}
+		literal.append(input, literalStart, input.length());
+		if (segments.isEmpty()) {
+			// Only constant placeholders
+			return new RandomParameterTemplate(literal.toString(), null, literal.length());
+		} else {
+			if (literal.length() > 0) {
+				segments.add(literal.toString());
+				literalLength += literal.length();
+			}
+			return new RandomParameterTemplate(input, segments.toArray(), literalLength);
+		}
+	}
+
+	/**
+	 * Occurrences without slot get their own values
+	 */
+	private static String createCacheKey(final String inputNamespace, final String type, final Map<String, Integer> typeCounter) {
+		final int index = typeCounter.getOrDefault(type, 0);
+		typeCounter.put(type, index + 1);
+		return inputNamespace + "|" + type + "#" + index;
+	}
+
+	private RandomParameterTemplate(final String input, final Object[] segments, final int literalLength) {
+		this.input = input;
+		this.segments = segments;
+		this.literalLength = literalLength;
+	}
+
+	public boolean containsPlaceholders() {
+		return segments != null;
+	}
+
+	/**
+	 * @return the compiled text, with the values of environment and preset variables if it contains no other placeholders
+	 */
+	public String getInput() {
+		return input;
+	}
+
+	/**
+	 * Adds the columns of all {@code ${csv:COLUMN}} placeholders to the given set
+	 */
+	public void collectCsvColumns(final Set<String> csvColumns) {
+		if (segments != null) {
+			for (final Object segment : segments) {
+				if (segment instanceof Placeholder && TYPE_CSV.equals(((Placeholder) segment).type)) {
+					csvColumns.add(((Placeholder) segment).csvColumn);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the placeholders, whose values cannot be reproduced from a seed: {@code ${seq:global}}
+	 * counts the requests of all workers in the order they were started and {@code ${idp:token}}
+	 * is fetched from the identity provider
+	 */
+	public void collectUnreproduciblePlaceholders(final Set<String> placeholders) {
+		if (segments != null) {
+			for (final Object segment : segments) {
+				if (segment instanceof Placeholder) {
+					final Placeholder placeholder = (Placeholder) segment;
+					if ((TYPE_SEQUENCE.equals(placeholder.type) && placeholder.globalSequence != null) || TYPE_IDP_TOKEN.equals(placeholder.type)) {
+						placeholders.add(placeholder.foundText);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the input string with all placeholders replaced by values of the given resolver
+	 */
+	public String resolve(final RandomParameterResolver resolver) throws Exception {
+		if (segments == null) {
+			return input;
+		}
+
+		final StringBuilder sb = new StringBuilder(literalLength + 16 * segments.length);
+		for (final Object segment : segments) {
+			if (segment instanceof Placeholder) {
+				sb.append(resolver.getValue((Placeholder) segment));
+			} else {
+				sb.append((String) segment);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static Placeholder createPlaceholder(final String foundText, final String type, final boolean hasSlot, final String cacheKey, final String param, final String input, final int position) throws Exception {
+		final Placeholder placeholder = new Placeholder(foundText, type, hasSlot, cacheKey, position);
+		switch (type) {
+			case "UUID":
+			case "BOOL":
+			case "TS":
+			case "ISO":
+				break;
+			case "INT":
+				if (param != null && !param.isBlank()) {
+					final String[] parts = param.split("-", 2);
+					if (parts.length == 2) {
+						try {
+							placeholder.intMinimum = Integer.parseInt(parts[0].trim());
+							placeholder.intMaximum = Integer.parseInt(parts[1].trim());
+						} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+							throw new Exception("Invalid INT range parameter '" + param + "'. Expected format: MIN-MAX");
+						}
+						if (placeholder.intMinimum > placeholder.intMaximum) {
+							throw new Exception("Invalid INT range: MIN (" + placeholder.intMinimum + ") must be <= MAX (" + placeholder.intMaximum + ")");
+						}
+					} else {
+						throw new Exception("Invalid INT parameter '" + param + "'. Expected format: MIN-MAX");
+					}
+				}
+				break;
+			case "STR":
+				placeholder.length = parseLength("STR", param, RandomParameterResolver.DEFAULT_STR_LENGTH);
+				break;
+			case "HEX":
+				placeholder.length = parseLength("HEX", param, RandomParameterResolver.DEFAULT_HEX_LENGTH);
+				break;
+			case "NORMAL":
+				final String[] normalParts = param == null ? new String[0] : param.split(",");
+				if (normalParts.length != 2 && normalParts.length != 4) {
+					throw new Exception("Invalid NORMAL parameter '" + param + "'. Expected format: MEAN,STDDEV or MEAN,STDDEV,MIN,MAX");
+				}
+				try {
+					placeholder.normalMean = Double.parseDouble(normalParts[0].trim());
+					placeholder.normalStandardDeviation = Double.parseDouble(normalParts[1].trim());
+					if (normalParts.length == 4) {
+						placeholder.normalMinimum = Long.parseLong(normalParts[2].trim());
+						placeholder.normalMaximum = Long.parseLong(normalParts[3].trim());
+					}
+				} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+					throw new Exception("Invalid NORMAL parameter '" + param + "'. Expected format: MEAN,STDDEV or MEAN,STDDEV,MIN,MAX");
+				}
+				if (placeholder.normalStandardDeviation < 0) {
+					throw new Exception("NORMAL standard deviation must be >= 0, got: " + placeholder.normalStandardDeviation);
+				} else if (placeholder.normalMinimum > placeholder.normalMaximum) {
+					throw new Exception("Invalid NORMAL range: MIN (" + placeholder.normalMinimum + ") must be <= MAX (" + placeholder.normalMaximum + ")");
+				}
+				break;
+			case "ZIPF":
+				final String[] zipfParts = param == null ? new String[0] : param.split(",");
+				if (zipfParts.length != 1 && zipfParts.length != 2) {
+					throw new Exception("Invalid ZIPF parameter '" + param + "'. Expected format: MAX or MAX,EXPONENT");
+				}
+				try {
+					placeholder.zipfSampler = new ZipfSampler(Integer.parseInt(zipfParts[0].trim()), zipfParts.length == 2 ? Double.parseDouble(zipfParts[1].trim()) : 1.0);
+				} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+					throw new Exception("Invalid ZIPF parameter '" + param + "'. Expected format: MAX or MAX,EXPONENT");
+				} catch (final Exception e) {
+					throw new Exception("Invalid ZIPF parameter '" + param + "': " + e.getMessage());
+				}
+				break;
+			default:
+				throw new Exception("Unknown random parameter type '" + type + "' at position " + position + " in: " + truncate(input));
+		}
+		return placeholder;
+	}
+
+	/**
+	 * {@code ${seq:global}} counts over all requests of the compiled request, {@code ${seq:worker}}
+	 * counts the iterations of a worker (the tasks of the whole pool in the open model and in
+	 * asynchronous mode, where tasks are not bound to a worker). Both start at 1 or at the given
+	 * start value.
+	 */
+	private static Placeholder createSequencePlaceholder(final String foundText, final String body, final TemplateContext templateContext, final String input, final int position) throws Exception {
+		final String[] parts = body.split(":", 2);
+		final String scope = parts[0].trim().toLowerCase();
+		if (!"global".equals(scope) && !"worker".equals(scope)) {
+			throw new Exception("Invalid sequence scope '" + parts[0] + "' at position " + position + " in: " + truncate(input) + ". Expected: global or worker");
+		}
+		long start = 1;
+		if (parts.length > 1) {
+			try {
+				start = Long.parseLong(parts[1].trim());
+			} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+				throw new Exception("Invalid sequence start value '" + parts[1] + "' at position " + position + " in: " + truncate(input));
+			}
+		}
+		// All occurrences of the same sequence within one request show the same value
+		final Placeholder placeholder = new Placeholder(foundText, TYPE_SEQUENCE, true, TYPE_SEQUENCE + ":" + scope + ":" + start, position);
+		placeholder.sequenceStart = start;
+		if ("global".equals(scope)) {
+			placeholder.globalSequence = templateContext.getGlobalSequence(start);
+		}
+		return placeholder;
+	}
+
+	/**
+	 * {@code ${date:FORMAT}} or {@code ${date:OFFSET:FORMAT}}, e.g. {@code ${date:+1d:yyyy-MM-dd}}.
+	 * FORMAT is a DateTimeFormatter pattern, ISO (default), EPOCH or EPOCHMS.
+	 */
+	private static Placeholder createDatePlaceholder(final String foundText, final String body, final String input, final int position) throws Exception {
+		// All occurrences of the same date within one request show the same value
+		final Placeholder placeholder = new Placeholder(foundText, TYPE_DATE, true, TYPE_DATE + ":" + body, position);
+		String format = body.trim();
+		final int offsetEnd = format.indexOf(':');
+		final Matcher offsetMatcher = DATE_OFFSET_PATTERN.matcher(offsetEnd < 0 ? format : format.substring(0, offsetEnd));
+		if (offsetMatcher.matches()) {
+			placeholder.dateOffsetAmount = Long.parseLong(offsetMatcher.group(1));
+			placeholder.dateOffsetUnit = switch (offsetMatcher.group(2)) {
+				case "s" -> ChronoUnit.SECONDS;
+				case "m" -> ChronoUnit.MINUTES;
+				case "h" -> ChronoUnit.HOURS;
+				case "d" -> ChronoUnit.DAYS;
+				case "w" -> ChronoUnit.WEEKS;
+				case "M" -> ChronoUnit.MONTHS;
+				default -> ChronoUnit.YEARS;
+			};
+			format = offsetEnd < 0 ? "" : format.substring(offsetEnd + 1).trim();
+		}
+
+		if (format.isEmpty() || "ISO".equals(format)) {
+			placeholder.dateFormatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+		} else if ("EPOCH".equals(format)) {
+			placeholder.dateFormatter = null;
+		} else if ("EPOCHMS".equals(format)) {
+			placeholder.dateFormatter = null;
+			placeholder.dateEpochMillis = true;
+		} else {
+			try {
+				placeholder.dateFormatter = DateTimeFormatter.ofPattern(format);
+			} catch (final IllegalArgumentException e) {
+				throw new Exception("Invalid date format '" + format + "' at position " + position + " in: " + truncate(input) + ": " + e.getMessage());
+			}
+		}
+		return placeholder;
+	}
+
+	/**
+	 * {@code ${pick:a|b|c}} or with weights and optional slot {@code ${pick#1:a*3|b*1}}
+	 */
+	private static Placeholder createPickPlaceholder(final String foundText, final String slot, final String body, final String inputNamespace, final Map<String, Integer> typeCounter, final String input, final int position) throws Exception {
+		final Placeholder placeholder;
+		if (slot != null) {
+			placeholder = new Placeholder(foundText, TYPE_PICK, true, TYPE_PICK + ":" + slot, position);
+		} else {
+			placeholder = new Placeholder(foundText, TYPE_PICK, false, createCacheKey(inputNamespace, TYPE_PICK, typeCounter), position);
+		}
+
+		// The values may contain ':', e.g. times like 10:30
+		final String[] options = body.split("\\|", -1);
+		placeholder.pickValues = new String[options.length];
+		placeholder.pickCumulativeWeights = new long[options.length];
+		long totalWeight = 0;
+		for (int i = 0; i < options.length; i++) {
+			final Matcher weightMatcher = PICK_WEIGHT_PATTERN.matcher(options[i]);
+			long weight = 1;
+			if (weightMatcher.matches()) {
+				placeholder.pickValues[i] = weightMatcher.group(1);
+				try {
+					weight = Long.parseLong(weightMatcher.group(2));
+				} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+					weight = 0;
+				}
+				if (weight < 1 || weight > Integer.MAX_VALUE) {
+					throw new Exception("Invalid pick weight '" + weightMatcher.group(2) + "' at position " + position + " in: " + truncate(input) + ". Expected a positive integer");
+				}
+			} else {
+				placeholder.pickValues[i] = options[i];
+			}
+			totalWeight += weight;
+			placeholder.pickCumulativeWeights[i] = totalWeight;
+		}
+		return placeholder;
+	}
+
+	private static int parseLength(final String type, final String param, final int defaultLength) throws Exception {
+		int length = defaultLength;
+		if (param != null && !param.isBlank()) {
+			try {
+				length = Integer.parseInt(param.trim());
+			} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+				throw new Exception("Invalid " + type + " length parameter '" + param + "'. Expected a positive integer.");
+			}
+			if (length <= 0) {
+				throw new Exception(type + " length must be > 0, got: " + length);
+			}
+		}
+		return length;
+	}
+
+	private static String truncate(final String s) {
+		return s.length() > 80 ? s.substring(0, 80) + "…" : s;
+	}
+}
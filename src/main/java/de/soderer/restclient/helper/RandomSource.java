@@ -0,0 +1,133 @@
+package de.soderer.restclient.helper;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of the random generators used by {@link RandomParameterResolver}.
+ *
+ * <p>
+ * {@link RandomMode#Secure} shares one cryptographically strong {@link SecureRandom}.
+ * {@link RandomMode#Fast} gives each thread its own {@link SplittableRandom}, split from one root
+ * generator, so the threads never contend for a generator.
+ *
+ * <p>
+ * With a fixed seed each task of a run gets its own generator, derived only from the seed, the
+ * worker and the iteration. So the values of one task can be regenerated exactly without running
+ * the tasks before it.
+ */
+public class RandomSource {
+	/**
+	 * Generator type for random parameter values
+	 */
+	public enum RandomMode {
+		/** Cryptographically strong values */
+		Secure,
+		/** Non-cryptographic values from a splittable generator per thread, optionally seeded */
+		Fast;
+
+		public static RandomMode getRandomModeByName(final String name) throws Exception {
+			for (final RandomMode randomMode : RandomMode.values()) {
+				if (randomMode.name().equalsIgnoreCase(name)) {
+					return randomMode;
+				}
+			}
+			throw new Exception("Invalid random mode name: " + name);
+		}
+	}
+
+	/** Odd constant of the golden ratio, used by SplittableRandom as well */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** Default source for single requests */
+	public static final RandomSource SECURE = new RandomSource();
+
+	private final RandomMode randomMode;
+	private final Long seed;
+	private final SecureRandom secureRandom;
+	private final SplittableRandom rootRandom;
+	private final ThreadLocal<SplittableRandom> threadRandom;
+
+	private RandomSource() {
+		randomMode = RandomMode.Secure;
+		seed = null;
+		secureRandom = new SecureRandom();
+		rootRandom = null;
+		threadRandom = null;
+	}
+
+	/**
+	 * @param seed seed of the fast generators, null for a random seed
+	 */
+	public RandomSource(final RandomMode randomMode, final Long seed) throws Exception {
+		this.randomMode = randomMode == null ? RandomMode.Secure : randomMode;
+		this.seed = seed;
+		if (this.randomMode == RandomMode.Secure) {
+			if (seed != null) {
+				throw new Exception("A random seed can only be used with random mode " + RandomMode.Fast.name());
+			}
+			secureRandom = new SecureRandom();
+			rootRandom = null;
+			threadRandom = null;
+		} else {
+			secureRandom = null;
+			rootRandom = new SplittableRandom();
+			threadRandom = ThreadLocal.withInitial(this::splitRootRandom);
+		}
+	}
+
+	private SplittableRandom splitRootRandom() {
+		// SplittableRandom is not thread-safe, but splitting is needed only once per thread
+		synchronized (rootRandom) {
+			return rootRandom.split();
+		}
+	}
+
+	public RandomMode getRandomMode() {
+		return randomMode;
+	}
+
+	/**
+	 * @return null if no fixed seed is used
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return generator for the current thread, which must not be handed to other threads
+	 */
+	public RandomGenerator getRandomGenerator() {
+		if (randomMode == RandomMode.Secure) {
+			return secureRandom;
+		} else {
+			return threadRandom.get();
+		}
+	}
+
+	/**
+	 * Generator for one task. With a fixed seed it is derived from the seed, the worker and the
+	 * iteration only, otherwise it is the generator of the current thread.
+	 *
+	 * @param workerId worker of the task, 0 for pool-wide task numbers
+	 * @param iteration 1-based number of the task
+	 */
+	public RandomGenerator getRandomGenerator(final int workerId, final long iteration) {
+		if (seed == null) {
+			return getRandomGenerator();
+		} else {
+			return new SplittableRandom(mix64(mix64(seed + GOLDEN_GAMMA * workerId) + GOLDEN_GAMMA * iteration));
+		}
+	}
+
+	/**
+	 * Bit mixing function of SplittableRandom (variant 13 of Stafford's MurmurHash3 finalizer), so
+	 * neighbouring workers and iterations get unrelated seeds
+	 */
+	private static long mix64(final long value) {
+		long mixedValue = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		mixedValue = (mixedValue ^ (mixedValue >>> 27)) * 0x94D049BB133111EBL;
+		return mixedValue ^ (mixedValue >>> 31);
+	}
+}
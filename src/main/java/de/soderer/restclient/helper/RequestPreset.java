@@ -0,0 +1,288 @@
+package de.soderer.restclient.helper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.net.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.soderer.json.JsonArray;
+import de.soderer.json.JsonNode;
+import de.soderer.json.JsonObject;
+import de.soderer.network.HttpMethod;
+import de.soderer.network.HttpRequest;
+import de.soderer.network.HttpUtilities;
+import de.soderer.network.TlsCheckConfiguration;
+import de.soderer.network.TlsCheckConfiguration.TlsCheckConfigurationType;
+import de.soderer.pac.utilities.ProxyConfiguration;
+import de.soderer.pac.utilities.ProxyConfiguration.ProxyConfigurationType;
+import de.soderer.restclient.RestClientException;
+import de.soderer.utilities.Utilities;
+import de.soderer.yaml.YamlReader;
+import de.soderer.yaml.data.YamlDocument;
+import de.soderer.yaml.data.YamlMapping;
+import de.soderer.yaml.data.YamlSequence;
+
+/**
+ * UI-independent representation of a stored request preset (RequestPresets.json entry) or of the
+ * request section of a YAML export file, used where no RequestComponent is available (e.g. CLI).
+ */
+public class RequestPreset {
+	private String proxyUrl;
+	private int maxRedirects = 0;
+	private boolean http2 = false;
+	private String httpMethod;
+	private String serviceUrl;
+	private String serviceMethod;
+	private TlsCheckConfiguration tlsCheckConfiguration = new TlsCheckConfiguration(TlsCheckConfigurationType.SystemTrustStore, true);
+	private final Map<String, String> httpHeaders = new LinkedHashMap<>();
+	private final Map<String, String> urlParameters = new LinkedHashMap<>();
+	private final Map<String, String> htmlFormParameters = new LinkedHashMap<>();
+	private String requestBody;
+	private String responseAssertions;
+	private String variables;
+	private String idpUrl;
+	private String idpRealm;
+	private String idpUsername;
+	private String idpPassword;
+
+	public static RequestPreset readFromPresetsFile(final File requestPresetsFile, final String presetName) throws Exception {
+		if (!requestPresetsFile.exists()) {
+			throw new RestClientException("Request presets file '" + requestPresetsFile.getAbsolutePath() + "' does not exist");
+		}
+
+		final JsonObject requestPresetJsonObject = new RequestPresetRepository(requestPresetsFile).getPreset(presetName);
+		if (requestPresetJsonObject == null) {
+			throw new RestClientException("Request preset '" + presetName + "' does not exist");
+		}
+
+		return fromJsonObject(requestPresetJsonObject);
+	}
+
+	public static RequestPreset readFromYamlExportFile(final File yamlExportFile) throws Exception {
+		if (!yamlExportFile.exists()) {
+			throw new RestClientException("YAML export file '" + yamlExportFile.getAbsolutePath() + "' does not exist");
+		}
+
+		final YamlDocument yamlDocument;
+		try (YamlReader reader = new YamlReader(new FileInputStream(yamlExportFile), StandardCharsets.UTF_8)) {
+			yamlDocument = reader.readDocument();
+		}
+
+		final YamlMapping rootMapping = (YamlMapping) yamlDocument.getRoot();
+		if (rootMapping == null || !rootMapping.containsKey("request")) {
+			throw new RestClientException("YAML export file '" + yamlExportFile.getAbsolutePath() + "' contains no request data");
+		}
+
+		return fromYamlMapping((YamlMapping) rootMapping.get("request"));
+	}
+
+	public static RequestPreset fromJsonObject(final JsonObject jsonObject) {
+		final RequestPreset requestPreset = new RequestPreset();
+
+		requestPreset.proxyUrl = (String) jsonObject.getSimpleValue("proxyUrl");
+		final Object maxRedirectsObject = jsonObject.getSimpleValue("maxRedirects");
+		requestPreset.maxRedirects = maxRedirectsObject == null ? 0 : ((Number) maxRedirectsObject).intValue();
+		requestPreset.http2 = Boolean.TRUE.equals(jsonObject.getSimpleValue("http2"));
+		requestPreset.httpMethod = (String) jsonObject.getSimpleValue("httpMethod");
+		requestPreset.serviceUrl = (String) jsonObject.getSimpleValue("serviceUrl");
+		requestPreset.serviceMethod = (String) jsonObject.getSimpleValue("serviceMethod");
+
+		final Object tlsCheckConfigurationObject = jsonObject.getSimpleValue("tlsCheck");
+		if (tlsCheckConfigurationObject instanceof Boolean) {
+			if (!(Boolean) tlsCheckConfigurationObject) {
+				requestPreset.tlsCheckConfiguration = new TlsCheckConfiguration(TlsCheckConfigurationType.NoCheck, false);
+			}
+		} else if (tlsCheckConfigurationObject != null) {
+			final JsonObject tlsCheckConfigurationJsonObject = (JsonObject) tlsCheckConfigurationObject;
+			requestPreset.tlsCheckConfiguration = createTlsCheckConfiguration(
+					(String) tlsCheckConfigurationJsonObject.getSimpleValue("type"),
+					(String) tlsCheckConfigurationJsonObject.getSimpleValue("file"),
+					(String) tlsCheckConfigurationJsonObject.getSimpleValue("trustorePassword"),
+					(Boolean) tlsCheckConfigurationJsonObject.getSimpleValue("checkCn"));
+		}
+
+		readNameValueJsonArray(jsonObject, "httpRequestHeaders", requestPreset.httpHeaders);
+		readNameValueJsonArray(jsonObject, "urlParameters", requestPreset.urlParameters);
+		readNameValueJsonArray(jsonObject, "htmlFormParameters", requestPreset.htmlFormParameters);
+
+		requestPreset.requestBody = (String) jsonObject.getSimpleValue("requestBody");
+		requestPreset.responseAssertions = (String) jsonObject.getSimpleValue("responseAssertions");
+		requestPreset.variables = (String) jsonObject.getSimpleValue("variables");
+		requestPreset.idpUrl = (String) jsonObject.getSimpleValue("idpUrl");
+		requestPreset.idpRealm = (String) jsonObject.getSimpleValue("idpRealm");
+		requestPreset.idpUsername = (String) jsonObject.getSimpleValue("idpUsername");
+		requestPreset.idpPassword = (String) jsonObject.getSimpleValue("idpPassword");
+
+		return requestPreset;
+	}
+
+	public static RequestPreset fromYamlMapping(final YamlMapping requestYamlMapping) {
+		final RequestPreset requestPreset = new RequestPreset();
+
+		requestPreset.proxyUrl = (String) requestYamlMapping.getSimpleValue("proxyUrl");
+		final Object maxRedirectsObject = requestYamlMapping.getSimpleValue("maxRedirects");
+		requestPreset.maxRedirects = maxRedirectsObject == null ? 0 : ((Number) maxRedirectsObject).intValue();
+		requestPreset.http2 = Boolean.TRUE.equals(requestYamlMapping.getSimpleValue("http2"));
+		requestPreset.httpMethod = (String) requestYamlMapping.getSimpleValue("httpMethod");
+		requestPreset.serviceUrl = (String) requestYamlMapping.getSimpleValue("serviceUrl");
+		requestPreset.serviceMethod = (String) requestYamlMapping.getSimpleValue("serviceMethod");
+
+		if (requestYamlMapping.containsKey("tlsCheck")) {
+			final YamlMapping tlsCheckYamlMapping = (YamlMapping) requestYamlMapping.get("tlsCheck");
+			requestPreset.tlsCheckConfiguration = createTlsCheckConfiguration(
+					(String) tlsCheckYamlMapping.getSimpleValue("type"),
+					(String) tlsCheckYamlMapping.getSimpleValue("file"),
+					(String) tlsCheckYamlMapping.getSimpleValue("trustorePassword"),
+					(Boolean) tlsCheckYamlMapping.getSimpleValue("checkCn"));
+		}
+
+		readNameValueYamlSequence(requestYamlMapping, "httpRequestHeaders", requestPreset.httpHeaders);
+		readNameValueYamlSequence(requestYamlMapping, "urlParameters", requestPreset.urlParameters);
+		readNameValueYamlSequence(requestYamlMapping, "htmlFormParameters", requestPreset.htmlFormParameters);
+
+		requestPreset.requestBody = (String) requestYamlMapping.getSimpleValue("requestBody");
+		requestPreset.responseAssertions = (String) requestYamlMapping.getSimpleValue("responseAssertions");
+		requestPreset.variables = (String) requestYamlMapping.getSimpleValue("variables");
+		requestPreset.idpUrl = (String) requestYamlMapping.getSimpleValue("idpUrl");
+		requestPreset.idpRealm = (String) requestYamlMapping.getSimpleValue("idpRealm");
+		requestPreset.idpUsername = (String) requestYamlMapping.getSimpleValue("idpUsername");
+		requestPreset.idpPassword = (String) requestYamlMapping.getSimpleValue("idpPassword");
+
+		return requestPreset;
+	}
+
+	private static TlsCheckConfiguration createTlsCheckConfiguration(final String typeName, final String filePath, final String trustorePassword, final Boolean checkCnValue) {
+		try {
+			final TlsCheckConfigurationType tlsCheckConfigurationType = TlsCheckConfigurationType.getTlsCheckConfigurationByName(typeName);
+			final boolean checkCn = checkCnValue != null ? checkCnValue : tlsCheckConfigurationType != TlsCheckConfigurationType.NoCheck;
+			return new TlsCheckConfiguration(
+					tlsCheckConfigurationType,
+					(filePath == null ? null : new File(filePath)),
+					(trustorePassword == null ? null : trustorePassword.toCharArray()),
+					checkCn);
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			return new TlsCheckConfiguration(TlsCheckConfigurationType.SystemTrustStore, true);
+		}
+	}
+
+	private static void readNameValueJsonArray(final JsonObject jsonObject, final String key, final Map<String, String> target) {
+		if (jsonObject.containsKey(key)) {
+			for (final JsonNode itemJsonNode : ((JsonArray) jsonObject.get(key)).items()) {
+				final JsonObject itemJsonObject = (JsonObject) itemJsonNode;
+				target.put((String) itemJsonObject.getSimpleValue("name"), (String) itemJsonObject.getSimpleValue("value"));
+			}
+		}
+	}
+
+	private static void readNameValueYamlSequence(final YamlMapping yamlMapping, final String key, final Map<String, String> target) {
+		if (yamlMapping.containsKey(key)) {
+			for (final Object item : ((YamlSequence) yamlMapping.get(key)).items()) {
+				final YamlMapping itemYamlMapping = (YamlMapping) item;
+				target.put((String) itemYamlMapping.getSimpleValue("name"), (String) itemYamlMapping.getSimpleValue("value"));
+			}
+		}
+	}
+
+	/**
+	 * Creates the HttpRequest the same way the GUI does for its "send request" and worker pool execution
+	 */
+	public HttpRequest createHttpRequest() throws Exception {
+		if (Utilities.isBlank(serviceUrl)) {
+			throw new RestClientException("Request preset has no service URL");
+		}
+
+		final HttpRequest httpRequest = new HttpRequest(HttpMethod.getHttpMethodByName(Utilities.isNotBlank(httpMethod) ? httpMethod : "GET"), serviceUrl + (Utilities.isNotBlank(serviceMethod) ? "/" + serviceMethod : ""));
+		httpRequest.setMaxRedirects(maxRedirects);
+
+		for (final Entry<String, String> httpRequestHeadersEntry : httpHeaders.entrySet()) {
+			httpRequest.addHeader(httpRequestHeadersEntry.getKey(), httpRequestHeadersEntry.getValue());
+		}
+
+		for (final Entry<String, String> urlParametersEntry : urlParameters.entrySet()) {
+			httpRequest.addUrlParameter(urlParametersEntry.getKey(), urlParametersEntry.getValue());
+		}
+
+		for (final Entry<String, String> htmlFormParametersEntry : htmlFormParameters.entrySet()) {
+			httpRequest.addPostParameter(htmlFormParametersEntry.getKey(), htmlFormParametersEntry.getValue());
+		}
+
+		if ("POST".equalsIgnoreCase(httpMethod) || "PUT".equalsIgnoreCase(httpMethod)) {
+			if (htmlFormParameters.size() == 0) {
+				if (Utilities.isNotBlank(requestBody)) {
+					httpRequest.setRequestBody(requestBody);
+				}
+			}
+		}
+
+		return httpRequest;
+	}
+
+	public Proxy createProxy(final HttpRequest httpRequest) throws Exception {
+		if (Utilities.isNotBlank(proxyUrl)) {
+			if ("DIRECT".equalsIgnoreCase(proxyUrl)) {
+				return Proxy.NO_PROXY;
+			} else if ("WPAD".equalsIgnoreCase(proxyUrl)) {
+				final ProxyConfiguration requestProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.WPAD, null);
+				return requestProxyConfiguration.getProxy(httpRequest.getUrl());
+			} else {
+				return HttpUtilities.getProxyFromString(proxyUrl);
+			}
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Preset variables and the token provider of the stored IdP credentials for the placeholders of this request
+	 */
+	public TemplateContext createTemplateContext() throws Exception {
+		IdpTokenProvider idpTokenProvider = null;
+		if (Utilities.isNotBlank(idpUrl) && Utilities.isNotBlank(idpUsername) && Utilities.isNotEmpty(idpPassword)) {
+			ProxyConfiguration idpProxyConfiguration = null;
+			if (Utilities.isNotBlank(proxyUrl)) {
+				if ("DIRECT".equalsIgnoreCase(proxyUrl)) {
+					idpProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.None);
+				} else if ("WPAD".equalsIgnoreCase(proxyUrl)) {
+					idpProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.WPAD);
+				} else {
+					idpProxyConfiguration = new ProxyConfiguration(ProxyConfigurationType.ProxyURL, proxyUrl);
+				}
+			}
+			idpTokenProvider = IdpTokenProvider.getIdpTokenProvider(idpUrl, idpRealm, idpUsername, idpPassword, null, idpProxyConfiguration);
+		}
+		return new TemplateContext(TemplateContext.parseVariables(variables), idpTokenProvider);
+	}
+
+	public TlsCheckConfiguration getTlsCheckConfiguration() {
+		return tlsCheckConfiguration;
+	}
+
+	public String getServiceUrl() {
+		return serviceUrl;
+	}
+
+	public String getHttpMethod() {
+		return httpMethod;
+	}
+
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	/**
+	 * @return assertions on the responses, one per line, or null
+	 */
+	public String getResponseAssertions() {
+		return responseAssertions;
+	}
+
+	/**
+	 * @return values of ${var:NAME} placeholders, one "NAME=value" per line, or null
+	 */
+	public String getVariables() {
+		return variables;
+	}
+}
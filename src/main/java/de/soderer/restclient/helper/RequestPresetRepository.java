@@ -0,0 +1,694 @@
+package de.soderer.restclient.helper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import de.soderer.json.JsonNode;
+import de.soderer.json.JsonObject;
+import de.soderer.json.JsonReader;
+import de.soderer.json.JsonWriter;
+
+/**
+ * Request presets of a presets file (e.g. {@link de.soderer.restclient.RestClient#REQUEST_PRESETS_FILE}),
+ * kept in an in-memory index, which is loaded only once.
+ *
+ * <p>
+ * Changes do not rewrite the whole presets file. They are appended as records to a change log next
+ * to it ("RequestPresets.json.log"), which is replayed on top of the presets file when loading.
+ * Once the change log has more than {@link #MAXIMUM_LOG_RECORDS} records or grows beyond the size
+ * of the presets file, both are compacted into a new presets file, which replaces the old one
+ * atomically. A record torn by a crash is discarded on the next load.
+ *
+ * <p>
+ * The index holds only the names of the presets and the byte ranges of their JSON data within the
+ * presets file or the change log. Loading scans the files for these ranges without parsing the
+ * presets, so start-up time does not depend on the size of the request bodies. A preset is parsed
+ * only when it is read, and compaction copies the byte ranges without parsing.
+ *
+ * <p>
+ * Changes of both files by others (e.g. an editor or another instance of this tool) are detected
+ * by {@link #startWatching(Runnable)}, which reloads the index. Instances, also of other
+ * processes, access the files only while holding a lock on "RequestPresets.json.lock" and reload
+ * the index before their own changes, if the files were changed meanwhile.
+ */
+public class RequestPresetRepository {
+	/** Number of change log records, after which the change log is compacted into the presets file */
+	private static final int MAXIMUM_LOG_RECORDS = 100;
+	/** Editors write files in several steps, so changes are read after this time without further changes */
+	private static final long WATCH_SETTLE_MILLIS = 300;
+
+	private static final String RECORD_PUT = "PUT";
+	private static final String RECORD_DELETE = "DELETE";
+	private static final String RECORD_ORDER = "ORDER";
+
+	/** File locks are held by the whole JVM, so instances within the JVM wait for each other on this monitor */
+	private static final Object FILE_LOCK_MONITOR = new Object();
+
+	private final File presetsFile;
+	private final File logFile;
+	private final File lockFile;
+
+	private Map<String, PresetEntry> presets = new LinkedHashMap<>();
+	private int logRecordCount = 0;
+	/** Length of the change log up to its last complete record */
+	private long validLogLength = 0;
+	/** Length of the change log, if its last record was found torn by a crash, otherwise -1 */
+	private long tornLogLength = -1;
+	/** Size and modification time of both files after the latest own change, to tell external changes apart */
+	private String knownFilesState;
+
+	private WatchService watchService = null;
+
+	private static class PresetEntry {
+		/** Presets file or change log containing the JSON data of the preset */
+		private final File file;
+		private final long offset;
+		private final int length;
+		/** Parsed preset, null until it is read */
+		private JsonObject jsonObject;
+
+		private PresetEntry(final File file, final long offset, final int length, final JsonObject jsonObject) {
+			this.file = file;
+			this.offset = offset;
+			this.length = length;
+			this.jsonObject = jsonObject;
+		}
+	}
+
+	public RequestPresetRepository(final File presetsFile) throws Exception {
+		this.presetsFile = presetsFile;
+		logFile = new File(presetsFile.getParentFile(), presetsFile.getName() + ".log");
+		lockFile = new File(presetsFile.getParentFile(), presetsFile.getName() + ".lock");
+		load();
+	}
+
+	public synchronized List<String> getPresetNames() {
+		return new ArrayList<>(presets.keySet());
+	}
+
+	public synchronized boolean containsPreset(final String presetName) {
+		return presets.containsKey(presetName);
+	}
+
+	/**
+	 * @return null if there is no such preset
+	 */
+	public synchronized JsonObject getPreset(final String presetName) throws Exception {
+		final PresetEntry cachedPresetEntry = presets.get(presetName);
+		if (cachedPresetEntry != null && cachedPresetEntry.jsonObject != null && getFilesState().equals(knownFilesState)) {
+			return cachedPresetEntry.jsonObject;
+		}
+
+		return runLocked(() -> {
+			// Changed by others and not yet reloaded by the watcher, so the byte ranges are outdated
+			reloadIfChanged();
+
+			final PresetEntry presetEntry = presets.get(presetName);
+			if (presetEntry == null) {
+				return null;
+			} else if (presetEntry.jsonObject == null) {
+				final byte[] presetData = new byte[presetEntry.length];
+				try (RandomAccessFile presetDataFile = new RandomAccessFile(presetEntry.file, "r")) {
+					presetDataFile.seek(presetEntry.offset);
+					presetDataFile.readFully(presetData);
+				}
+				final JsonNode presetJsonNode = JsonReader.readJsonItemString(new String(presetData, StandardCharsets.UTF_8));
+				if (!(presetJsonNode instanceof JsonObject)) {
+					throw new Exception("Invalid request preset '" + presetName + "' in '" + presetEntry.file.getAbsolutePath() + "'");
+				}
+				presetEntry.jsonObject = (JsonObject) presetJsonNode;
+			}
+			return presetEntry.jsonObject;
+		});
+	}
+
+	/**
+	 * Replaces an existing preset at its position, a new preset is added at the end
+	 */
+	public synchronized void savePreset(final String presetName, final JsonObject presetJsonObject) throws Exception {
+		final byte[] presetData = toJsonData(presetJsonObject);
+		final byte[] recordHeader = (RECORD_PUT + " " + presetData.length + " " + encodeJsonString(presetName) + "\n").getBytes(StandardCharsets.UTF_8);
+		final ByteArrayOutputStream record = new ByteArrayOutputStream();
+		record.write(recordHeader);
+		record.write(presetData);
+		record.write('\n');
+		runLocked(() -> {
+			reloadIfChanged();
+			final long recordOffset = appendLogRecord(record.toByteArray());
+			presets.put(presetName, new PresetEntry(logFile, recordOffset + recordHeader.length, presetData.length, presetJsonObject));
+			compactIfNeeded();
+			return null;
+		});
+	}
+
+	public synchronized void deletePreset(final String presetName) throws Exception {
+		runLocked(() -> {
+			reloadIfChanged();
+			if (presets.containsKey(presetName)) {
+				appendLogRecord((RECORD_DELETE + " " + encodeJsonString(presetName) + "\n").getBytes(StandardCharsets.UTF_8));
+				presets.remove(presetName);
+				compactIfNeeded();
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Presets missing in the new order keep their relative order after the given ones
+	 */
+	public synchronized void reorderPresets(final List<String> presetNames) throws Exception {
+		final StringBuilder record = new StringBuilder(RECORD_ORDER + " " + presetNames.size() + "\n");
+		for (final String presetName : presetNames) {
+			record.append(encodeJsonString(presetName)).append("\n");
+		}
+		runLocked(() -> {
+			reloadIfChanged();
+			appendLogRecord(record.toString().getBytes(StandardCharsets.UTF_8));
+			presets = applyOrder(presets, presetNames);
+			compactIfNeeded();
+			return null;
+		});
+	}
+
+	/**
+	 * Reloads the presets on changes of the presets file or its change log by others. The listener
+	 * is called on the watcher thread after the index was reloaded.
+	 */
+	public synchronized void startWatching(final Runnable externalChangeListener) throws Exception {
+		if (watchService == null) {
+			if (!presetsFile.getParentFile().exists()) {
+				presetsFile.getParentFile().mkdirs();
+			}
+			watchService = FileSystems.getDefault().newWatchService();
+			presetsFile.getParentFile().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			final WatchService currentWatchService = watchService;
+			final Thread watcherThread = new Thread(() -> watch(currentWatchService, externalChangeListener), "RequestPresetWatcher");
+			watcherThread.setDaemon(true);
+			watcherThread.start();
+		}
+	}
+
+	/**
+	 * Stops watching and compacts the change log into the presets file, so the presets file is
+	 * complete for other readers
+	 */
+	public synchronized void close() throws Exception {
+		if (watchService != null) {
+			watchService.close();
+			watchService = null;
+		}
+		if (logRecordCount > 0) {
+			compact();
+		}
+	}
+
+	/**
+	 * Writes all presets into a new presets file and removes the change log. The JSON data of the
+	 * presets is copied as it is, without parsing it.
+	 */
+	public synchronized void compact() throws Exception {
+		runLocked(() -> {
+			// Changed by others, so the byte ranges are outdated
+			reloadIfChanged();
+			compactLocked();
+			return null;
+		});
+	}
+
+	/**
+	 * Must only be called while holding the file lock
+	 */
+	private void compactLocked() throws Exception {
+		// Readers never see a partially written presets file
+		final File temporaryFile = new File(presetsFile.getParentFile(), presetsFile.getName() + ".tmp");
+		final Map<String, PresetEntry> compactedPresets = new LinkedHashMap<>();
+		try (FileChannel targetChannel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				FileChannel presetsFileChannel = presetsFile.exists() ? FileChannel.open(presetsFile.toPath(), StandardOpenOption.READ) : null;
+				FileChannel logFileChannel = logFile.exists() ? FileChannel.open(logFile.toPath(), StandardOpenOption.READ) : null) {
+			writeFully(targetChannel, "{".getBytes(StandardCharsets.UTF_8));
+			boolean isFirstPreset = true;
+			for (final Entry<String, PresetEntry> preset : presets.entrySet()) {
+				writeFully(targetChannel, ((isFirstPreset ? "\n\t" : ",\n\t") + encodeJsonString(preset.getKey()) + ": ").getBytes(StandardCharsets.UTF_8));
+				isFirstPreset = false;
+
+				final PresetEntry presetEntry = preset.getValue();
+				final long targetOffset = targetChannel.position();
+				final FileChannel sourceChannel = presetEntry.file.equals(logFile) ? logFileChannel : presetsFileChannel;
+				long transferredBytes = 0;
+				while (transferredBytes < presetEntry.length) {
+					final long bytes = sourceChannel.transferTo(presetEntry.offset + transferredBytes, presetEntry.length - transferredBytes, targetChannel);
+					if (bytes <= 0) {
+						throw new Exception("Request preset '" + preset.getKey() + "' is missing in '" + presetEntry.file.getAbsolutePath() + "'");
+					}
+					transferredBytes += bytes;
+				}
+				targetChannel.position(targetOffset + presetEntry.length);
+				compactedPresets.put(preset.getKey(), new PresetEntry(presetsFile, targetOffset, presetEntry.length, presetEntry.jsonObject));
+			}
+			writeFully(targetChannel, "\n}\n".getBytes(StandardCharsets.UTF_8));
+			targetChannel.force(false);
+		}
+		Files.move(temporaryFile.toPath(), presetsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		presets = compactedPresets;
+		// After a crash at this point, the change log is replayed once more, which results in the same presets
+		Files.deleteIfExists(logFile.toPath());
+
+		logRecordCount = 0;
+		validLogLength = 0;
+		tornLogLength = -1;
+		knownFilesState = getFilesState();
+	}
+
+	private void compactIfNeeded() throws Exception {
+		if (logRecordCount > MAXIMUM_LOG_RECORDS || validLogLength > presetsFile.length()) {
+			compactLocked();
+		}
+	}
+
+	/**
+	 * Runs the action while holding the lock file, so no other instance changes, compacts or
+	 * replaces the files meanwhile
+	 */
+	private <T> T runLocked(final Callable<T> action) throws Exception {
+		if (!lockFile.getParentFile().exists()) {
+			lockFile.getParentFile().mkdirs();
+		}
+		synchronized (FILE_LOCK_MONITOR) {
+			// Closing the channel releases the lock
+			try (FileChannel lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				lockChannel.lock();
+				return action.call();
+			}
+		}
+	}
+
+	/**
+	 * Must only be called while holding the file lock. Other instances may have appended records to
+	 * the change log or compacted it, so the index and the log length are outdated.
+	 */
+	private void reloadIfChanged() throws Exception {
+		if (!getFilesState().equals(knownFilesState) || (logFile.exists() ? logFile.length() : 0) != (tornLogLength >= 0 ? tornLogLength : validLogLength)) {
+			loadLocked();
+		}
+	}
+
+	private synchronized void load() throws Exception {
+		if (!presetsFile.exists() && !logFile.exists()) {
+			// Nothing to read, so the directory and the lock file are not created just for reading
+			loadLocked();
+		} else {
+			runLocked(() -> {
+				loadLocked();
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Must only be called while holding the file lock, except if both files do not exist
+	 */
+	private void loadLocked() throws Exception {
+		final Map<String, PresetEntry> loadedPresets;
+		if (presetsFile.exists() && presetsFile.length() > 0) {
+			loadedPresets = indexPresetsFile();
+		} else {
+			loadedPresets = new LinkedHashMap<>();
+		}
+
+		presets = loadedPresets;
+		logRecordCount = 0;
+		validLogLength = 0;
+		tornLogLength = -1;
+		if (logFile.exists()) {
+			replayLog();
+		}
+		knownFilesState = getFilesState();
+	}
+
+	/**
+	 * Finds the names of the presets and the byte ranges of their JSON data in the presets file
+	 * without parsing the data. The presets file is read as UTF-8, whose multi-byte sequences never
+	 * contain the ASCII characters of the JSON structure.
+	 */
+	private Map<String, PresetEntry> indexPresetsFile() throws Exception {
+		final int expectObject = 0;
+		final int expectName = 1;
+		final int inName = 2;
+		final int expectColon = 3;
+		final int expectValue = 4;
+		final int inValue = 5;
+		final int end = 6;
+
+		final Map<String, PresetEntry> index = new LinkedHashMap<>();
+		final ByteArrayOutputStream nameData = new ByteArrayOutputStream();
+		int state = expectObject;
+		int depth = 0;
+		boolean inString = false;
+		boolean escaped = false;
+		long valueStart = 0;
+		long valueEnd = 0;
+		long offset = 0;
+
+		try (InputStream input = new FileInputStream(presetsFile)) {
+			final byte[] buffer = new byte[65536];
+			int bufferLength;
+			while ((bufferLength = input.read(buffer)) >= 0) {
+				for (int i = 0; i < bufferLength; i++, offset++) {
+					final byte nextByte = buffer[i];
+					final boolean isWhitespace = nextByte == ' ' || nextByte == '\t' || nextByte == '\n' || nextByte == '\r';
+					if (state == inName) {
+						nameData.write(nextByte);
+						if (escaped) {
+							escaped = false;
+						} else if (nextByte == '\\') {
+							escaped = true;
+						} else if (nextByte == '"') {
+							state = expectColon;
+						}
+					} else if (state == inValue || (state == expectValue && !isWhitespace)) {
+						if (state == expectValue) {
+							state = inValue;
+							valueStart = offset;
+							depth = 0;
+						}
+						if (inString) {
+							if (escaped) {
+								escaped = false;
+							} else if (nextByte == '\\') {
+								escaped = true;
+							} else if (nextByte == '"') {
+								inString = false;
+							}
+							valueEnd = offset + 1;
+						} else if (!isWhitespace) {
+							if (depth == 0 && (nextByte == ',' || nextByte == '}')) {
+								index.put(decodeJsonString(new String(nameData.toByteArray(), StandardCharsets.UTF_8)), new PresetEntry(presetsFile, valueStart, (int) (valueEnd - valueStart), null));
+								state = nextByte == ',' ? expectName : end;
+							} else {
+								if (nextByte == '"') {
+									inString = true;
+								} else if (nextByte == '{' || nextByte == '[') {
+									depth++;
+								} else if (nextByte == '}' || nextByte == ']') {
+									depth--;
+								}
+								valueEnd = offset + 1;
+							}
+						}
+					} else if (!isWhitespace) {
+						if (state == expectObject && nextByte == '{') {
+							state = expectName;
+						} else if (state == expectObject && offset < 3 && (nextByte == (byte) 0xEF || nextByte == (byte) 0xBB || nextByte == (byte) 0xBF)) {
+							// UTF-8 byte order mark
+						} else if (state == expectName && nextByte == '"') {
+							nameData.reset();
+							nameData.write(nextByte);
+							state = inName;
+						} else if (state == expectName && nextByte == '}' && index.isEmpty()) {
+							state = end;
+						} else if (state == expectColon && nextByte == ':') {
+							state = expectValue;
+						} else {
+							throw new Exception("Invalid request presets file '" + presetsFile.getAbsolutePath() + "' at byte " + offset);
+						}
+					}
+				}
+			}
+		}
+		if (state != end) {
+			throw new Exception("Invalid request presets file '" + presetsFile.getAbsolutePath() + "': Unexpected end of file");
+		}
+		return index;
+	}
+
+	/**
+	 * Applies the complete records of the change log. Reading stops at the first incomplete or
+	 * invalid record, which is cut off before the next record is appended.
+	 */
+	private void replayLog() {
+		final long logLength = logFile.length();
+		long position = 0;
+		try (InputStream input = new BufferedInputStream(new FileInputStream(logFile))) {
+			final ByteArrayOutputStream lineData = new ByteArrayOutputStream();
+			long recordEnd;
+			while ((recordEnd = readLine(input, lineData, position)) >= 0) {
+				final String header = new String(lineData.toByteArray(), StandardCharsets.UTF_8);
+				final int recordTypeEnd = header.indexOf(' ');
+				final String recordType = recordTypeEnd < 0 ? header : header.substring(0, recordTypeEnd);
+				if (RECORD_PUT.equals(recordType)) {
+					final int lengthEnd = header.indexOf(' ', recordTypeEnd + 1);
+					final int presetDataLength = Integer.parseInt(header.substring(recordTypeEnd + 1, lengthEnd));
+					final String presetName = decodeJsonString(header.substring(lengthEnd + 1));
+					// The preset data is only skipped, it is parsed when the preset is read
+					input.skipNBytes(presetDataLength);
+					if (input.read() != '\n') {
+						break;
+					}
+					presets.put(presetName, new PresetEntry(logFile, recordEnd, presetDataLength, null));
+					recordEnd += presetDataLength + 1;
+				} else if (RECORD_DELETE.equals(recordType)) {
+					presets.remove(decodeJsonString(header.substring(recordTypeEnd + 1)));
+				} else if (RECORD_ORDER.equals(recordType)) {
+					final int presetCount = Integer.parseInt(header.substring(recordTypeEnd + 1));
+					final List<String> presetNames = new ArrayList<>();
+					for (int i = 0; i < presetCount; i++) {
+						recordEnd = readLine(input, lineData, recordEnd);
+						if (recordEnd < 0) {
+							throw new Exception("Incomplete change log record");
+						}
+						presetNames.add(decodeJsonString(new String(lineData.toByteArray(), StandardCharsets.UTF_8)));
+					}
+					presets = applyOrder(presets, presetNames);
+				} else {
+					break;
+				}
+				position = recordEnd;
+				logRecordCount++;
+			}
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			// Torn or invalid record, the records before it are valid
+		}
+		validLogLength = position;
+		tornLogLength = position < logLength ? logLength : -1;
+	}
+
+	/**
+	 * @return position after the line break, -1 if there is no complete line
+	 */
+	private static long readLine(final InputStream input, final ByteArrayOutputStream lineData, final long position) throws Exception {
+		lineData.reset();
+		long nextPosition = position;
+		int nextByte;
+		while ((nextByte = input.read()) >= 0) {
+			nextPosition++;
+			if (nextByte == '\n') {
+				return nextPosition;
+			}
+			lineData.write(nextByte);
+		}
+		return -1;
+	}
+
+	/**
+	 * Must only be called while holding the file lock and after {@link #reloadIfChanged()}
+	 *
+	 * @return offset of the record in the change log
+	 */
+	private long appendLogRecord(final byte[] record) throws Exception {
+		try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			if (channel.size() == tornLogLength) {
+				// Cut off the torn record of an earlier crash found by replaying the change log
+				channel.truncate(validLogLength);
+				tornLogLength = -1;
+			} else if (channel.size() != validLogLength) {
+				throw new Exception("Change log '" + logFile.getAbsolutePath() + "' was changed unexpectedly");
+			}
+			final ByteBuffer buffer = ByteBuffer.wrap(record);
+			long position = validLogLength;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			channel.force(false);
+		}
+		final long recordOffset = validLogLength;
+		validLogLength += record.length;
+		logRecordCount++;
+		knownFilesState = getFilesState();
+		return recordOffset;
+	}
+
+	private static Map<String, PresetEntry> applyOrder(final Map<String, PresetEntry> currentPresets, final List<String> presetNames) {
+		final Map<String, PresetEntry> reorderedPresets = new LinkedHashMap<>();
+		for (final String presetName : presetNames) {
+			if (currentPresets.containsKey(presetName)) {
+				reorderedPresets.put(presetName, currentPresets.get(presetName));
+			}
+		}
+		for (final Entry<String, PresetEntry> preset : currentPresets.entrySet()) {
+			if (!reorderedPresets.containsKey(preset.getKey())) {
+				reorderedPresets.put(preset.getKey(), preset.getValue());
+			}
+		}
+		return reorderedPresets;
+	}
+
+	private void watch(final WatchService currentWatchService, final Runnable externalChangeListener) {
+		try {
+			while (true) {
+				WatchKey watchKey = currentWatchService.take();
+				boolean presetFilesChanged = false;
+				while (watchKey != null) {
+					for (final WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+						// Lost events (overflow) have no file name
+						final Object changedFileName = watchEvent.context();
+						if (!(changedFileName instanceof Path)
+								|| presetsFile.getName().equals(changedFileName.toString())
+								|| logFile.getName().equals(changedFileName.toString())) {
+							presetFilesChanged = true;
+						}
+					}
+					watchKey.reset();
+					watchKey = currentWatchService.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if (presetFilesChanged && reloadOnExternalChange()) {
+					externalChangeListener.run();
+				}
+			}
+		} catch (@SuppressWarnings("unused") final InterruptedException | ClosedWatchServiceException e) {
+			// Watching was stopped
+		}
+	}
+
+	/**
+	 * @return true if the presets were reloaded
+	 */
+	private synchronized boolean reloadOnExternalChange() {
+		if (watchService == null || getFilesState().equals(knownFilesState)) {
+			return false;
+		}
+		try {
+			load();
+			return true;
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			// Keep the current presets until the presets file is valid again
+			knownFilesState = getFilesState();
+			return false;
+		}
+	}
+
+	private String getFilesState() {
+		return presetsFile.length() + ":" + presetsFile.lastModified() + "|" + logFile.length() + ":" + logFile.lastModified();
+	}
+
+	private static byte[] toJsonData(final JsonObject jsonObject) throws Exception {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (JsonWriter writer = new JsonWriter(output, StandardCharsets.UTF_8)) {
+			writer.add(jsonObject);
+		}
+		return output.toByteArray();
+	}
+
+	private static void writeFully(final FileChannel channel, final byte[] data) throws Exception {
+		final ByteBuffer buffer = ByteBuffer.wrap(data);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * JSON string literal without line breaks, so it fits into one line of a change log record
+	 */
+	private static String encodeJsonString(final String value) {
+		final StringBuilder result = new StringBuilder("\"");
+		for (final char character : value.toCharArray()) {
+			switch (character) {
+				case '"':
+					result.append("\\\"");
+					break;
+				case '\\':
+					result.append("\\\\");
+					break;
+				case '\n':
+					result.append("\\n");
+					break;
+				case '\r':
+					result.append("\\r");
+					break;
+				case '\t':
+					result.append("\\t");
+					break;
+				default:
+					if (character < 0x20) {
+						result.append(String.format("\\u%04x", (int) character));
+					} else {
+						result.append(character);
+					}
+			}
+		}
+		return result.append("\"").toString();
+	}
+
+	private static String decodeJsonString(final String jsonString) throws Exception {
+		if (jsonString.length() < 2 || jsonString.charAt(0) != '"' || jsonString.charAt(jsonString.length() - 1) != '"') {
+			throw new Exception("Invalid JSON string: " + jsonString);
+		}
+		final StringBuilder result = new StringBuilder();
+		for (int i = 1; i < jsonString.length() - 1; i++) {
+			final char character = jsonString.charAt(i);
+			if (character != '\\') {
+				result.append(character);
+			} else {
+				final char escapedCharacter = jsonString.charAt(++i);
+				switch (escapedCharacter) {
+					case 'n':
+						result.append('\n');
+						break;
+					case 'r':
+						result.append('\r');
+						break;
+					case 't':
+						result.append('\t');
+						break;
+					case 'b':
+						result.append('\b');
+						break;
+					case 'f':
+						result.append('\f');
+						break;
+					case 'u':
+						result.append((char) Integer.parseInt(jsonString.substring(i + 1, i + 5), 16));
+						i += 4;
+						break;
+					default:
+						// Quote, backslash and slash
+						result.append(escapedCharacter);
+				}
+			}
+		}
+		return result.toString();
+	}
+}
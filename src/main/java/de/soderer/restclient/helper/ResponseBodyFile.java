@@ -0,0 +1,402 @@
+package de.soderer.restclient.helper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import de.soderer.restclient.helper.JsonStreamFormatter.JsonSyntaxException;
+
+/**
+ * Response body stored in a temporary UTF-8 file, which is read page by page, so large responses are
+ * never held in memory or in a text widget as a whole.
+ *
+ * <p>
+ * The file is written and indexed by a background thread (JSON data is indented on the fly by
+ * {@link JsonStreamFormatter}). Pages can be read as soon as they are written completely, so the first
+ * page is shown while the rest of a large response is still being prepared.
+ *
+ * <p>
+ * If the JSON data turns out to be invalid, the file is written again unformatted, which starts a new
+ * revision of the pages, and the position of the syntax error is kept.
+ */
+public class ResponseBodyFile implements Closeable {
+	/** Pages end at the first line break after this size */
+	public static final int PAGE_BYTES = 256 * 1024;
+	/** Lines without line break longer than this are split to the next page */
+	private static final int MAXIMUM_PAGE_BYTES = 2 * PAGE_BYTES;
+
+	public interface ResponseBodyFileListener {
+		/**
+		 * Called on the background thread when the first page is available and when the file is complete
+		 */
+		void pagesAvailable(ResponseBodyFile responseBodyFile);
+	}
+
+	private final File file;
+	private final ResponseBodyFileListener listener;
+
+	private final Object indexLock = new Object();
+	/** Start offset of each page in bytes */
+	private long[] pageOffsets = new long[16];
+	/** Line number (starting at 1) of the first line of each page */
+	private long[] pageFirstLines = new long[16];
+	private int startedPageCount = 0;
+	private long fileLength = 0;
+	private long lineCount = 0;
+	private boolean complete = false;
+	private Exception error = null;
+	/** Incremented when the pages are written again unformatted */
+	private int revision = 0;
+	private JsonSyntaxException jsonSyntaxException = null;
+	private int jsonSyntaxErrorPageIndex = -1;
+	/** Character offset of the syntax error within its page, -1 for the end of the page */
+	private int jsonSyntaxErrorOffsetInPage = -1;
+	private volatile boolean closed = false;
+
+	/**
+	 * Starts copying the source file into a new temporary file
+	 *
+	 * @param formatJson indent the data as JSON
+	 * @param deleteSourceFile delete the source file after it was copied, e.g. if it is a temporary download file
+	 */
+	public static ResponseBodyFile create(final File sourceFile, final Charset sourceCharset, final boolean formatJson, final boolean deleteSourceFile, final ResponseBodyFileListener listener) throws IOException {
+		final ResponseBodyFile responseBodyFile = new ResponseBodyFile(createTempFile(), listener);
+		final Thread thread = new Thread(() -> {
+			try {
+				responseBodyFile.write(sourceFile, sourceCharset, formatJson);
+			} catch (final Exception e) {
+				responseBodyFile.finish(e);
+			} finally {
+				if (deleteSourceFile) {
+					sourceFile.delete();
+				}
+			}
+		}, "ResponseBodyFile");
+		thread.setDaemon(true);
+		thread.start();
+		return responseBodyFile;
+	}
+
+	public static File createTempFile() throws IOException {
+		final File tempFile = File.createTempFile("RestClient_response_", ".tmp");
+		tempFile.deleteOnExit();
+		return tempFile;
+	}
+
+	private ResponseBodyFile(final File file, final ResponseBodyFileListener listener) {
+		this.file = file;
+		this.listener = listener;
+	}
+
+	private void write(final File sourceFile, final Charset sourceCharset, final boolean formatJson) throws IOException {
+		if (formatJson) {
+			try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(sourceFile), sourceCharset));
+					IndexingWriter indexingWriter = new IndexingWriter(createFileWriter(), -1)) {
+				JsonStreamFormatter.format(reader, indexingWriter);
+				indexingWriter.flush();
+				finish(null);
+				return;
+			} catch (final JsonSyntaxException e) {
+				synchronized (indexLock) {
+					jsonSyntaxException = e;
+					startedPageCount = 0;
+					fileLength = 0;
+					lineCount = 0;
+					revision++;
+				}
+			}
+		}
+
+		try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(sourceFile), sourceCharset));
+				IndexingWriter indexingWriter = new IndexingWriter(createFileWriter(), jsonSyntaxException == null ? -1 : jsonSyntaxException.getOffset())) {
+			reader.transferTo(indexingWriter);
+			indexingWriter.flush();
+			finish(null);
+		}
+	}
+
+	private Writer createFileWriter() throws IOException {
+		return new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8);
+	}
+
+	private void addPage(final long offset, final long firstLine) {
+		boolean firstPageAvailable;
+		synchronized (indexLock) {
+			if (startedPageCount == pageOffsets.length) {
+				pageOffsets = Arrays.copyOf(pageOffsets, startedPageCount * 2);
+				pageFirstLines = Arrays.copyOf(pageFirstLines, startedPageCount * 2);
+			}
+			pageOffsets[startedPageCount] = offset;
+			pageFirstLines[startedPageCount] = firstLine;
+			startedPageCount++;
+			fileLength = offset;
+			firstPageAvailable = startedPageCount == 2;
+		}
+		if (firstPageAvailable && listener != null && !closed) {
+			listener.pagesAvailable(this);
+		}
+	}
+
+	private void finish(final Exception finishError) {
+		synchronized (indexLock) {
+			if (finishError == null) {
+				fileLength = file.length();
+			}
+			if (jsonSyntaxException != null && jsonSyntaxErrorPageIndex < 0) {
+				// The error is at the end of the data
+				jsonSyntaxErrorPageIndex = Math.max(0, getPageCount() - 1);
+				jsonSyntaxErrorOffsetInPage = -1;
+			}
+			error = finishError;
+			complete = true;
+		}
+		if (listener != null && !closed) {
+			listener.pagesAvailable(this);
+		}
+	}
+
+	/**
+	 * @return incremented when the pages were written again, so pages read before are outdated
+	 */
+	public int getRevision() {
+		synchronized (indexLock) {
+			return revision;
+		}
+	}
+
+	/**
+	 * @return null if the data is valid JSON or was not to be formatted as JSON, otherwise the pages contain the unformatted data
+	 */
+	public JsonSyntaxException getJsonSyntaxException() {
+		synchronized (indexLock) {
+			return jsonSyntaxException;
+		}
+	}
+
+	/**
+	 * @return -1 if there is no syntax error or its page is not written yet
+	 */
+	public int getJsonSyntaxErrorPageIndex() {
+		synchronized (indexLock) {
+			return jsonSyntaxErrorPageIndex;
+		}
+	}
+
+	/**
+	 * @return character offset of the syntax error within its page, -1 for the end of the page
+	 */
+	public int getJsonSyntaxErrorOffsetInPage() {
+		synchronized (indexLock) {
+			return jsonSyntaxErrorOffsetInPage;
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public boolean isComplete() {
+		synchronized (indexLock) {
+			return complete;
+		}
+	}
+
+	/**
+	 * @return null if the file was written without error
+	 */
+	public Exception getError() {
+		synchronized (indexLock) {
+			return error;
+		}
+	}
+
+	/**
+	 * @return number of pages, which can be read already
+	 */
+	public int getPageCount() {
+		synchronized (indexLock) {
+			if (startedPageCount == 0) {
+				// Writing failed before the first page
+				return 0;
+			} else if (complete) {
+				return fileLength > pageOffsets[startedPageCount - 1] || startedPageCount == 1 ? startedPageCount : startedPageCount - 1;
+			} else {
+				return Math.max(0, startedPageCount - 1);
+			}
+		}
+	}
+
+	/**
+	 * @return number of lines written so far
+	 */
+	public long getLineCount() {
+		synchronized (indexLock) {
+			return lineCount;
+		}
+	}
+
+	/**
+	 * @return line number (starting at 1) of the first line of a page
+	 */
+	public long getFirstLineOfPage(final int pageIndex) {
+		synchronized (indexLock) {
+			return pageFirstLines[pageIndex];
+		}
+	}
+
+	/**
+	 * @return line number (starting at 1) of the last line of a page
+	 */
+	public long getLastLineOfPage(final int pageIndex) {
+		synchronized (indexLock) {
+			if (pageIndex + 1 < startedPageCount) {
+				return Math.max(pageFirstLines[pageIndex], pageFirstLines[pageIndex + 1] - 1);
+			} else {
+				return lineCount;
+			}
+		}
+	}
+
+	public String readPage(final int pageIndex) throws IOException {
+		final long pageStart;
+		final long pageEnd;
+		synchronized (indexLock) {
+			if (pageIndex < 0 || pageIndex >= getPageCount()) {
+				throw new IOException("Invalid page index: " + pageIndex);
+			}
+			pageStart = pageOffsets[pageIndex];
+			pageEnd = pageIndex + 1 < startedPageCount ? pageOffsets[pageIndex + 1] : fileLength;
+		}
+
+		final byte[] pageData = new byte[(int) (pageEnd - pageStart)];
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			randomAccessFile.seek(pageStart);
+			randomAccessFile.readFully(pageData);
+		}
+		return new String(pageData, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the whole data, only meant for an explicit export by the user
+	 */
+	public String readText() throws IOException {
+		return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		file.delete();
+	}
+
+	/**
+	 * Counts the UTF-8 bytes and lines of the written characters and starts a new page at the first line
+	 * break after {@link #PAGE_BYTES}. The data is flushed before a page is added, so it can be read by
+	 * other threads right away.
+	 */
+	private class IndexingWriter extends Writer {
+		private final Writer delegate;
+		/** Character offset of the JSON syntax error in the written data, -1 for none */
+		private final long jsonSyntaxErrorOffset;
+		private long charsWritten = 0;
+		private long pageStartChars = 0;
+		private long bytesWritten = 0;
+		private long pageStart = 0;
+		private long linesWritten = 0;
+		private boolean lineStarted = false;
+		private boolean highSurrogatePending = false;
+
+		public IndexingWriter(final Writer delegate, final long jsonSyntaxErrorOffset) {
+			this.delegate = delegate;
+			this.jsonSyntaxErrorOffset = jsonSyntaxErrorOffset;
+			addPage(0, 1);
+		}
+
+		@Override
+		public void write(final char[] buffer, final int offset, final int length) throws IOException {
+			if (closed) {
+				throw new IOException("ResponseBodyFile was closed");
+			}
+
+			int chunkStart = offset;
+			for (int i = offset; i < offset + length; i++) {
+				final char nextChar = buffer[i];
+				if (bytesWritten - pageStart >= MAXIMUM_PAGE_BYTES && !highSurrogatePending) {
+					// Split very long lines, the next page continues the same line
+					delegate.write(buffer, chunkStart, i - chunkStart);
+					chunkStart = i;
+					startPage(linesWritten + 1);
+				}
+
+				if (charsWritten == jsonSyntaxErrorOffset) {
+					synchronized (indexLock) {
+						jsonSyntaxErrorPageIndex = startedPageCount - 1;
+						jsonSyntaxErrorOffsetInPage = (int) (charsWritten - pageStartChars);
+					}
+				}
+				charsWritten++;
+
+				if (nextChar < 0x80) {
+					bytesWritten++;
+				} else if (nextChar < 0x800) {
+					bytesWritten += 2;
+				} else if (Character.isSurrogate(nextChar)) {
+					// A surrogate pair is 4 bytes in UTF-8
+					bytesWritten += 2;
+				} else {
+					bytesWritten += 3;
+				}
+				highSurrogatePending = Character.isHighSurrogate(nextChar);
+
+				if (nextChar == '\n') {
+					linesWritten++;
+					lineStarted = false;
+					if (bytesWritten - pageStart >= PAGE_BYTES) {
+						delegate.write(buffer, chunkStart, i + 1 - chunkStart);
+						chunkStart = i + 1;
+						startPage(linesWritten + 1);
+					}
+				} else {
+					lineStarted = true;
+				}
+			}
+			delegate.write(buffer, chunkStart, offset + length - chunkStart);
+			synchronized (indexLock) {
+				lineCount = linesWritten + (lineStarted ? 1 : 0);
+			}
+		}
+
+		private void startPage(final long firstLine) throws IOException {
+			delegate.flush();
+			pageStart = bytesWritten;
+			pageStartChars = charsWritten;
+			synchronized (indexLock) {
+				lineCount = linesWritten + (lineStarted ? 1 : 0);
+			}
+			addPage(bytesWritten, firstLine);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+}
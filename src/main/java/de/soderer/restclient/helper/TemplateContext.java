@@ -0,0 +1,80 @@
+package de.soderer.restclient.helper;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared by all {@link RandomParameterTemplate}s of one request: the variables for
+ * {@code ${var:NAME}} placeholders, the token provider of {@code ${idp:token}} placeholders and the
+ * counters of {@code ${seq:global}} placeholders, so all texts of the request count on the same
+ * counters.
+ *
+ * <p>
+ * Templates are compiled by a single thread, the counters themselves are used by all workers.
+ */
+public class TemplateContext {
+	private final Map<String, String> variables;
+	private final IdpTokenProvider idpTokenProvider;
+	private final Map<Long, AtomicLong> globalSequences = new HashMap<>();
+
+	/**
+	 * @param variables values of {@code ${var:NAME}} placeholders, may be null
+	 */
+	public TemplateContext(final Map<String, String> variables) {
+		this(variables, null);
+	}
+
+	/**
+	 * @param variables values of {@code ${var:NAME}} placeholders, may be null
+	 * @param idpTokenProvider provider of the {@code ${idp:token}} placeholders, may be null
+	 */
+	public TemplateContext(final Map<String, String> variables, final IdpTokenProvider idpTokenProvider) {
+		this.variables = variables == null ? Map.of() : variables;
+		this.idpTokenProvider = idpTokenProvider;
+	}
+
+	/**
+	 * Parses variable definitions, one "NAME=value" per line. Empty lines and lines starting with
+	 * "#" are ignored.
+	 */
+	public static Map<String, String> parseVariables(final String variablesText) throws Exception {
+		final Map<String, String> variables = new LinkedHashMap<>();
+		if (variablesText != null) {
+			final String[] lines = variablesText.split("\r?\n|\r");
+			for (int lineIndex = 0; lineIndex < lines.length; lineIndex++) {
+				final String line = lines[lineIndex].trim();
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					final int separatorIndex = line.indexOf('=');
+					if (separatorIndex <= 0) {
+						throw new Exception("Invalid variable definition in line " + (lineIndex + 1) + ", expected: NAME=value");
+					}
+					variables.put(line.substring(0, separatorIndex).trim(), line.substring(separatorIndex + 1).trim());
+				}
+			}
+		}
+		return variables;
+	}
+
+	/**
+	 * @return null if the variable is not defined
+	 */
+	public String getVariable(final String name) {
+		return variables.get(name);
+	}
+
+	/**
+	 * @return null if no identity provider is configured
+	 */
+	public IdpTokenProvider getIdpTokenProvider() {
+		return idpTokenProvider;
+	}
+
+	/**
+	 * @return counter of the {@code ${seq:global}} placeholders with the given start value
+	 */
+	AtomicLong getGlobalSequence(final long start) {
+		return globalSequences.computeIfAbsent(start, AtomicLong::new);
+	}
+}
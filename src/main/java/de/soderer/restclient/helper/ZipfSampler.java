@@ -0,0 +1,91 @@
+package de.soderer.restclient.helper;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf distributed integers from 1 (most frequent) to a maximum, e.g. for hot keys.
+ *
+ * <p>
+ * Uses the rejection-inversion method of Hoermann and Derflinger ("Rejection-inversion to generate
+ * variates from monotone discrete distributions", 1996), which needs constant time and memory
+ * independent of the maximum.
+ */
+class ZipfSampler {
+	private final int numberOfElements;
+	private final double exponent;
+	private final double hIntegralX1;
+	private final double hIntegralNumberOfElements;
+	private final double s;
+
+	/**
+	 * @param exponent larger values make the small numbers more frequent, must be greater than 0
+	 */
+	ZipfSampler(final int numberOfElements, final double exponent) throws Exception {
+		if (numberOfElements < 1) {
+			throw new Exception("Number of elements must be 1 or more, got: " + numberOfElements);
+		} else if (!(exponent > 0)) {
+			throw new Exception("Exponent must be greater than 0, got: " + exponent);
+		}
+		this.numberOfElements = numberOfElements;
+		this.exponent = exponent;
+		hIntegralX1 = hIntegral(1.5) - 1.0;
+		hIntegralNumberOfElements = hIntegral(numberOfElements + 0.5);
+		s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+	}
+
+	int sample(final RandomGenerator random) {
+		while (true) {
+			final double u = hIntegralNumberOfElements + random.nextDouble() * (hIntegralX1 - hIntegralNumberOfElements);
+			final double x = hIntegralInverse(u);
+			int k = (int) (x + 0.5);
+			if (k < 1) {
+				k = 1;
+			} else if (k > numberOfElements) {
+				k = numberOfElements;
+			}
+			if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+				return k;
+			}
+		}
+	}
+
+	private double hIntegral(final double x) {
+		final double logX = Math.log(x);
+		return helper2((1.0 - exponent) * logX) * logX;
+	}
+
+	private double h(final double x) {
+		return Math.exp(-exponent * Math.log(x));
+	}
+
+	private double hIntegralInverse(final double x) {
+		double t = x * (1.0 - exponent);
+		if (t < -1.0) {
+			// Limit to the domain of log1p, only reached by rounding errors
+			t = -1.0;
+		}
+		return Math.exp(helper1(t) * x);
+	}
+
+	/**
+	 * log(1 + x) / x, numerically stable for x near 0
+	 */
+	private static double helper1(final double x) {
+		if (Math.abs(x) > 1e-8) {
+			return Math.log1p(x) / x;
+		} else {
+			return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+		}
+	}
+
+	/**
+	 * (exp(x) - 1) / x, numerically stable for x near 0
+	 */
+	private static double helper2(final double x) {
+		if (Math.abs(x) > 1e-8) {
+			return Math.expm1(x) / x;
+		} else {
+			return 1.0 + x * 0.5 * (1.0 + x * 1.0 / 3.0 * (1.0 + 0.25 * x));
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package de.soderer.restclient.worker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import de.soderer.network.HttpMethod;
+import de.soderer.network.HttpRequest;
+import de.soderer.restclient.helper.RandomParameterResolver;
+import de.soderer.restclient.helper.RandomParameterTemplate;
+import de.soderer.restclient.helper.TemplateContext;
+
+/**
+ * HttpRequest template with all its texts compiled into {@link RandomParameterTemplate}s, so
+ * multiple executions (e.g. worker pool load test) parse the random parameter placeholders only
+ * once. Texts without placeholders are taken over into the executed requests without copying.
+ */
+public class CompiledHttpRequest {
+	private final HttpMethod requestMethod;
+	private final RandomParameterTemplate url;
+	private final List<RandomParameterTemplate[]> headers = new ArrayList<>();
+	private final List<Object[]> urlParameters = new ArrayList<>();
+	private final List<Object[]> postParameters = new ArrayList<>();
+	private final RandomParameterTemplate requestBody;
+	private final List<RandomParameterTemplate[]> cookieData = new ArrayList<>();
+	private final List<Object[]> uploadFileAttachments = new ArrayList<>();
+	private final int maxRedirects;
+	private final int connectTimeoutMillis;
+	private final int readTimeoutMillis;
+	private final String encoding;
+	private final File downloadTarget;
+
+	public CompiledHttpRequest(final HttpRequest httpRequestTemplate) throws Exception {
+		this(httpRequestTemplate, new TemplateContext(null));
+	}
+
+	/**
+	 * @param templateContext preset variables and IdP token provider for the placeholders, all texts
+	 *            of the request share the counters of their sequence placeholders
+	 */
+	public CompiledHttpRequest(final HttpRequest httpRequestTemplate, final TemplateContext templateContext) throws Exception {
+		/*
+		 * The following three fields cannot be taken over into the executed requests, since they
+		 * cannot be safely shared/reused, when this request runs several times in parallel (worker
+		 * pool load test):
+		 * - requestBodyContentStream: an InputStream can only be consumed once, so
+		 *   reusing the very same stream instance across (potentially parallel) worker
+		 *   runs would either fail outright or silently send a truncated/empty body
+		 *   for all but the first run (same reasoning as the redirect-body handling in
+		 *   HttpUtilities.executeHttpRequest, which refuses to re-send such a body).
+		 * - downloadStream/downloadFile: an OutputStream/File is not safely writable by
+		 *   several worker runs at once (data corruption from concurrent writes) -
+		 *   unlike "downloadTarget", they have no built-in collision handling,
+		 *   since they are meant for a single explicit, programmatic call.
+		 * Silently dropping them would leave the request looking fine while quietly
+		 * sending no body / not downloading, so they fail fast here instead.
+		 */
+		if (httpRequestTemplate.getRequestBodyContentStream() != null) {
+			throw new Exception("RequestBodyContentStream cannot be used with " + ExecuteHttpRequestWorker.class.getSimpleName()
+					+ ", because it may run this request more than once (e.g. for a worker pool load test) and an InputStream can only be consumed once");
+		}
+		if (httpRequestTemplate.getDownloadStream() != null) {
+			throw new Exception("DownloadStream cannot be used with " + ExecuteHttpRequestWorker.class.getSimpleName()
+					+ ", because it may run this request more than once (e.g. for a worker pool load test) and a single OutputStream cannot be safely written to by several runs");
+		}
+		if (httpRequestTemplate.getDownloadFile() != null) {
+			throw new Exception("DownloadFile cannot be used with " + ExecuteHttpRequestWorker.class.getSimpleName()
+					+ ", because it may run this request more than once (e.g. for a worker pool load test) and a single target file cannot be safely written to by several runs - use DownloadTarget instead, which handles this via ascending name collision numbering");
+		}
+
+		requestMethod = httpRequestTemplate.getRequestMethod();
+		url = RandomParameterTemplate.compile(httpRequestTemplate.getUrl(), templateContext);
+
+		for (final Entry<String, String> entry : httpRequestTemplate.getHeaders().entrySet()) {
+			headers.add(new RandomParameterTemplate[] { RandomParameterTemplate.compile(entry.getKey(), templateContext), RandomParameterTemplate.compile(entry.getValue(), templateContext) });
+		}
+
+		compileParameters(httpRequestTemplate.getUrlParameters().entrySet(), urlParameters, templateContext);
+		compileParameters(httpRequestTemplate.getPostParameters().entrySet(), postParameters, templateContext);
+
+		requestBody = httpRequestTemplate.getRequestBody() == null ? null : RandomParameterTemplate.compile(httpRequestTemplate.getRequestBody(), templateContext);
+
+		for (final Entry<String, String> entry : httpRequestTemplate.getCookieData().entrySet()) {
+			cookieData.add(new RandomParameterTemplate[] { RandomParameterTemplate.compile(entry.getKey(), templateContext), RandomParameterTemplate.compile(entry.getValue(), templateContext) });
+		}
+
+		for (final HttpRequest.UploadFileAttachment uploadFileAttachment : httpRequestTemplate.getUploadFileAttachments()) {
+			uploadFileAttachments.add(new Object[] {
+					RandomParameterTemplate.compile(uploadFileAttachment.getHtmlInputName(), templateContext),
+					RandomParameterTemplate.compile(uploadFileAttachment.getFileName(), templateContext),
+					uploadFileAttachment.getData() });
+		}
+
+		maxRedirects = httpRequestTemplate.getMaxRedirects();
+		connectTimeoutMillis = httpRequestTemplate.getConnectTimeoutMillis();
+		readTimeoutMillis = httpRequestTemplate.getReadTimeoutMillis();
+		encoding = httpRequestTemplate.getEncoding();
+		// Also relevant for the single "send request" execution, not just the worker
+		// pool load test - both go through ExecuteHttpRequestWorker (see RestClientDialog).
+		downloadTarget = httpRequestTemplate.getDownloadTarget();
+	}
+
+	/**
+	 * Adds a header to the executed requests only, the request template stays unchanged
+	 */
+	public void addHeader(final String headerName, final String headerValue, final TemplateContext templateContext) throws Exception {
+		headers.add(new RandomParameterTemplate[] { RandomParameterTemplate.compile(headerName, templateContext), RandomParameterTemplate.compile(headerValue, templateContext) });
+	}
+
+	private static void compileParameters(final Iterable<Entry<String, List<Object>>> parameters, final List<Object[]> compiledParameters, final TemplateContext templateContext) throws Exception {
+		for (final Entry<String, List<Object>> entry : parameters) {
+			final RandomParameterTemplate key = RandomParameterTemplate.compile(entry.getKey(), templateContext);
+			for (final Object value : entry.getValue()) {
+				if (value != null && value instanceof String) {
+					compiledParameters.add(new Object[] { key, RandomParameterTemplate.compile((String) value, templateContext) });
+				} else {
+					compiledParameters.add(new Object[] { key, value });
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return names of the columns used by {@code ${csv:COLUMN}} placeholders
+	 */
+	public Set<String> getCsvColumns() {
+		final Set<String> csvColumns = new LinkedHashSet<>();
+		for (final RandomParameterTemplate template : getTemplates()) {
+			template.collectCsvColumns(csvColumns);
+		}
+		return csvColumns;
+	}
+
+	/**
+	 * @return placeholders, whose values cannot be reproduced from a seed, see
+	 *         {@link RandomParameterTemplate#collectUnreproduciblePlaceholders(Set)}
+	 */
+	public Set<String> getUnreproduciblePlaceholders() {
+		final Set<String> placeholders = new LinkedHashSet<>();
+		for (final RandomParameterTemplate template : getTemplates()) {
+			template.collectUnreproduciblePlaceholders(placeholders);
+		}
+		return placeholders;
+	}
+
+	private List<RandomParameterTemplate> getTemplates() {
+		final List<RandomParameterTemplate> templates = new ArrayList<>();
+		templates.add(url);
+		for (final RandomParameterTemplate[] header : headers) {
+			templates.add(header[0]);
+			templates.add(header[1]);
+		}
+		for (final List<Object[]> parameters : List.of(urlParameters, postParameters)) {
+			for (final Object[] parameter : parameters) {
+				templates.add((RandomParameterTemplate) parameter[0]);
+				if (parameter[1] instanceof RandomParameterTemplate) {
+					templates.add((RandomParameterTemplate) parameter[1]);
+				}
+			}
+		}
+		if (requestBody != null) {
+			templates.add(requestBody);
+		}
+		for (final RandomParameterTemplate[] cookie : cookieData) {
+			templates.add(cookie[0]);
+			templates.add(cookie[1]);
+		}
+		for (final Object[] uploadFileAttachment : uploadFileAttachments) {
+			templates.add((RandomParameterTemplate) uploadFileAttachment[0]);
+			templates.add((RandomParameterTemplate) uploadFileAttachment[1]);
+		}
+		return templates;
+	}
+
+	/**
+	 * Creates a new HttpRequest with freshly generated random parameter values of the given resolver
+	 */
+	public HttpRequest createHttpRequest(final RandomParameterResolver randomParameterResolver) throws Exception {
+		final HttpRequest httpRequest = new HttpRequest(requestMethod, url.resolve(randomParameterResolver));
+
+		for (final RandomParameterTemplate[] header : headers) {
+			httpRequest.addHeader(header[0].resolve(randomParameterResolver), header[1].resolve(randomParameterResolver));
+		}
+
+		for (final Object[] urlParameter : urlParameters) {
+			httpRequest.addUrlParameter(((RandomParameterTemplate) urlParameter[0]).resolve(randomParameterResolver), resolveParameterValue(urlParameter[1], randomParameterResolver));
+		}
+
+		for (final Object[] postParameter : postParameters) {
+			httpRequest.addPostParameter(((RandomParameterTemplate) postParameter[0]).resolve(randomParameterResolver), resolveParameterValue(postParameter[1], randomParameterResolver));
+		}
+
+		if (requestBody != null) {
+			httpRequest.setRequestBody(requestBody.resolve(randomParameterResolver));
+		}
+
+		for (final RandomParameterTemplate[] cookie : cookieData) {
+			httpRequest.addCookieData(cookie[0].resolve(randomParameterResolver), cookie[1].resolve(randomParameterResolver));
+		}
+
+		for (final Object[] uploadFileAttachment : uploadFileAttachments) {
+			httpRequest.addUploadFileData(
+					((RandomParameterTemplate) uploadFileAttachment[0]).resolve(randomParameterResolver),
+					((RandomParameterTemplate) uploadFileAttachment[1]).resolve(randomParameterResolver),
+					(byte[]) uploadFileAttachment[2]);
+		}
+
+		httpRequest.setMaxRedirects(maxRedirects);
+		httpRequest.setConnectionTimeoutMillis(connectTimeoutMillis);
+		httpRequest.setReadTimeoutMillis(readTimeoutMillis);
+		httpRequest.setEncoding(encoding);
+
+		if (downloadTarget != null) {
+			httpRequest.setDownloadTarget(downloadTarget);
+		}
+
+		return httpRequest;
+	}
+
+	private static Object resolveParameterValue(final Object value, final RandomParameterResolver randomParameterResolver) throws Exception {
+		if (value instanceof RandomParameterTemplate) {
+			return ((RandomParameterTemplate) value).resolve(randomParameterResolver);
+		} else {
+			return value;
+		}
+	}
+}
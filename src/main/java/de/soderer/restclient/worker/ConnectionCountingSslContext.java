@@ -0,0 +1,180 @@
+package de.soderer.restclient.worker;
+
+import java.net.Socket;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * SSLContext counting the TLS connections opened with it. The HTTP client creates one SSLEngine
+ * per new connection, so connections reused via keep-alive are not counted.
+ *
+ * <p>
+ * All connections of one context share its TLS session cache, so new connections resume an
+ * existing TLS session with an abbreviated handshake.
+ */
+public class ConnectionCountingSslContext extends SSLContext {
+	private final LongAdder createdConnections;
+
+	public static ConnectionCountingSslContext create(final TrustManager trustManager, final boolean deactivateHostnameVerification) throws Exception {
+		X509TrustManager x509TrustManager;
+		if (trustManager == null) {
+			final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+			trustManagerFactory.init((KeyStore) null);
+			x509TrustManager = null;
+			for (final TrustManager defaultTrustManager : trustManagerFactory.getTrustManagers()) {
+				if (defaultTrustManager instanceof X509TrustManager) {
+					x509TrustManager = (X509TrustManager) defaultTrustManager;
+					break;
+				}
+			}
+			if (x509TrustManager == null) {
+				throw new Exception("No default X509TrustManager available");
+			}
+		} else if (trustManager instanceof X509TrustManager) {
+			x509TrustManager = (X509TrustManager) trustManager;
+		} else {
+			throw new Exception("Unsupported TrustManager type: " + trustManager.getClass().getName());
+		}
+
+		final SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(null, new TrustManager[] { deactivateHostnameVerification ? new NoHostnameVerificationTrustManager(x509TrustManager) : x509TrustManager }, null);
+		return new ConnectionCountingSslContext(sslContext, new LongAdder());
+	}
+
+	private ConnectionCountingSslContext(final SSLContext delegate, final LongAdder createdConnections) {
+		super(new CountingSslContextSpi(delegate, createdConnections), delegate.getProvider(), delegate.getProtocol());
+		this.createdConnections = createdConnections;
+	}
+
+	/**
+	 * @return number of TLS connections opened so far
+	 */
+	public long getCreatedConnectionCount() {
+		return createdConnections.sum();
+	}
+
+	private static class CountingSslContextSpi extends SSLContextSpi {
+		private final SSLContext delegate;
+		private final LongAdder createdConnections;
+
+		public CountingSslContextSpi(final SSLContext delegate, final LongAdder createdConnections) {
+			this.delegate = delegate;
+			this.createdConnections = createdConnections;
+		}
+
+		@Override
+		protected void engineInit(final KeyManager[] keyManagers, final TrustManager[] trustManagers, final SecureRandom secureRandom) throws KeyManagementException {
+			delegate.init(keyManagers, trustManagers, secureRandom);
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return delegate.getSocketFactory();
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return delegate.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			createdConnections.increment();
+			return delegate.createSSLEngine();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(final String host, final int port) {
+			createdConnections.increment();
+			return delegate.createSSLEngine(host, port);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return delegate.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return delegate.getClientSessionContext();
+		}
+
+		/**
+		 * The default implementation creates an SSLEngine, which must not be counted as connection
+		 */
+		@Override
+		protected SSLParameters engineGetDefaultSSLParameters() {
+			return delegate.getDefaultSSLParameters();
+		}
+
+		@Override
+		protected SSLParameters engineGetSupportedSSLParameters() {
+			return delegate.getSupportedSSLParameters();
+		}
+	}
+
+	/**
+	 * The HTTP client always requests hostname verification. For an X509ExtendedTrustManager this
+	 * check is part of the trust manager, so this wrapper skips it by delegating to the plain
+	 * certificate chain checks.
+	 */
+	private static class NoHostnameVerificationTrustManager extends X509ExtendedTrustManager {
+		private final X509TrustManager delegate;
+
+		public NoHostnameVerificationTrustManager(final X509TrustManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void checkClientTrusted(final X509Certificate[] chain, final String authType) throws CertificateException {
+			delegate.checkClientTrusted(chain, authType);
+		}
+
+		@Override
+		public void checkServerTrusted(final X509Certificate[] chain, final String authType) throws CertificateException {
+			delegate.checkServerTrusted(chain, authType);
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return delegate.getAcceptedIssuers();
+		}
+
+		@Override
+		public void checkClientTrusted(final X509Certificate[] chain, final String authType, final Socket socket) throws CertificateException {
+			delegate.checkClientTrusted(chain, authType);
+		}
+
+		@Override
+		public void checkServerTrusted(final X509Certificate[] chain, final String authType, final Socket socket) throws CertificateException {
+			delegate.checkServerTrusted(chain, authType);
+		}
+
+		@Override
+		public void checkClientTrusted(final X509Certificate[] chain, final String authType, final SSLEngine engine) throws CertificateException {
+			delegate.checkClientTrusted(chain, authType);
+		}
+
+		@Override
+		public void checkServerTrusted(final X509Certificate[] chain, final String authType, final SSLEngine engine) throws CertificateException {
+			delegate.checkServerTrusted(chain, authType);
+		}
+	}
+}
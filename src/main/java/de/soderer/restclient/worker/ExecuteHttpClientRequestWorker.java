@@ -0,0 +1,95 @@
+package de.soderer.restclient.worker;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import de.soderer.network.HttpRequest;
+import de.soderer.restclient.helper.RandomParameterResolver;
+import de.soderer.utilities.worker.WorkerParentSimple;
+import de.soderer.utilities.worker.WorkerSimple;
+
+/**
+ * Executes a request on the persistent connections of a {@link HttpClientConnector}
+ */
+public class ExecuteHttpClientRequestWorker extends WorkerSimple<HttpClientResponse> {
+	private final HttpRequest httpRequest;
+	private final HttpClientConnector httpClientConnector;
+	private final RandomParameterResolver randomParameterResolver;
+	private File responseBodyFile = null;
+	private HttpRequestWorkerPool.ResponseBodyHandling responseBodyHandling = HttpRequestWorkerPool.ResponseBodyHandling.Full;
+
+	/**
+	 * @param randomParameterResolver new resolver for the placeholders of this execution
+	 */
+	public ExecuteHttpClientRequestWorker(final WorkerParentSimple parent, final CompiledHttpRequest compiledHttpRequest, final RandomParameterResolver randomParameterResolver, final HttpClientConnector httpClientConnector) throws Exception {
+		super(parent);
+
+		this.httpClientConnector = httpClientConnector;
+		this.randomParameterResolver = randomParameterResolver;
+
+		httpRequest = compiledHttpRequest.createHttpRequest(randomParameterResolver);
+	}
+
+	/**
+	 * Stream the response body into this file instead of reading it into memory
+	 */
+	public void setResponseBodyFile(final File responseBodyFile) {
+		this.responseBodyFile = responseBodyFile;
+	}
+
+	/**
+	 * Read the response body without keeping it
+	 */
+	public void setResponseBodyHandling(final HttpRequestWorkerPool.ResponseBodyHandling responseBodyHandling) {
+		this.responseBodyHandling = responseBodyHandling == null ? HttpRequestWorkerPool.ResponseBodyHandling.Full : responseBodyHandling;
+	}
+
+	public Map<String, List<String>> getRandomParameterReplacements() {
+		return randomParameterResolver.getResolvedValues();
+	}
+
+	@Override
+	public HttpClientResponse work() throws Exception {
+		if (parent != null) {
+			parent.changeTitle("HTTP Request");
+		}
+
+		HttpClientResponse httpClientResponse = null;
+
+		try {
+			itemsToDo = 1;
+			itemsDone = 0;
+
+			if (responseBodyFile != null) {
+				httpClientResponse = httpClientConnector.executeToFile(httpRequest, responseBodyFile);
+			} else if (responseBodyHandling != HttpRequestWorkerPool.ResponseBodyHandling.Full) {
+				httpClientResponse = httpClientConnector.executeWithoutContent(httpRequest, responseBodyHandling == HttpRequestWorkerPool.ResponseBodyHandling.HashOnly);
+			} else {
+				httpClientResponse = httpClientConnector.execute(httpRequest);
+			}
+			itemsDone++;
+
+			signalProgress(true);
+		} catch (final Exception e) {
+			if (cancel) {
+				return null;
+			} else {
+				throw new Exception("Error: " + e.getMessage(), e);
+			}
+		}
+
+		signalProgress(true);
+
+		if (cancel) {
+			return null;
+		} else {
+			return httpClientResponse;
+		}
+	}
+
+	@Override
+	public String getResultText() {
+		return null;
+	}
+}
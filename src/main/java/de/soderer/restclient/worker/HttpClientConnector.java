@@ -0,0 +1,326 @@
+package de.soderer.restclient.worker;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+import de.soderer.network.HttpRequest;
+import de.soderer.network.HttpUtilities;
+import de.soderer.utilities.Utilities;
+
+/**
+ * Executes HttpRequests on a java.net.http.HttpClient, which keeps its connections open (HTTP/1.1
+ * keep-alive) and reuses them for subsequent requests to the same host, instead of connecting and
+ * doing a TLS handshake for each request like {@link HttpUtilities#executeHttpRequest}.
+ *
+ * <p>
+ * With HTTP/2 concurrent requests of several threads are multiplexed as streams over a single
+ * connection per host. If the server does not support HTTP/2, the client falls back to HTTP/1.1.
+ */
+public class HttpClientConnector {
+	/** Headers set by the HttpClient itself, which it refuses to take from the request */
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+	private final HttpClient httpClient;
+	private final LongAdder requestCount = new LongAdder();
+
+	/**
+	 * @param sslContext may be shared by several connectors, so they share the TLS session cache too
+	 */
+	public HttpClientConnector(final Proxy proxy, final ConnectionCountingSslContext sslContext, final int connectTimeoutMillis, final int maxRedirects, final HttpClient.Version httpVersion) throws Exception {
+		this(proxy, sslContext, connectTimeoutMillis, maxRedirects, httpVersion, null);
+	}
+
+	/**
+	 * @param executor for the asynchronous tasks of the HttpClient, null for its default executor
+	 */
+	public HttpClientConnector(final Proxy proxy, final ConnectionCountingSslContext sslContext, final int connectTimeoutMillis, final int maxRedirects, final HttpClient.Version httpVersion, final Executor executor) throws Exception {
+		final HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+				.version(httpVersion)
+				.sslContext(sslContext)
+				.followRedirects(maxRedirects > 0 ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+
+		if (executor != null) {
+			httpClientBuilder.executor(executor);
+		}
+
+		if (connectTimeoutMillis > 0) {
+			httpClientBuilder.connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+		}
+
+		if (proxy == null) {
+			if (ProxySelector.getDefault() != null) {
+				httpClientBuilder.proxy(ProxySelector.getDefault());
+			}
+		} else if (proxy.type() == Proxy.Type.DIRECT) {
+			httpClientBuilder.proxy(HttpClient.Builder.NO_PROXY);
+		} else if (proxy.type() == Proxy.Type.HTTP) {
+			httpClientBuilder.proxy(ProxySelector.of((InetSocketAddress) proxy.address()));
+		} else {
+			throw new Exception("Proxy type " + proxy.type() + " is not supported for persistent connections and HTTP/2");
+		}
+
+		httpClient = httpClientBuilder.build();
+	}
+
+	/**
+	 * Persistent connections and HTTP/2 support the request data of the worker pool, but no file uploads or downloads
+	 */
+	public static void checkRequestIsSupported(final HttpRequest httpRequest) throws Exception {
+		if (httpRequest.getUploadFileAttachments() != null && !httpRequest.getUploadFileAttachments().isEmpty()) {
+			throw new Exception("Upload file attachments are not supported for persistent connections and HTTP/2");
+		} else if (httpRequest.getDownloadTarget() != null) {
+			throw new Exception("DownloadTarget is not supported for persistent connections and HTTP/2");
+		}
+	}
+
+	public HttpClientResponse execute(final HttpRequest httpRequest) throws Exception {
+		final java.net.http.HttpRequest request = createRequest(httpRequest);
+		requestCount.increment();
+		return createResponse(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()), getRequestCharset(httpRequest));
+	}
+
+	/**
+	 * Streams the response body into a file instead of reading it into memory, for very large responses
+	 */
+	public HttpClientResponse executeToFile(final HttpRequest httpRequest, final File contentFile) throws Exception {
+		final java.net.http.HttpRequest request = createRequest(httpRequest);
+		requestCount.increment();
+		final HttpResponse<Path> response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(contentFile.toPath()));
+		return new HttpClientResponse(
+				response.statusCode(),
+				getHeaders(response.headers()),
+				null,
+				contentFile,
+				getResponseCharset(response.headers(), getRequestCharset(httpRequest)),
+				response.uri().toString(),
+				getRedirectCount(response));
+	}
+
+	/**
+	 * Reads the response body without keeping it, only its length and optionally a checksum are kept
+	 *
+	 * @param computeChecksum compute a CRC32C checksum of the response body
+	 */
+	public HttpClientResponse executeWithoutContent(final HttpRequest httpRequest, final boolean computeChecksum) throws Exception {
+		final java.net.http.HttpRequest request = createRequest(httpRequest);
+		requestCount.increment();
+		return createResponseWithoutContent(httpClient.send(request, responseInfo -> new ContentSummarySubscriber(computeChecksum)));
+	}
+
+	/**
+	 * Sends the request without blocking the calling thread and without keeping the response body, see {@link #executeWithoutContent(HttpRequest, boolean)}
+	 */
+	public CompletableFuture<HttpClientResponse> executeWithoutContentAsync(final HttpRequest httpRequest, final boolean computeChecksum) throws Exception {
+		final java.net.http.HttpRequest request = createRequest(httpRequest);
+		requestCount.increment();
+		return httpClient.sendAsync(request, responseInfo -> new ContentSummarySubscriber(computeChecksum)).thenApply(HttpClientConnector::createResponseWithoutContent);
+	}
+
+	/**
+	 * Sends the request without blocking the calling thread
+	 */
+	public CompletableFuture<HttpClientResponse> executeAsync(final HttpRequest httpRequest) throws Exception {
+		final java.net.http.HttpRequest request = createRequest(httpRequest);
+		final Charset requestCharset = getRequestCharset(httpRequest);
+		requestCount.increment();
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> createResponse(response, requestCharset));
+	}
+
+	private static Charset getRequestCharset(final HttpRequest httpRequest) {
+		return Utilities.isNotBlank(httpRequest.getEncoding()) ? Charset.forName(httpRequest.getEncoding()) : StandardCharsets.UTF_8;
+	}
+
+	private static java.net.http.HttpRequest createRequest(final HttpRequest httpRequest) throws Exception {
+		checkRequestIsSupported(httpRequest);
+
+		final Charset requestCharset = getRequestCharset(httpRequest);
+
+		String url = httpRequest.getUrl();
+		if (httpRequest.getUrlParameters() != null && !httpRequest.getUrlParameters().isEmpty()) {
+			url += (url.contains("?") ? "&" : "?") + HttpUtilities.convertToParameterString(httpRequest.getUrlParameters(), httpRequest.getEncoding());
+		}
+
+		final java.net.http.HttpRequest.Builder requestBuilder = java.net.http.HttpRequest.newBuilder(new URI(url));
+		if (httpRequest.getReadTimeoutMillis() > 0) {
+			requestBuilder.timeout(Duration.ofMillis(httpRequest.getReadTimeoutMillis()));
+		}
+
+		boolean hasContentType = false;
+		for (final Entry<String, String> header : httpRequest.getHeaders().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+				requestBuilder.header(header.getKey(), header.getValue());
+				hasContentType = hasContentType || "content-type".equalsIgnoreCase(header.getKey());
+			}
+		}
+
+		if (httpRequest.getCookieData() != null && !httpRequest.getCookieData().isEmpty()) {
+			final StringBuilder cookieHeader = new StringBuilder();
+			for (final Entry<String, String> cookie : httpRequest.getCookieData().entrySet()) {
+				if (cookieHeader.length() > 0) {
+					cookieHeader.append("; ");
+				}
+				cookieHeader.append(cookie.getKey()).append("=").append(cookie.getValue());
+			}
+			requestBuilder.header("Cookie", cookieHeader.toString());
+		}
+
+		final java.net.http.HttpRequest.BodyPublisher bodyPublisher;
+		if (httpRequest.getPostParameters() != null && !httpRequest.getPostParameters().isEmpty()) {
+			if (!hasContentType) {
+				requestBuilder.header("Content-Type", "application/x-www-form-urlencoded");
+			}
+			bodyPublisher = java.net.http.HttpRequest.BodyPublishers.ofString(HttpUtilities.convertToParameterString(httpRequest.getPostParameters(), httpRequest.getEncoding()), requestCharset);
+		} else if (httpRequest.getRequestBody() != null) {
+			bodyPublisher = java.net.http.HttpRequest.BodyPublishers.ofString(httpRequest.getRequestBody(), requestCharset);
+		} else {
+			bodyPublisher = java.net.http.HttpRequest.BodyPublishers.noBody();
+		}
+		requestBuilder.method(httpRequest.getRequestMethod().name(), bodyPublisher);
+		return requestBuilder.build();
+	}
+
+	private static HttpClientResponse createResponse(final HttpResponse<byte[]> response, final Charset requestCharset) {
+		return new HttpClientResponse(
+				response.statusCode(),
+				getHeaders(response.headers()),
+				new String(response.body(), getResponseCharset(response.headers(), requestCharset)),
+				response.uri().toString(),
+				getRedirectCount(response));
+	}
+
+	private static HttpClientResponse createResponseWithoutContent(final HttpResponse<ContentSummary> response) {
+		return new HttpClientResponse(
+				response.statusCode(),
+				getHeaders(response.headers()),
+				response.body().length,
+				response.body().checksum,
+				response.uri().toString(),
+				getRedirectCount(response));
+	}
+
+	private static int getRedirectCount(final HttpResponse<?> response) {
+		int redirectCount = 0;
+		for (HttpResponse<?> previousResponse = response.previousResponse().orElse(null); previousResponse != null; previousResponse = previousResponse.previousResponse().orElse(null)) {
+			redirectCount++;
+		}
+		return redirectCount;
+	}
+
+	/**
+	 * @return number of requests executed so far, including the ones still running
+	 */
+	public long getRequestCount() {
+		return requestCount.sum();
+	}
+
+	/**
+	 * Closes the connections after the requests still running. HttpClient is closeable on Java 21 and
+	 * higher only, on Java 17 its connections are closed when it is no longer referenced.
+	 */
+	public void close() throws Exception {
+		if (httpClient instanceof AutoCloseable) {
+			((AutoCloseable) httpClient).close();
+		}
+	}
+
+	private static class ContentSummary {
+		private final long length;
+		private final long checksum;
+
+		public ContentSummary(final long length, final long checksum) {
+			this.length = length;
+			this.checksum = checksum;
+		}
+	}
+
+	/**
+	 * Consumes the response body directly from the buffers of the HttpClient, so nothing is copied or
+	 * collected, only the length and optionally the checksum are computed
+	 */
+	private static class ContentSummarySubscriber implements HttpResponse.BodySubscriber<ContentSummary> {
+		private final CompletableFuture<ContentSummary> result = new CompletableFuture<>();
+		private final CRC32C checksum;
+		private long length = 0;
+
+		public ContentSummarySubscriber(final boolean computeChecksum) {
+			checksum = computeChecksum ? new CRC32C() : null;
+		}
+
+		@Override
+		public void onSubscribe(final Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(final List<ByteBuffer> items) {
+			for (final ByteBuffer item : items) {
+				length += item.remaining();
+				if (checksum != null) {
+					checksum.update(item);
+				}
+			}
+		}
+
+		@Override
+		public void onError(final Throwable throwable) {
+			result.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			result.complete(new ContentSummary(length, checksum == null ? -1 : checksum.getValue()));
+		}
+
+		@Override
+		public CompletionStage<ContentSummary> getBody() {
+			return result;
+		}
+	}
+
+	private static Map<String, String> getHeaders(final HttpHeaders httpHeaders) {
+		final Map<String, String> headers = new LinkedHashMap<>();
+		for (final Entry<String, List<String>> header : httpHeaders.map().entrySet()) {
+			headers.put(header.getKey(), String.join(", ", header.getValue()));
+		}
+		return headers;
+	}
+
+	private static Charset getResponseCharset(final HttpHeaders httpHeaders, final Charset defaultCharset) {
+		final String contentType = httpHeaders.firstValue("Content-Type").orElse(null);
+		if (contentType != null) {
+			for (final String contentTypePart : contentType.split(";")) {
+				final String[] keyValue = contentTypePart.trim().split("=", 2);
+				if (keyValue.length == 2 && "charset".equalsIgnoreCase(keyValue[0].trim())) {
+					try {
+						return Charset.forName(keyValue[1].trim().replace("\"", ""));
+					} catch (@SuppressWarnings("unused") final Exception e) {
+						return defaultCharset;
+					}
+				}
+			}
+		}
+		return defaultCharset;
+	}
+}
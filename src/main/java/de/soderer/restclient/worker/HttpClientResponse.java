@@ -0,0 +1,101 @@
+package de.soderer.restclient.worker;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Response of a request executed by {@link HttpClientConnector}
+ */
+public class HttpClientResponse {
+	private final int httpCode;
+	private final Map<String, String> headers;
+	private final String content;
+	private final String finalUrl;
+	private final int redirectCount;
+	private final File contentFile;
+	private final Charset contentCharset;
+	private final long contentLength;
+	private final long contentChecksum;
+
+	public HttpClientResponse(final int httpCode, final Map<String, String> headers, final String content, final String finalUrl, final int redirectCount) {
+		this(httpCode, headers, content, null, null, finalUrl, redirectCount);
+	}
+
+	/**
+	 * Response with a response body, which was read without keeping it
+	 *
+	 * @param contentChecksum -1 if not computed
+	 */
+	public HttpClientResponse(final int httpCode, final Map<String, String> headers, final long contentLength, final long contentChecksum, final String finalUrl, final int redirectCount) {
+		this.httpCode = httpCode;
+		this.headers = headers;
+		content = null;
+		contentFile = null;
+		contentCharset = null;
+		this.contentLength = contentLength;
+		this.contentChecksum = contentChecksum;
+		this.finalUrl = finalUrl;
+		this.redirectCount = redirectCount;
+	}
+
+	/**
+	 * @param contentFile file the response body was streamed to instead of the content String
+	 */
+	public HttpClientResponse(final int httpCode, final Map<String, String> headers, final String content, final File contentFile, final Charset contentCharset, final String finalUrl, final int redirectCount) {
+		this.httpCode = httpCode;
+		this.headers = headers;
+		this.content = content;
+		this.contentFile = contentFile;
+		this.contentCharset = contentCharset;
+		contentLength = -1;
+		contentChecksum = -1;
+		this.finalUrl = finalUrl;
+		this.redirectCount = redirectCount;
+	}
+
+	public int getHttpCode() {
+		return httpCode;
+	}
+
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return null if the response body was streamed to {@link #getContentFile()} or was not kept
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	public File getContentFile() {
+		return contentFile;
+	}
+
+	public Charset getContentCharset() {
+		return contentCharset;
+	}
+
+	/**
+	 * @return length in bytes of a response body read without keeping it, otherwise -1
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * @return CRC32C checksum of a response body read without keeping it, -1 if not computed
+	 */
+	public long getContentChecksum() {
+		return contentChecksum;
+	}
+
+	public String getFinalUrl() {
+		return finalUrl;
+	}
+
+	public int getRedirectCount() {
+		return redirectCount;
+	}
+}
@@ -0,0 +1,689 @@
+package de.soderer.restclient.worker;
+
+import java.net.Proxy;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.soderer.network.HttpConstants;
+import de.soderer.network.HttpRequest;
+import de.soderer.network.HttpResponse;
+import de.soderer.network.TlsCheckConfiguration;
+import de.soderer.restclient.helper.CsvDataSource;
+import de.soderer.restclient.helper.IdpTokenProvider;
+import de.soderer.restclient.helper.RandomParameterResolver;
+import de.soderer.restclient.helper.RandomSource;
+import de.soderer.restclient.helper.RandomSource.RandomMode;
+import de.soderer.restclient.helper.TemplateContext;
+import de.soderer.restclient.worker.IdpTokenScenarioWorker.IdpTokenScenarioResult;
+import de.soderer.utilities.worker.WorkerSimple;
+
+public class HttpRequestWorkerPool extends WorkerPool {
+	/**
+	 * Connection handling of the workers
+	 */
+	public enum ConnectionReuse {
+		/** New connection (and TLS handshake) for each request */
+		None,
+		/** Each worker keeps its own persistent connection */
+		PerWorker,
+		/** All workers share one pool of persistent connections */
+		Shared;
+
+		public static ConnectionReuse getConnectionReuseByName(final String name) throws Exception {
+			for (final ConnectionReuse connectionReuse : ConnectionReuse.values()) {
+				if (connectionReuse.name().equalsIgnoreCase(name)) {
+					return connectionReuse;
+				}
+			}
+			throw new Exception("Invalid connection reuse name: " + name);
+		}
+	}
+
+	/**
+	 * Handling of the response bodies during a pool run
+	 */
+	public enum ResponseBodyHandling {
+		/** Read each response body into memory */
+		Full,
+		/** Read each response body without keeping it, only its length is counted */
+		Discard,
+		/** Read each response body without keeping it, only its length and a CRC32C checksum are counted */
+		HashOnly;
+
+		public static ResponseBodyHandling getResponseBodyHandlingByName(final String name) throws Exception {
+			for (final ResponseBodyHandling responseBodyHandling : ResponseBodyHandling.values()) {
+				if (responseBodyHandling.name().equalsIgnoreCase(name)) {
+					return responseBodyHandling;
+				}
+			}
+			throw new Exception("Invalid response body handling name: " + name);
+		}
+	}
+
+	/**
+	 * What each iteration of a pool run executes
+	 */
+	public enum LoadTestScenario {
+		/** The request */
+		Request,
+		/** A new token request of the client credentials flow at the IdP of the request */
+		IdpToken,
+		/** A new token request at the IdP of the request, followed by the request using this token */
+		IdpTokenAndRequest;
+
+		public static LoadTestScenario getLoadTestScenarioByName(final String name) throws Exception {
+			for (final LoadTestScenario loadTestScenario : LoadTestScenario.values()) {
+				if (loadTestScenario.name().equalsIgnoreCase(name)) {
+					return loadTestScenario;
+				}
+			}
+			throw new Exception("Invalid load test scenario name: " + name);
+		}
+	}
+
+	/** Limit of distinct response body checksums kept for the results */
+	public static final int MAXIMUM_DISTINCT_CHECKSUMS = 100;
+
+	private final HttpRequest httpRequest;
+	private CompiledHttpRequest compiledHttpRequest;
+	private final Proxy proxy;
+	private final TlsCheckConfiguration tlsCheckConfiguration;
+
+	private ConnectionReuse connectionReuse = ConnectionReuse.None;
+	private boolean useHttp2 = false;
+	private ResponseBodyHandling responseBodyHandling = ResponseBodyHandling.Full;
+	private ResponseAssertions responseAssertions = null;
+	private CsvDataSource csvDataSource = null;
+	private TemplateContext templateContext = null;
+	private RandomMode randomMode = RandomMode.Secure;
+	private Long randomSeed = null;
+	private RandomSource randomSource;
+	private LoadTestScenario loadTestScenario = LoadTestScenario.Request;
+	private IdpTokenProvider idpTokenProvider;
+	private String idpTokenEndpointUrl;
+	/** Durations of the token requests of the IdP token scenarios, indexed like the worker statistics */
+	private List<WorkerStats> idpTokenWorkerStatsList = new ArrayList<>();
+	/** Durations of the protected requests of the IdP token scenarios, indexed like the worker statistics */
+	private List<WorkerStats> protectedRequestWorkerStatsList = new ArrayList<>();
+	private final LongAdder responseBodyCount = new LongAdder();
+	private final LongAdder responseBodyBytes = new LongAdder();
+	private final Map<Long, LongAdder> responseBodyCountsByChecksum = new ConcurrentHashMap<>();
+	private final LongAdder responseBodyOtherChecksumCount = new LongAdder();
+	/** Shared by all connectors of a pool run, so new connections can resume TLS sessions */
+	private ConnectionCountingSslContext sslContext;
+	private volatile HttpClientConnector sharedHttpClientConnector;
+	private final Map<Integer, HttpClientConnector> httpClientConnectorsByWorker = new ConcurrentHashMap<>();
+	/** Requests of the connectors, which were closed at the end of the pool run */
+	private final LongAdder closedConnectorRequestCount = new LongAdder();
+
+	public HttpRequestWorkerPool(final HttpRequest httpRequest, final Proxy proxy, final TlsCheckConfiguration tlsCheckConfiguration) {
+		this.httpRequest = httpRequest;
+		this.proxy = proxy;
+		this.tlsCheckConfiguration = tlsCheckConfiguration;
+	}
+
+	public void setConnectionReuse(final ConnectionReuse connectionReuse) {
+		this.connectionReuse = connectionReuse == null ? ConnectionReuse.None : connectionReuse;
+	}
+
+	public ConnectionReuse getConnectionReuse() {
+		return connectionReuse;
+	}
+
+	/**
+	 * Send the requests via HTTP/2. With shared connections, the requests of all workers are
+	 * multiplexed over one connection per host. HTTP/2 always uses persistent connections, so
+	 * connection reuse "None" is switched to "Shared" on start.
+	 */
+	public void setUseHttp2(final boolean useHttp2) {
+		this.useHttp2 = useHttp2;
+	}
+
+	public boolean isUseHttp2() {
+		return useHttp2;
+	}
+
+	/**
+	 * Read the response bodies without keeping them in memory, so large payloads do not cause garbage
+	 * collection pauses within the measured latencies. Reading without keeping is only possible on
+	 * persistent connections, so connection reuse "None" is switched to "Shared" on start.
+	 */
+	public void setResponseBodyHandling(final ResponseBodyHandling responseBodyHandling) {
+		this.responseBodyHandling = responseBodyHandling == null ? ResponseBodyHandling.Full : responseBodyHandling;
+	}
+
+	public ResponseBodyHandling getResponseBodyHandling() {
+		return responseBodyHandling;
+	}
+
+	/**
+	 * Assertions checked for each successful response in addition to its HTTP status code
+	 */
+	public void setResponseAssertions(final ResponseAssertions responseAssertions) {
+		this.responseAssertions = responseAssertions == null || responseAssertions.isEmpty() ? null : responseAssertions;
+	}
+
+	public ResponseAssertions getResponseAssertions() {
+		return responseAssertions;
+	}
+
+	/**
+	 * Data for {@code ${csv:COLUMN}} placeholders, each request takes its values from one row
+	 */
+	public void setCsvDataSource(final CsvDataSource csvDataSource) {
+		this.csvDataSource = csvDataSource;
+	}
+
+	public CsvDataSource getCsvDataSource() {
+		return csvDataSource;
+	}
+
+	/**
+	 * Preset variables and IdP token provider of the placeholders
+	 */
+	public void setTemplateContext(final TemplateContext templateContext) {
+		this.templateContext = templateContext;
+	}
+
+	/**
+	 * Generator type of the random parameter values. The fast mode generates non-cryptographic
+	 * values on a generator per thread. With a seed, the values of each task are derived from the
+	 * seed, its worker and its iteration, so a single task can be regenerated.
+	 *
+	 * @see RandomSource#getRandomGenerator(int, long)
+	 *
+	 * @param randomSeed null for a random seed
+	 */
+	public void setRandomMode(final RandomMode randomMode, final Long randomSeed) {
+		this.randomMode = randomMode == null ? RandomMode.Secure : randomMode;
+		this.randomSeed = randomSeed;
+	}
+
+	public RandomMode getRandomMode() {
+		return randomMode;
+	}
+
+	public Long getRandomSeed() {
+		return randomSeed;
+	}
+
+	/**
+	 * The IdP token scenarios measure the token endpoint of the request's IdP credentials. Each
+	 * iteration fetches a new token, and the protected request (if any) is sent with this token
+	 * instead of the cached one. The durations of the token requests and the protected requests are
+	 * recorded as separate statistics in addition to the durations of the whole iterations.
+	 */
+	public void setLoadTestScenario(final LoadTestScenario loadTestScenario) {
+		this.loadTestScenario = loadTestScenario == null ? LoadTestScenario.Request : loadTestScenario;
+	}
+
+	public LoadTestScenario getLoadTestScenario() {
+		return loadTestScenario;
+	}
+
+	/**
+	 * @return durations of the token requests per worker, empty for the request scenario
+	 */
+	public List<WorkerStats> getIdpTokenWorkerStatsList() {
+		return idpTokenWorkerStatsList;
+	}
+
+	/**
+	 * @return durations of the protected requests per worker, empty unless the protected request is part of the scenario
+	 */
+	public List<WorkerStats> getProtectedRequestWorkerStatsList() {
+		return protectedRequestWorkerStatsList;
+	}
+
+	@Override
+	public void start(final WorkerPoolListener listener) throws Exception {
+		if (responseAssertions != null && responseAssertions.isContentNeeded() && responseBodyHandling != ResponseBodyHandling.Full) {
+			throw new Exception("Response assertions on the response body need the response body handling " + ResponseBodyHandling.Full.name());
+		}
+
+		if (loadTestScenario != LoadTestScenario.Request) {
+			if (isAsynchronous()) {
+				throw new Exception("The load test scenario " + loadTestScenario.name() + " cannot be run asynchronously");
+			}
+			idpTokenProvider = templateContext == null ? null : templateContext.getIdpTokenProvider();
+			if (idpTokenProvider == null) {
+				throw new Exception("The load test scenario " + loadTestScenario.name() + " needs the IdP credentials of the request");
+			}
+			// Fails early on an unknown IdP and keeps the discovery out of the measured durations
+			idpTokenEndpointUrl = idpTokenProvider.getTokenEndpointUrl();
+
+			final List<WorkerStats> newIdpTokenWorkerStatsList = new ArrayList<>();
+			final List<WorkerStats> newProtectedRequestWorkerStatsList = new ArrayList<>();
+			for (int i = 0; i < getWorkerStatsCount(); i++) {
+				newIdpTokenWorkerStatsList.add(new WorkerStats(i + 1));
+				if (loadTestScenario == LoadTestScenario.IdpTokenAndRequest) {
+					newProtectedRequestWorkerStatsList.add(new WorkerStats(i + 1));
+				}
+			}
+			idpTokenWorkerStatsList = newIdpTokenWorkerStatsList;
+			protectedRequestWorkerStatsList = newProtectedRequestWorkerStatsList;
+		}
+
+		// Parse the random parameter placeholders only once per pool run
+		final TemplateContext compileTemplateContext = templateContext == null ? new TemplateContext(null) : templateContext;
+		compiledHttpRequest = new CompiledHttpRequest(httpRequest, compileTemplateContext);
+		if (loadTestScenario == LoadTestScenario.IdpTokenAndRequest && !hasHeader(httpRequest, HttpConstants.HTTPHEADERNAME_AUTHORIZATION)) {
+			// Only for this run, the configured request is reused by later runs of other scenarios
+			compiledHttpRequest.addHeader(HttpConstants.HTTPHEADERNAME_AUTHORIZATION, HttpConstants.AUTHORIZATIONHEADER_START_BEARER + " ${idp:token}", compileTemplateContext);
+		}
+		randomSource = new RandomSource(randomMode, randomSeed);
+		final Set<String> csvColumns = compiledHttpRequest.getCsvColumns();
+		if (!csvColumns.isEmpty()) {
+			if (csvDataSource == null) {
+				throw new Exception("The request contains ${csv:...} placeholders, but no CSV data file is set");
+			}
+			csvDataSource.checkColumnNames(csvColumns);
+		}
+
+		final ConnectionReuse effectiveConnectionReuse = getEffectiveConnectionReuse();
+		if (effectiveConnectionReuse != ConnectionReuse.None) {
+			if (effectiveConnectionReuse == ConnectionReuse.PerWorker && isUseVirtualThreads()) {
+				// Each connector runs its own selector thread, which is not feasible for thousands of workers
+				throw new Exception("Connections per worker cannot be combined with virtual threads, use shared connections instead");
+			}
+			HttpClientConnector.checkRequestIsSupported(httpRequest);
+			sslContext = ConnectionCountingSslContext.create(tlsCheckConfiguration.getTrustManager(), !tlsCheckConfiguration.getCheckCn());
+			if (effectiveConnectionReuse == ConnectionReuse.Shared && !isAsynchronous()) {
+				sharedHttpClientConnector = createHttpClientConnector(null);
+			}
+		}
+
+		super.start(listener);
+	}
+
+	/**
+	 * Connection reuse of the workers, which may differ from the configured one: Asynchronous mode
+	 * always shares the connections of one HttpClient running on the I/O threads of the pool, HTTP/2
+	 * and response bodies without Full handling need persistent connections.
+	 */
+	public ConnectionReuse getEffectiveConnectionReuse() {
+		if (isAsynchronous()) {
+			return ConnectionReuse.Shared;
+		} else if ((useHttp2 || responseBodyHandling != ResponseBodyHandling.Full) && connectionReuse == ConnectionReuse.None) {
+			return ConnectionReuse.Shared;
+		} else {
+			return connectionReuse;
+		}
+	}
+
+	/**
+	 * Closes the connectors of this pool run. Their request counts are kept for the results.
+	 */
+	@Override
+	protected void closeResources() {
+		for (final HttpClientConnector httpClientConnector : httpClientConnectorsByWorker.values()) {
+			closeHttpClientConnector(httpClientConnector);
+		}
+		httpClientConnectorsByWorker.clear();
+
+		// After cancelling the asynchronous mode, requests may still be in flight on the shared connector
+		if (sharedHttpClientConnector != null && !(isAsynchronous() && isCancelled())) {
+			closeHttpClientConnector(sharedHttpClientConnector);
+			sharedHttpClientConnector = null;
+		}
+	}
+
+	private void closeHttpClientConnector(final HttpClientConnector httpClientConnector) {
+		closedConnectorRequestCount.add(httpClientConnector.getRequestCount());
+		try {
+			httpClientConnector.close();
+		} catch (@SuppressWarnings("unused") final Exception e) {
+			// Connections are released anyway, when the HttpClient is no longer referenced
+		}
+	}
+
+	public static boolean hasHeader(final HttpRequest httpRequest, final String headerName) {
+		if (httpRequest.getHeaders() != null) {
+			for (final String existingHeaderName : httpRequest.getHeaders().keySet()) {
+				if (headerName.equalsIgnoreCase(existingHeaderName)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private HttpClientConnector createHttpClientConnector(final Executor executor) throws Exception {
+		return new HttpClientConnector(proxy, sslContext, httpRequest.getConnectTimeoutMillis(), httpRequest.getMaxRedirects(), useHttp2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1, executor);
+	}
+
+	@Override
+	protected WorkerSimple<?> createWorker(final WorkerStats workerStats, final int taskWorkerId, final long taskIteration) throws Exception {
+		final RandomParameterResolver randomParameterResolver = createRandomParameterResolver(taskWorkerId, taskIteration);
+		switch (loadTestScenario) {
+			case IdpToken:
+				return new IdpTokenScenarioWorker(idpTokenProvider, tlsCheckConfiguration.getTrustManager(), !tlsCheckConfiguration.getCheckCn(), randomParameterResolver, null);
+			case IdpTokenAndRequest:
+				return new IdpTokenScenarioWorker(idpTokenProvider, tlsCheckConfiguration.getTrustManager(), !tlsCheckConfiguration.getCheckCn(), randomParameterResolver, () -> createRequestWorker(workerStats, randomParameterResolver));
+			case Request:
+			default:
+				return createRequestWorker(workerStats, randomParameterResolver);
+		}
+	}
+
+	private WorkerSimple<?> createRequestWorker(final WorkerStats workerStats, final RandomParameterResolver randomParameterResolver) throws Exception {
+		switch (getEffectiveConnectionReuse()) {
+			case Shared:
+				return createHttpClientRequestWorker(sharedHttpClientConnector, randomParameterResolver);
+			case PerWorker:
+				// Only the worker's own thread accesses its connector
+				HttpClientConnector httpClientConnector = httpClientConnectorsByWorker.get(workerStats.getWorkerId());
+				if (httpClientConnector == null) {
+					httpClientConnector = createHttpClientConnector(null);
+					httpClientConnectorsByWorker.put(workerStats.getWorkerId(), httpClientConnector);
+				}
+				return createHttpClientRequestWorker(httpClientConnector, randomParameterResolver);
+			case None:
+			default:
+				return new ExecuteHttpRequestWorker(null, compiledHttpRequest, randomParameterResolver, proxy, tlsCheckConfiguration.getTrustManager(), !tlsCheckConfiguration.getCheckCn());
+		}
+	}
+
+	private ExecuteHttpClientRequestWorker createHttpClientRequestWorker(final HttpClientConnector httpClientConnector, final RandomParameterResolver randomParameterResolver) throws Exception {
+		final ExecuteHttpClientRequestWorker worker = new ExecuteHttpClientRequestWorker(null, compiledHttpRequest, randomParameterResolver, httpClientConnector);
+		worker.setResponseBodyHandling(responseBodyHandling);
+		return worker;
+	}
+
+	private RandomParameterResolver createRandomParameterResolver(final int taskWorkerId, final long taskIteration) {
+		return new RandomParameterResolver(randomSource.getRandomGenerator(taskWorkerId, taskIteration), csvDataSource, taskIteration);
+	}
+
+	/**
+	 * Called by the single dispatcher thread only
+	 */
+	@Override
+	protected CompletableFuture<?> createAsyncTask(final Executor ioExecutor, final long taskIteration) throws Exception {
+		if (sharedHttpClientConnector == null) {
+			sharedHttpClientConnector = createHttpClientConnector(ioExecutor);
+		}
+		final HttpRequest nextHttpRequest = compiledHttpRequest.createHttpRequest(createRandomParameterResolver(0, taskIteration));
+		if (responseBodyHandling != ResponseBodyHandling.Full) {
+			return sharedHttpClientConnector.executeWithoutContentAsync(nextHttpRequest, responseBodyHandling == ResponseBodyHandling.HashOnly);
+		} else {
+			return sharedHttpClientConnector.executeAsync(nextHttpRequest);
+		}
+	}
+
+	@Override
+	protected boolean isReproducible() {
+		return randomSeed != null;
+	}
+
+	@Override
+	protected boolean checkForSuccess(final Object httpResponse) {
+		if (httpResponse instanceof IdpTokenScenarioResult) {
+			final IdpTokenScenarioResult scenarioResult = (IdpTokenScenarioResult) httpResponse;
+			if (!scenarioResult.isTokenSuccess()) {
+				return false;
+			} else if (!scenarioResult.isProtectedRequestExecuted()) {
+				return true;
+			}
+		}
+		final int httpCode = getHttpCode(httpResponse);
+		return 200 <= httpCode && httpCode < 300;
+	}
+
+	@Override
+	protected String getResultCategory(final Object httpResponse, final boolean success) {
+		if (httpResponse instanceof IdpTokenScenarioResult) {
+			final IdpTokenScenarioResult scenarioResult = (IdpTokenScenarioResult) httpResponse;
+			if (scenarioResult.getTokenError() != null) {
+				return "Token endpoint: " + ResultBreakdown.getErrorCategory(scenarioResult.getTokenError());
+			} else if (!scenarioResult.isTokenSuccess() || !scenarioResult.isProtectedRequestExecuted()) {
+				return "Token endpoint: " + ResultBreakdown.getHttpStatusCategory(scenarioResult.getTokenHttpCode());
+			} else if (scenarioResult.getProtectedError() != null) {
+				return ResultBreakdown.getErrorCategory(scenarioResult.getProtectedError());
+			}
+		}
+		final int httpCode = getHttpCode(httpResponse);
+		if (httpCode >= 0) {
+			return ResultBreakdown.getHttpStatusCategory(httpCode);
+		} else {
+			return "No response";
+		}
+	}
+
+	@Override
+	protected String getFailureDetails(final Object workerResult) {
+		if (workerResult instanceof IdpTokenScenarioResult) {
+			final IdpTokenScenarioResult scenarioResult = (IdpTokenScenarioResult) workerResult;
+			if (scenarioResult.getTokenError() != null) {
+				return ResultBreakdown.getErrorMessage(scenarioResult.getTokenError());
+			} else if (scenarioResult.getProtectedError() != null) {
+				return ResultBreakdown.getErrorMessage(scenarioResult.getProtectedError());
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected ResponseAssertions.AssertionFailure checkAssertions(final Object workerResult, final long durationNanos) {
+		final Object httpResponse = getProtectedResponse(workerResult);
+		if (responseAssertions == null) {
+			return null;
+		} else if (httpResponse instanceof HttpResponse) {
+			return responseAssertions.check(((HttpResponse) httpResponse).getHeaders(), ((HttpResponse) httpResponse).getContent(), durationNanos);
+		} else if (httpResponse instanceof HttpClientResponse) {
+			return responseAssertions.check(((HttpClientResponse) httpResponse).getHeaders(), ((HttpClientResponse) httpResponse).getContent(), durationNanos);
+		} else {
+			return null;
+		}
+	}
+
+	@Override
+	protected void countResult(final Object workerResult, final boolean success) {
+		final Object httpResponse = getProtectedResponse(workerResult);
+		if (httpResponse != null && httpResponse instanceof HttpClientResponse && ((HttpClientResponse) httpResponse).getContentLength() >= 0) {
+			final HttpClientResponse httpClientResponse = (HttpClientResponse) httpResponse;
+			responseBodyCount.increment();
+			responseBodyBytes.add(httpClientResponse.getContentLength());
+			if (httpClientResponse.getContentChecksum() >= 0) {
+				LongAdder checksumCount = responseBodyCountsByChecksum.get(httpClientResponse.getContentChecksum());
+				if (checksumCount == null && responseBodyCountsByChecksum.size() < MAXIMUM_DISTINCT_CHECKSUMS) {
+					checksumCount = responseBodyCountsByChecksum.computeIfAbsent(httpClientResponse.getContentChecksum(), k -> new LongAdder());
+				}
+				if (checksumCount != null) {
+					checksumCount.increment();
+				} else {
+					responseBodyOtherChecksumCount.increment();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Single writer per worker statistics, so each worker records into its own partial statistics
+	 */
+	@Override
+	protected void recordPartialResults(final WorkerStats workerStats, final Object workerResult, final boolean countInStatistics) {
+		if (workerResult instanceof IdpTokenScenarioResult) {
+			final IdpTokenScenarioResult scenarioResult = (IdpTokenScenarioResult) workerResult;
+			final WorkerStats idpTokenWorkerStats = idpTokenWorkerStatsList.get(workerStats.getWorkerId() - 1);
+			if (scenarioResult.isTokenSuccess()) {
+				idpTokenWorkerStats.addSuccess(scenarioResult.getTokenDurationNanos(), countInStatistics);
+			} else {
+				idpTokenWorkerStats.addError(scenarioResult.getTokenDurationNanos(), countInStatistics);
+			}
+			if (scenarioResult.isProtectedRequestExecuted()) {
+				final WorkerStats protectedRequestWorkerStats = protectedRequestWorkerStatsList.get(workerStats.getWorkerId() - 1);
+				final int httpCode = getHttpCode(scenarioResult.getProtectedResponse());
+				if (200 <= httpCode && httpCode < 300) {
+					protectedRequestWorkerStats.addSuccess(scenarioResult.getProtectedDurationNanos(), countInStatistics);
+				} else {
+					protectedRequestWorkerStats.addError(scenarioResult.getProtectedDurationNanos(), countInStatistics);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return response of the request, also within the results of the IdP token scenarios
+	 */
+	private static Object getProtectedResponse(final Object workerResult) {
+		if (workerResult instanceof IdpTokenScenarioResult) {
+			return ((IdpTokenScenarioResult) workerResult).getProtectedResponse();
+		} else {
+			return workerResult;
+		}
+	}
+
+	/**
+	 * @return number of response bodies read without keeping them
+	 */
+	public long getResponseBodyCount() {
+		return responseBodyCount.sum();
+	}
+
+	/**
+	 * @return bytes of the response bodies read without keeping them
+	 */
+	public long getResponseBodyBytes() {
+		return responseBodyBytes.sum();
+	}
+
+	/**
+	 * @return number of distinct response body checksums, -1 if not computed
+	 */
+	public int getDistinctChecksumCount() {
+		if (responseBodyHandling != ResponseBodyHandling.HashOnly) {
+			return -1;
+		} else {
+			return responseBodyCountsByChecksum.size() + (responseBodyOtherChecksumCount.sum() > 0 ? 1 : 0);
+		}
+	}
+
+	/**
+	 * @return -1 if there is no response
+	 */
+	private static int getHttpCode(final Object workerResult) {
+		final Object httpResponse = getProtectedResponse(workerResult);
+		if (httpResponse != null && httpResponse instanceof HttpResponse) {
+			return ((HttpResponse) httpResponse).getHttpCode();
+		} else if (httpResponse != null && httpResponse instanceof HttpClientResponse) {
+			return ((HttpClientResponse) httpResponse).getHttpCode();
+		} else {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return number of requests executed on persistent connections
+	 */
+	public long getPersistentConnectionRequestCount() {
+		long requestCount = closedConnectorRequestCount.sum();
+		if (sharedHttpClientConnector != null) {
+			requestCount += sharedHttpClientConnector.getRequestCount();
+		}
+		for (final HttpClientConnector httpClientConnector : httpClientConnectorsByWorker.values()) {
+			requestCount += httpClientConnector.getRequestCount();
+		}
+		return requestCount;
+	}
+
+	/**
+	 * Connections are counted by their TLS handshake, which is not available for plain HTTP
+	 *
+	 * @return -1 if not countable
+	 */
+	public long getNewConnectionCount() {
+		if (sslContext == null || !httpRequest.getUrl().toLowerCase().startsWith("https:")) {
+			return -1;
+		} else {
+			return sslContext.getCreatedConnectionCount();
+		}
+	}
+
+	/**
+	 * @return number of requests sent on an already open connection, -1 if not countable
+	 */
+	public long getReusedConnectionCount() {
+		final long newConnectionCount = getNewConnectionCount();
+		if (newConnectionCount < 0) {
+			return -1;
+		} else {
+			return Math.max(0, getPersistentConnectionRequestCount() - newConnectionCount);
+		}
+	}
+
+	@Override
+	public String getResultsCSV() {
+		final StringBuilder result = new StringBuilder(super.getResultsCSV());
+		if (loadTestScenario != LoadTestScenario.Request) {
+			result.append("\n");
+			result.append("Load test scenario;Token endpoint\n");
+			result.append(String.format("%s;%s%n", loadTestScenario.name(), (idpTokenEndpointUrl == null ? "" : idpTokenEndpointUrl)));
+			result.append("\n");
+			result.append("Token requests\n");
+			result.append(getWorkerStatsCSV(idpTokenWorkerStatsList));
+			if (loadTestScenario == LoadTestScenario.IdpTokenAndRequest) {
+				result.append("\n");
+				result.append("Protected requests\n");
+				result.append(getWorkerStatsCSV(protectedRequestWorkerStatsList));
+			}
+		}
+		final ConnectionReuse effectiveConnectionReuse = getEffectiveConnectionReuse();
+		if (effectiveConnectionReuse != ConnectionReuse.None) {
+			final long newConnectionCount = getNewConnectionCount();
+			result.append("\n");
+			result.append("Connection reuse;Protocol;Requests;New connections;Reused connections\n");
+			result.append(String.format("%s;%s;%d;%s;%s%n",
+					effectiveConnectionReuse.name(),
+					(useHttp2 ? "HTTP/2" : "HTTP/1.1"),
+					getPersistentConnectionRequestCount(),
+					(newConnectionCount < 0 ? "" : Long.toString(newConnectionCount)),
+					(newConnectionCount < 0 ? "" : Long.toString(getReusedConnectionCount()))));
+		}
+		if (randomMode != RandomMode.Secure) {
+			result.append("\n");
+			result.append("Random mode;Seed\n");
+			result.append(String.format("%s;%s%n", randomMode.name(), (randomSeed == null ? "" : Long.toString(randomSeed))));
+		}
+		if (csvDataSource != null) {
+			result.append("\n");
+			result.append("CSV data file;Row selection;Rows;Rows handed out\n");
+			result.append(String.format("%s;%s;%d;%d%n",
+					csvDataSource.getFile().getAbsolutePath(),
+					csvDataSource.getRowSelection().name(),
+					csvDataSource.getRowCount(),
+					csvDataSource.getHandedOutRowCount()));
+		}
+		if (responseBodyHandling != ResponseBodyHandling.Full) {
+			result.append("\n");
+			result.append("Response body handling;Responses;Bytes;Average bytes\n");
+			final long bodyCount = getResponseBodyCount();
+			final long bodyBytes = getResponseBodyBytes();
+			result.append(String.format("%s;%d;%d;%d%n",
+					responseBodyHandling.name(),
+					bodyCount,
+					bodyBytes,
+					(bodyCount == 0 ? 0 : bodyBytes / bodyCount)));
+			if (responseBodyHandling == ResponseBodyHandling.HashOnly) {
+				final List<Entry<Long, LongAdder>> checksumCounts = new ArrayList<>(responseBodyCountsByChecksum.entrySet());
+				checksumCounts.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+				result.append("\n");
+				result.append("Response body checksum (CRC32C);Responses\n");
+				for (final Entry<Long, LongAdder> checksumCount : checksumCounts) {
+					result.append(String.format("%08x;%d%n", checksumCount.getKey(), checksumCount.getValue().sum()));
+				}
+				if (responseBodyOtherChecksumCount.sum() > 0) {
+					result.append(String.format("Other;%d%n", responseBodyOtherChecksumCount.sum()));
+				}
+			}
+		}
+		return result.toString();
+	}
+}
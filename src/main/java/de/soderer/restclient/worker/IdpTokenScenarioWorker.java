@@ -0,0 +1,177 @@
+package de.soderer.restclient.worker;
+
+import java.util.concurrent.Callable;
+
+import javax.net.ssl.TrustManager;
+
+import de.soderer.network.HttpRequest;
+import de.soderer.network.HttpResponse;
+import de.soderer.network.HttpUtilities;
+import de.soderer.restclient.helper.IdpAccessToken;
+import de.soderer.restclient.helper.IdpHelper;
+import de.soderer.restclient.helper.IdpTokenProvider;
+import de.soderer.restclient.helper.RandomParameterResolver;
+import de.soderer.utilities.worker.WorkerSimple;
+
+/**
+ * One iteration of an IdP token load test scenario: Fetches a new token by the client credentials
+ * flow (not taken from the token cache) and optionally executes the protected request with it. The
+ * durations of both parts are measured separately.
+ */
+public class IdpTokenScenarioWorker extends WorkerSimple<IdpTokenScenarioWorker.IdpTokenScenarioResult> {
+	private final IdpTokenProvider idpTokenProvider;
+	private final TrustManager trustManager;
+	private final boolean deactivateHostnameVerification;
+	private final RandomParameterResolver randomParameterResolver;
+	private final Callable<WorkerSimple<?>> protectedRequestWorkerFactory;
+
+	private volatile HttpRequest tokenRequest = null;
+	private volatile WorkerSimple<?> protectedRequestWorker = null;
+
+	public static class IdpTokenScenarioResult {
+		private final int tokenHttpCode;
+		private final Exception tokenError;
+		private final long tokenDurationNanos;
+		private final Object protectedResponse;
+		private final Exception protectedError;
+		private final long protectedDurationNanos;
+
+		private IdpTokenScenarioResult(final int tokenHttpCode, final Exception tokenError, final long tokenDurationNanos, final Object protectedResponse, final Exception protectedError, final long protectedDurationNanos) {
+			this.tokenHttpCode = tokenHttpCode;
+			this.tokenError = tokenError;
+			this.tokenDurationNanos = tokenDurationNanos;
+			this.protectedResponse = protectedResponse;
+			this.protectedError = protectedError;
+			this.protectedDurationNanos = protectedDurationNanos;
+		}
+
+		/**
+		 * @return -1 if there is no response
+		 */
+		public int getTokenHttpCode() {
+			return tokenHttpCode;
+		}
+
+		/**
+		 * @return null if the token endpoint sent a response containing an access token
+		 */
+		public Exception getTokenError() {
+			return tokenError;
+		}
+
+		public long getTokenDurationNanos() {
+			return tokenDurationNanos;
+		}
+
+		public boolean isTokenSuccess() {
+			return tokenError == null && 200 <= tokenHttpCode && tokenHttpCode < 300;
+		}
+
+		/**
+		 * @return response of the protected request (HttpResponse or HttpClientResponse), null if not executed or failed
+		 */
+		public Object getProtectedResponse() {
+			return protectedResponse;
+		}
+
+		public Exception getProtectedError() {
+			return protectedError;
+		}
+
+		/**
+		 * @return -1 if the protected request was not executed
+		 */
+		public long getProtectedDurationNanos() {
+			return protectedDurationNanos;
+		}
+
+		public boolean isProtectedRequestExecuted() {
+			return protectedDurationNanos >= 0;
+		}
+	}
+
+	/**
+	 * @param protectedRequestWorkerFactory creates the worker of the protected request after the token was set in the resolver, null for the token request only
+	 */
+	public IdpTokenScenarioWorker(final IdpTokenProvider idpTokenProvider, final TrustManager trustManager, final boolean deactivateHostnameVerification, final RandomParameterResolver randomParameterResolver, final Callable<WorkerSimple<?>> protectedRequestWorkerFactory) {
+		super(null);
+
+		this.idpTokenProvider = idpTokenProvider;
+		this.trustManager = trustManager;
+		this.deactivateHostnameVerification = deactivateHostnameVerification;
+		this.randomParameterResolver = randomParameterResolver;
+		this.protectedRequestWorkerFactory = protectedRequestWorkerFactory;
+	}
+
+	@Override
+	public IdpTokenScenarioResult work() throws Exception {
+		itemsToDo = protectedRequestWorkerFactory == null ? 1 : 2;
+		itemsDone = 0;
+
+		tokenRequest = idpTokenProvider.createTokenRequest();
+		int tokenHttpCode = -1;
+		Exception tokenError = null;
+		String accessToken = null;
+		final long tokenStartNanos = System.nanoTime();
+		try {
+			final HttpResponse tokenResponse = HttpUtilities.executeHttpRequest(tokenRequest, idpTokenProvider.getProxy(tokenRequest.getUrl()), trustManager, deactivateHostnameVerification);
+			tokenHttpCode = tokenResponse.getHttpCode();
+			if (200 <= tokenHttpCode && tokenHttpCode < 300) {
+				final IdpAccessToken idpAccessToken = IdpHelper.readIdpAccessToken(tokenResponse.getContent());
+				accessToken = idpAccessToken.getAccessToken();
+				if (accessToken == null) {
+					throw new Exception("IdP response contains no access token");
+				}
+			}
+		} catch (final Exception e) {
+			if (cancel) {
+				return null;
+			}
+			tokenError = e;
+		}
+		final long tokenDurationNanos = System.nanoTime() - tokenStartNanos;
+		itemsDone++;
+
+		Object protectedResponse = null;
+		Exception protectedError = null;
+		long protectedDurationNanos = -1;
+		if (protectedRequestWorkerFactory != null && accessToken != null && !cancel) {
+			// The placeholders are resolved before the measurement, like in the plain request scenario
+			randomParameterResolver.setIdpAccessToken(accessToken);
+			protectedRequestWorker = protectedRequestWorkerFactory.call();
+			final long protectedStartNanos = System.nanoTime();
+			try {
+				protectedResponse = protectedRequestWorker.work();
+			} catch (final Exception e) {
+				protectedError = e;
+			}
+			protectedDurationNanos = System.nanoTime() - protectedStartNanos;
+			itemsDone++;
+		}
+
+		if (cancel) {
+			return null;
+		} else {
+			return new IdpTokenScenarioResult(tokenHttpCode, tokenError, tokenDurationNanos, protectedResponse, protectedError, protectedDurationNanos);
+		}
+	}
+
+	@Override
+	public boolean cancel() {
+		final boolean result = super.cancel();
+		final HttpRequest currentTokenRequest = tokenRequest;
+		if (currentTokenRequest != null) {
+			currentTokenRequest.cancel();
+		}
+		final WorkerSimple<?> currentProtectedRequestWorker = protectedRequestWorker;
+		if (currentProtectedRequestWorker != null) {
+			currentProtectedRequestWorker.cancel();
+		}
+		return result;
+	}
+
+	@Override
+	public String getResultText() {
+		return null;
+	}
+}
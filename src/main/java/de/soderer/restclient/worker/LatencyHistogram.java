@@ -0,0 +1,190 @@
+package de.soderer.restclient.worker;
+
+import java.time.Duration;
+
+/**
+ * Fixed-size latency histogram with logarithmic buckets (HdrHistogram style) recording nanoseconds.
+ *
+ * Values below 64ns get a bucket of their own, every further power of two range is divided into 32
+ * linear sub buckets, so any reported percentile value is at most about 3% above the real value.
+ * Values above the highest trackable value (about 18 minutes) are counted in the last bucket.
+ * The bucket array is allocated once, so recording a value allocates no memory.
+ *
+ * This class is not thread-safe. Workers record via a {@link LatencyRecorder}, which is read into
+ * instances of this class for evaluation, so pool-wide statistics are merged histograms.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int HIGHEST_TRACKABLE_BIT = 40;
+
+	public static final long HIGHEST_TRACKABLE_VALUE = (1L << HIGHEST_TRACKABLE_BIT) - 1;
+
+	static final int BUCKET_COUNT = getBucketIndex(HIGHEST_TRACKABLE_VALUE) + 1;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long totalCount = 0;
+	private long totalNanos = 0;
+	private long minimumNanos = Long.MAX_VALUE;
+	private long maximumNanos = 0;
+
+	public void record(final long nanos) {
+		final long value = nanos < 0 ? 0 : nanos;
+		counts[getBucketIndex(Math.min(value, HIGHEST_TRACKABLE_VALUE))]++;
+		totalCount++;
+		totalNanos += value;
+		if (value < minimumNanos) {
+			minimumNanos = value;
+		}
+		if (value > maximumNanos) {
+			maximumNanos = value;
+		}
+	}
+
+	/**
+	 * Adds all recorded values of another histogram to this one
+	 */
+	public void add(final LatencyHistogram otherHistogram) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += otherHistogram.counts[i];
+		}
+		totalCount += otherHistogram.totalCount;
+		totalNanos += otherHistogram.totalNanos;
+		minimumNanos = Math.min(minimumNanos, otherHistogram.minimumNanos);
+		maximumNanos = Math.max(maximumNanos, otherHistogram.maximumNanos);
+	}
+
+	/**
+	 * Used by {@link LatencyRecorder} to hand over the count of one bucket
+	 */
+	void addBucket(final int bucketIndex, final long bucketCount) {
+		counts[bucketIndex] += bucketCount;
+		totalCount += bucketCount;
+	}
+
+	/**
+	 * Used by {@link LatencyRecorder} to hand over the summary of the values added by
+	 * {@link #addBucket(int, long)}
+	 */
+	void addSummary(final long valuesTotalNanos, final long valuesMinimumNanos, final long valuesMaximumNanos) {
+		totalNanos += valuesTotalNanos;
+		minimumNanos = Math.min(minimumNanos, valuesMinimumNanos);
+		maximumNanos = Math.max(maximumNanos, valuesMaximumNanos);
+	}
+
+	/**
+	 * Removes the values of an earlier state of the same recording from this histogram, so only the
+	 * values recorded in between remain (e.g. for per interval statistics).
+	 * Exact minimum and maximum of the remaining values are unknown afterwards, so they are
+	 * estimated by the limits of the lowest and highest remaining bucket.
+	 */
+	public void subtract(final LatencyHistogram earlierHistogram) {
+		int lowestBucketIndex = -1;
+		int highestBucketIndex = -1;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = Math.max(0, counts[i] - earlierHistogram.counts[i]);
+			if (counts[i] > 0) {
+				if (lowestBucketIndex < 0) {
+					lowestBucketIndex = i;
+				}
+				highestBucketIndex = i;
+			}
+		}
+		totalCount = Math.max(0, totalCount - earlierHistogram.totalCount);
+		totalNanos = Math.max(0, totalNanos - earlierHistogram.totalNanos);
+		if (highestBucketIndex < 0) {
+			minimumNanos = Long.MAX_VALUE;
+			maximumNanos = 0;
+		} else {
+			minimumNanos = Math.max(minimumNanos, getLowestValueOfBucket(lowestBucketIndex));
+			maximumNanos = Math.min(maximumNanos, getHighestValueOfBucket(highestBucketIndex));
+		}
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = 0;
+		}
+		totalCount = 0;
+		totalNanos = 0;
+		minimumNanos = Long.MAX_VALUE;
+		maximumNanos = 0;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public long getMinimumNanos() {
+		return totalCount == 0 ? 0 : minimumNanos;
+	}
+
+	public long getMaximumNanos() {
+		return maximumNanos;
+	}
+
+	public long getAverageNanos() {
+		return totalCount == 0 ? 0 : totalNanos / totalCount;
+	}
+
+	/**
+	 * Returns the highest value of the bucket containing the given percentile, limited to the
+	 * maximum recorded value
+	 *
+	 * @param percentile 0.0 to 100.0
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+
+		final long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+		long cumulatedCount = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulatedCount += counts[i];
+			if (cumulatedCount >= countAtPercentile) {
+				return Math.max(Math.min(getHighestValueOfBucket(i), maximumNanos), getMinimumNanos());
+			}
+		}
+		return maximumNanos;
+	}
+
+	public Duration getDurationAtPercentile(final double percentile) {
+		if (totalCount == 0) {
+			return null;
+		} else {
+			return Duration.ofNanos(getValueAtPercentile(percentile));
+		}
+	}
+
+	static int getBucketIndex(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		} else {
+			final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+			final int shift = highestBit - (SUB_BUCKET_BITS - 1);
+			return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+		}
+	}
+
+	private static long getLowestValueOfBucket(final int bucketIndex) {
+		if (bucketIndex < SUB_BUCKET_COUNT) {
+			return bucketIndex;
+		} else {
+			final int shift = (bucketIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+			final long subBucket = (bucketIndex - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+			return subBucket << shift;
+		}
+	}
+
+	private static long getHighestValueOfBucket(final int bucketIndex) {
+		if (bucketIndex < SUB_BUCKET_COUNT) {
+			return bucketIndex;
+		} else {
+			final int shift = (bucketIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+			final long subBucket = (bucketIndex - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+			return ((subBucket + 1) << shift) - 1;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package de.soderer.restclient.worker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single-writer variant of {@link LatencyHistogram}: Exactly one thread (the worker) records
+ * values, any number of other threads (UI, CSV export) may read them concurrently.
+ *
+ * Because there is only one writer, no CAS or lock is needed. Values are published with ordered
+ * writes (lazySet), which cost no more than plain stores on common CPUs. A reader may see a value
+ * in the bucket counts before it sees it in total duration or maximum, which is negligible for
+ * display and export.
+ */
+public class LatencyRecorder {
+	private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+	private final AtomicLong totalNanos = new AtomicLong(0);
+	private final AtomicLong minimumNanos = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong maximumNanos = new AtomicLong(0);
+
+	/**
+	 * Must only be called by the single owning writer thread
+	 */
+	public void record(final long nanos) {
+		final long value = nanos < 0 ? 0 : nanos;
+		final int bucketIndex = LatencyHistogram.getBucketIndex(Math.min(value, LatencyHistogram.HIGHEST_TRACKABLE_VALUE));
+		counts.lazySet(bucketIndex, counts.get(bucketIndex) + 1);
+		totalNanos.lazySet(totalNanos.get() + value);
+		if (value < minimumNanos.get()) {
+			minimumNanos.lazySet(value);
+		}
+		if (value > maximumNanos.get()) {
+			maximumNanos.lazySet(value);
+		}
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	/**
+	 * @return Long.MAX_VALUE if no value was recorded yet
+	 */
+	public long getMinimumNanos() {
+		return minimumNanos.get();
+	}
+
+	public long getMaximumNanos() {
+		return maximumNanos.get();
+	}
+
+	/**
+	 * Adds a snapshot of the recorded values to the given histogram. May be called by any thread.
+	 * Merges allocate no memory, since the pool merges the recorders of all workers repeatedly.
+	 */
+	public void addTo(final LatencyHistogram targetHistogram) {
+		long valuesCount = 0;
+		for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+			final long bucketCount = counts.get(i);
+			if (bucketCount > 0) {
+				targetHistogram.addBucket(i, bucketCount);
+				valuesCount += bucketCount;
+			}
+		}
+		if (valuesCount > 0) {
+			targetHistogram.addSummary(totalNanos.get(), minimumNanos.get(), maximumNanos.get());
+		}
+	}
+}
@@ -0,0 +1,313 @@
+package de.soderer.restclient.worker;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import de.soderer.restclient.helper.JsonPath;
+
+/**
+ * Assertions on the responses of a pool run, one per line, parsed and compiled once before the run:
+ *
+ * <pre>
+ * json $.status == "ok"
+ * json $.items[0].id exists
+ * header Content-Type ~ ^application/json
+ * header X-Request-Id exists
+ * body ~ "id":\s*\d+
+ * latency &lt;= 500
+ * </pre>
+ *
+ * "~" finds a regular expression, "==" compares text (numbers numerically), latency is given in
+ * milliseconds. Empty lines and lines starting with "#" are ignored.
+ */
+public class ResponseAssertions {
+	private final List<Assertion> assertions;
+	private final boolean contentNeeded;
+
+	/**
+	 * Failed assertion of a response
+	 */
+	public static class AssertionFailure {
+		private final String assertion;
+		private final String details;
+
+		public AssertionFailure(final String assertion, final String details) {
+			this.assertion = assertion;
+			this.details = details;
+		}
+
+		public String getAssertion() {
+			return assertion;
+		}
+
+		public String getDetails() {
+			return details;
+		}
+	}
+
+	private abstract static class Assertion {
+		protected final String definition;
+
+		public Assertion(final String definition) {
+			this.definition = definition;
+		}
+
+		/**
+		 * @return null if the assertion holds, otherwise details of the failure
+		 */
+		public abstract String check(Map<String, String> headers, String content, long durationNanos);
+
+		public boolean isContentNeeded() {
+			return true;
+		}
+	}
+
+	public static ResponseAssertions parse(final String assertionsText) throws Exception {
+		final List<Assertion> assertions = new ArrayList<>();
+		if (assertionsText != null) {
+			final String[] lines = assertionsText.split("\r?\n|\r");
+			for (int lineIndex = 0; lineIndex < lines.length; lineIndex++) {
+				final String line = lines[lineIndex].trim();
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					try {
+						assertions.add(parseAssertion(line));
+					} catch (final Exception e) {
+						throw new Exception("Invalid response assertion in line " + (lineIndex + 1) + ": " + e.getMessage(), e);
+					}
+				}
+			}
+		}
+		return new ResponseAssertions(assertions);
+	}
+
+	private static Assertion parseAssertion(final String line) throws Exception {
+		final String[] parts = line.split("\\s+", 2);
+		final String subject = parts[0].toLowerCase();
+		final String rest = parts.length > 1 ? parts[1].trim() : "";
+		switch (subject) {
+			case "latency":
+				return parseLatencyAssertion(line, rest);
+			case "body":
+				if (!rest.startsWith("~")) {
+					throw new Exception("Expected: body ~ <regex>");
+				}
+				return createBodyRegexAssertion(line, compilePattern(rest.substring(1).trim()));
+			case "header":
+			case "json":
+				final String[] nameAndCondition = rest.split("\\s+", 2);
+				if (nameAndCondition[0].isEmpty()) {
+					throw new Exception("Missing " + ("json".equals(subject) ? "JSON path" : "header name"));
+				}
+				final String condition = nameAndCondition.length > 1 ? nameAndCondition[1].trim() : "";
+				final ValueCondition valueCondition = ValueCondition.parse(condition);
+				if ("json".equals(subject)) {
+					return createJsonPathAssertion(line, JsonPath.compile(nameAndCondition[0]), valueCondition);
+				} else {
+					return createHeaderAssertion(line, nameAndCondition[0], valueCondition);
+				}
+			default:
+				throw new Exception("Unknown assertion type '" + parts[0] + "', expected json, header, body or latency");
+		}
+	}
+
+	private static Assertion parseLatencyAssertion(final String line, final String rest) throws Exception {
+		if (!rest.startsWith("<=")) {
+			throw new Exception("Expected: latency <= <milliseconds>");
+		}
+		final long maximumNanos;
+		try {
+			maximumNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(rest.substring(2).trim()));
+		} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+			throw new Exception("Invalid latency in milliseconds: " + rest.substring(2).trim());
+		}
+		return new Assertion(line) {
+			@Override
+			public String check(final Map<String, String> headers, final String content, final long durationNanos) {
+				return durationNanos <= maximumNanos ? null : "Latency " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms";
+			}
+
+			@Override
+			public boolean isContentNeeded() {
+				return false;
+			}
+		};
+	}
+
+	private static Assertion createBodyRegexAssertion(final String line, final Pattern pattern) {
+		return new Assertion(line) {
+			@Override
+			public String check(final Map<String, String> headers, final String content, final long durationNanos) {
+				if (content == null) {
+					return "No response body";
+				} else {
+					return pattern.matcher(content).find() ? null : "No match in response body";
+				}
+			}
+		};
+	}
+
+	private static Assertion createHeaderAssertion(final String line, final String headerName, final ValueCondition valueCondition) {
+		return new Assertion(line) {
+			@Override
+			public String check(final Map<String, String> headers, final String content, final long durationNanos) {
+				return valueCondition.check(getHeaderValue(headers, headerName), "Header " + headerName);
+			}
+
+			@Override
+			public boolean isContentNeeded() {
+				return false;
+			}
+		};
+	}
+
+	private static Assertion createJsonPathAssertion(final String line, final JsonPath jsonPath, final ValueCondition valueCondition) {
+		return new Assertion(line) {
+			@Override
+			public String check(final Map<String, String> headers, final String content, final long durationNanos) {
+				if (content == null) {
+					return "No response body";
+				}
+				final String value;
+				try {
+					value = jsonPath.find(content);
+				} catch (final Exception e) {
+					return "Invalid JSON response: " + e.getMessage();
+				}
+				return valueCondition.check(value, "JSON path " + jsonPath);
+			}
+		};
+	}
+
+	/**
+	 * Condition on a header or JSON value: "exists", "== value" or "~ regex"
+	 */
+	private static class ValueCondition {
+		private final String expectedValue;
+		private final BigDecimal expectedNumber;
+		private final Pattern pattern;
+
+		private ValueCondition(final String expectedValue, final Pattern pattern) {
+			this.expectedValue = expectedValue;
+			this.pattern = pattern;
+			expectedNumber = expectedValue == null ? null : parseNumber(expectedValue);
+		}
+
+		public static ValueCondition parse(final String condition) throws Exception {
+			if ("exists".equalsIgnoreCase(condition)) {
+				return new ValueCondition(null, null);
+			} else if (condition.startsWith("==")) {
+				String expectedValue = condition.substring(2).trim();
+				if (expectedValue.length() >= 2 && expectedValue.startsWith("\"") && expectedValue.endsWith("\"")) {
+					expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
+				}
+				return new ValueCondition(expectedValue, null);
+			} else if (condition.startsWith("~")) {
+				return new ValueCondition(null, compilePattern(condition.substring(1).trim()));
+			} else {
+				throw new Exception("Expected condition: exists, == <value> or ~ <regex>");
+			}
+		}
+
+		public String check(final String value, final String valueName) {
+			if (value == null) {
+				return valueName + " does not exist";
+			} else if (pattern != null) {
+				return pattern.matcher(value).find() ? null : valueName + " is '" + value + "'";
+			} else if (expectedValue != null) {
+				if (expectedValue.equals(value)) {
+					return null;
+				} else if (expectedNumber != null) {
+					final BigDecimal number = parseNumber(value);
+					if (number != null && number.compareTo(expectedNumber) == 0) {
+						return null;
+					}
+				}
+				return valueName + " is '" + value + "'";
+			} else {
+				return null;
+			}
+		}
+
+		private static BigDecimal parseNumber(final String value) {
+			if (value.isEmpty() || !(Character.isDigit(value.charAt(0)) || value.charAt(0) == '-')) {
+				return null;
+			}
+			try {
+				return new BigDecimal(value);
+			} catch (@SuppressWarnings("unused") final NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+
+	private static Pattern compilePattern(final String regex) throws Exception {
+		if (regex.isEmpty()) {
+			throw new Exception("Missing regular expression");
+		}
+		try {
+			return Pattern.compile(regex);
+		} catch (final PatternSyntaxException e) {
+			throw new Exception("Invalid regular expression: " + e.getDescription());
+		}
+	}
+
+	private static String getHeaderValue(final Map<String, String> headers, final String headerName) {
+		if (headers == null) {
+			return null;
+		}
+		final String value = headers.get(headerName);
+		if (value != null) {
+			return value;
+		}
+		// Header names are case insensitive
+		for (final Entry<String, String> header : headers.entrySet()) {
+			if (headerName.equalsIgnoreCase(header.getKey())) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+	private ResponseAssertions(final List<Assertion> assertions) {
+		this.assertions = assertions;
+		boolean contentNeeded = false;
+		for (final Assertion assertion : assertions) {
+			contentNeeded |= assertion.isContentNeeded();
+		}
+		this.contentNeeded = contentNeeded;
+	}
+
+	public boolean isEmpty() {
+		return assertions.isEmpty();
+	}
+
+	public int size() {
+		return assertions.size();
+	}
+
+	/**
+	 * @return true if at least one assertion checks the response body
+	 */
+	public boolean isContentNeeded() {
+		return contentNeeded;
+	}
+
+	/**
+	 * @return null if all assertions hold, otherwise the first failed assertion
+	 */
+	public AssertionFailure check(final Map<String, String> headers, final String content, final long durationNanos) {
+		for (final Assertion assertion : assertions) {
+			final String failureDetails = assertion.check(headers, content, durationNanos);
+			if (failureDetails != null) {
+				return new AssertionFailure(assertion.definition, failureDetails);
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,139 @@
+package de.soderer.restclient.worker;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * Counts the results of all workers of a pool by category (e.g. HTTP status code or kind of
+ * error), so failures under load can be diagnosed. Each category also keeps the latest error
+ * message as example.
+ */
+public class ResultBreakdown {
+	public static final String CATEGORY_CONNECT_TIMEOUT = "Connect timeout";
+	public static final String CATEGORY_READ_TIMEOUT = "Read timeout";
+	public static final String CATEGORY_CONNECTION_REFUSED = "Connection refused";
+	public static final String CATEGORY_UNKNOWN_HOST = "Unknown host";
+	public static final String CATEGORY_NO_ROUTE_TO_HOST = "No route to host";
+	public static final String CATEGORY_TLS_FAILURE = "TLS failure";
+	public static final String CATEGORY_CONNECTION_RESET = "Connection reset";
+	public static final String CATEGORY_ASSERTION_FAILED_PREFIX = "Assertion failed: ";
+
+	private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+	private final Map<String, String> examples = new ConcurrentHashMap<>();
+
+	public static class ResultCategoryCount {
+		private final String category;
+		private final long count;
+		private final String example;
+
+		public ResultCategoryCount(final String category, final long count, final String example) {
+			this.category = category;
+			this.count = count;
+			this.example = example;
+		}
+
+		public String getCategory() {
+			return category;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public String getExample() {
+			return example;
+		}
+	}
+
+	public void add(final String category, final String example) {
+		counts.computeIfAbsent(category, k -> new LongAdder()).increment();
+		if (example != null) {
+			examples.put(category, example);
+		}
+	}
+
+	/**
+	 * @return all categories, HTTP status codes first, each group ordered by name
+	 */
+	public List<ResultCategoryCount> getResultCategoryCounts() {
+		final List<ResultCategoryCount> result = new ArrayList<>();
+		for (final Entry<String, LongAdder> entry : counts.entrySet()) {
+			result.add(new ResultCategoryCount(entry.getKey(), entry.getValue().sum(), examples.get(entry.getKey())));
+		}
+		result.sort((r1, r2) -> {
+			final boolean r1IsHttp = r1.getCategory().startsWith("HTTP ");
+			final boolean r2IsHttp = r2.getCategory().startsWith("HTTP ");
+			if (r1IsHttp != r2IsHttp) {
+				return r1IsHttp ? -1 : 1;
+			} else {
+				return r1.getCategory().compareTo(r2.getCategory());
+			}
+		});
+		return result;
+	}
+
+	public static String getHttpStatusCategory(final int httpCode) {
+		return "HTTP " + httpCode;
+	}
+
+	/**
+	 * Classifies an error by the most specific known exception in its cause chain. Workers
+	 * typically wrap the original exception, so the exception itself is often not meaningful.
+	 */
+	public static String getErrorCategory(final Throwable throwable) {
+		Throwable rootCause = throwable;
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof HttpConnectTimeoutException) {
+				return CATEGORY_CONNECT_TIMEOUT;
+			} else if (cause instanceof HttpTimeoutException) {
+				return CATEGORY_READ_TIMEOUT;
+			} else if (cause instanceof SocketTimeoutException) {
+				// HttpURLConnection signals connect timeouts by message only
+				if (cause.getMessage() != null && cause.getMessage().toLowerCase().contains("connect")) {
+					return CATEGORY_CONNECT_TIMEOUT;
+				} else {
+					return CATEGORY_READ_TIMEOUT;
+				}
+			} else if (cause instanceof UnknownHostException) {
+				return CATEGORY_UNKNOWN_HOST;
+			} else if (cause instanceof NoRouteToHostException) {
+				return CATEGORY_NO_ROUTE_TO_HOST;
+			} else if (cause instanceof ConnectException) {
+				return CATEGORY_CONNECTION_REFUSED;
+			} else if (cause instanceof SSLException) {
+				return CATEGORY_TLS_FAILURE;
+			} else if (cause instanceof SocketException && cause.getMessage() != null && cause.getMessage().toLowerCase().contains("reset")) {
+				return CATEGORY_CONNECTION_RESET;
+			}
+			rootCause = cause;
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return rootCause.getClass().getSimpleName();
+	}
+
+	/**
+	 * @return the message of the innermost exception, which is the most specific one
+	 */
+	public static String getErrorMessage(final Throwable throwable) {
+		Throwable rootCause = throwable;
+		while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
+			rootCause = rootCause.getCause();
+		}
+		return rootCause.getClass().getSimpleName() + (rootCause.getMessage() == null ? "" : ": " + rootCause.getMessage());
+	}
+}
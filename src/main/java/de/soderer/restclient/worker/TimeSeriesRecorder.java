@@ -0,0 +1,140 @@
+package de.soderer.restclient.worker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the statistics of all workers of a pool in a fixed interval and keeps the per interval
+ * values (requests/s, errors/s, duration percentiles) in a ring buffer of fixed size.
+ *
+ * Interval durations are calculated as difference of the merged worker histograms of two
+ * consecutive samples, so the workers themselves have no extra effort for this.
+ */
+public class TimeSeriesRecorder {
+	/** Enough for 24 hours in the default interval of one second */
+	public static final int DEFAULT_CAPACITY = 24 * 60 * 60;
+
+	private final WorkerPool workerPool;
+	private final Duration interval;
+	private final TimeSeriesSample[] samples;
+	private int nextSampleIndex = 0;
+	private int sampleCount = 0;
+
+	private ScheduledExecutorService scheduler;
+	private long startNanos;
+	private long previousSampleNanos;
+	private long previousSuccessCount = 0;
+	private long previousErrorCount = 0;
+	private LatencyHistogram previousHistogram = new LatencyHistogram();
+
+	public TimeSeriesRecorder(final WorkerPool workerPool, final Duration interval, final int capacity) {
+		this.workerPool = workerPool;
+		this.interval = interval;
+		samples = new TimeSeriesSample[capacity];
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public void start(final long poolStartNanos) {
+		startNanos = poolStartNanos;
+		previousSampleNanos = poolStartNanos;
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "TimeSeriesRecorder");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(this::takeSample, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stops sampling and takes a last sample for the time since the previous one
+	 */
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+			takeSample();
+		}
+	}
+
+	private synchronized void takeSample() {
+		final long sampleNanos = System.nanoTime();
+		if (sampleNanos <= previousSampleNanos) {
+			return;
+		}
+
+		long successCount = 0;
+		long errorCount = 0;
+		for (final WorkerStats workerStats : workerPool.getWorkerStatsList()) {
+			successCount += workerStats.getSuccessCount();
+			errorCount += workerStats.getErrorCount();
+		}
+		final LatencyHistogram currentHistogram = workerPool.getPoolLatencyHistogram();
+
+		final LatencyHistogram intervalHistogram = new LatencyHistogram();
+		intervalHistogram.add(currentHistogram);
+		intervalHistogram.subtract(previousHistogram);
+
+		final long[] percentileNanos = new long[WorkerPool.REPORTED_PERCENTILES.length];
+		for (int i = 0; i < percentileNanos.length; i++) {
+			percentileNanos[i] = intervalHistogram.getValueAtPercentile(WorkerPool.REPORTED_PERCENTILES[i]);
+		}
+
+		samples[nextSampleIndex] = new TimeSeriesSample(
+				Duration.ofNanos(sampleNanos - startNanos),
+				Duration.ofNanos(sampleNanos - previousSampleNanos),
+				Math.max(0, successCount - previousSuccessCount),
+				Math.max(0, errorCount - previousErrorCount),
+				percentileNanos,
+				intervalHistogram.getMaximumNanos());
+		nextSampleIndex = (nextSampleIndex + 1) % samples.length;
+		sampleCount = Math.min(sampleCount + 1, samples.length);
+
+		previousSampleNanos = sampleNanos;
+		previousSuccessCount = successCount;
+		previousErrorCount = errorCount;
+		previousHistogram = currentHistogram;
+	}
+
+	/**
+	 * @return the samples in the ring buffer, oldest first
+	 */
+	public synchronized List<TimeSeriesSample> getSamples() {
+		final List<TimeSeriesSample> result = new ArrayList<>(sampleCount);
+		for (int i = 0; i < sampleCount; i++) {
+			result.add(samples[(nextSampleIndex - sampleCount + i + samples.length) % samples.length]);
+		}
+		return result;
+	}
+
+	public String getTimeSeriesCSV() {
+		final StringBuilder result = new StringBuilder();
+		result.append("Offset seconds;Interval seconds;Success count;Error count;Requests per second;Errors per second");
+		for (final double percentile : WorkerPool.REPORTED_PERCENTILES) {
+			result.append(";").append(WorkerPool.getPercentileTitle(percentile)).append(" duration ms");
+		}
+		result.append(";Maximum duration ms\n");
+
+		for (final TimeSeriesSample sample : getSamples()) {
+			result.append(String.format(Locale.ENGLISH, "%.3f;%.3f;%d;%d;%.2f;%.2f",
+					sample.getOffset().toNanos() / 1_000_000_000.0,
+					sample.getInterval().toNanos() / 1_000_000_000.0,
+					sample.getSuccessCount(),
+					sample.getErrorCount(),
+					sample.getRequestsPerSecond(),
+					sample.getErrorsPerSecond()));
+			for (int i = 0; i < WorkerPool.REPORTED_PERCENTILES.length; i++) {
+				result.append(String.format(Locale.ENGLISH, ";%.3f", sample.getPercentileNanos(i) / 1_000_000.0));
+			}
+			result.append(String.format(Locale.ENGLISH, ";%.3f%n", sample.getMaximumNanos() / 1_000_000.0));
+		}
+		return result.toString();
+	}
+}
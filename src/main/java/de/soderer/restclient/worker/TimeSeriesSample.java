@@ -0,0 +1,64 @@
+package de.soderer.restclient.worker;
+
+import java.time.Duration;
+
+/**
+ * Throughput and durations of all workers of a pool within one sampling interval
+ */
+public class TimeSeriesSample {
+	private final Duration offset;
+	private final Duration interval;
+	private final long successCount;
+	private final long errorCount;
+	private final long[] percentileNanos;
+	private final long maximumNanos;
+
+	/**
+	 * @param offset end of the interval, relative to the pool start
+	 * @param percentileNanos durations at the {@link WorkerPool#REPORTED_PERCENTILES}
+	 */
+	public TimeSeriesSample(final Duration offset, final Duration interval, final long successCount, final long errorCount, final long[] percentileNanos, final long maximumNanos) {
+		this.offset = offset;
+		this.interval = interval;
+		this.successCount = successCount;
+		this.errorCount = errorCount;
+		this.percentileNanos = percentileNanos;
+		this.maximumNanos = maximumNanos;
+	}
+
+	public Duration getOffset() {
+		return offset;
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public long getSuccessCount() {
+		return successCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public double getRequestsPerSecond() {
+		return interval.isZero() ? 0 : (successCount + errorCount) * 1_000_000_000.0 / interval.toNanos();
+	}
+
+	public double getErrorsPerSecond() {
+		return interval.isZero() ? 0 : errorCount * 1_000_000_000.0 / interval.toNanos();
+	}
+
+	/**
+	 * @param percentileIndex index in {@link WorkerPool#REPORTED_PERCENTILES}
+	 * @return 0 if there were no requests within this interval
+	 */
+	public long getPercentileNanos(final int percentileIndex) {
+		return percentileNanos[percentileIndex];
+	}
+
+	public long getMaximumNanos() {
+		return maximumNanos;
+	}
+}
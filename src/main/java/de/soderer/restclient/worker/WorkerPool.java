@@ -0,0 +1,803 @@
+package de.soderer.restclient.worker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import de.soderer.utilities.DateUtilities;
+import de.soderer.utilities.worker.WorkerSimple;
+
+/**
+ * UI-free scheduling engine for multiple parallel workers, each repeating the task created by
+ * {@link #createWorker(WorkerStats, int, long)}. Used by the worker pool dialog as well as by the headless CLI load test,
+ * so the SWT display thread never sits in the measurement path.
+ */
+public abstract class WorkerPool {
+	/**
+	 * Callbacks for observers of a running pool. They are called on the worker threads, so
+	 * implementations must hand over to their own thread (e.g. SWT display thread) themselves.
+	 */
+	public interface WorkerPoolListener {
+		void taskFinished(WorkerStats workerStats, long progress);
+
+		void workerFinished(WorkerStats workerStats);
+	}
+
+	/** Maximum number of workers on platform threads, each of them blocks one OS thread while waiting for a response */
+	public static final int MAXIMUM_PLATFORM_THREAD_WORKERS = 100;
+	/** Maximum number of workers on virtual threads, limited by the statistics memory per worker */
+	public static final int MAXIMUM_VIRTUAL_THREAD_WORKERS = 10000;
+	/** Maximum number of workers (tasks in flight) in asynchronous mode, which needs no thread per worker */
+	public static final int MAXIMUM_ASYNCHRONOUS_WORKERS = 100000;
+
+	/** Percentiles shown in addition to minimum, average and maximum duration */
+	public static final double[] REPORTED_PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+
+	private final List<WorkerStats> workerStatsList = new ArrayList<>();
+	private final AtomicLong progress = new AtomicLong(0);
+	private final AtomicInteger runningWorkers = new AtomicInteger(0);
+	/** Next slot in the timetable of the open model */
+	private final AtomicLong nextScheduledTask = new AtomicLong(0);
+	private final ResultBreakdown resultBreakdown = new ResultBreakdown();
+	private volatile boolean cancelled = false;
+
+	private ExecutorService executor;
+	private ExecutorService ioExecutor;
+	/** Statistics of the current I/O thread in asynchronous mode, each I/O thread is the single writer of its own statistics */
+	private final ThreadLocal<WorkerStats> ioThreadWorkerStats = new ThreadLocal<>();
+
+	private int workerCount = 1;
+	private int tasksPerWorker = 1;
+	private Duration sleepTime = null;
+	private LocalDateTime poolStart = null;
+	private long poolStartNanos;
+	private LocalDateTime poolEnd = null;
+	private Duration rampUpTime = null;
+	private double targetRequestsPerSecond = 0;
+	private boolean useVirtualThreads = false;
+	private long usedHeapBytesBeforeStart = -1;
+	private Duration samplingInterval = Duration.ofSeconds(1);
+	private TimeSeriesRecorder timeSeriesRecorder = null;
+	private int ioThreadCount = 0;
+	private long processCpuTimeNanosAtStart = -1;
+	private long processCpuTimeNanosAtEnd = -1;
+	private long poolEndNanos;
+
+	public void setParallelWorkerAmount(final int workerCount) {
+		this.workerCount = workerCount;
+	}
+
+	public int getParallelWorkerAmount() {
+		return workerCount;
+	}
+
+	/**
+	 * @param tasksPerWorker number of repetitions per worker, -1 for unlimited repetitions until {@link #cancel()}
+	 */
+	public void setRepetitionsPerWorker(final int tasksPerWorker) {
+		this.tasksPerWorker = tasksPerWorker;
+	}
+
+	public int getRepetitionsPerWorker() {
+		return tasksPerWorker;
+	}
+
+	public void setSleepTime(final Duration sleepTime) {
+		this.sleepTime = sleepTime;
+	}
+
+	/**
+	 * Switches from the closed model (each worker repeats its task after the previous one has
+	 * finished plus sleep time) to the open model: Tasks are started on a fixed timetable of the
+	 * given rate, regardless of how fast the server responds. The workers then only limit the
+	 * number of concurrently running tasks and the sleep time is ignored.
+	 * Durations are measured from the scheduled start time, so time a task had to wait for a free
+	 * worker is included (no coordinated omission).
+	 *
+	 * @param targetRequestsPerSecond 0 for the closed model
+	 */
+	public void setTargetRequestsPerSecond(final double targetRequestsPerSecond) {
+		this.targetRequestsPerSecond = targetRequestsPerSecond;
+	}
+
+	public double getTargetRequestsPerSecond() {
+		return targetRequestsPerSecond;
+	}
+
+	public boolean isOpenModel() {
+		return targetRequestsPerSecond > 0;
+	}
+
+	/**
+	 * Run each worker on a virtual thread instead of a pooled platform thread. Available on Java 21
+	 * and higher only, see {@link #isVirtualThreadsAvailable()}.
+	 */
+	public void setUseVirtualThreads(final boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	/**
+	 * Virtual threads are part of Java 21 and higher, but this application is built for Java 17,
+	 * so their executor is looked up at runtime
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (@SuppressWarnings("unused") final NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static ExecutorService createVirtualThreadPerTaskExecutor() throws Exception {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (@SuppressWarnings("unused") final NoSuchMethodException e) {
+			throw new Exception("Virtual threads are not available in Java version " + System.getProperty("java.version") + " (Java 21 or higher needed)");
+		}
+	}
+
+	/**
+	 * Switches to the asynchronous mode: A single dispatcher thread starts the tasks as
+	 * CompletableFutures (see {@link #createAsyncTask(Executor, long)}) and their results are recorded
+	 * on a small fixed set of I/O threads, so no thread waits for a response. The number of workers
+	 * is then the maximum number of tasks in flight and statistics are kept per I/O thread.
+	 *
+	 * @param ioThreadCount 0 for the blocking mode with one thread per worker
+	 */
+	public void setAsynchronousIoThreadCount(final int ioThreadCount) {
+		this.ioThreadCount = ioThreadCount;
+	}
+
+	public int getAsynchronousIoThreadCount() {
+		return ioThreadCount;
+	}
+
+	public boolean isAsynchronous() {
+		return ioThreadCount > 0;
+	}
+
+	public static int getDefaultIoThreadCount() {
+		return Math.max(2, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Number of statistics entries: One per worker, in asynchronous mode one per I/O thread
+	 */
+	public int getWorkerStatsCount() {
+		return isAsynchronous() ? ioThreadCount : workerCount;
+	}
+
+	/**
+	 * Approximate heap memory used per worker since the pool was started, including the
+	 * statistics and, in virtual thread mode, the stacks of the workers. Garbage not yet collected
+	 * is included too, so this is only an estimate.
+	 *
+	 * @return -1 if the pool was not started yet
+	 */
+	public long getUsedHeapBytesPerWorker() {
+		if (usedHeapBytesBeforeStart < 0 || workerCount <= 0) {
+			return -1;
+		} else {
+			return Math.max(0, getUsedHeapBytes() - usedHeapBytesBeforeStart) / workerCount;
+		}
+	}
+
+	private static long getUsedHeapBytes() {
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+
+	/**
+	 * Average CPU load of this whole process since the pool was started (1.0 = all cores fully
+	 * used), which shows the load test's own effort
+	 *
+	 * @return -1 if the pool was not started yet or the JVM does not provide the process CPU time
+	 */
+	public double getAverageProcessCpuLoad() {
+		if (processCpuTimeNanosAtStart < 0) {
+			return -1;
+		}
+
+		final long cpuTimeNanos;
+		final long elapsedNanos;
+		if (processCpuTimeNanosAtEnd >= 0) {
+			cpuTimeNanos = processCpuTimeNanosAtEnd - processCpuTimeNanosAtStart;
+			elapsedNanos = poolEndNanos - poolStartNanos;
+		} else {
+			cpuTimeNanos = getProcessCpuTimeNanos() - processCpuTimeNanosAtStart;
+			elapsedNanos = System.nanoTime() - poolStartNanos;
+		}
+		if (elapsedNanos <= 0) {
+			return -1;
+		} else {
+			return Math.min(1.0, (double) cpuTimeNanos / elapsedNanos / Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	private static long getProcessCpuTimeNanos() {
+		final OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+		if (operatingSystemMXBean instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) operatingSystemMXBean).getProcessCpuTime();
+		} else {
+			return -1;
+		}
+	}
+
+	/**
+	 * Interval of the time series of throughput and durations of all workers
+	 */
+	public void setSamplingInterval(final Duration samplingInterval) {
+		this.samplingInterval = samplingInterval;
+	}
+
+	public Duration getSamplingInterval() {
+		return samplingInterval;
+	}
+
+	/**
+	 * @return null if the pool was not started yet
+	 */
+	public TimeSeriesRecorder getTimeSeriesRecorder() {
+		return timeSeriesRecorder;
+	}
+
+	public void setRampUpTime(final Duration rampUpTime) {
+		this.rampUpTime = rampUpTime;
+	}
+
+	public Duration getRampUpTime() {
+		return rampUpTime;
+	}
+
+	/**
+	 * Overall number of tasks of all workers, -1 for unlimited repetitions
+	 */
+	public long getTasksToDo() {
+		if (tasksPerWorker >= 0) {
+			return (long) workerCount * tasksPerWorker;
+		} else {
+			return -1;
+		}
+	}
+
+	public long getProgress() {
+		return progress.get();
+	}
+
+	public LocalDateTime getPoolStart() {
+		return poolStart;
+	}
+
+	public LocalDateTime getPoolEnd() {
+		return poolEnd;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isFinished() {
+		return poolStart != null && runningWorkers.get() == 0;
+	}
+
+	public List<WorkerStats> getWorkerStatsList() {
+		return Collections.unmodifiableList(workerStatsList);
+	}
+
+	/**
+	 * @return errors of all workers, including the responses failing an assertion
+	 */
+	public long getErrorCount() {
+		long errorCount = 0;
+		for (final WorkerStats workerStats : workerStatsList) {
+			errorCount += workerStats.getErrorCount();
+		}
+		return errorCount;
+	}
+
+	public void start(final WorkerPoolListener listener) throws Exception {
+		if (poolStart != null) {
+			throw new IllegalStateException("WorkerPool was already started");
+		}
+
+		usedHeapBytesBeforeStart = getUsedHeapBytes();
+
+		for (int i = 0; i < getWorkerStatsCount(); i++) {
+			workerStatsList.add(new WorkerStats(i + 1));
+		}
+
+		if (isAsynchronous()) {
+			// The dispatcher runs on the executor, so cancel() and awaitTermination() work the same as for the blocking mode
+			executor = Executors.newSingleThreadExecutor();
+			// Each I/O thread owns the statistics of one slot (single writer). A thread terminated by an
+			// exception frees its slot for its replacement, a slot is never shared by two running threads.
+			final Queue<WorkerStats> freeIoThreadWorkerStats = new ConcurrentLinkedQueue<>(workerStatsList);
+			ioExecutor = new ThreadPoolExecutor(ioThreadCount, ioThreadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				final WorkerStats ws = freeIoThreadWorkerStats.poll();
+				if (ws == null) {
+					// Refuse the thread, the executor goes on with its remaining threads
+					return null;
+				}
+				final Thread thread = new Thread(() -> {
+					ioThreadWorkerStats.set(ws);
+					runnable.run();
+				}, "WorkerPool-IO-" + ws.getWorkerId());
+				thread.setDaemon(true);
+				return thread;
+			}) {
+				@Override
+				protected void afterExecute(final Runnable runnable, final Throwable throwable) {
+					if (throwable != null) {
+						// This thread terminates after this call and records no more results
+						freeIoThreadWorkerStats.add(ioThreadWorkerStats.get());
+					}
+				}
+			};
+		} else if (useVirtualThreads) {
+			executor = createVirtualThreadPerTaskExecutor();
+		} else {
+			executor = Executors.newFixedThreadPool(workerCount);
+		}
+
+		processCpuTimeNanosAtStart = getProcessCpuTimeNanos();
+		poolStart = LocalDateTime.now();
+		poolStartNanos = System.nanoTime();
+
+		timeSeriesRecorder = new TimeSeriesRecorder(this, samplingInterval, TimeSeriesRecorder.DEFAULT_CAPACITY);
+		timeSeriesRecorder.start(poolStartNanos);
+
+		if (isAsynchronous()) {
+			runningWorkers.set(1);
+			executor.submit(() -> {
+				try {
+					runAsynchronous(listener);
+				} finally {
+					ioExecutor.shutdown();
+					runningWorkers.decrementAndGet();
+					poolFinished();
+					if (listener != null) {
+						for (final WorkerStats ws : workerStatsList) {
+							listener.workerFinished(ws);
+						}
+					}
+				}
+			});
+		} else {
+			runningWorkers.set(workerCount);
+			for (final WorkerStats ws : workerStatsList) {
+				executor.submit(() -> {
+					try {
+						if (isOpenModel()) {
+							runWorkerOpenModel(ws, listener);
+						} else {
+							runWorker(ws, listener);
+						}
+					} finally {
+						if (runningWorkers.decrementAndGet() == 0) {
+							poolFinished();
+						}
+						if (listener != null) {
+							listener.workerFinished(ws);
+						}
+					}
+				});
+			}
+		}
+
+		executor.shutdown();
+	}
+
+	private void poolFinished() {
+		timeSeriesRecorder.stop();
+		poolEndNanos = System.nanoTime();
+		processCpuTimeNanosAtEnd = getProcessCpuTimeNanos();
+		poolEnd = LocalDateTime.now();
+		closeResources();
+	}
+
+	private void runWorker(final WorkerStats ws, final WorkerPoolListener listener) {
+		final long rampUpNanos = rampUpTime == null ? 0 : rampUpTime.toNanos();
+		for (int j = 0; (tasksPerWorker == -1 || j < tasksPerWorker) && !cancelled; j++) {
+			final long startNanos = System.nanoTime();
+			executeTask(ws, ws.getWorkerId(), j + 1, listener, startNanos, startNanos - poolStartNanos >= rampUpNanos);
+
+			if ((tasksPerWorker == -1 || j < tasksPerWorker - 1) && !cancelled && sleepTime != null) {
+				try {
+					Thread.sleep(sleepTime.toMillis());
+				} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Open model: Each worker takes the next free slot of the pool-wide timetable, waits for its
+	 * scheduled time and executes the task. If all workers are busy, the slot is started late and
+	 * its duration includes the delay.
+	 */
+	private void runWorkerOpenModel(final WorkerStats ws, final WorkerPoolListener listener) {
+		final long rampUpNanos = rampUpTime == null ? 0 : rampUpTime.toNanos();
+		final double intervalNanos = 1_000_000_000.0 / targetRequestsPerSecond;
+		final long tasksToDo = getTasksToDo();
+		while (!cancelled) {
+			final long scheduledTask = nextScheduledTask.getAndIncrement();
+			if (tasksToDo >= 0 && scheduledTask >= tasksToDo) {
+				return;
+			}
+
+			final long scheduledStartNanos = poolStartNanos + (long) (scheduledTask * intervalNanos);
+			long waitNanos;
+			while ((waitNanos = scheduledStartNanos - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(waitNanos);
+				if (cancelled || Thread.interrupted()) {
+					return;
+				}
+			}
+
+			// Which worker takes a slot is not predictable, so the task is identified by its slot only
+			executeTask(ws, 0, scheduledTask + 1, listener, scheduledStartNanos, scheduledStartNanos - poolStartNanos >= rampUpNanos);
+		}
+	}
+
+	/**
+	 * Asynchronous mode: Starts the tasks without waiting for their results, limited by the number
+	 * of tasks in flight (= number of workers). Results are recorded by the I/O threads. In the
+	 * closed model a finished task frees its slot after the sleep time.
+	 */
+	private void runAsynchronous(final WorkerPoolListener listener) {
+		final long rampUpNanos = rampUpTime == null ? 0 : rampUpTime.toNanos();
+		final double intervalNanos = isOpenModel() ? 1_000_000_000.0 / targetRequestsPerSecond : 0;
+		final long tasksToDo = getTasksToDo();
+		final Semaphore tasksInFlight = new Semaphore(workerCount);
+		final Executor completionExecutor = completion -> {
+			try {
+				ioExecutor.execute(completion);
+			} catch (@SuppressWarnings("unused") final RejectedExecutionException e) {
+				// Cancelled: The result is not recorded anymore, but its permit must not get lost
+				tasksInFlight.release();
+			}
+		};
+		try {
+			for (long taskIndex = 0; (tasksToDo < 0 || taskIndex < tasksToDo) && !cancelled; taskIndex++) {
+				final long startNanos;
+				if (isOpenModel()) {
+					final long scheduledStartNanos = poolStartNanos + (long) (taskIndex * intervalNanos);
+					long waitNanos;
+					while ((waitNanos = scheduledStartNanos - System.nanoTime()) > 0) {
+						LockSupport.parkNanos(waitNanos);
+						if (cancelled || Thread.interrupted()) {
+							return;
+						}
+					}
+					tasksInFlight.acquire();
+					startNanos = scheduledStartNanos;
+				} else {
+					tasksInFlight.acquire();
+					startNanos = System.nanoTime();
+				}
+				final boolean countInStatistics = startNanos - poolStartNanos >= rampUpNanos;
+				final long taskIteration = taskIndex + 1;
+
+				CompletableFuture<?> asyncTask;
+				try {
+					asyncTask = createAsyncTask(ioExecutor, taskIteration);
+				} catch (final Exception e) {
+					asyncTask = CompletableFuture.failedFuture(e);
+				}
+				asyncTask.whenCompleteAsync((taskResult, taskError) -> {
+					try {
+						recordTaskResult(ioThreadWorkerStats.get(), 0, taskIteration, listener, startNanos, countInStatistics, taskResult, taskError);
+					} finally {
+						if (!isOpenModel() && sleepTime != null && !sleepTime.isZero()) {
+							CompletableFuture.delayedExecutor(sleepTime.toNanos(), TimeUnit.NANOSECONDS).execute(tasksInFlight::release);
+						} else {
+							tasksInFlight.release();
+						}
+					}
+				}, completionExecutor);
+			}
+
+			// Wait for the tasks still in flight
+			tasksInFlight.acquire(workerCount);
+		} catch (@SuppressWarnings("unused") final InterruptedException e) {
+			// Cancelled
+		}
+	}
+
+	/**
+	 * @param taskWorkerId worker of the task, 0 if the task is identified by a pool-wide number
+	 * @param taskIteration 1-based number of the task of the worker, or pool-wide
+	 * @param startNanos point in time the duration of this task is measured from (actual or scheduled start)
+	 */
+	private void executeTask(final WorkerStats ws, final int taskWorkerId, final long taskIteration, final WorkerPoolListener listener, final long startNanos, final boolean countInStatistics) {
+		try {
+			final WorkerSimple<?> worker = createWorker(ws, taskWorkerId, taskIteration);
+			recordTaskResult(ws, taskWorkerId, taskIteration, listener, startNanos, countInStatistics, worker.work(), null);
+		} catch (final Exception e) {
+			recordTaskResult(ws, taskWorkerId, taskIteration, listener, startNanos, countInStatistics, null, e);
+		}
+	}
+
+	/**
+	 * @param taskError null if the task returned a result
+	 */
+	private void recordTaskResult(final WorkerStats ws, final int taskWorkerId, final long taskIteration, final WorkerPoolListener listener, final long startNanos, final boolean countInStatistics, final Object taskResult, final Throwable taskError) {
+		final long durationNanos = System.nanoTime() - startNanos;
+		if (taskError == null) {
+			recordPartialResults(ws, taskResult, countInStatistics);
+			final boolean success = checkForSuccess(taskResult);
+			final ResponseAssertions.AssertionFailure assertionFailure = success ? checkAssertions(taskResult, durationNanos) : null;
+			if (assertionFailure != null) {
+				ws.addAssertionFailure(durationNanos, countInStatistics);
+				if (countInStatistics) {
+					resultBreakdown.add(ResultBreakdown.CATEGORY_ASSERTION_FAILED_PREFIX + assertionFailure.getAssertion(), getFailureExample(assertionFailure.getDetails(), taskWorkerId, taskIteration));
+					countResult(taskResult, false);
+				}
+			} else {
+				if (success) {
+					ws.addSuccess(durationNanos, countInStatistics);
+				} else {
+					ws.addError(durationNanos, countInStatistics);
+				}
+				if (countInStatistics) {
+					resultBreakdown.add(getResultCategory(taskResult, success), success ? null : getFailureExample(getFailureDetails(taskResult), taskWorkerId, taskIteration));
+					countResult(taskResult, success);
+				}
+			}
+		} else {
+			ws.addError(durationNanos, countInStatistics);
+			if (countInStatistics) {
+				resultBreakdown.add(ResultBreakdown.getErrorCategory(taskError), getFailureExample(ResultBreakdown.getErrorMessage(taskError), taskWorkerId, taskIteration));
+			}
+		}
+
+		final long current = progress.incrementAndGet();
+		if (listener != null) {
+			listener.taskFinished(ws, current);
+		}
+	}
+
+	/**
+	 * Failures of reproducible runs name their task, so the failing task can be regenerated
+	 */
+	private String getFailureExample(final String details, final int taskWorkerId, final long taskIteration) {
+		if (!isReproducible()) {
+			return details;
+		} else {
+			final String task = (taskWorkerId > 0 ? "Worker " + taskWorkerId + ", iteration " : "Task ") + taskIteration;
+			return details == null ? task : details + " (" + task + ")";
+		}
+	}
+
+	public void cancel() {
+		cancelled = true;
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		if (ioExecutor != null) {
+			ioExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Blocks until all workers have finished or the timeout has passed
+	 *
+	 * @return true if all workers have finished
+	 */
+	public boolean awaitTermination(final Duration timeout) throws InterruptedException {
+		if (executor == null) {
+			return true;
+		} else {
+			return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public ResultBreakdown getResultBreakdown() {
+		return resultBreakdown;
+	}
+
+	/**
+	 * Merged durations of all workers
+	 */
+	public LatencyHistogram getPoolLatencyHistogram() {
+		return getMergedLatencyHistogram(workerStatsList);
+	}
+
+	/**
+	 * Merged durations of the given statistics, e.g. of additional series of durations of parts of the tasks
+	 */
+	public static LatencyHistogram getMergedLatencyHistogram(final List<WorkerStats> workerStatsList) {
+		final LatencyHistogram mergedLatencyHistogram = new LatencyHistogram();
+		for (final WorkerStats ws : workerStatsList) {
+			ws.addDurationsTo(mergedLatencyHistogram);
+		}
+		return mergedLatencyHistogram;
+	}
+
+	public static String getPercentileTitle(final double percentile) {
+		return "P" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile));
+	}
+
+	public String getResultsCSV() {
+		final StringBuilder result = new StringBuilder(getWorkerStatsCSV(workerStatsList));
+		result.append("\n");
+		result.append("Result;Count;Example\n");
+		for (final ResultBreakdown.ResultCategoryCount resultCategoryCount : resultBreakdown.getResultCategoryCounts()) {
+			result.append(String.format("%s;%d;%s%n",
+					resultCategoryCount.getCategory(),
+					resultCategoryCount.getCount(),
+					(resultCategoryCount.getExample() == null ? "" : resultCategoryCount.getExample().replace(";", ",").replace("\r", " ").replace("\n", " "))));
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Rows of the given statistics and their overall row, e.g. for additional series of durations
+	 * of parts of the tasks
+	 */
+	protected static String getWorkerStatsCSV(final List<WorkerStats> workerStatsList) {
+		final StringBuilder result = new StringBuilder();
+		result.append("WorkerID;Success count;Error count;Assertion failures;Latest duration;Latest status;Minimum duration;Average duration;Maximum duration");
+		for (final double percentile : REPORTED_PERCENTILES) {
+			result.append(";").append(getPercentileTitle(percentile)).append(" duration");
+		}
+		result.append("\n");
+
+		long overallSuccessCount = 0;
+		long overallErrorCount = 0;
+		long overallAssertionFailureCount = 0;
+		final LatencyHistogram workerLatencyHistogram = new LatencyHistogram();
+		for (final WorkerStats workerStats : workerStatsList) {
+			final WorkerStatsSnapshot ws = workerStats.getSnapshot();
+			workerLatencyHistogram.reset();
+			workerStats.addDurationsTo(workerLatencyHistogram);
+			result.append(String.format("%d;%d;%d;%d;%s;%s;%s;%s;%s",
+					ws.getWorkerId(),
+					ws.getSuccessCount(),
+					ws.getErrorCount(),
+					ws.getAssertionFailureCount(),
+					formatDuration(ws.getLatestDuration()),
+					(ws.getLatestStatusWasSuccess() == null ? "" : (ws.getLatestStatusWasSuccess() ? "success" : "error")),
+					formatDuration(ws.getMinimumDuration()),
+					formatDuration(ws.getAverageDuration()),
+					formatDuration(ws.getMaximumDuration())));
+			for (final double percentile : REPORTED_PERCENTILES) {
+				result.append(";").append(formatDuration(workerLatencyHistogram.getDurationAtPercentile(percentile)));
+			}
+			result.append("\n");
+			overallSuccessCount += ws.getSuccessCount();
+			overallErrorCount += ws.getErrorCount();
+			overallAssertionFailureCount += ws.getAssertionFailureCount();
+		}
+
+		final LatencyHistogram poolLatencyHistogram = getMergedLatencyHistogram(workerStatsList);
+		final boolean hasDurations = poolLatencyHistogram.getTotalCount() > 0;
+		result.append(String.format("%s;%d;%d;%d;;;%s;%s;%s",
+				"Overall",
+				overallSuccessCount,
+				overallErrorCount,
+				overallAssertionFailureCount,
+				(hasDurations ? formatDuration(Duration.ofNanos(poolLatencyHistogram.getMinimumNanos())) : ""),
+				(hasDurations ? formatDuration(Duration.ofNanos(poolLatencyHistogram.getAverageNanos())) : ""),
+				(hasDurations ? formatDuration(Duration.ofNanos(poolLatencyHistogram.getMaximumNanos())) : "")));
+		for (final double percentile : REPORTED_PERCENTILES) {
+			result.append(";").append(formatDuration(poolLatencyHistogram.getDurationAtPercentile(percentile)));
+		}
+		result.append("\n");
+		return result.toString();
+	}
+
+	public String getTimeSeriesCSV() {
+		if (timeSeriesRecorder == null) {
+			return "";
+		} else {
+			return timeSeriesRecorder.getTimeSeriesCSV();
+		}
+	}
+
+	private static String formatDuration(final Duration duration) {
+		return duration == null ? "" : DateUtilities.getShortHumanReadableTimespan(duration, true, false);
+	}
+
+	/**
+	 * Creates the next task of a worker. Called on the worker's own thread.
+	 *
+	 * The task is identified independently of the thread executing it: In the closed model by the
+	 * worker and its 1-based iteration, in the open model by worker 0 and the 1-based pool-wide
+	 * number of the task.
+	 */
+	protected abstract WorkerSimple<?> createWorker(WorkerStats workerStats, int taskWorkerId, long taskIteration) throws Exception;
+
+	/**
+	 * Starts the next task in asynchronous mode without blocking the calling dispatcher thread
+	 *
+	 * @param ioExecutor executor of the I/O threads, which may also be used to run the task itself
+	 * @param taskIteration 1-based pool-wide number of the task (worker 0)
+	 */
+	protected CompletableFuture<?> createAsyncTask(final Executor ioExecutor, final long taskIteration) throws Exception {
+		throw new Exception("Asynchronous execution is not supported by " + getClass().getSimpleName());
+	}
+
+	protected abstract boolean checkForSuccess(Object workerResult);
+
+	/**
+	 * Called once, when all workers have finished or were cancelled
+	 */
+	protected void closeResources() {
+		// Nothing to close by default
+	}
+
+	/**
+	 * @return true if the tasks of this pool can be regenerated from their worker and iteration, so
+	 *         failure examples name their task
+	 */
+	protected boolean isReproducible() {
+		return false;
+	}
+
+	/**
+	 * Category of a result without exception for the result breakdown, e.g. the HTTP status code
+	 */
+	protected String getResultCategory(final Object workerResult, final boolean success) {
+		return success ? "Success" : "Failure";
+	}
+
+	/**
+	 * @return details of a failed result without exception for the examples of the result breakdown, e.g. an error contained in the result
+	 */
+	protected String getFailureDetails(final Object workerResult) {
+		return null;
+	}
+
+	/**
+	 * Checks a successful result against additional assertions. Called on the thread which received
+	 * the result, so it must be cheap.
+	 *
+	 * @param durationNanos duration of the task, not including this check
+	 * @return null if all assertions hold
+	 */
+	protected ResponseAssertions.AssertionFailure checkAssertions(final Object workerResult, final long durationNanos) {
+		return null;
+	}
+
+	/**
+	 * Called for each result without exception on the thread recording into the given statistics,
+	 * e.g. to record the durations of parts of the task into additional statistics of the worker
+	 *
+	 * @param countInStatistics false for results within the ramp-up time
+	 */
+	protected void recordPartialResults(final WorkerStats workerStats, final Object workerResult, final boolean countInStatistics) {
+		// No partial results by default
+	}
+
+	/**
+	 * Called for each result without exception, which is counted in the statistics. May be called concurrently.
+	 */
+	protected void countResult(final Object workerResult, final boolean success) {
+		// Nothing to count by default
+	}
+}
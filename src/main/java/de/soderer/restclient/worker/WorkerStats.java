@@ -1,93 +1,98 @@
 package de.soderer.restclient.worker;
 
-import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Statistics of one worker. Recording is done only by the worker's own thread (single writer), so
+ * it needs neither locks nor CAS operations. Readers (table display, CSV export) use
+ * {@link #getSnapshot()} and {@link #addDurationsTo(LatencyHistogram)}, which never block the worker.
+ */
 public class WorkerStats {
 	private final int workerId;
-	private int successCount;
-	private int errorCount;
-	private Duration minimumDuration;
-	private Duration maximumDuration;
-	private Duration latestDuration;
-	private Boolean latestStatusWasSuccess = null;
-	private Duration averageExecutionDuration;
-	private long durationOverallMillis;
-	private int numberOfExecutions;
+	private final AtomicLong successCount = new AtomicLong(0);
+	private final AtomicLong errorCount = new AtomicLong(0);
+	/** Part of the errors, which were responses failing a response assertion */
+	private final AtomicLong assertionFailureCount = new AtomicLong(0);
+	/** Latest duration in nanos shifted left by one, lowest bit set on success, -1 if none yet */
+	private final AtomicLong latestResult = new AtomicLong(-1);
+	private final LatencyRecorder latencyRecorder = new LatencyRecorder();
 
 	public WorkerStats(final int workerId) {
 		this.workerId = workerId;
 	}
 
-	public synchronized void addSuccess(final Duration duration, final boolean countInStatistics) {
+	public void addSuccess(final long durationNanos, final boolean countInStatistics) {
 		// Latest result is always shown immediately, even during ramp-up
-		latestDuration = duration;
-		latestStatusWasSuccess = true;
+		latestResult.lazySet((Math.max(durationNanos, 0) << 1) | 1);
 
 		if (countInStatistics) {
-			successCount++;
-			updateDauer(duration);
+			latencyRecorder.record(durationNanos);
+			successCount.lazySet(successCount.get() + 1);
 		}
 	}
 
-	public synchronized void addError(final Duration duration, final boolean countInStatistics) {
+	public void addError(final long durationNanos, final boolean countInStatistics) {
 		// Latest result is always shown immediately, even during ramp-up
-		latestDuration = duration;
-		latestStatusWasSuccess = false;
+		latestResult.lazySet(Math.max(durationNanos, 0) << 1);
 
 		if (countInStatistics) {
-			errorCount++;
-			updateDauer(duration);
+			latencyRecorder.record(durationNanos);
+			errorCount.lazySet(errorCount.get() + 1);
 		}
 	}
 
-	private void updateDauer(final Duration duration) {
-		durationOverallMillis += duration.toMillis();
-		numberOfExecutions++;
+	/**
+	 * Error of a response failing an assertion, counted as error and additionally as assertion failure
+	 */
+	public void addAssertionFailure(final long durationNanos, final boolean countInStatistics) {
+		addError(durationNanos, countInStatistics);
 
-		if (minimumDuration == null) {
-			minimumDuration = duration;
-		} else {
-			minimumDuration = (duration.compareTo(minimumDuration) >= 0) ? minimumDuration : duration;
+		if (countInStatistics) {
+			assertionFailureCount.lazySet(assertionFailureCount.get() + 1);
 		}
+	}
 
-		averageExecutionDuration = Duration.ofMillis(durationOverallMillis / numberOfExecutions);
-
-		if (maximumDuration == null) {
-			maximumDuration = duration;
-		} else {
-			maximumDuration = (duration.compareTo(maximumDuration) >= 0) ? duration : maximumDuration;
-		}
+	/**
+	 * Adds the durations recorded by this worker to the given (e.g. pool-wide) histogram
+	 */
+	public void addDurationsTo(final LatencyHistogram targetHistogram) {
+		latencyRecorder.addTo(targetHistogram);
 	}
 
 	public int getWorkerId() {
 		return workerId;
 	}
 
-	public int getSuccessCount() {
-		return successCount;
-	}
-
-	public int getErrorCount() {
-		return errorCount;
-	}
-
-	public Duration getMinimumDuration() {
-		return minimumDuration;
-	}
-
-	public Duration getAverageDuration() {
-		return averageExecutionDuration;
+	public long getSuccessCount() {
+		return successCount.get();
 	}
 
-	public Duration getMaximumDuration() {
-		return maximumDuration;
+	public long getErrorCount() {
+		return errorCount.get();
 	}
 
-	public Duration getLatestDuration() {
-		return latestDuration;
+	public long getAssertionFailureCount() {
+		return assertionFailureCount.get();
 	}
 
-	public Boolean getLatestStatusWasSuccess() {
-		return latestStatusWasSuccess;
+	/**
+	 * Counts and minimum, average and maximum duration without copying the histogram buckets. The
+	 * percentiles of a worker are read by {@link #addDurationsTo(LatencyHistogram)} into a reused histogram.
+	 */
+	public WorkerStatsSnapshot getSnapshot() {
+		// Counts are read first, so the durations recorded before them are visible
+		final long success = successCount.get();
+		final long error = errorCount.get();
+		final long assertionFailure = assertionFailureCount.get();
+		final long latestResultValue = latestResult.get();
+		return new WorkerStatsSnapshot(workerId,
+				success,
+				error,
+				assertionFailure,
+				(latestResultValue < 0 ? -1 : latestResultValue >>> 1),
+				(latestResultValue < 0 ? null : (latestResultValue & 1) == 1),
+				latencyRecorder.getMinimumNanos(),
+				latencyRecorder.getTotalNanos(),
+				latencyRecorder.getMaximumNanos());
 	}
 }
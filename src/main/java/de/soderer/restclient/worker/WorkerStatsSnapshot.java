@@ -0,0 +1,77 @@
+package de.soderer.restclient.worker;
+
+import java.time.Duration;
+
+/**
+ * Immutable copy of the counts and the minimum, average and maximum duration of a
+ * {@link WorkerStats} at one point in time
+ */
+public class WorkerStatsSnapshot {
+	private final int workerId;
+	private final long successCount;
+	private final long errorCount;
+	private final long assertionFailureCount;
+	private final long latestDurationNanos;
+	private final Boolean latestStatusWasSuccess;
+	private final long minimumNanos;
+	private final long totalNanos;
+	private final long maximumNanos;
+
+	public WorkerStatsSnapshot(final int workerId, final long successCount, final long errorCount, final long assertionFailureCount, final long latestDurationNanos, final Boolean latestStatusWasSuccess, final long minimumNanos, final long totalNanos, final long maximumNanos) {
+		this.workerId = workerId;
+		this.successCount = successCount;
+		this.errorCount = errorCount;
+		this.assertionFailureCount = assertionFailureCount;
+		this.latestDurationNanos = latestDurationNanos;
+		this.latestStatusWasSuccess = latestStatusWasSuccess;
+		this.minimumNanos = minimumNanos;
+		this.totalNanos = totalNanos;
+		this.maximumNanos = maximumNanos;
+	}
+
+	public int getWorkerId() {
+		return workerId;
+	}
+
+	public long getSuccessCount() {
+		return successCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * @return part of the errors, which were responses failing a response assertion
+	 */
+	public long getAssertionFailureCount() {
+		return assertionFailureCount;
+	}
+
+	/**
+	 * @return number of recorded durations, each counted success and error has one
+	 */
+	public long getDurationCount() {
+		return successCount + errorCount;
+	}
+
+	public Duration getMinimumDuration() {
+		return getDurationCount() == 0 ? null : Duration.ofNanos(minimumNanos);
+	}
+
+	public Duration getAverageDuration() {
+		return getDurationCount() == 0 ? null : Duration.ofNanos(totalNanos / getDurationCount());
+	}
+
+	public Duration getMaximumDuration() {
+		return getDurationCount() == 0 ? null : Duration.ofNanos(maximumNanos);
+	}
+
+	public Duration getLatestDuration() {
+		return latestDurationNanos < 0 ? null : Duration.ofNanos(latestDurationNanos);
+	}
+
+	public Boolean getLatestStatusWasSuccess() {
+		return latestStatusWasSuccess;
+	}
+}
@@ -0,0 +1,96 @@
+package de.soderer.restclient.helper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+import de.soderer.json.JsonReader;
+import de.soderer.json.JsonWriter;
+
+/**
+ * Compares the throughput and the allocated memory of {@link JsonStreamFormatter} with the round
+ * trip through a JsonNode tree (JsonReader and JsonWriter), which the response view used before.
+ *
+ * Usage: JsonStreamFormatterBenchmark [megabytesOfJson (default: 30)]
+ */
+public class JsonStreamFormatterBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 5;
+
+	@FunctionalInterface
+	private interface Formatter {
+		String format(String json) throws Exception;
+	}
+
+	public static void main(final String[] arguments) throws Exception {
+		final int megabytes = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 30;
+		final String json = createJson(megabytes * 1024L * 1024L);
+		final double jsonMegabytes = json.length() / 1024.0 / 1024.0;
+		System.out.println(String.format(Locale.ENGLISH, "JSON data: %.1f MB (characters)", jsonMegabytes));
+
+		measure("JsonStreamFormatter.format", json, jsonMegabytes, JsonStreamFormatter::format);
+		measure("JsonReader/JsonWriter round trip", json, jsonMegabytes, value -> JsonWriter.getJsonItemString(JsonReader.readJsonItemString(value)));
+	}
+
+	private static void measure(final String title, final String json, final double jsonMegabytes, final Formatter formatter) throws Exception {
+		final double[] megabytesPerSecond = new double[MEASURED_ROUNDS];
+		final long[] allocatedBytes = new long[MEASURED_ROUNDS];
+		long outputLength = 0;
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			final long allocatedBytesBefore = getAllocatedBytes();
+			final long start = System.nanoTime();
+			final String formattedJson = formatter.format(json);
+			final long end = System.nanoTime();
+			final long allocatedBytesAfter = getAllocatedBytes();
+			outputLength += formattedJson.length();
+			if (round >= WARMUP_ROUNDS) {
+				megabytesPerSecond[round - WARMUP_ROUNDS] = jsonMegabytes * 1_000_000_000.0 / (end - start);
+				allocatedBytes[round - WARMUP_ROUNDS] = allocatedBytesBefore < 0 ? -1 : allocatedBytesAfter - allocatedBytesBefore;
+			}
+		}
+
+		Arrays.sort(megabytesPerSecond);
+		Arrays.sort(allocatedBytes);
+		final long medianAllocatedBytes = allocatedBytes[MEASURED_ROUNDS / 2];
+		System.out.println(String.format(Locale.ENGLISH, "%s: %.1f MB/s (median), %s allocated per run, %d characters written",
+				title,
+				megabytesPerSecond[MEASURED_ROUNDS / 2],
+				(medianAllocatedBytes < 0 ? "unknown" : String.format(Locale.ENGLISH, "%.1f MB", medianAllocatedBytes / 1024.0 / 1024.0)),
+				outputLength / (WARMUP_ROUNDS + MEASURED_ROUNDS)));
+	}
+
+	/**
+	 * @return bytes allocated by the current thread so far, -1 if not available on this JVM
+	 */
+	private static long getAllocatedBytes() {
+		final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadMXBean).getCurrentThreadAllocatedBytes();
+		} else {
+			return -1;
+		}
+	}
+
+	/**
+	 * Unformatted array of objects with strings, escapes, numbers, literals and nested arrays, like a
+	 * typical REST response
+	 */
+	private static String createJson(final long minimumLength) {
+		final StringBuilder json = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 16, minimumLength + 1024));
+		json.append("[");
+		for (int i = 0; json.length() < minimumLength; i++) {
+			if (i > 0) {
+				json.append(",");
+			}
+			json.append("{\"id\":").append(i)
+				.append(",\"name\":\"Item ").append(i).append(" \\\"quoted\\\" \\u00e4\"")
+				.append(",\"price\":").append(i % 1000).append(".").append(i % 100).append("e-1")
+				.append(",\"active\":").append(i % 2 == 0)
+				.append(",\"parent\":null")
+				.append(",\"tags\":[\"a\",\"b\",{\"level\":").append(i % 7).append("}]}");
+		}
+		json.append("]");
+		return json.toString();
+	}
+}
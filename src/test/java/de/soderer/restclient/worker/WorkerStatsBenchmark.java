@@ -0,0 +1,105 @@
+package de.soderer.restclient.worker;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the cost of recording one result in {@link WorkerStats} on the worker thread, once
+ * without readers and once while another thread continuously reads snapshots and durations like
+ * the worker pool dialog does.
+ *
+ * Usage: WorkerStatsBenchmark [maximumNanosPerRecord (default: 100)]
+ * Exits with code 1, if the median of a measurement exceeds the maximum.
+ */
+public class WorkerStatsBenchmark {
+	private static final int RECORDS_PER_ROUND = 20_000_000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	/** Durations between 50 microseconds and about 1 second, so many different buckets are hit */
+	private static final long[] DURATIONS = new long[4096];
+	static {
+		long value = 12345;
+		for (int i = 0; i < DURATIONS.length; i++) {
+			value = value * 6364136223846793005L + 1442695040888963407L;
+			DURATIONS[i] = 50_000 + ((value >>> 33) % 1_000_000_000L);
+		}
+	}
+
+	public static void main(final String[] arguments) throws Exception {
+		final double maximumNanosPerRecord = arguments.length > 0 ? Double.parseDouble(arguments[0]) : 100;
+
+		final double withoutReader = measure(false);
+		final double withReader = measure(true);
+
+		System.out.println(String.format(Locale.ENGLISH, "WorkerStats.addSuccess/addError without reader: %.1f ns per record (median)", withoutReader));
+		System.out.println(String.format(Locale.ENGLISH, "WorkerStats.addSuccess/addError with reader:    %.1f ns per record (median)", withReader));
+
+		if (withoutReader > maximumNanosPerRecord || withReader > maximumNanosPerRecord) {
+			System.out.println(String.format(Locale.ENGLISH, "Recording exceeds the maximum of %.1f ns per record", maximumNanosPerRecord));
+			System.exit(1);
+		}
+	}
+
+	private static double measure(final boolean withReader) throws Exception {
+		final WorkerStats workerStats = new WorkerStats(1);
+
+		final AtomicBoolean running = new AtomicBoolean(true);
+		Thread readerThread = null;
+		if (withReader) {
+			readerThread = new Thread(() -> {
+				final LatencyHistogram latencyHistogram = new LatencyHistogram();
+				long readCount = 0;
+				while (running.get()) {
+					readCount += workerStats.getSnapshot().getDurationCount();
+					latencyHistogram.reset();
+					workerStats.addDurationsTo(latencyHistogram);
+					readCount += latencyHistogram.getTotalCount();
+				}
+				if (readCount < 0) {
+					System.out.println(readCount);
+				}
+			}, "WorkerStatsBenchmark reader");
+			readerThread.setDaemon(true);
+			readerThread.start();
+		}
+
+		final double[] nanosPerRecord = new double[MEASURED_ROUNDS];
+		try {
+			for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+				final long start = System.nanoTime();
+				record(workerStats);
+				final long end = System.nanoTime();
+				if (round >= WARMUP_ROUNDS) {
+					nanosPerRecord[round - WARMUP_ROUNDS] = (end - start) / (double) RECORDS_PER_ROUND;
+				}
+			}
+		} finally {
+			running.set(false);
+			if (readerThread != null) {
+				readerThread.join();
+			}
+		}
+
+		// The counts are read, so the recording cannot be eliminated as dead code
+		final long expectedCount = (long) RECORDS_PER_ROUND * (WARMUP_ROUNDS + MEASURED_ROUNDS);
+		if (workerStats.getSuccessCount() + workerStats.getErrorCount() != expectedCount) {
+			throw new Exception("Unexpected number of records: " + (workerStats.getSuccessCount() + workerStats.getErrorCount()) + " instead of " + expectedCount);
+		}
+
+		Arrays.sort(nanosPerRecord);
+		return nanosPerRecord[MEASURED_ROUNDS / 2];
+	}
+
+	private static void record(final WorkerStats workerStats) {
+		for (int i = 0; i < RECORDS_PER_ROUND; i++) {
+			final long durationNanos = DURATIONS[i & (DURATIONS.length - 1)];
+			if ((i & 15) == 0) {
+				workerStats.addError(durationNanos, true);
+			} else {
+				workerStats.addSuccess(durationNanos, true);
+			}
+		}
+	}
+}